@@ -0,0 +1,102 @@
+package fr.projet.policy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Arbre préfixe figé des mots des dictionnaires, à plat dans trois tableaux (parcours en largeur) :
+ * les enfants d'un nœud sont contigus et triés, ceux du nœud suivant viennent juste après.
+ * La recherche d'un enfant est une dichotomie sur labels[firstChild[n] .. firstChild[n + 1]) :
+ * aucun objet par nœud, aucune allocation pendant un parcours.
+ */
+final class DictionaryTrie {
+
+    static final int ROOT = 0;
+    static final int NONE = -1;
+
+    private final char[] labels;
+    private final int[] firstChild;
+    // Rang du mot qui se termine sur le nœud (1 = le plus courant), 0 si aucun
+    private final int[] ranks;
+
+    private DictionaryTrie(char[] labels, int[] firstChild, int[] ranks) {
+        this.labels = labels;
+        this.firstChild = firstChild;
+        this.ranks = ranks;
+    }
+
+    // Nœud temporaire de construction
+    private static final class Node {
+        final TreeMap<Character, Node> children = new TreeMap<>();
+        int rank;
+    }
+
+    /**
+     * Construit l'arbre à partir des mots (en minuscules) et de leur rang. Un mot présent dans
+     * plusieurs dictionnaires garde son meilleur rang.
+     */
+    static DictionaryTrie build(Map<String, Integer> words) {
+        Node root = new Node();
+        int nodeCount = 1;
+        for (Map.Entry<String, Integer> entry : words.entrySet()) {
+            Node node = root;
+            for (int i = 0; i < entry.getKey().length(); i++) {
+                Node child = node.children.get(entry.getKey().charAt(i));
+                if (child == null) {
+                    child = new Node();
+                    node.children.put(entry.getKey().charAt(i), child);
+                    nodeCount++;
+                }
+                node = child;
+            }
+            int rank = entry.getValue();
+            node.rank = node.rank == 0 ? rank : Math.min(node.rank, rank);
+        }
+
+        char[] labels = new char[nodeCount];
+        int[] firstChild = new int[nodeCount + 1];
+        int[] ranks = new int[nodeCount];
+        List<Node> order = new ArrayList<>(nodeCount);
+        order.add(root);
+        int next = 1;
+        for (int n = 0; n < order.size(); n++) {
+            Node node = order.get(n);
+            ranks[n] = node.rank;
+            firstChild[n] = next;
+            for (Map.Entry<Character, Node> child : node.children.entrySet()) {
+                labels[next++] = child.getKey();
+                order.add(child.getValue());
+            }
+        }
+        firstChild[nodeCount] = next;
+        return new DictionaryTrie(labels, firstChild, ranks);
+    }
+
+    // Enfant de node étiqueté c, ou NONE
+    int child(int node, char c) {
+        int low = firstChild[node];
+        int high = firstChild[node + 1] - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            char label = labels[mid];
+            if (label < c) {
+                low = mid + 1;
+            } else if (label > c) {
+                high = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return NONE;
+    }
+
+    int rank(int node) {
+        return ranks[node];
+    }
+
+    int size() {
+        return labels.length;
+    }
+}
@@ -0,0 +1,113 @@
+package fr.projet.policy;
+
+import java.util.Arrays;
+
+/**
+ * Disposition de clavier pour la détection des suites de touches voisines (« azerty », « qsdfgh »,
+ * « 7894 »). Chaque caractère Latin-1 est associé à sa touche (majuscules et caractères obtenus
+ * avec Maj compris) ; le voisinage se déduit des coordonnées des touches.
+ *
+ * Sur un clavier principal, chaque rangée est décalée d'une demi-touche vers la droite par rapport
+ * à la précédente : une touche a six voisines. Sur le pavé numérique, la grille est droite : huit voisines.
+ */
+final class KeyboardLayout {
+
+    static final int NOT_ADJACENT = -1;
+
+    private static final int CHARS = 256;
+
+    private final boolean slanted;
+    private final short[] keyOf = new short[CHARS];
+    private final byte[] keyX;
+    private final byte[] keyY;
+    private final int keyCount;
+    private final double averageDegree;
+
+    private KeyboardLayout(boolean slanted, String[] rows, String[] shiftedRows, int[] offsets) {
+        this.slanted = slanted;
+        Arrays.fill(keyOf, (short) -1);
+        byte[] xs = new byte[CHARS];
+        byte[] ys = new byte[CHARS];
+        int keys = 0;
+        for (int y = 0; y < rows.length; y++) {
+            for (int col = 0; col < rows[y].length(); col++) {
+                char c = rows[y].charAt(col);
+                if (c == ' ') {
+                    continue;
+                }
+                xs[keys] = (byte) (offsets[y] + col);
+                ys[keys] = (byte) y;
+                keyOf[c] = (short) keys;
+                if (shiftedRows != null && shiftedRows[y].charAt(col) != ' ') {
+                    keyOf[shiftedRows[y].charAt(col)] = (short) keys;
+                }
+                keys++;
+            }
+        }
+        this.keyX = Arrays.copyOf(xs, keys);
+        this.keyY = Arrays.copyOf(ys, keys);
+        this.keyCount = keys;
+        long neighbours = 0;
+        for (int a = 0; a < keys; a++) {
+            for (int b = 0; b < keys; b++) {
+                if (offsetDirection(keyX[b] - keyX[a], keyY[b] - keyY[a]) != NOT_ADJACENT) {
+                    neighbours++;
+                }
+            }
+        }
+        this.averageDegree = (double) neighbours / keys;
+    }
+
+    static KeyboardLayout azerty() {
+        return new KeyboardLayout(true,
+                new String[] { "²&é\"'(-è_çà)=", "azertyuiop^$", "qsdfghjklmù*", "<wxcvbn,;:!" },
+                new String[] { " 1234567890°+", "AZERTYUIOP¨£", "QSDFGHJKLM%µ", ">WXCVBN?./§" },
+                new int[] { 0, 1, 1, 0 });
+    }
+
+    static KeyboardLayout qwerty() {
+        return new KeyboardLayout(true,
+                new String[] { "`1234567890-=", "qwertyuiop[]\\", "asdfghjkl;'", "zxcvbnm,./" },
+                new String[] { "~!@#$%^&*()_+", "QWERTYUIOP{}|", "ASDFGHJKL:\"", "ZXCVBNM<>?" },
+                new int[] { 0, 1, 1, 1 });
+    }
+
+    static KeyboardLayout keypad() {
+        return new KeyboardLayout(false,
+                new String[] { " /*-", "789+", "456 ", "123 ", "0 . " },
+                null,
+                new int[] { 0, 0, 0, 0, 0 });
+    }
+
+    // Touche du caractère c, -1 si le caractère n'est pas sur ce clavier
+    int key(char c) {
+        return c < CHARS ? keyOf[c] : -1;
+    }
+
+    /**
+     * Direction de la touche to vue depuis la touche from (0 à 8), NOT_ADJACENT si elles ne sont
+     * pas voisines. Un changement de direction dans une suite compte comme un virage.
+     */
+    int direction(int from, int to) {
+        return offsetDirection(keyX[to] - keyX[from], keyY[to] - keyY[from]);
+    }
+
+    private int offsetDirection(int dx, int dy) {
+        if (dx == 0 && dy == 0 || Math.abs(dx) > 1 || Math.abs(dy) > 1) {
+            return NOT_ADJACENT;
+        }
+        // Rangées décalées : au-dessus, les voisines sont en x et x + 1 ; en dessous, en x - 1 et x
+        if (slanted && (dy == -1 && dx == -1 || dy == 1 && dx == 1)) {
+            return NOT_ADJACENT;
+        }
+        return (dy + 1) * 3 + dx + 1;
+    }
+
+    int keyCount() {
+        return keyCount;
+    }
+
+    double averageDegree() {
+        return averageDegree;
+    }
+}
@@ -0,0 +1,136 @@
+package fr.projet.policy;
+
+/**
+ * Règles de force d'un mot de passe : longueur minimale et classes de caractères exigées
+ * (majuscule, minuscule, chiffre, caractère spécial parmi un ensemble configurable).
+ *
+ * La classe de chaque caractère (UTF-16) est précalculée dans une table de 64 Ko : la vérification
+ * fait un accès à la table par caractère et s'arrête dès que toutes les classes exigées sont vues.
+ * Une lettre ou un chiffre n'est jamais compté comme spécial, même s'il figure dans l'ensemble.
+ *
+ * Les classes ne suffisent pas (« Password123!! » les a toutes) : avec un {@link PasswordStrengthEstimator},
+ * un mot de passe qui les respecte doit aussi atteindre un score minimal, calculé seulement dans ce cas.
+ */
+public class PasswordPolicy {
+
+    public static final int DEFAULT_MIN_LENGTH = 12;
+    public static final String DEFAULT_SPECIAL_CHARACTERS = "!@#$%^&*()-+";
+    // Au moins 10^8 essais
+    public static final int DEFAULT_MIN_SCORE = 3;
+
+    static final byte UPPERCASE = 1;
+    static final byte LOWERCASE = 1 << 1;
+    static final byte DIGIT = 1 << 2;
+    static final byte SPECIAL = 1 << 3;
+
+    // Majuscules, minuscules et chiffres selon Character, communs à toutes les politiques
+    private static final byte[] LETTERS_AND_DIGITS = new byte[Character.MAX_VALUE + 1];
+
+    static {
+        for (int c = 0; c <= Character.MAX_VALUE; c++) {
+            if (Character.isUpperCase(c)) {
+                LETTERS_AND_DIGITS[c] = UPPERCASE;
+            } else if (Character.isLowerCase(c)) {
+                LETTERS_AND_DIGITS[c] = LOWERCASE;
+            } else if (Character.isDigit(c)) {
+                LETTERS_AND_DIGITS[c] = DIGIT;
+            }
+        }
+    }
+
+    private final int minLength;
+    private final String specialCharacters;
+    private final byte required;
+    private final byte[] classes;
+    private final PasswordStrengthEstimator estimator;
+    private final int minScore;
+
+    // Classes de caractères seulement, sans estimation
+    public PasswordPolicy(int minLength, boolean requireUppercase, boolean requireLowercase, boolean requireDigit,
+            boolean requireSpecial, String specialCharacters) {
+        this(minLength, requireUppercase, requireLowercase, requireDigit, requireSpecial, specialCharacters, null, 0);
+    }
+
+    public PasswordPolicy(int minLength, boolean requireUppercase, boolean requireLowercase, boolean requireDigit,
+            boolean requireSpecial, String specialCharacters, PasswordStrengthEstimator estimator, int minScore) {
+        if (minLength < 0) {
+            throw new IllegalArgumentException("Longueur minimale négative : " + minLength);
+        }
+        if (requireSpecial && (specialCharacters == null || specialCharacters.isEmpty())) {
+            throw new IllegalArgumentException("Caractère spécial exigé sans ensemble de caractères spéciaux");
+        }
+        if (minScore < 0 || minScore > 4) {
+            throw new IllegalArgumentException("Score minimal hors de 0..4 : " + minScore);
+        }
+        this.minLength = minLength;
+        this.specialCharacters = specialCharacters == null ? "" : specialCharacters;
+        this.required = (byte) ((requireUppercase ? UPPERCASE : 0) | (requireLowercase ? LOWERCASE : 0)
+                | (requireDigit ? DIGIT : 0) | (requireSpecial ? SPECIAL : 0));
+        this.classes = LETTERS_AND_DIGITS.clone();
+        for (int i = 0; i < this.specialCharacters.length(); i++) {
+            char c = this.specialCharacters.charAt(i);
+            if (classes[c] == 0) {
+                classes[c] = SPECIAL;
+            }
+        }
+        this.estimator = estimator;
+        this.minScore = estimator == null ? 0 : minScore;
+    }
+
+    /**
+     * 12 caractères au moins, dont une majuscule, une minuscule, un chiffre et un caractère de !@#$%^&*()-+,
+     * et un score d'au moins 3 avec les dictionnaires embarqués.
+     */
+    public static PasswordPolicy defaults() {
+        return new PasswordPolicy(DEFAULT_MIN_LENGTH, true, true, true, true, DEFAULT_SPECIAL_CHARACTERS,
+                PasswordStrengthEstimator.standard(), DEFAULT_MIN_SCORE);
+    }
+
+    public boolean isStrong(CharSequence password) {
+        int length = password.length();
+        if (length < minLength) {
+            return false;
+        }
+        int seen = 0;
+        for (int i = 0; i < length && (seen & required) != required; i++) {
+            seen |= classes[password.charAt(i)];
+        }
+        if ((seen & required) != required) {
+            return false;
+        }
+        return minScore == 0 || estimator.score(password) >= minScore;
+    }
+
+    // Score de 0 à 4 de l'estimateur, -1 si la politique n'en a pas
+    public int score(CharSequence password) {
+        return estimator == null ? -1 : estimator.score(password);
+    }
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public String getSpecialCharacters() {
+        return specialCharacters;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public boolean isUppercaseRequired() {
+        return (required & UPPERCASE) != 0;
+    }
+
+    public boolean isLowercaseRequired() {
+        return (required & LOWERCASE) != 0;
+    }
+
+    public boolean isDigitRequired() {
+        return (required & DIGIT) != 0;
+    }
+
+    public boolean isSpecialRequired() {
+        return (required & SPECIAL) != 0;
+    }
+}
@@ -0,0 +1,18 @@
+package fr.projet.policy;
+
+import org.springframework.boot.autoconfigure.AutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+
+// Bean PasswordPolicy dans tout service qui embarque la bibliothèque, sauf s'il déclare le sien
+@AutoConfiguration
+@EnableConfigurationProperties(PasswordPolicyProperties.class)
+public class PasswordPolicyAutoConfiguration {
+
+    @Bean
+    @ConditionalOnMissingBean
+    public PasswordPolicy passwordPolicy(PasswordPolicyProperties properties) {
+        return properties.toPolicy();
+    }
+}
@@ -0,0 +1,81 @@
+package fr.projet.policy;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * Politique de force (password.policy.*). Les valeurs par défaut sont les règles historiques ;
+ * tous les services doivent avoir la même configuration pour rendre le même verdict.
+ * min-score à 0 désactive l'estimation par dictionnaires.
+ */
+@ConfigurationProperties("password.policy")
+public class PasswordPolicyProperties {
+
+    private int minLength = PasswordPolicy.DEFAULT_MIN_LENGTH;
+    private boolean requireUppercase = true;
+    private boolean requireLowercase = true;
+    private boolean requireDigit = true;
+    private boolean requireSpecial = true;
+    private String specialCharacters = PasswordPolicy.DEFAULT_SPECIAL_CHARACTERS;
+    private int minScore = PasswordPolicy.DEFAULT_MIN_SCORE;
+
+    public int getMinLength() {
+        return minLength;
+    }
+
+    public void setMinLength(int minLength) {
+        this.minLength = minLength;
+    }
+
+    public boolean isRequireUppercase() {
+        return requireUppercase;
+    }
+
+    public void setRequireUppercase(boolean requireUppercase) {
+        this.requireUppercase = requireUppercase;
+    }
+
+    public boolean isRequireLowercase() {
+        return requireLowercase;
+    }
+
+    public void setRequireLowercase(boolean requireLowercase) {
+        this.requireLowercase = requireLowercase;
+    }
+
+    public boolean isRequireDigit() {
+        return requireDigit;
+    }
+
+    public void setRequireDigit(boolean requireDigit) {
+        this.requireDigit = requireDigit;
+    }
+
+    public boolean isRequireSpecial() {
+        return requireSpecial;
+    }
+
+    public void setRequireSpecial(boolean requireSpecial) {
+        this.requireSpecial = requireSpecial;
+    }
+
+    public String getSpecialCharacters() {
+        return specialCharacters;
+    }
+
+    public void setSpecialCharacters(String specialCharacters) {
+        this.specialCharacters = specialCharacters;
+    }
+
+    public int getMinScore() {
+        return minScore;
+    }
+
+    public void setMinScore(int minScore) {
+        this.minScore = minScore;
+    }
+
+    public PasswordPolicy toPolicy() {
+        return new PasswordPolicy(minLength, requireUppercase, requireLowercase, requireDigit, requireSpecial,
+                specialCharacters, minScore > 0 ? PasswordStrengthEstimator.standard() : null, minScore);
+    }
+}
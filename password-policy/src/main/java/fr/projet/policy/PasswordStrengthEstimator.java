@@ -0,0 +1,366 @@
+package fr.projet.policy;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Year;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Estimation du nombre d'essais nécessaires pour deviner un mot de passe, dans l'esprit de zxcvbn :
+ * le mot de passe est découpé en motifs (mot de dictionnaire, éventuellement en majuscules ou en
+ * langage l33t, suite de touches voisines, suite « abc » ou « 321 », caractère répété, année ou date),
+ * chaque motif coûte un nombre d'essais, et la découpe retenue est la moins chère. Ce qui n'est couvert
+ * par aucun motif coûte 10 essais par caractère.
+ *
+ * Simplifications par rapport à zxcvbn : pas de terme factoriel sur le nombre de motifs, pas de mots
+ * inversés ni de motifs répétés de plusieurs caractères.
+ *
+ * Le calcul est une programmation dynamique sur les positions, en log10, dans un tableau réutilisé
+ * par thread : aucune allocation par appel ni par caractère. Les dictionnaires sont chargés une fois
+ * dans un {@link DictionaryTrie}.
+ */
+public final class PasswordStrengthEstimator {
+
+    // Au-delà, les caractères suivants sont comptés en force brute
+    static final int MAX_SCORED_LENGTH = 128;
+
+    private static final String[] STANDARD_DICTIONARIES = { "passwords.txt", "names.txt", "words.txt" };
+
+    private static final double LOG10_BRUTEFORCE_PER_CHAR = 1;
+    // Minimum d'essais d'un motif, comme zxcvbn : 10 pour un caractère, 50 au-delà
+    private static final double LOG10_MIN_SINGLE_CHAR = 1;
+    private static final double LOG10_MIN_MULTI_CHAR = Math.log10(50);
+    private static final double LOG10_2 = Math.log10(2);
+    private static final int MIN_YEAR_SPACE = 20;
+    private static final int REFERENCE_YEAR = Year.now().getValue();
+    private static final int MAX_SPATIAL_LENGTH = 32;
+
+    // Substitutions l33t : caractère lu -> lettre qu'il remplace (deux lectures possibles au plus)
+    private static final char[] L33T = new char[128];
+    private static final char[] L33T_ALTERNATIVE = new char[128];
+
+    static {
+        String from = "4@8({[<3691!|0$57+%2";
+        String to = "aabcccceggiiiossttxz";
+        for (int i = 0; i < from.length(); i++) {
+            L33T[from.charAt(i)] = to.charAt(i);
+        }
+        L33T_ALTERNATIVE['1'] = 'l';
+        L33T_ALTERNATIVE['|'] = 'l';
+    }
+
+    private final DictionaryTrie dictionary;
+    private final KeyboardLayout[] keyboards;
+    private final ThreadLocal<double[]> scratch = ThreadLocal.withInitial(() -> new double[MAX_SCORED_LENGTH + 1]);
+
+    PasswordStrengthEstimator(DictionaryTrie dictionary, KeyboardLayout... keyboards) {
+        this.dictionary = dictionary;
+        this.keyboards = keyboards;
+    }
+
+    // Dictionnaires embarqués (mots de passe courants, prénoms et noms, mots courants), claviers azerty, qwerty et pavé numérique
+    public static PasswordStrengthEstimator standard() {
+        return Standard.INSTANCE;
+    }
+
+    // Chargement au premier appel seulement
+    private static final class Standard {
+        static final PasswordStrengthEstimator INSTANCE = new PasswordStrengthEstimator(
+                DictionaryTrie.build(loadDictionaries(STANDARD_DICTIONARIES)),
+                KeyboardLayout.azerty(), KeyboardLayout.qwerty(), KeyboardLayout.keypad());
+    }
+
+    /**
+     * Mots des dictionnaires (un par ligne, du plus courant au moins courant, lignes « # » ignorées),
+     * avec leur rang dans leur dictionnaire ; le meilleur rang l'emporte.
+     */
+    static Map<String, Integer> loadDictionaries(String... resources) {
+        Map<String, Integer> ranks = new HashMap<>();
+        for (String resource : resources) {
+            try (InputStream in = PasswordStrengthEstimator.class.getResourceAsStream("dictionaries/" + resource)) {
+                if (in == null) {
+                    throw new IllegalStateException("Dictionnaire introuvable : " + resource);
+                }
+                BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+                int rank = 0;
+                for (String line; (line = reader.readLine()) != null;) {
+                    String word = line.trim().toLowerCase(Locale.ROOT);
+                    if (word.isEmpty() || word.startsWith("#")) {
+                        continue;
+                    }
+                    ranks.merge(word, ++rank, Math::min);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException("Lecture du dictionnaire " + resource, e);
+            }
+        }
+        return ranks;
+    }
+
+    /**
+     * Score de 0 (deviné en moins de 10^3 essais) à 4 (au moins 10^10 essais), mêmes seuils que zxcvbn.
+     */
+    public int score(CharSequence password) {
+        double log10Guesses = log10Guesses(password);
+        if (log10Guesses < 3) {
+            return 0;
+        }
+        if (log10Guesses < 6) {
+            return 1;
+        }
+        if (log10Guesses < 8) {
+            return 2;
+        }
+        return log10Guesses < 10 ? 3 : 4;
+    }
+
+    // log10 du nombre d'essais de la découpe la moins chère
+    public double log10Guesses(CharSequence password) {
+        int length = Math.min(password.length(), MAX_SCORED_LENGTH);
+        // best[k] : coût minimal des k premiers caractères ; définitif quand la position k est atteinte
+        double[] best = scratch.get();
+        best[0] = 0;
+        for (int k = 1; k <= length; k++) {
+            best[k] = Double.MAX_VALUE;
+        }
+        for (int i = 0; i < length; i++) {
+            relax(best, i + 1, best[i] + LOG10_BRUTEFORCE_PER_CHAR);
+            matchDictionary(password, i, i, length, DictionaryTrie.ROOT, 0, 0, 0, best);
+            matchRepeat(password, i, length, best);
+            matchSequence(password, i, length, best);
+            for (KeyboardLayout keyboard : keyboards) {
+                matchSpatial(password, i, length, keyboard, best);
+            }
+            matchYearAndDate(password, i, length, best);
+        }
+        return best[length] + (password.length() - length) * LOG10_BRUTEFORCE_PER_CHAR;
+    }
+
+    private static void relax(double[] best, int end, double cost) {
+        if (cost < best[end]) {
+            best[end] = cost;
+        }
+    }
+
+    // Motif password[start, end) de log10Guesses essais, après le meilleur découpage de password[0, start)
+    private static void record(double[] best, int start, int end, double log10Guesses) {
+        double minimum = end - start == 1 ? LOG10_MIN_SINGLE_CHAR : LOG10_MIN_MULTI_CHAR;
+        relax(best, end, best[start] + Math.max(log10Guesses, minimum));
+    }
+
+    /**
+     * Parcours de l'arbre à partir de start : chaque caractère est lu en minuscule, puis sous ses lectures
+     * l33t. Les mots rencontrés coûtent leur rang, multiplié par les variantes de casse et de substitution.
+     */
+    private void matchDictionary(CharSequence password, int start, int position, int length, int node,
+            int uppercase, int lowercase, int substitutions, double[] best) {
+        char c = password.charAt(position);
+        char lower = Character.toLowerCase(c);
+        int upper = Character.isUpperCase(c) ? 1 : 0;
+        int lowerLetter = Character.isLowerCase(c) ? 1 : 0;
+        int child = dictionary.child(node, lower);
+        if (child != DictionaryTrie.NONE) {
+            visit(password, start, position, length, child, uppercase + upper, lowercase + lowerLetter, substitutions, best);
+        }
+        if (c < L33T.length) {
+            char substitute = L33T[c];
+            if (substitute != 0 && (child = dictionary.child(node, substitute)) != DictionaryTrie.NONE) {
+                visit(password, start, position, length, child, uppercase, lowercase, substitutions + 1, best);
+            }
+            substitute = L33T_ALTERNATIVE[c];
+            if (substitute != 0 && (child = dictionary.child(node, substitute)) != DictionaryTrie.NONE) {
+                visit(password, start, position, length, child, uppercase, lowercase, substitutions + 1, best);
+            }
+        }
+    }
+
+    private void visit(CharSequence password, int start, int position, int length, int node,
+            int uppercase, int lowercase, int substitutions, double[] best) {
+        int rank = dictionary.rank(node);
+        if (rank > 0) {
+            double log10Guesses = Math.log10(rank)
+                    + log10UppercaseVariations(password, start, position, uppercase, lowercase)
+                    + substitutions * LOG10_2;
+            record(best, start, position + 1, log10Guesses);
+        }
+        if (position + 1 < length) {
+            matchDictionary(password, start, position + 1, length, node, uppercase, lowercase, substitutions, best);
+        }
+    }
+
+    // Tout en minuscules : 1 ; majuscule initiale ou finale seule, ou tout en majuscules : 2 ; sinon combinaisons
+    private static double log10UppercaseVariations(CharSequence password, int start, int last, int uppercase, int lowercase) {
+        if (uppercase == 0) {
+            return 0;
+        }
+        if (lowercase == 0 || uppercase == 1
+                && (Character.isUpperCase(password.charAt(start)) || Character.isUpperCase(password.charAt(last)))) {
+            return LOG10_2;
+        }
+        double variations = 0;
+        for (int k = 1; k <= Math.min(uppercase, lowercase); k++) {
+            variations += binomial(uppercase + lowercase, k);
+        }
+        return Math.log10(variations);
+    }
+
+    // « aaa », « !!!! » : le caractère puis le nombre de répétitions
+    private static void matchRepeat(CharSequence password, int start, int length, double[] best) {
+        char c = password.charAt(start);
+        int end = start + 1;
+        while (end < length && password.charAt(end) == c) {
+            end++;
+            record(best, start, end, Math.log10(10.0 * (end - start)));
+        }
+    }
+
+    // « abcd », « 9876 », « aceg » : pas constant (au plus 5) dans une même classe de caractères
+    private static void matchSequence(CharSequence password, int start, int length, double[] best) {
+        if (start + 2 >= length) {
+            return;
+        }
+        char first = password.charAt(start);
+        int delta = password.charAt(start + 1) - first;
+        if (delta == 0 || Math.abs(delta) > 5) {
+            return;
+        }
+        double log10Base;
+        if ("aAzZ019".indexOf(first) >= 0) {
+            log10Base = Math.log10(4);
+        } else if (Character.isDigit(first)) {
+            log10Base = 1;
+        } else {
+            log10Base = Math.log10(26);
+        }
+        if (delta < 0) {
+            log10Base += LOG10_2;
+        }
+        int end = start + 1;
+        while (end < length && password.charAt(end) - password.charAt(end - 1) == delta
+                && sameClass(first, password.charAt(end))) {
+            end++;
+            if (end - start >= 3) {
+                record(best, start, end, log10Base + Math.log10(end - start));
+            }
+        }
+    }
+
+    private static boolean sameClass(char a, char b) {
+        return Character.isLowerCase(a) && Character.isLowerCase(b)
+                || Character.isUpperCase(a) && Character.isUpperCase(b)
+                || Character.isDigit(a) && Character.isDigit(b);
+    }
+
+    /**
+     * Touches voisines d'au moins trois caractères. Comme zxcvbn : le nombre d'essais dépend du nombre
+     * de touches de départ, du degré moyen des touches, de la longueur et du nombre de virages.
+     */
+    private static void matchSpatial(CharSequence password, int start, int length, KeyboardLayout keyboard, double[] best) {
+        int previous = keyboard.key(password.charAt(start));
+        if (previous < 0) {
+            return;
+        }
+        int lastDirection = KeyboardLayout.NOT_ADJACENT;
+        int turns = 0;
+        int end = start + 1;
+        while (end < length && end - start < MAX_SPATIAL_LENGTH) {
+            int key = keyboard.key(password.charAt(end));
+            int direction = key < 0 ? KeyboardLayout.NOT_ADJACENT : keyboard.direction(previous, key);
+            if (direction == KeyboardLayout.NOT_ADJACENT) {
+                return;
+            }
+            if (direction != lastDirection) {
+                turns++;
+                lastDirection = direction;
+            }
+            previous = key;
+            end++;
+            if (end - start >= 3) {
+                record(best, start, end, log10SpatialGuesses(keyboard, end - start, turns));
+            }
+        }
+    }
+
+    private static double log10SpatialGuesses(KeyboardLayout keyboard, int length, int turns) {
+        double guesses = 0;
+        for (int i = 2; i <= length; i++) {
+            for (int j = 1; j <= Math.min(turns, i - 1); j++) {
+                guesses += binomial(i - 1, j - 1) * keyboard.keyCount() * Math.pow(keyboard.averageDegree(), j);
+            }
+        }
+        return Math.log10(guesses);
+    }
+
+    // Années 1900-2099 (« 1987 ») et dates jjmmaaaa, jjmmaa, aaaammjj
+    private static void matchYearAndDate(CharSequence password, int start, int length, double[] best) {
+        int digits = 0;
+        while (digits < 8 && start + digits < length && isAsciiDigit(password.charAt(start + digits))) {
+            digits++;
+        }
+        if (digits >= 4) {
+            int year = number(password, start, 4);
+            if (year >= 1900 && year <= 2099) {
+                record(best, start, start + 4, Math.log10(yearSpace(year)));
+            }
+        }
+        if (digits >= 6) {
+            int day = number(password, start, 2);
+            int month = number(password, start + 2, 2);
+            if (isDayAndMonth(day, month)) {
+                int twoDigitYear = number(password, start + 4, 2);
+                int year = twoDigitYear + (twoDigitYear > REFERENCE_YEAR % 100 ? 1900 : 2000);
+                record(best, start, start + 6, Math.log10(365.0 * yearSpace(year)));
+                if (digits == 8) {
+                    year = number(password, start + 4, 4);
+                    if (year >= 1900 && year <= 2099) {
+                        record(best, start, start + 8, Math.log10(365.0 * yearSpace(year)));
+                    }
+                }
+            }
+        }
+        if (digits == 8) {
+            int year = number(password, start, 4);
+            if (year >= 1900 && year <= 2099 && isDayAndMonth(number(password, start + 6, 2), number(password, start + 4, 2))) {
+                record(best, start, start + 8, Math.log10(365.0 * yearSpace(year)));
+            }
+        }
+    }
+
+    private static boolean isAsciiDigit(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static int yearSpace(int year) {
+        return Math.max(Math.abs(year - REFERENCE_YEAR), MIN_YEAR_SPACE);
+    }
+
+    private static boolean isDayAndMonth(int day, int month) {
+        return day >= 1 && day <= 31 && month >= 1 && month <= 12;
+    }
+
+    private static int number(CharSequence password, int start, int digits) {
+        int value = 0;
+        for (int i = start; i < start + digits; i++) {
+            value = value * 10 + password.charAt(i) - '0';
+        }
+        return value;
+    }
+
+    private static double binomial(int n, int k) {
+        double result = 1;
+        for (int m = 1; m <= k; m++) {
+            result = result * (n - k + m) / m;
+        }
+        return result;
+    }
+
+    int dictionaryNodes() {
+        return dictionary.size();
+    }
+}
@@ -0,0 +1,123 @@
+package fr.projet.policy;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.autoconfigure.AutoConfigurations;
+import org.springframework.boot.test.context.runner.ApplicationContextRunner;
+
+public class PasswordPolicyTest {
+
+    private final ApplicationContextRunner contextRunner = new ApplicationContextRunner()
+            .withConfiguration(AutoConfigurations.of(PasswordPolicyAutoConfiguration.class));
+
+    @Test
+    public void testDefaults_HistoricalRules() {
+        PasswordPolicy policy = PasswordPolicy.defaults();
+
+        assertTrue(policy.isStrong("kX9#mQ2$vL7!pR"));
+        assertTrue(policy.isStrong("vGM*6$eTswFA"));
+        // Moins de 12 caractères
+        assertFalse(policy.isStrong("Short1!a"));
+        // Une classe manquante à chaque fois
+        assertFalse(policy.isStrong("strongpassword123!"));
+        assertFalse(policy.isStrong("STRONGPASSWORD123!"));
+        assertFalse(policy.isStrong("StrongPassword!!!"));
+        assertFalse(policy.isStrong("StrongPassword123"));
+        // Caractère hors de l'ensemble spécial
+        assertFalse(policy.isStrong("StrongPassword123?"));
+    }
+
+    @Test
+    public void testDefaults_AllClassesButGuessable() {
+        PasswordPolicy policy = PasswordPolicy.defaults();
+
+        // Toutes les classes, mais mot courant + suite de chiffres : score insuffisant
+        assertFalse(policy.isStrong("Password123!!"));
+        assertFalse(policy.isStrong("StrongPassword123!"));
+        assertFalse(policy.isStrong("Azertyuiop1!"));
+        assertEquals(PasswordPolicy.DEFAULT_MIN_SCORE, policy.getMinScore());
+        assertTrue(policy.score("Password123!!") < PasswordPolicy.DEFAULT_MIN_SCORE);
+    }
+
+    @Test
+    public void testWithoutEstimator_ClassesOnly() {
+        PasswordPolicy policy = new PasswordPolicy(12, true, true, true, true, PasswordPolicy.DEFAULT_SPECIAL_CHARACTERS);
+
+        assertTrue(policy.isStrong("Password123!!"));
+        assertEquals(0, policy.getMinScore());
+        assertEquals(-1, policy.score("Password123!!"));
+    }
+
+    @Test
+    public void testNonAsciiLetters_SameClassesAsCharacter() {
+        PasswordPolicy policy = PasswordPolicy.defaults();
+
+        // É majuscule, é minuscule, chiffre arabe-indien : mêmes verdicts que Character.isX
+        assertTrue(policy.isStrong("Éléphant٣٤٥!"));
+        assertFalse(policy.isStrong("éléphantrose12!"));
+    }
+
+    @Test
+    public void testCustomPolicy() {
+        PasswordPolicy policy = new PasswordPolicy(8, false, true, true, true, "?_");
+
+        assertTrue(policy.isStrong("password1?"));
+        assertFalse(policy.isStrong("password1!"));
+        assertFalse(policy.isStrong("pass1?"));
+        assertEquals("?_", policy.getSpecialCharacters());
+        assertFalse(policy.isUppercaseRequired());
+    }
+
+    @Test
+    public void testLetterInSpecialSet_NotCountedAsSpecial() {
+        PasswordPolicy policy = new PasswordPolicy(4, false, false, false, true, "a#");
+
+        assertFalse(policy.isStrong("aaaa"));
+        assertTrue(policy.isStrong("aaa#"));
+    }
+
+    @Test
+    public void testSpecialRequiredWithoutSet_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(12, true, true, true, true, ""));
+    }
+
+    @Test
+    public void testMinScoreOutOfRange_Rejected() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordPolicy(12, true, true, true, true,
+                PasswordPolicy.DEFAULT_SPECIAL_CHARACTERS, PasswordStrengthEstimator.standard(), 5));
+    }
+
+    @Test
+    public void testAutoConfiguration_Properties() {
+        contextRunner
+                .withPropertyValues("password.policy.min-length=16", "password.policy.special-characters=!?")
+                .run(context -> {
+                    PasswordPolicy policy = context.getBean(PasswordPolicy.class);
+                    assertEquals(16, policy.getMinLength());
+                    assertFalse(policy.isStrong("StrongPassw0rd!"));
+                    assertTrue(policy.isStrong("Kx9?mQ2tvL7wpRz4"));
+                    // Classes respectées mais mot de dictionnaire
+                    assertFalse(policy.isStrong("StrongPassword12?"));
+                });
+    }
+
+    @Test
+    public void testAutoConfiguration_MinScoreZero_ClassesOnly() {
+        contextRunner
+                .withPropertyValues("password.policy.min-score=0")
+                .run(context -> assertTrue(context.getBean(PasswordPolicy.class).isStrong("Password123!!")));
+    }
+
+    @Test
+    public void testAutoConfiguration_ServiceBeanWins() {
+        PasswordPolicy custom = new PasswordPolicy(4, false, false, false, false, "");
+        contextRunner
+                .withBean(PasswordPolicy.class, () -> custom)
+                .run(context -> assertThat(context).getBean(PasswordPolicy.class).isSameAs(custom));
+    }
+}
@@ -0,0 +1,101 @@
+package fr.projet.policy;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+public class PasswordStrengthEstimatorTest {
+
+    private final PasswordStrengthEstimator estimator = PasswordStrengthEstimator.standard();
+
+    @Test
+    public void testCommonPasswords_ScoreZero() {
+        assertEquals(0, estimator.score("password"));
+        assertEquals(0, estimator.score("azerty"));
+        assertEquals(0, estimator.score(""));
+    }
+
+    @Test
+    public void testAllClassesButGuessable_Weak() {
+        // Mot courant en majuscule initiale, suite de chiffres, caractère répété
+        assertTrue(estimator.score("Password123!!") < 3);
+        assertTrue(estimator.score("Marseille13!") < 3);
+        assertTrue(estimator.score("Soleil!Soleil!") < 3);
+    }
+
+    @Test
+    public void testL33tAndCase_StillInDictionary() {
+        assertEquals(0, estimator.score("P@ssw0rd"));
+        assertEquals(0, estimator.score("AZERTYUIOP"));
+    }
+
+    @Test
+    public void testKeyboardPatterns() {
+        // Rangées azerty et qwerty, colonnes, pavé numérique
+        assertTrue(estimator.score("qsdfghjklm") < 3);
+        assertTrue(estimator.score("1qaz2wsx3edc") < 3);
+        assertEquals(0, estimator.score("7894561230"));
+    }
+
+    @Test
+    public void testSequencesRepeatsAndDates() {
+        assertEquals(0, estimator.score("abcdef"));
+        assertEquals(0, estimator.score("987654"));
+        assertEquals(0, estimator.score("zzzzzzzz"));
+        assertTrue(estimator.score("14071989") < 3);
+    }
+
+    @Test
+    public void testRandomPasswords_Strong() {
+        assertEquals(4, estimator.score("vGM*6$eTswFA"));
+        assertEquals(4, estimator.score("kX9#mQ2$vL7!pR"));
+        // Sans motif reconnu : 10 essais par caractère
+        assertEquals(12.0, estimator.log10Guesses("vGM*6$eTswFA"), 1e-9);
+    }
+
+    @Test
+    public void testLongPassword_RestCountedAsBruteforce() {
+        String password = "a".repeat(PasswordStrengthEstimator.MAX_SCORED_LENGTH + 10);
+
+        assertEquals(estimator.log10Guesses(password.substring(0, PasswordStrengthEstimator.MAX_SCORED_LENGTH)) + 10,
+                estimator.log10Guesses(password), 1e-9);
+    }
+
+    @Test
+    public void testCustomDictionary_BestRankWins() {
+        DictionaryTrie trie = DictionaryTrie.build(Map.of("chat", 3, "chaton", 1));
+        int node = DictionaryTrie.ROOT;
+        for (char c : "chat".toCharArray()) {
+            node = trie.child(node, c);
+        }
+
+        assertEquals(3, trie.rank(node));
+        assertEquals(DictionaryTrie.NONE, trie.child(node, 'z'));
+        assertEquals(1, trie.rank(trie.child(trie.child(node, 'o'), 'n')));
+    }
+
+    @Test
+    public void testScore_NoAllocation() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        String[] passwords = { "Password123!!", "kX9#mQ2$vL7!pR", "1qaz2wsx3edc", "14071989", "P@ssw0rd" };
+        int total = 0;
+        // Préchauffage : tableau du thread et compilation des méthodes
+        for (int i = 0; i < 20_000; i++) {
+            total += estimator.score(passwords[i % passwords.length]);
+        }
+
+        long before = threads.getCurrentThreadAllocatedBytes();
+        for (int i = 0; i < 10_000; i++) {
+            total += estimator.score(passwords[i % passwords.length]);
+        }
+        long allocated = threads.getCurrentThreadAllocatedBytes() - before;
+
+        assertTrue(total > 0);
+        // Tolérance pour les allocations de la JVM elle-même, bien en dessous d'un octet par appel
+        assertTrue(allocated < 1_000, "octets alloués : " + allocated);
+    }
+}
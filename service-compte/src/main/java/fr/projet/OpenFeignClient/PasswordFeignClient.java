@@ -7,16 +7,18 @@ import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 
 import fr.projet.request.PasswordCheckRequest;
+import fr.projet.request.PasswordEvaluationRequest;
 import fr.projet.response.PasswordCheckResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.PasswordGeneratedResponse;
 
 
 @FeignClient(value = "service-gestion-password", path = "/api/password")
 public interface PasswordFeignClient {
 
-    @PostMapping("/compte/check-strength")
-    PasswordCheckResponse checkPasswordStrength(@RequestBody PasswordCheckRequest request);
-
+    // Force, vulnérabilité et mot de passe suggéré en un seul appel
+    @PostMapping("/evaluate")
+    PasswordEvaluationResponse evaluatePassword(@RequestBody PasswordEvaluationRequest request);
 
     @PostMapping("/compte/check-vulnerability")
     PasswordCheckResponse checkPasswordVulnerability(@RequestBody PasswordCheckRequest request);
@@ -24,12 +24,15 @@ import org.springframework.web.bind.annotation.RestController;
 import fr.projet.OpenFeignClient.PasswordFeignClient;
 import fr.projet.model.Compte;
 import fr.projet.model.PrivateKey;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.CompteRepository;
 import fr.projet.repository.PrivateKeyRepository;
 import fr.projet.request.CreateCompteRequest;
 import fr.projet.request.PasswordCheckRequest;
+import fr.projet.request.PasswordEvaluationRequest;
 import fr.projet.response.CompteResponse;
 import fr.projet.response.PasswordCheckResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.PasswordGeneratedResponse;
 import fr.projet.service.CompteSrv;
 import fr.projet.service.CryptographService;
@@ -51,6 +54,10 @@ private CompteSrv compteService;
 @Autowired
 private PasswordFeignClient passwordFeignClient;
 
+// Règles de force évaluées localement (password-policy), sans appel à service-gestion-password
+@Autowired
+private PasswordPolicy passwordPolicy;
+
 @Autowired
 private CryptographService cryptographService;
 
@@ -117,25 +124,22 @@ public ResponseEntity<String> create(@RequestBody CreateCompteRequest request) {
     logService.logInfo("Received request to create account for user ID: " + request.getUserId());
 
     try {
-        // Vérification de la vulnérabilité du mot de passe
-        PasswordCheckRequest passwordCheckRequest = new PasswordCheckRequest(request.getPassword());
-        PasswordCheckResponse passwordCheckResponse = passwordFeignClient.checkPasswordVulnerability(passwordCheckRequest);
+        // Force vérifiée localement ; vulnérabilité en un seul appel, avec un mot de passe suggéré si trop faible
+        boolean strong = passwordPolicy.isStrong(request.getPassword());
+        PasswordEvaluationResponse evaluation = passwordFeignClient.evaluatePassword(
+                new PasswordEvaluationRequest(request.getPassword(), !strong));
 
         // Si le mot de passe est vulnérable, renvoyer une réponse d'erreur
-        if (passwordCheckResponse.isVulnerable()) {
+        if (evaluation.isVulnerable()) {
             logService.logWarn("Password is vulnerable for user ID: " + request.getUserId());
 
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe est vulnérable");
         }
 
-        // Vérification de la force du mot de passe
-        PasswordCheckResponse strengthResponse = passwordFeignClient.checkPasswordStrength(passwordCheckRequest);
-        if (!strengthResponse.isStrong()) {
-            // Générer un mot de passe fort
-            PasswordGeneratedResponse generatedResponse = passwordFeignClient.generatePassword();
-            logService.logWarn("Password is not strong enough for user ID: " + request.getUserId() + ". Suggested password: " + generatedResponse.getPassword());
+        if (!strong) {
+            logService.logWarn("Password is not strong enough for user ID: " + request.getUserId() + ". Suggested password: " + evaluation.getSuggestedPassword());
 
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe n'est pas assez fort. Mot de passe suggéré : " + generatedResponse.getPassword());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe n'est pas assez fort. Mot de passe suggéré : " + evaluation.getSuggestedPassword());
         }
 
         // Générer une paire de clés RSA
@@ -234,7 +238,8 @@ public ResponseEntity<String> decryptPassword(@RequestParam String compteId) {
 public ResponseEntity<PasswordCheckResponse> checkPasswordStrength(@RequestBody PasswordCheckRequest request) {
     logService.logInfo("Received request to check password strength for password: " + request.getPassword());
     try {
-        PasswordCheckResponse response = passwordFeignClient.checkPasswordStrength(request);
+        boolean strong = passwordPolicy.isStrong(request.getPassword());
+        PasswordCheckResponse response = new PasswordCheckResponse(strong, false, strong ? "Password is strong" : "Password is weak");
         logService.logInfo("Password strength checked successfully");
         return ResponseEntity.ok(response);
     } catch (Exception e) {
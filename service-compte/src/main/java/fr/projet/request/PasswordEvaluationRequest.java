@@ -0,0 +1,33 @@
+package fr.projet.request;
+
+public class PasswordEvaluationRequest {
+
+    private String password;
+    // Demande un mot de passe fort suggéré si celui-ci est refusé
+    private boolean suggest;
+
+    public PasswordEvaluationRequest() {
+        // Constructeur par défaut nécessaire pour la désérialisation JSON
+    }
+
+    public PasswordEvaluationRequest(String password, boolean suggest) {
+        this.password = password;
+        this.suggest = suggest;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public boolean isSuggest() {
+        return suggest;
+    }
+
+    public void setSuggest(boolean suggest) {
+        this.suggest = suggest;
+    }
+}
@@ -1,12 +1,14 @@
 package fr.projet.api;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 import java.security.KeyPair;
@@ -20,6 +22,7 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.ResponseEntity;
 import org.springframework.test.web.servlet.MockMvc;
@@ -27,12 +30,14 @@ import org.springframework.test.web.servlet.MockMvc;
 import fr.projet.OpenFeignClient.PasswordFeignClient;
 import fr.projet.model.Compte;
 import fr.projet.model.PrivateKey;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.CompteRepository;
 import fr.projet.repository.PrivateKeyRepository;
 import fr.projet.request.CreateCompteRequest;
 import fr.projet.request.PasswordCheckRequest;
 import fr.projet.response.CompteResponse;
 import fr.projet.response.PasswordCheckResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.PasswordGeneratedResponse;
 import fr.projet.service.CompteSrv;
 import fr.projet.service.CryptographService;
@@ -53,6 +58,10 @@ private CompteSrv compteService;
 @Mock
 private PasswordFeignClient passwordFeignClient;
 
+// Politique réelle, avec les règles par défaut
+@Spy
+private PasswordPolicy passwordPolicy = PasswordPolicy.defaults();
+
 @Mock
 private CryptographService cryptographService;
 
@@ -134,15 +143,12 @@ private PrivateKeyRepository  privateKeyRepository;
     void testCreate_Success() throws Exception {
         // Préparation des mocks pour une réponse de mot de passe non vulnérable et forte
         CreateCompteRequest request = new CreateCompteRequest();
-        request.setPassword("StrongPassword123");
-
-        PasswordCheckResponse mockVulnerabilityResponse = new PasswordCheckResponse();
-        mockVulnerabilityResponse.setVulnerable(false);
-        when(passwordFeignClient.checkPasswordVulnerability(any())).thenReturn(mockVulnerabilityResponse);
+        request.setPassword("kX9#mQ2$vL7!pR");
 
-        PasswordCheckResponse mockStrengthResponse = new PasswordCheckResponse();
-        mockStrengthResponse.setStrong(true);
-        when(passwordFeignClient.checkPasswordStrength(any())).thenReturn(mockStrengthResponse);
+        PasswordEvaluationResponse mockEvaluation = new PasswordEvaluationResponse();
+        mockEvaluation.setVulnerable(false);
+        mockEvaluation.setStrong(true);
+        when(passwordFeignClient.evaluatePassword(any())).thenReturn(mockEvaluation);
 
         // Générer une paire de clés RSA simulée
         KeyPairGenerator keyPairGenerator = KeyPairGenerator.getInstance("RSA");
@@ -237,15 +243,15 @@ private PrivateKeyRepository  privateKeyRepository;
         PasswordCheckRequest request = new PasswordCheckRequest();
         request.setPassword("testPassword");
 
-        when(passwordFeignClient.checkPasswordStrength(any(PasswordCheckRequest.class)))
-                .thenReturn(passwordCheckResponse);
         doNothing().when(logService).logInfo(anyString());
         ResponseEntity<PasswordCheckResponse> response = compteApiController.checkPasswordStrength(request);
 
-        // Assertions
+        // Assertions : verdict calculé localement, sans appel au service des mots de passe
         assertEquals(HttpStatus.OK, response.getStatusCode());
         assertNotNull(response.getBody());
-        assertEquals(passwordCheckResponse, response.getBody());
+        assertFalse(response.getBody().isStrong());
+        assertEquals("Password is weak", response.getBody().getMessage());
+        verifyNoInteractions(passwordFeignClient);
         verify(logService, times(2)).logInfo(anyString());
     }
 
@@ -0,0 +1,57 @@
+package fr.projet.bench;
+
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Campagne complète : tous les benchmarks du module pour chaque nombre de threads, avec le
+ * profileur GC (gc.alloc.rate, gc.alloc.rate.norm). Mode AverageTime : ns/op ; mode SampleTime :
+ * percentiles, dont p0.99. Résultats JSON dans target/jmh-&lt;threads&gt;-threads.json.
+ *
+ * <pre>
+ * mvn -f password-policy/pom.xml install
+ * mvn -f service-gestion-password/pom.xml install -DskipTests
+ * mvn -f service-gestion-password-bench/pom.xml package
+ * java -cp service-gestion-password-bench/target/benchmarks.jar fr.projet.bench.BenchmarkRunner 1 4 16
+ * </pre>
+ *
+ * Pour un seul cas, la ligne de commande JMH suffit, par exemple :
+ * java -jar target/benchmarks.jar LookupBenchmark -p backend=jdbc-bloom -p hitRatio=0.01 -t 8 -prof gc
+ *
+ * Le corpus synthétique est écrit dans target/bench-corpus (propriété bench.corpus.dir)
+ * et réutilisé d'une exécution à l'autre.
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    static Path corpusDirectory() {
+        return Path.of(System.getProperty("bench.corpus.dir", "target/bench-corpus")).toAbsolutePath();
+    }
+
+    public static void main(String[] args) throws Exception {
+        int[] threadCounts = args.length == 0 ? new int[] { 1, 4, 16 }
+                : Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+        for (int threads : threadCounts) {
+            Options options = new OptionsBuilder()
+                    .include(LookupBenchmark.class.getSimpleName())
+                    .include(FilterBenchmark.class.getSimpleName())
+                    .include(StrengthBenchmark.class.getSimpleName())
+                    .threads(threads)
+                    .addProfiler(GCProfiler.class)
+                    // Remplace les arguments de @Fork : les fourches doivent retrouver le même corpus
+                    .jvmArgsAppend("-Xmx2g", "-Dbench.corpus.dir=" + corpusDirectory())
+                    .resultFormat(ResultFormatType.JSON)
+                    .result("target/jmh-" + threads + "-threads.json")
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
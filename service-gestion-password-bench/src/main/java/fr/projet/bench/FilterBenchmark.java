@@ -0,0 +1,87 @@
+package fr.projet.bench;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.projet.service.BloomFilter;
+import fr.projet.service.DigestFilter;
+import fr.projet.service.XorFilterSnapshot;
+
+/**
+ * Filtres en mémoire seuls (sans la base derrière) : coût du rejet d'un mot de passe sain,
+ * qui est celui de la grande majorité des vérifications avec jdbc-bloom et jdbc-xor.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class FilterBenchmark {
+
+    @Param({ "bloom", "xor" })
+    String filter;
+
+    @Param({ "0.0", "0.5" })
+    double hitRatio;
+
+    @Param({ "1000000" })
+    int corpusSize;
+
+    @Param({ "42" })
+    long seed;
+
+    private String[] queries;
+    private DigestFilter digestFilter;
+    private Path snapshot;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(BenchmarkRunner.corpusDirectory(), corpusSize, seed);
+        queries = corpus.queries(LookupBenchmark.QUERIES, hitRatio);
+        List<byte[]> digests = corpus.sortedDigests();
+        if (filter.equals("xor")) {
+            snapshot = Files.createTempFile("breach-bench-", ".xor");
+            XorFilterSnapshot.write(snapshot, 1, action -> {
+                digests.forEach(action);
+                return digests.size();
+            });
+            digestFilter = XorFilterSnapshot.open(snapshot);
+        } else {
+            BloomFilter bloomFilter = BloomFilter.create(digests.size(), 0.001);
+            digests.forEach(bloomFilter::put);
+            digestFilter = bloomFilter;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (snapshot != null) {
+            Files.delete(snapshot);
+            snapshot = null;
+        }
+    }
+
+    @Benchmark
+    public boolean mightContain(LookupBenchmark.Cursor cursor) {
+        String password = queries[cursor.next++ & (LookupBenchmark.QUERIES - 1)];
+        return digestFilter.mightContain(DigestUtils.sha1(password));
+    }
+}
@@ -0,0 +1,177 @@
+package fr.projet.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.ThreadParams;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+import fr.projet.service.CopyStolenPasswordWriter;
+import fr.projet.service.JdbcImportStateStore;
+import fr.projet.service.JdbcStolenPasswordLookup;
+import fr.projet.service.MappedSha1Index;
+import fr.projet.service.MappedStolenPasswordLookup;
+import fr.projet.service.PasswordService;
+import fr.projet.service.Sha1IndexBuilder;
+import fr.projet.service.StolenPasswordFilter;
+import fr.projet.service.StolenPasswordImporter;
+import fr.projet.service.StolenPasswordLookup;
+import fr.projet.service.StolenPasswordShardRouter;
+import fr.projet.service.StolenPasswordTable;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+
+/**
+ * Vérification d'un mot de passe par PasswordService.isPasswordVulnerable (SHA-1 puis recherche
+ * du nombre d'occurrences) selon la source configurée, hors cache des verdicts :
+ * <ul>
+ * <li>jdbc : table stolen_password sur un PostgreSQL embarqué, sans filtre ;</li>
+ * <li>jdbc-bloom : la même, derrière le filtre de Bloom ;</li>
+ * <li>jdbc-xor : la même, derrière l'instantané de filtre xor ;</li>
+ * <li>mapped : index trié projeté en mémoire (breach.backend=mapped).</li>
+ * </ul>
+ * La table est remplie par l'import réel (COPY) à partir du corpus synthétique. La méthode,
+ * visible du seul paquetage du service, est appelée par un MethodHandle (coût négligeable devant la recherche).
+ * Le nombre de threads se choisit au lancement (-t), voir {@link BenchmarkRunner}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class LookupBenchmark {
+
+    // Puissance de deux : l'indice de la requête suivante est un simple masque
+    static final int QUERIES = 1 << 16;
+
+    @Param({ "jdbc", "jdbc-bloom", "jdbc-xor", "mapped" })
+    String backend;
+
+    @Param({ "0.0", "0.01", "0.5" })
+    double hitRatio;
+
+    @Param({ "1000000" })
+    int corpusSize;
+
+    @Param({ "42" })
+    long seed;
+
+    private String[] queries;
+    private PasswordService service;
+    private MethodHandle isPasswordVulnerable;
+    private EmbeddedPostgres postgres;
+    private StolenPasswordShardRouter router;
+    private Path workDir;
+
+    /**
+     * Position de chaque thread dans les requêtes ; les threads partent d'endroits différents
+     * pour ne pas interroger les mêmes lignes au même moment.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(ThreadParams threadParams) {
+            next = threadParams.getThreadIndex() * (QUERIES / threadParams.getThreadCount());
+        }
+    }
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        SyntheticCorpus corpus = SyntheticCorpus.generate(BenchmarkRunner.corpusDirectory(), corpusSize, seed);
+        queries = corpus.queries(QUERIES, hitRatio);
+        workDir = Files.createTempDirectory("breach-bench-");
+        StolenPasswordLookup lookup;
+        if (backend.equals("mapped")) {
+            // L'index ne dépend que du corpus : construit une fois, à côté des fichiers
+            Path index = corpus.directory().resolve("stolen-passwords.idx");
+            if (!Files.exists(MappedSha1Index.currentPath(index))) {
+                new Sha1IndexBuilder().build(corpus.files(), index);
+            }
+            lookup = new MappedStolenPasswordLookup(index);
+        } else {
+            lookup = startDatabase(corpus);
+        }
+        // Service hors Spring : seule la source des fuites sert à cette vérification
+        service = new PasswordService();
+        MethodHandles.Lookup access = MethodHandles.privateLookupIn(PasswordService.class, MethodHandles.lookup());
+        access.findVarHandle(PasswordService.class, "stolenPasswordLookup", StolenPasswordLookup.class).set(service, lookup);
+        isPasswordVulnerable = access.findVirtual(PasswordService.class, "isPasswordVulnerable",
+                MethodType.methodType(boolean.class, String.class));
+    }
+
+    private StolenPasswordLookup startDatabase(SyntheticCorpus corpus) throws Exception {
+        postgres = EmbeddedPostgres.builder().start();
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName("breach-bench");
+        dataSource.setJdbcUrl(postgres.getJdbcUrl("postgres", "postgres"));
+        // Même taille que breach.pool.maximum-size : au-delà, les threads attendent une connexion comme en production
+        dataSource.setMaximumPoolSize(20);
+        router = StolenPasswordShardRouter.single(new JdbcTemplate(dataSource));
+
+        StolenPasswordTable table = new StolenPasswordTable(router);
+        boolean filtered = !backend.equals("jdbc");
+        String snapshotPath = backend.equals("jdbc-xor") ? workDir.resolve("stolen-passwords.xor").toString() : "";
+        // Exécuteur synchrone : une reconstruction demandée se termine avant le retour
+        StolenPasswordFilter filter = new StolenPasswordFilter(table, filtered, 0.001, snapshotPath, 1_000_000,
+                new SyncTaskExecutor(), new SimpleMeterRegistry());
+        new StolenPasswordImporter(new CopyStolenPasswordWriter(router, table, filter), new JdbcImportStateStore(router.shard(0)),
+                0, 0, 10_000, 16).importFiles(corpus.files());
+        if (filtered) {
+            // Construction synchrone : les mesures ne commencent qu'une fois le filtre en place
+            filter.requestRebuild();
+        }
+        // Statistiques à jour pour le planificateur, sans attendre l'autovacuum
+        router.shard(0).execute("ANALYZE stolen_password");
+        return new JdbcStolenPasswordLookup(table, filter);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        service = null;
+        if (router != null) {
+            router.close();
+            router = null;
+        }
+        if (postgres != null) {
+            postgres.close();
+            postgres = null;
+        }
+        try (Stream<Path> files = Files.walk(workDir)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public boolean isPasswordVulnerable(Cursor cursor) throws Throwable {
+        String password = queries[cursor.next++ & (QUERIES - 1)];
+        return (boolean) isPasswordVulnerable.invokeExact(service, password);
+    }
+}
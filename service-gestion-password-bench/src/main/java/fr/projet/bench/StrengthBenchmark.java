@@ -0,0 +1,62 @@
+package fr.projet.bench;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import fr.projet.policy.PasswordPolicy;
+import fr.projet.policy.PasswordStrengthEstimator;
+
+/**
+ * Vérification de force (bibliothèque password-policy) faite à chaque inscription et réinitialisation :
+ * <ul>
+ * <li>estimate : estimation par dictionnaires seule ;</li>
+ * <li>policy : politique par défaut, classes de caractères puis estimation si elles sont respectées.</li>
+ * </ul>
+ * Avec -prof gc, gc.alloc.rate.norm doit rester à 0 octet par opération.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({ Mode.AverageTime, Mode.SampleTime })
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class StrengthBenchmark {
+
+    // Mots de passe courants, l33t, suites de touches, dates et tirages aléatoires
+    private static final String[] PASSWORDS = { "Password123!!", "P@ssw0rd2024", "Marseille13!", "azertyuiop",
+            "1qaz2wsx3edc", "14071989", "Chocolat*Fraise75", "vGM*6$eTswFA", "kX9#mQ2$vL7!pR", "Soleil!Soleil!" };
+
+    @Param({ "estimate", "policy" })
+    String check;
+
+    private PasswordStrengthEstimator estimator;
+    private PasswordPolicy policy;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        // Chargement des dictionnaires hors mesure
+        estimator = PasswordStrengthEstimator.standard();
+        policy = PasswordPolicy.defaults();
+    }
+
+    @Benchmark
+    public int strength(LookupBenchmark.Cursor cursor) {
+        String password = PASSWORDS[Math.floorMod(cursor.next++, PASSWORDS.length)];
+        if (check.equals("estimate")) {
+            return estimator.score(password);
+        }
+        return policy.isStrong(password) ? 1 : 0;
+    }
+}
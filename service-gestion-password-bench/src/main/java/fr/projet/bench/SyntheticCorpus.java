@@ -0,0 +1,130 @@
+package fr.projet.bench;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.stream.Stream;
+
+import org.apache.commons.codec.digest.DigestUtils;
+
+/**
+ * Corpus de mots de passe volés généré à partir d'une graine : les mêmes paramètres donnent
+ * les mêmes fichiers et les mêmes requêtes, sans téléchargement.
+ *
+ * Les mots de passe volés sont "stolen-&lt;graine&gt;-&lt;i&gt;" et les mots de passe sains
+ * "safe-&lt;graine&gt;-&lt;i&gt;" : les deux ensembles sont disjoints, une requête est
+ * un succès exactement quand elle vient du premier.
+ */
+public final class SyntheticCorpus {
+
+    // Nombre de fichiers pwnedpasswords : plusieurs lecteurs en parallèle à l'import
+    private static final int FILES = 16;
+
+    private final int size;
+    private final long seed;
+    private final Path directory;
+
+    private SyntheticCorpus(int size, long seed, Path directory) {
+        this.size = size;
+        this.seed = seed;
+        this.directory = directory;
+    }
+
+    /**
+     * Corpus de size mots de passe dans directory/&lt;size&gt;-&lt;seed&gt;, écrit au premier appel
+     * puis réutilisé par les essais suivants.
+     */
+    public static SyntheticCorpus generate(Path directory, int size, long seed) throws IOException {
+        SyntheticCorpus corpus = new SyntheticCorpus(size, seed, directory.resolve(size + "-" + seed));
+        Path complete = corpus.directory.resolve(".complete");
+        if (!Files.exists(complete)) {
+            Files.createDirectories(corpus.directory);
+            corpus.writeFiles();
+            Files.createFile(complete);
+        }
+        return corpus;
+    }
+
+    private void writeFiles() throws IOException {
+        SplittableRandom random = new SplittableRandom(seed);
+        BufferedWriter[] writers = new BufferedWriter[FILES];
+        try {
+            for (int i = 0; i < FILES; i++) {
+                writers[i] = Files.newBufferedWriter(directory.resolve(String.format("%05X.txt", i)), StandardCharsets.US_ASCII);
+            }
+            // Même répartition que l'API range : un fichier par premier caractère hexadécimal
+            for (int i = 0; i < size; i++) {
+                String sha1Hex = DigestUtils.sha1Hex(stolenPassword(i)).toUpperCase();
+                BufferedWriter writer = writers[Character.digit(sha1Hex.charAt(0), 16)];
+                writer.write(sha1Hex);
+                writer.write(':');
+                writer.write(Integer.toString(1 + random.nextInt(1000)));
+                writer.write("\r\n");
+            }
+        } finally {
+            for (BufferedWriter writer : writers) {
+                if (writer != null) {
+                    writer.close();
+                }
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public List<Path> files() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".txt")).sorted().toList();
+        }
+    }
+
+    public Path directory() {
+        return directory;
+    }
+
+    public String stolenPassword(int i) {
+        return "stolen-" + seed + "-" + i;
+    }
+
+    public String safePassword(int i) {
+        return "safe-" + seed + "-" + i;
+    }
+
+    /**
+     * count requêtes, dont exactement round(count * hitRatio) mots de passe volés, mélangées.
+     */
+    public String[] queries(int count, double hitRatio) {
+        SplittableRandom random = new SplittableRandom(seed ^ Double.doubleToLongBits(hitRatio));
+        int hits = (int) Math.round(count * hitRatio);
+        String[] queries = new String[count];
+        for (int i = 0; i < count; i++) {
+            queries[i] = i < hits ? stolenPassword(random.nextInt(size)) : safePassword(i);
+        }
+        // Mélange de Fisher-Yates : succès et échecs alternent dans l'ordre des requêtes
+        for (int i = count - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            String swap = queries[i];
+            queries[i] = queries[j];
+            queries[j] = swap;
+        }
+        return queries;
+    }
+
+    // Empreintes du corpus triées (ordre non signé), pour les structures construites en un passage
+    public List<byte[]> sortedDigests() {
+        List<byte[]> digests = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            digests.add(DigestUtils.sha1(stolenPassword(i)));
+        }
+        digests.sort(Arrays::compareUnsigned);
+        return digests;
+    }
+}
@@ -13,6 +13,8 @@ import fr.projet.DTO.UtilisateurDto;
 public interface UserServiceClient {
      @GetMapping("/by-email")
     UtilisateurDto getUserByEmail(@RequestParam("email") String email);
+     @GetMapping("/{id}")
+    UtilisateurDto getUserById(@PathVariable("id") String idUser);
      @PutMapping("/{id}/password")
     void updateUserPassword(@PathVariable("id") String idUser, @RequestBody String hashedPassword);
 }
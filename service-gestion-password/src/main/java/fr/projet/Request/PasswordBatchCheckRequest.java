@@ -0,0 +1,33 @@
+package fr.projet.Request;
+
+import java.util.List;
+
+public class PasswordBatchCheckRequest {
+
+    // Mots de passe en clair, ou bien leurs empreintes SHA-1 (40 caractères hexadécimaux)
+    private List<String> passwords;
+    private List<String> hashes;
+
+    public PasswordBatchCheckRequest() {}
+
+    public PasswordBatchCheckRequest(List<String> passwords, List<String> hashes) {
+        this.passwords = passwords;
+        this.hashes = hashes;
+    }
+
+    public List<String> getPasswords() {
+        return passwords;
+    }
+
+    public void setPasswords(List<String> passwords) {
+        this.passwords = passwords;
+    }
+
+    public List<String> getHashes() {
+        return hashes;
+    }
+
+    public void setHashes(List<String> hashes) {
+        this.hashes = hashes;
+    }
+}
@@ -0,0 +1,31 @@
+package fr.projet.Request;
+
+public class PasswordEvaluationRequest {
+
+    private String password;
+    // Joindre un mot de passe fort suggéré quand celui-ci est refusé (faible ou volé)
+    private boolean suggest;
+
+    public PasswordEvaluationRequest() {}
+
+    public PasswordEvaluationRequest(String password, boolean suggest) {
+        this.password = password;
+        this.suggest = suggest;
+    }
+
+    public String getPassword() {
+        return password;
+    }
+
+    public void setPassword(String password) {
+        this.password = password;
+    }
+
+    public boolean isSuggest() {
+        return suggest;
+    }
+
+    public void setSuggest(boolean suggest) {
+        this.suggest = suggest;
+    }
+}
@@ -0,0 +1,189 @@
+package fr.projet.Response;
+
+import fr.projet.service.ImportJob;
+import fr.projet.service.ImportProgress;
+
+public class ImportJobResponse {
+
+    private String id;
+    private String status;
+    private String submittedAt;
+    private int filesToImport;
+    private int filesSkipped;
+    private int filesDone;
+    private int filesUnchanged;
+    private long bytesToImport;
+    private long bytesDone;
+    private long rows;
+    private long insertedRows;
+    private long rowsPerSecond;
+    private long elapsedSeconds;
+    private long etaSeconds;
+    private long malformedLines;
+    private long errors;
+    private String message;
+
+    public ImportJobResponse() {}
+
+    public ImportJobResponse(String message) {
+        this.message = message;
+    }
+
+    public static ImportJobResponse of(ImportJob job) {
+        ImportProgress progress = job.getProgress();
+        ImportJobResponse response = new ImportJobResponse(job.getFailure());
+        response.id = job.getId();
+        response.status = job.getStatus().name();
+        response.submittedAt = job.getSubmittedAt().toString();
+        response.filesToImport = progress.getFilesToImport();
+        response.filesSkipped = progress.getFilesSkipped();
+        response.filesDone = progress.getFilesDone();
+        response.filesUnchanged = progress.getFilesUnchanged();
+        response.bytesToImport = progress.getBytesToImport();
+        response.bytesDone = progress.getBytesDone();
+        response.rows = progress.getRows();
+        response.insertedRows = progress.getInsertedRows();
+        response.rowsPerSecond = progress.getRowsPerSecond();
+        response.elapsedSeconds = progress.getElapsedMillis() / 1000;
+        response.etaSeconds = job.isFinished() ? 0 : progress.getEtaSeconds();
+        response.malformedLines = progress.getMalformedLines();
+        response.errors = progress.getErrors();
+        return response;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public String getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public void setSubmittedAt(String submittedAt) {
+        this.submittedAt = submittedAt;
+    }
+
+    public int getFilesToImport() {
+        return filesToImport;
+    }
+
+    public void setFilesToImport(int filesToImport) {
+        this.filesToImport = filesToImport;
+    }
+
+    public int getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    public void setFilesSkipped(int filesSkipped) {
+        this.filesSkipped = filesSkipped;
+    }
+
+    public int getFilesDone() {
+        return filesDone;
+    }
+
+    public void setFilesDone(int filesDone) {
+        this.filesDone = filesDone;
+    }
+
+    public int getFilesUnchanged() {
+        return filesUnchanged;
+    }
+
+    public void setFilesUnchanged(int filesUnchanged) {
+        this.filesUnchanged = filesUnchanged;
+    }
+
+    public long getBytesToImport() {
+        return bytesToImport;
+    }
+
+    public void setBytesToImport(long bytesToImport) {
+        this.bytesToImport = bytesToImport;
+    }
+
+    public long getBytesDone() {
+        return bytesDone;
+    }
+
+    public void setBytesDone(long bytesDone) {
+        this.bytesDone = bytesDone;
+    }
+
+    public long getRows() {
+        return rows;
+    }
+
+    public void setRows(long rows) {
+        this.rows = rows;
+    }
+
+    public long getInsertedRows() {
+        return insertedRows;
+    }
+
+    public void setInsertedRows(long insertedRows) {
+        this.insertedRows = insertedRows;
+    }
+
+    public long getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(long rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public long getElapsedSeconds() {
+        return elapsedSeconds;
+    }
+
+    public void setElapsedSeconds(long elapsedSeconds) {
+        this.elapsedSeconds = elapsedSeconds;
+    }
+
+    public long getEtaSeconds() {
+        return etaSeconds;
+    }
+
+    public void setEtaSeconds(long etaSeconds) {
+        this.etaSeconds = etaSeconds;
+    }
+
+    public long getMalformedLines() {
+        return malformedLines;
+    }
+
+    public void setMalformedLines(long malformedLines) {
+        this.malformedLines = malformedLines;
+    }
+
+    public long getErrors() {
+        return errors;
+    }
+
+    public void setErrors(long errors) {
+        this.errors = errors;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -0,0 +1,43 @@
+package fr.projet.Response;
+
+import java.util.List;
+
+public class PasswordBatchCheckResponse {
+
+    // Verdicts dans l'ordre de la requête
+    private List<Boolean> vulnerable;
+    private int vulnerableCount;
+    private String message;
+
+    public PasswordBatchCheckResponse() {}
+
+    public PasswordBatchCheckResponse(List<Boolean> vulnerable, int vulnerableCount, String message) {
+        this.vulnerable = vulnerable;
+        this.vulnerableCount = vulnerableCount;
+        this.message = message;
+    }
+
+    public List<Boolean> getVulnerable() {
+        return vulnerable;
+    }
+
+    public void setVulnerable(List<Boolean> vulnerable) {
+        this.vulnerable = vulnerable;
+    }
+
+    public int getVulnerableCount() {
+        return vulnerableCount;
+    }
+
+    public void setVulnerableCount(int vulnerableCount) {
+        this.vulnerableCount = vulnerableCount;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
@@ -6,6 +6,8 @@ public class PasswordCheckResponse {
     private boolean isStrong;
     private boolean isVulnerable;
     private String message;
+    // Nombre d'apparitions du mot de passe dans les fuites connues, 0 s'il n'y figure pas
+    private int occurrences;
 
     public PasswordCheckResponse() {}
 
@@ -15,6 +17,11 @@ public class PasswordCheckResponse {
         this.message = message;
     }
 
+    public PasswordCheckResponse(boolean isStrong, boolean isVulnerable, String message, int occurrences) {
+        this(isStrong, isVulnerable, message);
+        this.occurrences = occurrences;
+    }
+
     public boolean isStrong() {
         return isStrong;
     }
@@ -39,6 +46,14 @@ public class PasswordCheckResponse {
         this.message = message;
     }
 
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
     
 
 }
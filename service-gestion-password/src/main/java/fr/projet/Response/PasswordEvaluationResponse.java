@@ -0,0 +1,63 @@
+package fr.projet.Response;
+
+public class PasswordEvaluationResponse {
+
+    private boolean isStrong;
+    private boolean isVulnerable;
+    // Nombre d'apparitions du mot de passe dans les fuites connues, 0 s'il n'y figure pas
+    private int occurrences;
+    private String message;
+    // Mot de passe fort proposé à la place, absent si la requête ne le demande pas ou si le mot de passe est accepté
+    private String suggestedPassword;
+
+    public PasswordEvaluationResponse() {}
+
+    public PasswordEvaluationResponse(boolean isStrong, boolean isVulnerable, int occurrences, String message,
+            String suggestedPassword) {
+        this.isStrong = isStrong;
+        this.isVulnerable = isVulnerable;
+        this.occurrences = occurrences;
+        this.message = message;
+        this.suggestedPassword = suggestedPassword;
+    }
+
+    public boolean isStrong() {
+        return isStrong;
+    }
+
+    public void setStrong(boolean isStrong) {
+        this.isStrong = isStrong;
+    }
+
+    public boolean isVulnerable() {
+        return isVulnerable;
+    }
+
+    public void setVulnerable(boolean isVulnerable) {
+        this.isVulnerable = isVulnerable;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getSuggestedPassword() {
+        return suggestedPassword;
+    }
+
+    public void setSuggestedPassword(String suggestedPassword) {
+        this.suggestedPassword = suggestedPassword;
+    }
+}
@@ -2,11 +2,23 @@ package fr.projet.api;
 
 
 
+import java.io.BufferedWriter;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
 import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
@@ -16,12 +28,18 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import fr.projet.Request.CreatePasswordRequest;
+import fr.projet.Request.PasswordBatchCheckRequest;
 import fr.projet.Request.PasswordCheckRequest;
+import fr.projet.Request.PasswordEvaluationRequest;
+import fr.projet.Response.PasswordBatchCheckResponse;
 import fr.projet.Response.PasswordCheckResponse;
+import fr.projet.Response.PasswordEvaluationResponse;
 import fr.projet.Response.PasswordGeneratedResponse;
 import fr.projet.model.Password;
+import fr.projet.model.PasswordHashingRejectedException;
 import fr.projet.repository.PasswordRepository;
 import fr.projet.service.PasswordService;
 
@@ -29,7 +47,16 @@ import fr.projet.service.PasswordService;
 @RequestMapping("/api/password")
 // @CrossOrigin("*")
 public class PasswordApiController {
-    
+
+private static final Pattern HASH_PREFIX = Pattern.compile("[0-9A-Fa-f]{5}");
+
+private static final long RANGE_CACHE_HOURS = 24;
+
+private static final Pattern SHA1_HEX = Pattern.compile("[0-9A-Fa-f]{40}");
+
+private static final int MAX_BATCH_SIZE = 1000;
+
+private static final int MAX_GENERATED_BATCH = 100_000;
 
 @Autowired
 private PasswordService passwordSrv;
@@ -93,32 +120,28 @@ public ResponseEntity<String> requestPasswordReset(@RequestParam String email) {
 @PostMapping("/utilisateur/reset")
 public ResponseEntity<String> resetPassword(@RequestParam String token, @RequestParam String newPassword) {
     try {
-        // Vérifier la force du nouveau mot de passe
-        PasswordCheckRequest passwordRequest = new PasswordCheckRequest(newPassword);
-        
-        // Vérifier la force du mot de passe
-        PasswordCheckResponse strengthResponse = passwordSrv.checkPasswordStrength(passwordRequest);
-
-        // Vérifier la vulnérabilité du mot de passe
-        PasswordCheckResponse vulnerabilityResponse = passwordSrv.checkPasswordVulnerability(passwordRequest);
+        // Vérifier la force et la vulnérabilité du nouveau mot de passe en une seule évaluation
+        PasswordEvaluationResponse evaluation = passwordSrv.evaluatePassword(new PasswordEvaluationRequest(newPassword, false));
 
         // Si le mot de passe est fort et non vulnérable, réinitialiser le mot de passe
-        if (strengthResponse.isStrong() && !vulnerabilityResponse.isVulnerable()) {
+        if (evaluation.isStrong() && !evaluation.isVulnerable()) {
             passwordSrv.resetPassword(token, newPassword); // Appel au service pour réinitialiser le mot de passe
             return ResponseEntity.ok("Password has been reset.");
         } else {
             // Construction du message d'erreur détaillé
             StringBuilder errorMessage = new StringBuilder("Le nouveau mot de passe ne répond pas aux critères requis:\n");
-            if (!strengthResponse.isStrong()) {
+            if (!evaluation.isStrong()) {
                 errorMessage.append("- Le mot de passe n'est pas assez fort.\n");
             }
-            if (vulnerabilityResponse.isVulnerable()) {
+            if (evaluation.isVulnerable()) {
                 errorMessage.append("- Le mot de passe est vulnérable.\n");
             }
 
             // Retourner une réponse indiquant les raisons de l'échec
             return ResponseEntity.badRequest().body(errorMessage.toString());
         }
+    } catch (PasswordHashingRejectedException e) {
+        return hashingUnavailable(e);
     } catch (Exception e) {
         // Log et renvoyer une erreur en cas d'échec
         e.printStackTrace();
@@ -127,6 +150,14 @@ public ResponseEntity<String> resetPassword(@RequestParam String token, @Request
     }
 }
 
+// Rafale de hachages : le client réessaie plus tard au lieu d'occuper un thread en attente
+@ExceptionHandler(PasswordHashingRejectedException.class)
+public ResponseEntity<String> hashingUnavailable(PasswordHashingRejectedException e) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(e.getRetryAfterSeconds()))
+            .body("Too many password changes in progress, retry later.");
+}
+
 @GetMapping("/reset-password")
 public String showResetPasswordForm(@RequestParam(name = "token") String token, Model model) {
     // Ici, vous pouvez ajouter la logique pour afficher le formulaire de réinitialisation
@@ -135,6 +166,8 @@ public String showResetPasswordForm(@RequestParam(name = "token") String token,
 }
 
    
+// Conservé pour les anciens clients : les services embarquent désormais password-policy et vérifient la force localement
+@Deprecated
 @PostMapping("/compte/check-strength")
     public PasswordCheckResponse checkPasswordStrength(@RequestBody PasswordCheckRequest request) {
         // Implémentez la logique pour vérifier la force du mot de passe dans le service
@@ -147,10 +180,83 @@ public String showResetPasswordForm(@RequestParam(name = "token") String token,
         return passwordSrv.checkPasswordVulnerability(request);
     }
 
+    // Force et vulnérabilité en un seul aller-retour, avec un mot de passe suggéré si demandé (inscription, création de compte)
+    @PostMapping("/evaluate")
+    public ResponseEntity<PasswordEvaluationResponse> evaluatePassword(@RequestBody PasswordEvaluationRequest request) {
+        if (request.getPassword() == null) {
+            return ResponseEntity.badRequest().body(new PasswordEvaluationResponse(false, false, 0, "Password cannot be null", null));
+        }
+        return ResponseEntity.ok(passwordSrv.evaluatePassword(request));
+    }
+
+    // Audit de coffre, import de comptes... : jusqu'à MAX_BATCH_SIZE mots de passe ou empreintes SHA-1 par appel
+    @PostMapping("/compte/check-vulnerability/batch")
+    public ResponseEntity<PasswordBatchCheckResponse> checkPasswordsVulnerability(@RequestBody PasswordBatchCheckRequest request) {
+        String error = validateBatch(request);
+        if (error != null) {
+            return ResponseEntity.badRequest().body(new PasswordBatchCheckResponse(null, 0, error));
+        }
+        return ResponseEntity.ok(passwordSrv.checkPasswordsVulnerability(request));
+    }
+
+    private static String validateBatch(PasswordBatchCheckRequest request) {
+        List<String> passwords = request.getPasswords();
+        List<String> hashes = request.getHashes();
+        if ((passwords == null) == (hashes == null)) {
+            return "Provide either passwords or hashes";
+        }
+        List<String> values = passwords != null ? passwords : hashes;
+        if (values.size() > MAX_BATCH_SIZE) {
+            return "At most " + MAX_BATCH_SIZE + " entries per request";
+        }
+        for (String value : values) {
+            if (value == null) {
+                return "Entries cannot be null";
+            }
+            if (hashes != null && !SHA1_HEX.matcher(value).matches()) {
+                return "Invalid hash: " + value + " (40 hexadecimal characters expected)";
+            }
+        }
+        return null;
+    }
+
+    // k-anonymat : le client n'envoie que les 5 premiers caractères du SHA-1 et compare les suffixes localement
+    @GetMapping(value = "/range/{prefix}", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<String> getBreachedRange(@PathVariable String prefix) {
+        if (!HASH_PREFIX.matcher(prefix).matches()) {
+            return ResponseEntity.badRequest().body("Le préfixe doit contenir 5 caractères hexadécimaux");
+        }
+        // Réponse identique pour tous les utilisateurs : elle peut être mise en cache par la gateway
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.maxAge(RANGE_CACHE_HOURS, TimeUnit.HOURS).cachePublic())
+                .body(passwordSrv.getBreachedRange(prefix));
+    }
+
     @PostMapping("/compte/generate")
-    public PasswordGeneratedResponse generatePassword() {
+    public ResponseEntity<PasswordGeneratedResponse> generatePassword() {
         // Implémentez la logique pour générer un mot de passe fort dans le service
-        return passwordSrv.generatePassword();
+        PasswordGeneratedResponse response = passwordSrv.generatePassword();
+        // Aucun candidat hors des fuites : pas de mot de passe volé proposé, le client réessaie
+        if (response.getPassword() == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(response);
+    }
+
+    // Provisionnement en masse : count mots de passe, un par ligne, envoyés au fur et à mesure de la génération
+    @PostMapping(value = "/generate/batch", produces = MediaType.TEXT_PLAIN_VALUE)
+    public ResponseEntity<StreamingResponseBody> generatePasswords(@RequestParam("count") int count) {
+        if (count < 1 || count > MAX_GENERATED_BATCH) {
+            String message = "count must be between 1 and " + MAX_GENERATED_BATCH;
+            return ResponseEntity.badRequest().body(out -> out.write(message.getBytes(StandardCharsets.UTF_8)));
+        }
+        StreamingResponseBody body = out -> {
+            Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+            passwordSrv.generatePasswords(count, writer);
+            writer.flush();
+        };
+        // Secrets : ni la gateway ni le client ne doivent garder la réponse
+        return ResponseEntity.ok().cacheControl(CacheControl.noStore()).body(body);
     }
 
 } 
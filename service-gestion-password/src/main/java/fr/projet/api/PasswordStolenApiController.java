@@ -1,20 +1,30 @@
 package fr.projet.api;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
-import java.sql.Connection;
-import java.sql.DriverManager;
-import java.sql.PreparedStatement;
-import java.util.HashSet;
-import java.util.Set;
+import java.net.URI;
+import java.nio.file.InvalidPathException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.CrossOrigin;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import fr.projet.Response.ImportJobResponse;
+import fr.projet.service.ImportJob;
+import fr.projet.service.ImportJobService;
+
 
 
 @RestController
@@ -24,57 +34,131 @@ public class PasswordStolenApiController {
 
 private static final Logger log = LoggerFactory.getLogger(PasswordStolenApiController.class);
 
+@Value("${breach.import.directory}")
+private String importDirectory;
+
+@Value("${breach.index.path}")
+private Path indexPath;
+
+// Imports et rééquilibrage avec breach.backend=jdbc, construction de l'index avec les deux backends
+@Autowired
+private ImportJobService importJobService;
 
 
+    // Lance l'import en arrière-plan ; l'avancement se lit sur /jobs/{id}
+    // directory : nouvelle publication du corpus, comparée fichier par fichier à la version déjà importée.
+    // Nom d'un sous-répertoire de breach.import.directory : aucun autre répertoire du serveur n'est lisible.
     @PostMapping
-    public void readAndSaveFromDirectory() {
-        File directory = new File("C:/Users/TED/AJC-formation/PROJET-SOUTENANCE/pwnedpasswords"); // Spécifiez le chemin de votre répertoire local
-        File[] files = directory.listFiles((dir, name) -> name.toLowerCase().endsWith(".txt")); // Récupère tous les fichiers .txt du répertoire
-
-        if (files != null) {
-            for (File file : files) {
-                readAndSave(file);
-            }
-        } else {
+    public ResponseEntity<ImportJobResponse> readAndSaveFromDirectory(@RequestParam(required = false) String directory) {
+        Path source = resolveImportDirectory(directory);
+        if (source == null) {
+            log.warn("Répertoire d'import refusé, hors de breach.import.directory : {}", directory);
+            return ResponseEntity.badRequest()
+                    .body(new ImportJobResponse("Répertoire invalide : doit être un sous-répertoire de breach.import.directory"));
+        }
+        List<Path> files = listCorpusFiles(source.toString()); // Répertoire local des fichiers pwnedpasswords
+
+        if (files == null) {
             log.error("Le répertoire spécifié est invalide ou inaccessible.");
+            return ResponseEntity.badRequest().body(new ImportJobResponse("Répertoire invalide : " + source));
+        }
+        try {
+            ImportJob job = importJobService.submit(files);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/passwordstolen/jobs/" + job.getId()))
+                    .body(ImportJobResponse.of(job));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ImportJobResponse(ex.getMessage()));
+        }
+    }
+
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ImportJobResponse> getJob(@PathVariable String id) {
+        ImportJob job = importJobService.get(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        return ResponseEntity.ok(ImportJobResponse.of(job));
+    }
+
+    // Annulation : l'import s'arrête au prochain lot, un nouvel import reprendra où il s'est arrêté
+    @DeleteMapping("/jobs/{id}")
+    public ResponseEntity<ImportJobResponse> cancelJob(@PathVariable String id) {
+        ImportJob job = importJobService.get(id);
+        if (job == null) {
+            return ResponseEntity.notFound().build();
+        }
+        if (!importJobService.cancel(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(ImportJobResponse.of(job));
+        }
+        return ResponseEntity.ok(ImportJobResponse.of(job));
+    }
+
+    // Déplace vers leur fragment les partitions restées sur une autre base (breach.shards modifié)
+    @PostMapping("/rebalance")
+    public ResponseEntity<ImportJobResponse> rebalance() {
+        try {
+            ImportJob job = importJobService.submitRebalance();
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/passwordstolen/jobs/" + job.getId()))
+                    .body(ImportJobResponse.of(job));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ImportJobResponse(ex.getMessage()));
+        }
+    }
+
+    // Copie dans stolen_password l'ancienne table à empreintes hexadécimales, reprise là où elle s'est arrêtée
+    @PostMapping("/legacy")
+    public ResponseEntity<ImportJobResponse> convertLegacy() {
+        try {
+            ImportJob job = importJobService.submitLegacyConversion();
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/passwordstolen/jobs/" + job.getId()))
+                    .body(ImportJobResponse.of(job));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ImportJobResponse(ex.getMessage()));
         }
     }
 
-    private void readAndSave(File file) {
-        Set<String> hashedPasswords = new HashSet<>();
-
-        try (BufferedReader br = new BufferedReader(new FileReader(file))) {
-            String line;
-            while ((line = br.readLine()) != null) {
-                String[] parts = line.split(":"); // Supposons que le mot de passe haché est séparé par un espace
-                String hashedPassword = parts[0]; // Supposons que le mot de passe haché est la première partie de la ligne
-
-                hashedPasswords.add(hashedPassword);
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            log.error("Problème lors de la lecture du fichier " + file.getName());
-            return; // Arrêtez le traitement si une erreur se produit lors de la lecture du fichier
+    // Construit en arrière-plan l'index binaire trié utilisé par breach.backend=mapped ; l'avancement se lit sur /jobs/{id}
+    @PostMapping("/index")
+    public ResponseEntity<ImportJobResponse> buildIndex() {
+        List<Path> sources = listCorpusFiles(importDirectory);
+        if (sources == null) {
+            log.error("Le répertoire spécifié est invalide ou inaccessible.");
+            return ResponseEntity.badRequest().body(new ImportJobResponse("Répertoire invalide : " + importDirectory));
+        }
+        try {
+            ImportJob job = importJobService.submitIndex(sources, indexPath);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/api/passwordstolen/jobs/" + job.getId()))
+                    .body(ImportJobResponse.of(job));
+        } catch (IllegalStateException ex) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(new ImportJobResponse(ex.getMessage()));
         }
+    }
 
-        // Stocker les mots de passe hachés dans la base de données
-        storeHashedPasswords(hashedPasswords);
+    // Sous-répertoire de breach.import.directory désigné par directory (le répertoire lui-même si null), null s'il en sort
+    private Path resolveImportDirectory(String directory) {
+        Path root = Path.of(importDirectory).toAbsolutePath().normalize();
+        if (directory == null) {
+            return root;
+        }
+        try {
+            Path resolved = root.resolve(directory).normalize();
+            return resolved.startsWith(root) ? resolved : null;
+        } catch (InvalidPathException ex) {
+            return null;
+        }
     }
 
-    private void storeHashedPasswords(Set<String> hashedPasswords) {
-        try (Connection connection = DriverManager.getConnection("jdbc:postgresql://127.0.0.1:5432/stolen_passwords", "postgres", "root")) {
-            try (PreparedStatement statement = connection.prepareStatement("INSERT INTO stolen_password (hash) VALUES (?)")) {
-                for (String hashedPassword : hashedPasswords) {
-                    statement.setString(1, hashedPassword);
-                    statement.addBatch();
-                }
-
-                statement.executeBatch();
-            }
-        } catch (Exception ex) {
-            ex.printStackTrace();
-            log.error("Problème lors de la connexion à la base de données ou lors de l'insertion des mots de passe hachés.");
+    private List<Path> listCorpusFiles(String directory) {
+        File[] files = new File(directory).listFiles((dir, name) -> name.toLowerCase().endsWith(".txt")); // Récupère tous les fichiers .txt du répertoire
+        if (files == null) {
+            return null;
         }
+        Arrays.sort(files);
+        return Arrays.stream(files).map(File::toPath).toList();
     }
 
 
@@ -1,29 +1,150 @@
 package fr.projet.model;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.task.ThreadPoolTaskExecutorBuilder;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.metrics.micrometer.MicrometerMetricsTrackerFactory;
+
+import fr.projet.service.StolenPasswordShardRouter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadPoolExecutor;
 
 import javax.sql.DataSource;
 
 @Configuration
 public class Config {
 
+    // Base JPA (spring.datasource.*) : déclarée explicitement car une seconde DataSource existe
     @Bean
-    public DataSource dataSource() {
-        DriverManagerDataSource dataSource = new DriverManagerDataSource();
+    @Primary
+    @ConfigurationProperties("spring.datasource")
+    public DataSourceProperties dataSourceProperties() {
+        return new DataSourceProperties();
+    }
+
+    @Bean
+    @Primary
+    public DataSource dataSource(DataSourceProperties dataSourceProperties) {
+        return dataSourceProperties.initializeDataSourceBuilder().build();
+    }
+
+    /**
+     * Exécuteur de Spring Boot (requêtes MVC asynchrones, StreamingResponseBody), redéclaré :
+     * l'auto-configuration s'efface dès qu'un autre exécuteur est déclaré.
+     * Les métriques executor.* de chaque exécuteur portent le nom de son bean.
+     */
+    @Bean(name = { "applicationTaskExecutor", "taskExecutor" })
+    public ThreadPoolTaskExecutor applicationTaskExecutor(ThreadPoolTaskExecutorBuilder builder) {
+        return builder.build();
+    }
+
+    /**
+     * Recherches dans les fuites lancées par PasswordService.evaluatePassword pendant les règles de force.
+     * Sans file d'attente : si tous les threads sont occupés, l'appelant fait la recherche lui-même.
+     */
+    @Bean
+    public ThreadPoolTaskExecutor breachLookupExecutor(@Value("${password.breach-lookup.threads:16}") int threads) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(threads);
+        executor.setMaxPoolSize(threads);
+        executor.setQueueCapacity(0);
+        // Threads libérés en période creuse
+        executor.setKeepAliveSeconds(60);
+        executor.setAllowCoreThreadTimeOut(true);
+        executor.setThreadNamePrefix("breach-lookup-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        return executor;
+    }
+
+    // Reconstructions du filtre des mots de passe volés : une à la fois, au plus une en attente
+    @Bean
+    @ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+    public ThreadPoolTaskExecutor stolenPasswordFilterExecutor() {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("stolen-password-filter-");
+        executor.setDaemon(true);
+        // Une construction interrompue est sans effet : le filtre courant reste en place
+        executor.setWaitForTasksToCompleteOnShutdown(false);
+        return executor;
+    }
+
+    // Fragments de la base des mots de passe volés, inutiles lorsque breach.backend=mapped
+    @Bean
+    @ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+    @ConfigurationProperties("breach")
+    public StolenPasswordShardProperties stolenPasswordShardProperties() {
+        return new StolenPasswordShardProperties();
+    }
+
+    /**
+     * Un pool Hikari par fragment et par réplique : plus d'ouverture de connexion par requête.
+     * Les métriques hikaricp.connections.* (actives, en attente, temps d'attente) portent le nom du pool.
+     */
+    @Bean
+    @ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+    public StolenPasswordShardRouter stolenPasswordShardRouter(StolenPasswordShardProperties properties,
+            MeterRegistry meterRegistry) {
+        List<StolenPasswordShardProperties.Shard> shards = properties.getShards().isEmpty()
+                ? List.of(new StolenPasswordShardProperties.Shard())
+                : properties.getShards();
+        MicrometerMetricsTrackerFactory metrics = new MicrometerMetricsTrackerFactory(meterRegistry);
+        List<Integer> firstBytes = new ArrayList<>();
+        List<JdbcTemplate> templates = new ArrayList<>();
+        List<List<JdbcTemplate>> replicas = new ArrayList<>();
+        for (int i = 0; i < shards.size(); i++) {
+            StolenPasswordShardProperties.Shard shard = shards.get(i);
+            firstBytes.add(Integer.parseInt(shard.getFrom(), 16));
+            templates.add(new JdbcTemplate(breachDataSource("breach-shard-" + i, shard.getUrl(), shard,
+                    properties.getPool(), metrics, false)));
+            List<JdbcTemplate> shardReplicas = new ArrayList<>();
+            for (int r = 0; r < shard.getReplicas().size(); r++) {
+                JdbcTemplate replica = new JdbcTemplate(breachDataSource("breach-shard-" + i + "-replica-" + r,
+                        shard.getReplicas().get(r), shard, properties.getPool(), metrics, true));
+                // Une réplique lente est abandonnée au profit du primaire
+                replica.setQueryTimeout((int) Math.max(1, properties.getReplicas().getQueryTimeout().toSeconds()));
+                shardReplicas.add(replica);
+            }
+            replicas.add(shardReplicas);
+        }
+        return new StolenPasswordShardRouter(firstBytes, templates, replicas);
+    }
+
+    private static HikariDataSource breachDataSource(String poolName, String url, StolenPasswordShardProperties.Shard shard,
+            StolenPasswordShardProperties.Pool pool, MicrometerMetricsTrackerFactory metrics, boolean readOnly) {
+        HikariDataSource dataSource = new HikariDataSource();
+        dataSource.setPoolName(poolName);
         dataSource.setDriverClassName("org.postgresql.Driver");
-        dataSource.setUrl("jdbc:postgresql://localhost:5432/stolen_passwords");
-        dataSource.setUsername("postgres");
-        dataSource.setPassword("root");
+        dataSource.setJdbcUrl(url);
+        dataSource.setUsername(shard.getUsername());
+        dataSource.setPassword(shard.getPassword());
+        dataSource.setMaximumPoolSize(pool.getMaximumSize());
+        dataSource.setMinimumIdle(pool.getMinimumIdle());
+        dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+        dataSource.setReadOnly(readOnly);
+        // Le pool démarre même si la base est injoignable : le service démarre comme avant
+        dataSource.setInitializationFailTimeout(-1);
+        dataSource.setMetricsTrackerFactory(metrics);
         return dataSource;
     }
-   
+
+    // Premier fragment : porte aussi les points de reprise de l'import (import_state)
     @Bean
-    public JdbcTemplate clickHouseJdbcTemplate(DataSource dataSource) {
-        return new JdbcTemplate(dataSource);
+    @ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+    public JdbcTemplate clickHouseJdbcTemplate(StolenPasswordShardRouter router) {
+        return router.shard(0);
     }
 }
-
-
- 
\ No newline at end of file
@@ -0,0 +1,16 @@
+package fr.projet.model;
+
+// File des hachages pleine : la demande est refusée tout de suite (503) plutôt que d'attendre
+public class PasswordHashingRejectedException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingRejectedException(long retryAfterSeconds) {
+        super("Password hashing queue is full");
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
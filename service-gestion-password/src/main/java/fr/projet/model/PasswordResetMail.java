@@ -0,0 +1,124 @@
+package fr.projet.model;
+
+import java.time.LocalDateTime;
+
+import org.hibernate.annotations.UuidGenerator;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.Id;
+import jakarta.persistence.Index;
+import jakarta.persistence.Table;
+
+// Courriel de réinitialisation à envoyer (outbox), écrit dans la même transaction que le PasswordResetToken
+@Entity
+@Table(name = "password_reset_mail", indexes = @Index(name = "password_reset_mail_due", columnList = "status, nextAttemptAt"))
+public class PasswordResetMail {
+
+    public enum Status {
+        PENDING,
+        // Abandonné après le nombre maximal de tentatives
+        FAILED
+    }
+
+    @Id
+    @UuidGenerator
+    private String id;
+
+    @Column(nullable = false)
+    private String email;
+
+    // Token stocké ; null en mode signé (password.reset-token.mode=signed) : émis à l'envoi, jamais enregistré
+    @Column(length = 512)
+    private String token;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 16)
+    private Status status = Status.PENDING;
+
+    private int attempts;
+
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(nullable = false)
+    private LocalDateTime nextAttemptAt;
+
+    private String lastError;
+
+    public PasswordResetMail() {
+    }
+
+    public PasswordResetMail(String email, String token) {
+        this.email = email;
+        this.token = token;
+        this.createdAt = LocalDateTime.now();
+        this.nextAttemptAt = createdAt;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public String getToken() {
+        return token;
+    }
+
+    public void setToken(String token) {
+        this.token = token;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public int getAttempts() {
+        return attempts;
+    }
+
+    public void setAttempts(int attempts) {
+        this.attempts = attempts;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getNextAttemptAt() {
+        return nextAttemptAt;
+    }
+
+    public void setNextAttemptAt(LocalDateTime nextAttemptAt) {
+        this.nextAttemptAt = nextAttemptAt;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+}
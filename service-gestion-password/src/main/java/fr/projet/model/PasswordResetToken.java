@@ -4,17 +4,24 @@ import java.time.LocalDateTime;
 
 import org.hibernate.annotations.UuidGenerator;
 
+import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.Id;
+import jakarta.persistence.Index;
 import jakarta.persistence.Table;
 @Entity
-@Table
+// Index unique pour la consommation par token, (expiryDate, id) pour la purge par lots
+@Table(name = "password_reset_token", indexes = {
+        @Index(name = "password_reset_token_token", columnList = "token", unique = true),
+        @Index(name = "password_reset_token_expiry", columnList = "expiryDate, id") })
 public class PasswordResetToken {
     @Id
     @UuidGenerator
     private String id;
+    @Column(nullable = false)
      private String token;
     private String email;
+    @Column(nullable = false)
     private LocalDateTime expiryDate;
 
     public PasswordResetToken(){ }
@@ -0,0 +1,42 @@
+package fr.projet.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+// Version du mot de passe d'un utilisateur, portée par les tokens signés et incrémentée à chaque réinitialisation
+@Entity
+@Table(name = "password_reset_version")
+public class PasswordResetVersion {
+
+    @Id
+    private String email;
+
+    @Column(nullable = false)
+    private long version;
+
+    public PasswordResetVersion() {
+    }
+
+    public PasswordResetVersion(String email, long version) {
+        this.email = email;
+        this.version = version;
+    }
+
+    public String getEmail() {
+        return email;
+    }
+
+    public void setEmail(String email) {
+        this.email = email;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+}
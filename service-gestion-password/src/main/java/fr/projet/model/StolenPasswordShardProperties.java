@@ -0,0 +1,138 @@
+package fr.projet.model;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Fragments de la base des mots de passe volés (breach.shards[i].*), dans l'ordre de leurs intervalles.
+ * Sans fragment déclaré, une seule base locale est utilisée.
+ * Chaque base (fragment ou réplique) a son propre pool de connexions, dimensionné par breach.pool.*.
+ */
+public class StolenPasswordShardProperties {
+
+    private List<Shard> shards = new ArrayList<>();
+    private Pool pool = new Pool();
+    private Replicas replicas = new Replicas();
+
+    public List<Shard> getShards() {
+        return shards;
+    }
+
+    public void setShards(List<Shard> shards) {
+        this.shards = shards;
+    }
+
+    public Pool getPool() {
+        return pool;
+    }
+
+    public void setPool(Pool pool) {
+        this.pool = pool;
+    }
+
+    public Replicas getReplicas() {
+        return replicas;
+    }
+
+    public void setReplicas(Replicas replicas) {
+        this.replicas = replicas;
+    }
+
+    public static class Shard {
+
+        private String url = "jdbc:postgresql://localhost:5432/stolen_passwords";
+        private String username = "postgres";
+        private String password = "root";
+        // Premier octet de tête (2 caractères hexadécimaux) des empreintes de ce fragment
+        private String from = "00";
+        // Répliques en lecture seule (mêmes identifiants), interrogées par les vérifications
+        private List<String> replicas = new ArrayList<>();
+
+        public String getUrl() {
+            return url;
+        }
+
+        public void setUrl(String url) {
+            this.url = url;
+        }
+
+        public String getUsername() {
+            return username;
+        }
+
+        public void setUsername(String username) {
+            this.username = username;
+        }
+
+        public String getPassword() {
+            return password;
+        }
+
+        public void setPassword(String password) {
+            this.password = password;
+        }
+
+        public String getFrom() {
+            return from;
+        }
+
+        public void setFrom(String from) {
+            this.from = from;
+        }
+
+        public List<String> getReplicas() {
+            return replicas;
+        }
+
+        public void setReplicas(List<String> replicas) {
+            this.replicas = replicas;
+        }
+    }
+
+    public static class Pool {
+
+        private int maximumSize = 20;
+        private int minimumIdle = 2;
+        // Attente maximale d'une connexion libre avant échec de la requête
+        private Duration connectionTimeout = Duration.ofSeconds(2);
+
+        public int getMaximumSize() {
+            return maximumSize;
+        }
+
+        public void setMaximumSize(int maximumSize) {
+            this.maximumSize = maximumSize;
+        }
+
+        public int getMinimumIdle() {
+            return minimumIdle;
+        }
+
+        public void setMinimumIdle(int minimumIdle) {
+            this.minimumIdle = minimumIdle;
+        }
+
+        public Duration getConnectionTimeout() {
+            return connectionTimeout;
+        }
+
+        public void setConnectionTimeout(Duration connectionTimeout) {
+            this.connectionTimeout = connectionTimeout;
+        }
+    }
+
+    public static class Replicas {
+
+        // Délai maximal d'une requête sur une réplique avant de se replier sur le primaire
+        private Duration queryTimeout = Duration.ofSeconds(1);
+
+        public Duration getQueryTimeout() {
+            return queryTimeout;
+        }
+
+        public void setQueryTimeout(Duration queryTimeout) {
+            this.queryTimeout = queryTimeout;
+        }
+    }
+}
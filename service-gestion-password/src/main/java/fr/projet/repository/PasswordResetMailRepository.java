@@ -0,0 +1,23 @@
+package fr.projet.repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import fr.projet.model.PasswordResetMail;
+
+public interface PasswordResetMailRepository extends JpaRepository<PasswordResetMail, String> {
+
+    // Courriels dus, réservés jusqu'à leaseUntil en une instruction : la transaction (et le verrou) se termine aussitôt ;
+    // les lignes verrouillées par une autre instance sont sautées (SKIP LOCKED)
+    @Transactional
+    @Query(value = "UPDATE password_reset_mail SET next_attempt_at = :leaseUntil WHERE id IN ("
+            + "SELECT id FROM password_reset_mail WHERE status = 'PENDING' AND next_attempt_at <= :now "
+            + "ORDER BY next_attempt_at LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *", nativeQuery = true)
+    List<PasswordResetMail> claimDue(@Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil,
+            @Param("limit") int limit);
+}
@@ -1,13 +1,31 @@
 package fr.projet.repository;
 
+import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import fr.projet.model.PasswordResetToken;
 
 public interface PasswordResetTokenRepository extends JpaRepository<PasswordResetToken, String>{
 
-    Optional<PasswordResetToken> findByToken(String token);
+    // Lecture et suppression en une instruction : deux requêtes concurrentes ne peuvent pas utiliser le même token
+    @Transactional
+    @Query(value = "DELETE FROM password_reset_token WHERE token = :token RETURNING *", nativeQuery = true)
+    Optional<PasswordResetToken> consumeByToken(@Param("token") String token);
+
+    // Lot de tokens expirés après la clé (expiryDate, id) du lot précédent ; les lignes verrouillées sont sautées.
+    // Lot renvoyé trié par la base, avec sa collation : la clé suivante est sa dernière ligne
+    @Transactional
+    @Query(value = "WITH deleted AS (DELETE FROM password_reset_token WHERE id IN ("
+            + "SELECT id FROM password_reset_token WHERE expiry_date < :now AND (expiry_date, id) > (:afterExpiry, :afterId) "
+            + "ORDER BY expiry_date, id LIMIT :limit FOR UPDATE SKIP LOCKED) RETURNING *) "
+            + "SELECT * FROM deleted ORDER BY expiry_date, id", nativeQuery = true)
+    List<PasswordResetToken> deleteExpiredAfter(@Param("now") LocalDateTime now,
+            @Param("afterExpiry") LocalDateTime afterExpiry, @Param("afterId") String afterId, @Param("limit") int limit);
     
 }
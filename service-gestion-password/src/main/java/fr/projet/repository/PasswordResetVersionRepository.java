@@ -0,0 +1,32 @@
+package fr.projet.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import fr.projet.model.PasswordResetVersion;
+
+public interface PasswordResetVersionRepository extends JpaRepository<PasswordResetVersion, String> {
+
+    // Passe à version + 1 seulement si la version courante est celle du token (absente : 0) ; 0 ligne sinon
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO password_reset_version (email, version) VALUES (:email, :version + 1) "
+            + "ON CONFLICT (email) DO UPDATE SET version = EXCLUDED.version "
+            + "WHERE password_reset_version.version = :version", nativeQuery = true)
+    int advance(@Param("email") String email, @Param("version") long version);
+
+    // Passe à version + 1 sans condition (absente : 1) : tous les tokens signés déjà émis sont refusés
+    @Transactional
+    @Modifying
+    @Query(value = "INSERT INTO password_reset_version (email, version) VALUES (:email, 1) "
+            + "ON CONFLICT (email) DO UPDATE SET version = password_reset_version.version + 1", nativeQuery = true)
+    int bump(@Param("email") String email);
+
+    // Version portée par les tokens émis maintenant (absente : 0)
+    default long currentVersion(String email) {
+        return findById(email).map(PasswordResetVersion::getVersion).orElse(0L);
+    }
+}
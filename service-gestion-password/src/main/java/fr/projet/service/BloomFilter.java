@@ -0,0 +1,115 @@
+package fr.projet.service;
+
+/**
+ * Filtre de Bloom compact sur des empreintes SHA-1.
+ *
+ * Le SHA-1 étant déjà uniformément distribué, les deux premiers mots de 64 bits
+ * de l'empreinte servent directement de hachages (double hachage de Kirsch-Mitzenmacher) :
+ * aucune fonction de hachage supplémentaire n'est calculée.
+ *
+ * Les insertions ne sont pas atomiques : le filtre doit être rempli par un seul thread
+ * avant d'être publié aux lecteurs.
+ */
+public final class BloomFilter implements DigestFilter {
+
+    private final long[] bits;
+    private final long bitCount;
+    private final int hashCount;
+    private long insertions;
+
+    private BloomFilter(long bitCount, int hashCount) {
+        long words = (bitCount + 63) >>> 6;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filtre de Bloom trop grand : " + bitCount + " bits");
+        }
+        this.bits = new long[(int) words];
+        this.bitCount = words << 6;
+        this.hashCount = hashCount;
+    }
+
+    // Dimensionne le filtre à partir du nombre d'éléments attendus et du taux de faux positifs visé
+    public static BloomFilter create(long expectedInsertions, double falsePositiveRate) {
+        long n = Math.max(1, expectedInsertions);
+        long m = optimalBitCount(n, falsePositiveRate);
+        return new BloomFilter(m, optimalHashCount(n, m));
+    }
+
+    static long optimalBitCount(long expectedInsertions, double falsePositiveRate) {
+        if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Le taux de faux positifs doit être dans ]0, 1[");
+        }
+        long n = Math.max(1, expectedInsertions);
+        return Math.max(64, (long) Math.ceil(-n * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2))));
+    }
+
+    static int optimalHashCount(long expectedInsertions, long bitCount) {
+        return Math.max(1, (int) Math.round((double) bitCount / Math.max(1, expectedInsertions) * Math.log(2)));
+    }
+
+    public void put(long h1, long h2) {
+        insertions++;
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitCount;
+            bits[(int) (index >>> 6)] |= 1L << index;
+            combined += h2;
+        }
+    }
+
+    public boolean mightContain(long h1, long h2) {
+        long combined = h1;
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits[(int) (index >>> 6)] & (1L << index)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    public void put(CharSequence sha1Hex) {
+        put(Sha1Digests.hexLong(sha1Hex, 0), Sha1Digests.hexLong(sha1Hex, 16));
+    }
+
+    public boolean mightContain(CharSequence sha1Hex) {
+        return mightContain(Sha1Digests.hexLong(sha1Hex, 0), Sha1Digests.hexLong(sha1Hex, 16));
+    }
+
+    // Mêmes positions que la forme hexadécimale : les 16 premiers octets de l'empreinte brute
+    public void put(byte[] sha1) {
+        put(Sha1Digests.bytesLong(sha1, 0), Sha1Digests.bytesLong(sha1, 8));
+    }
+
+    @Override
+    public boolean mightContain(byte[] sha1) {
+        return mightContain(Sha1Digests.bytesLong(sha1, 0), Sha1Digests.bytesLong(sha1, 8));
+    }
+
+    public long bitCount() {
+        return bitCount;
+    }
+
+    public int hashCount() {
+        return hashCount;
+    }
+
+    public long insertions() {
+        return insertions;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) bits.length * Long.BYTES;
+    }
+
+    @Override
+    public double expectedFalsePositiveRate() {
+        return expectedFalsePositiveRate(insertions);
+    }
+
+    // Taux de faux positifs théorique pour n éléments insérés
+    public double expectedFalsePositiveRate(long insertions) {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions / bitCount), hashCount);
+    }
+}
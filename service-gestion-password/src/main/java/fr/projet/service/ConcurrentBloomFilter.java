@@ -0,0 +1,81 @@
+package fr.projet.service;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Filtre de Bloom de taille fixe rempli par plusieurs threads pendant qu'il est consulté.
+ *
+ * Mêmes positions que {@link BloomFilter} (double hachage sur les 16 premiers octets de l'empreinte) ;
+ * les bits sont posés atomiquement. Dimensionné pour une capacité donnée : au-delà, le taux de faux
+ * positifs se dégrade, jamais au point de produire un faux négatif.
+ */
+public final class ConcurrentBloomFilter implements DigestFilter {
+
+    private final AtomicLongArray bits;
+    private final long bitCount;
+    private final int hashCount;
+    private final long capacity;
+    private final LongAdder insertions = new LongAdder();
+
+    public ConcurrentBloomFilter(long capacity, double falsePositiveRate) {
+        long m = BloomFilter.optimalBitCount(capacity, falsePositiveRate);
+        long words = (m + 63) >>> 6;
+        if (words > Integer.MAX_VALUE - 8) {
+            throw new IllegalArgumentException("Filtre de Bloom trop grand : " + m + " bits");
+        }
+        this.bits = new AtomicLongArray((int) words);
+        this.bitCount = words << 6;
+        this.hashCount = BloomFilter.optimalHashCount(capacity, m);
+        this.capacity = Math.max(1, capacity);
+    }
+
+    public void put(byte[] sha1) {
+        long combined = Sha1Digests.bytesLong(sha1, 0);
+        long h2 = Sha1Digests.bytesLong(sha1, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitCount;
+            int word = (int) (index >>> 6);
+            long mask = 1L << index;
+            long current = bits.get(word);
+            if ((current & mask) == 0) {
+                bits.getAndAccumulate(word, mask, (value, m) -> value | m);
+            }
+            combined += h2;
+        }
+        insertions.increment();
+    }
+
+    @Override
+    public boolean mightContain(byte[] sha1) {
+        long combined = Sha1Digests.bytesLong(sha1, 0);
+        long h2 = Sha1Digests.bytesLong(sha1, 8);
+        for (int i = 0; i < hashCount; i++) {
+            long index = (combined & Long.MAX_VALUE) % bitCount;
+            if ((bits.get((int) (index >>> 6)) & (1L << index)) == 0) {
+                return false;
+            }
+            combined += h2;
+        }
+        return true;
+    }
+
+    public long insertions() {
+        return insertions.sum();
+    }
+
+    // Capacité dépassée : le taux de faux positifs n'est plus celui visé
+    public boolean isSaturated() {
+        return insertions.sum() > capacity;
+    }
+
+    @Override
+    public long memoryBytes() {
+        return (long) bits.length() * Long.BYTES;
+    }
+
+    @Override
+    public double expectedFalsePositiveRate() {
+        return Math.pow(1 - Math.exp(-(double) hashCount * insertions.sum() / bitCount), hashCount);
+    }
+}
@@ -0,0 +1,165 @@
+package fr.projet.service;
+
+import java.nio.ByteBuffer;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Écriture des lots dans stolen_password par le protocole COPY de PostgreSQL.
+ *
+ * Chaque lot est copié (format binaire : empreinte de 20 octets et nombre d'occurrences) dans la
+ * table de transit non journalisée stolen_password_staging, puis fusionné dans stolen_password
+ * sans doublons, le tout dans une seule transaction. Les lignes de transit des autres écrivains
+ * ne sont pas visibles avant leur commit et sont supprimées avant celui-ci : la table reste vide
+ * entre deux lots. Une empreinte déjà présente garde sa ligne ; seul son compteur est relevé si
+ * la nouvelle publication en donne un plus grand.
+ *
+ * Avec plusieurs fragments, chaque lot est découpé selon l'octet de tête et chaque partie écrite
+ * sur son fragment dans sa propre transaction ; un lot interrompu est rejoué sans effet sur les
+ * parties déjà écrites.
+ *
+ * Les empreintes réellement insérées (RETURNING ; xmax est nul pour une ligne insérée, pas pour
+ * une ligne mise à jour) sont ajoutées au filtre avant le commit : un import incrémental met à jour
+ * le filtre en place, sans attendre sa reconstruction. Un import complet ne les suit pas, le filtre
+ * étant reconstruit après lui.
+ */
+@Component
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class CopyStolenPasswordWriter implements StolenPasswordWriter {
+
+    static final String STAGING_TABLE = "stolen_password_staging";
+
+    // En-tête du format binaire de COPY : signature, drapeaux, longueur de l'extension d'en-tête
+    private static final byte[] BINARY_SIGNATURE = { 'P', 'G', 'C', 'O', 'P', 'Y', '\n', (byte) 0xFF, '\r', '\n', 0 };
+    private static final int HEADER_BYTES = BINARY_SIGNATURE.length + 8;
+    // Nombre de colonnes (int16), puis pour chaque champ sa longueur (int32) et sa valeur : empreinte, occurrences
+    private static final int ROW_BYTES = 2 + 4 + Sha1Digests.BYTES + 4 + 4;
+
+    private final StolenPasswordShardRouter router;
+    private final StolenPasswordTable stolenPasswordTable;
+    private final StolenPasswordFilter stolenPasswordFilter;
+
+    public CopyStolenPasswordWriter(StolenPasswordShardRouter router, StolenPasswordTable stolenPasswordTable,
+            StolenPasswordFilter stolenPasswordFilter) {
+        this.router = router;
+        this.stolenPasswordTable = stolenPasswordTable;
+        this.stolenPasswordFilter = stolenPasswordFilter;
+    }
+
+    // Un seul import à la fois : la table de transit, vide entre deux lots, peut être recréée
+    @Override
+    public void prepare() {
+        stolenPasswordTable.ensureSchema();
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = router.shard(shard);
+            jdbcTemplate.execute("DROP TABLE IF EXISTS " + STAGING_TABLE);
+            jdbcTemplate.execute("CREATE UNLOGGED TABLE " + STAGING_TABLE + " (hash bytea NOT NULL, occurrences integer NOT NULL)");
+        }
+    }
+
+    @Override
+    public void beginFullImport() {
+        stolenPasswordFilter.beginFullImport();
+    }
+
+    @Override
+    public int write(DigestBatch batch) {
+        if (router.shardCount() == 1) {
+            return write(router.shard(0), encode(batch, -1, batch.size()));
+        }
+        int[] rowsPerShard = new int[router.shardCount()];
+        for (int i = 0; i < batch.size(); i++) {
+            rowsPerShard[router.ownerOf(batch.digests()[i * Sha1Digests.BYTES] & 0xFF)]++;
+        }
+        int inserted = 0;
+        for (int shard = 0; shard < rowsPerShard.length; shard++) {
+            if (rowsPerShard[shard] > 0) {
+                inserted += write(router.shard(shard), encode(batch, shard, rowsPerShard[shard]));
+            }
+        }
+        return inserted;
+    }
+
+    private int write(JdbcTemplate jdbcTemplate, byte[] rows) {
+        stolenPasswordFilter.beginWrite();
+        try {
+            return writeAndTrack(jdbcTemplate, rows);
+        } finally {
+            stolenPasswordFilter.endWrite();
+        }
+    }
+
+    private int writeAndTrack(JdbcTemplate jdbcTemplate, byte[] rows) {
+        Integer inserted = jdbcTemplate.execute((ConnectionCallback<Integer>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            int count = 0;
+            try {
+                copy(connection, rows);
+                try (Statement statement = connection.createStatement()) {
+                    // Un ajout au filtre suivi d'un rollback ne produit qu'un faux positif
+                    try (ResultSet rs = statement.executeQuery("INSERT INTO stolen_password (hash, occurrences) "
+                            + "SELECT hash, max(occurrences) FROM " + STAGING_TABLE + " GROUP BY hash "
+                            + "ON CONFLICT (hash) DO UPDATE SET occurrences = EXCLUDED.occurrences "
+                            + "WHERE stolen_password.occurrences < EXCLUDED.occurrences "
+                            + "RETURNING hash, xmax = 0")) {
+                        while (rs.next()) {
+                            if (rs.getBoolean(2)) {
+                                stolenPasswordFilter.add(rs.getBytes(1));
+                                count++;
+                            }
+                        }
+                    }
+                    statement.executeUpdate("DELETE FROM " + STAGING_TABLE);
+                }
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return count;
+        });
+        return inserted == null ? 0 : inserted;
+    }
+
+    // Lignes du lot destinées au fragment shard (toutes si shard vaut -1), au nombre de rows
+    private byte[] encode(DigestBatch batch, int shard, int rows) {
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + rows * ROW_BYTES + 2);
+        buffer.put(BINARY_SIGNATURE).putInt(0).putInt(0);
+        byte[] digests = batch.digests();
+        for (int i = 0; i < batch.size(); i++) {
+            int offset = i * Sha1Digests.BYTES;
+            if (shard < 0 || router.ownerOf(digests[offset] & 0xFF) == shard) {
+                buffer.putShort((short) 2).putInt(Sha1Digests.BYTES).put(digests, offset, Sha1Digests.BYTES)
+                        .putInt(4).putInt(batch.occurrences(i));
+            }
+        }
+        // Fin des données
+        buffer.putShort((short) -1);
+        return buffer.array();
+    }
+
+    private static void copy(Connection connection, byte[] rows) throws SQLException {
+        CopyIn copyIn = connection.unwrap(PGConnection.class).getCopyAPI()
+                .copyIn("COPY " + STAGING_TABLE + " (hash, occurrences) FROM STDIN WITH (FORMAT binary)");
+        try {
+            copyIn.writeToCopy(rows, 0, rows.length);
+            copyIn.endCopy();
+        } finally {
+            if (copyIn.isActive()) {
+                copyIn.cancelCopy();
+            }
+        }
+    }
+}
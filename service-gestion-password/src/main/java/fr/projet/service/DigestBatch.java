@@ -0,0 +1,84 @@
+package fr.projet.service;
+
+import java.nio.file.Path;
+
+/**
+ * Lot réutilisable d'empreintes SHA-1 brutes lues dans un fichier pwnedpasswords,
+ * avec le nombre d'occurrences de chacune (0 s'il est inconnu).
+ *
+ * Les lots circulent entre lecteurs et écrivains de {@link StolenPasswordImporter} puis sont
+ * recyclés : le nombre de lots en circulation borne la mémoire utilisée par l'import.
+ */
+public final class DigestBatch {
+
+    private final byte[] digests;
+    private final int[] occurrences;
+    private final int capacity;
+    private int size;
+    private Path source;
+    private long startOffset;
+    private long endOffset;
+
+    public DigestBatch(int capacity) {
+        this.capacity = capacity;
+        this.digests = new byte[capacity * Sha1Digests.BYTES];
+        this.occurrences = new int[capacity];
+    }
+
+    void reset(Path source, long startOffset) {
+        this.source = source;
+        this.size = 0;
+        this.startOffset = startOffset;
+        this.endOffset = startOffset;
+    }
+
+    // Emplacement (décalage dans digests()) de la prochaine empreinte ; l'appelant y écrit 20 octets
+    int nextSlot() {
+        return size * Sha1Digests.BYTES;
+    }
+
+    void commit(long lineEndOffset, int occurrenceCount) {
+        occurrences[size] = occurrenceCount;
+        size++;
+        endOffset = lineEndOffset;
+    }
+
+    // Étend le lot jusqu'à offset (lignes ignorées en fin de fichier)
+    void endAt(long offset) {
+        endOffset = offset;
+    }
+
+    public boolean isFull() {
+        return size == capacity;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte[] digests() {
+        return digests;
+    }
+
+    public int occurrences(int index) {
+        return occurrences[index];
+    }
+
+    public Path source() {
+        return source;
+    }
+
+    // Les lots successifs d'un fichier couvrent [startOffset, endOffset[ sans trou ni recouvrement
+    public long startOffset() {
+        return startOffset;
+    }
+
+    // Position dans le fichier source juste après la dernière ligne du lot
+    public long endOffset() {
+        return endOffset;
+    }
+
+    public String hex(int index) {
+        return Sha1Digests.toHex(digests, index * Sha1Digests.BYTES);
+    }
+}
@@ -0,0 +1,14 @@
+package fr.projet.service;
+
+/**
+ * Filtre d'appartenance approximatif sur des empreintes SHA-1 brutes : jamais de faux négatif,
+ * des faux positifs à un taux borné.
+ */
+public interface DigestFilter {
+
+    boolean mightContain(byte[] sha1);
+
+    long memoryBytes();
+
+    double expectedFalsePositiveRate();
+}
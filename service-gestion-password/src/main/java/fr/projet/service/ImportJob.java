@@ -0,0 +1,82 @@
+package fr.projet.service;
+
+import java.time.Instant;
+import java.util.concurrent.Future;
+
+/**
+ * Import du corpus soumis à {@link ImportJobService} : état, avancement et annulation.
+ */
+public final class ImportJob {
+
+    public enum Status {
+        PENDING, RUNNING, COMPLETED, FAILED, CANCELLED
+    }
+
+    private final String id;
+    private final Instant submittedAt = Instant.now();
+    private final ImportProgress progress = new ImportProgress();
+    private volatile Status status = Status.PENDING;
+    private volatile String failure;
+    private Future<?> future;
+
+    ImportJob(String id) {
+        this.id = id;
+    }
+
+    synchronized void attach(Future<?> future) {
+        this.future = future;
+    }
+
+    // PENDING -> RUNNING, false si le job a été annulé avant de démarrer
+    synchronized boolean begin() {
+        if (status != Status.PENDING) {
+            return false;
+        }
+        status = Status.RUNNING;
+        return true;
+    }
+
+    // Sans effet si le job a été annulé entre-temps
+    synchronized void end(Status status, String failure) {
+        if (this.status == Status.RUNNING) {
+            this.status = status;
+            this.failure = failure;
+        }
+    }
+
+    // Interrompt le thread de l'import, qui s'arrête au prochain lot
+    synchronized boolean cancel() {
+        if (isFinished()) {
+            return false;
+        }
+        status = Status.CANCELLED;
+        if (future != null) {
+            future.cancel(true);
+        }
+        return true;
+    }
+
+    public boolean isFinished() {
+        return status == Status.COMPLETED || status == Status.FAILED || status == Status.CANCELLED;
+    }
+
+    public String getId() {
+        return id;
+    }
+
+    public Instant getSubmittedAt() {
+        return submittedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public String getFailure() {
+        return failure;
+    }
+
+    public ImportProgress getProgress() {
+        return progress;
+    }
+}
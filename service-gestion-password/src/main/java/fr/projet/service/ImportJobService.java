@@ -0,0 +1,209 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.lang.Nullable;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Exécution asynchrone des imports du corpus.
+ *
+ * Les imports tournent sur un exécuteur dédié d'un seul thread (les lecteurs et écrivains ont
+ * leur propre pool) : ils n'occupent jamais les threads Tomcat des vérifications de mot de passe.
+ * Un seul import à la fois, les points de reprise étant partagés ; le rééquilibrage des
+ * fragments et la copie de l'ancienne table passent par le même exécuteur et ne tournent donc
+ * jamais pendant un import.
+ *
+ * La construction de l'index de breach.backend=mapped est aussi un job : disponible avec les deux backends,
+ * alors que le rééquilibrage et la copie de l'ancienne table n'existent qu'avec breach.backend=jdbc. Avec breach.backend=mapped, un import
+ * fusionne les fichiers dans une nouvelle génération de l'index, et toute nouvelle génération est mise en
+ * service à la fin du job.
+ */
+@Service
+public class ImportJobService {
+
+    private static final Logger log = LoggerFactory.getLogger(ImportJobService.class);
+
+    // Jobs consultables sur /jobs/{id} : les plus anciens sont oubliés au-delà
+    static final int KEPT_JOBS = 100;
+
+    // Absents lorsque breach.backend=mapped
+    private final StolenPasswordImporter importer;
+    private final StolenPasswordRebalancer rebalancer;
+    private final StolenPasswordLegacyConverter legacyConverter;
+    // Absent lorsque breach.backend=jdbc
+    private final MappedStolenPasswordLookup mappedLookup;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(new CustomizableThreadFactory("import-job-"));
+    private final Map<String, ImportJob> jobs = new ConcurrentHashMap<>();
+    // Identifiants des jobs dans l'ordre de soumission, modifiés sous le verrou de submit
+    private final Deque<String> history = new ArrayDeque<>();
+    private ImportJob current;
+
+    // Tâche d'un job : les empreintes nouvelles sont comptées dans progress (insertedRows)
+    private interface JobTask {
+        void run(ImportProgress progress) throws InterruptedException;
+    }
+
+    public ImportJobService(@Nullable StolenPasswordImporter importer, @Nullable StolenPasswordRebalancer rebalancer,
+            @Nullable StolenPasswordLegacyConverter legacyConverter, @Nullable MappedStolenPasswordLookup mappedLookup,
+            ApplicationEventPublisher eventPublisher) {
+        this.importer = importer;
+        this.rebalancer = rebalancer;
+        this.legacyConverter = legacyConverter;
+        this.mappedLookup = mappedLookup;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Soumet l'import de files : dans stolen_password, ou dans une nouvelle génération de l'index
+     * avec breach.backend=mapped.
+     * @throws IllegalStateException si un import est déjà en cours
+     */
+    public ImportJob submit(List<Path> files) {
+        if (importer == null) {
+            if (mappedLookup == null) {
+                throw new IllegalStateException("Aucune source des mots de passe volés à alimenter");
+            }
+            return submit(progress -> buildIndex(progress, files, mappedLookup.getIndexPath(), true));
+        }
+        return submit(progress -> importer.importFiles(files, progress));
+    }
+
+    /**
+     * Soumet le déplacement des partitions hors de leur fragment.
+     * @throws IllegalStateException si un import est déjà en cours, ou avec breach.backend=mapped
+     */
+    public ImportJob submitRebalance() {
+        if (rebalancer == null) {
+            throw new IllegalStateException("Le rééquilibrage n'est disponible qu'avec breach.backend=jdbc");
+        }
+        return submit(rebalancer::rebalance);
+    }
+
+    /**
+     * Soumet la copie, reprise là où elle s'est arrêtée, de l'ancienne table à empreintes hexadécimales.
+     * @throws IllegalStateException si un import est déjà en cours, ou avec breach.backend=mapped
+     */
+    public ImportJob submitLegacyConversion() {
+        if (legacyConverter == null) {
+            throw new IllegalStateException("La copie de l'ancienne table n'est disponible qu'avec breach.backend=jdbc");
+        }
+        return submit(legacyConverter::convert);
+    }
+
+    /**
+     * Soumet la construction de l'index binaire trié de breach.backend=mapped à partir de sources.
+     * @throws IllegalStateException si un import est déjà en cours
+     */
+    public ImportJob submitIndex(List<Path> sources, Path target) {
+        return submit(progress -> buildIndex(progress, sources, target, false));
+    }
+
+    private void buildIndex(ImportProgress progress, List<Path> sources, Path target, boolean merge) {
+        try {
+            long bytes = 0;
+            for (Path source : sources) {
+                bytes += Files.size(source);
+            }
+            progress.start(0, sources.size(), bytes);
+            long before = merge && Files.exists(MappedSha1Index.currentFile(target))
+                    ? Files.size(MappedSha1Index.currentFile(target)) / MappedSha1Index.RECORD_SIZE
+                    : 0;
+            Sha1IndexBuilder builder = new Sha1IndexBuilder();
+            long digests = merge ? builder.merge(sources, target) : builder.build(sources, target);
+            progress.indexBuilt(bytes, digests);
+            // Les verdicts mémorisés ne sont oubliés que si la recherche sert désormais ce nouvel index
+            boolean reloaded = mappedLookup != null && mappedLookup.reload();
+            if (reloaded) {
+                // Une reconstruction complète peut retirer des empreintes : tout verdict mémorisé est suspect
+                progress.indexServed(merge ? digests - before : digests);
+            }
+            progress.finish();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    private synchronized ImportJob submit(JobTask task) {
+        if (current != null && !current.isFinished()) {
+            throw new IllegalStateException("L'import " + current.getId() + " est déjà en cours");
+        }
+        ImportJob job = new ImportJob(UUID.randomUUID().toString());
+        jobs.put(job.getId(), job);
+        history.addLast(job.getId());
+        // Un seul job à la fois : seul le dernier soumis peut être en cours, les plus anciens sont terminés
+        while (history.size() > KEPT_JOBS) {
+            jobs.remove(history.removeFirst());
+        }
+        current = job;
+        job.attach(executor.submit(() -> run(job, task)));
+        return job;
+    }
+
+    public ImportJob get(String id) {
+        return jobs.get(id);
+    }
+
+    // false si le job est inconnu ou déjà terminé
+    public boolean cancel(String id) {
+        ImportJob job = jobs.get(id);
+        return job != null && job.cancel();
+    }
+
+    private void run(ImportJob job, JobTask task) {
+        if (!job.begin()) {
+            return; // annulé avant son démarrage
+        }
+        ImportProgress progress = job.getProgress();
+        ImportJob.Status status = ImportJob.Status.COMPLETED;
+        String failure = null;
+        try {
+            task.run(progress);
+        } catch (InterruptedException ex) {
+            log.info("Import {} annulé", job.getId());
+        } catch (RuntimeException ex) {
+            status = ImportJob.Status.FAILED;
+            failure = ex.getMessage();
+            log.error("Échec de l'import " + job.getId(), ex);
+        } finally {
+            // Les lots validés avant une annulation ou un échec sont dans la source : verdicts mémorisés à oublier
+            publishUpdate(job, progress.getInsertedRows());
+        }
+        // Après la publication : un job terminé a toujours invalidé les verdicts mémorisés
+        job.end(status, failure);
+    }
+
+    private void publishUpdate(ImportJob job, long insertedRows) {
+        if (insertedRows <= 0) {
+            return;
+        }
+        try {
+            eventPublisher.publishEvent(new StolenPasswordsUpdatedEvent(insertedRows));
+        } catch (RuntimeException ex) {
+            log.error("Échec de la publication des empreintes nouvelles de l'import " + job.getId(), ex);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,140 @@
+package fr.projet.service;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs d'avancement d'un import, mis à jour par les threads de {@link StolenPasswordImporter}
+ * et lisibles à tout moment depuis un autre thread.
+ */
+public final class ImportProgress {
+
+    private volatile long startNanos;
+    private volatile long endNanos;
+    private volatile int filesSkipped;
+    private volatile int filesToImport;
+    private final AtomicInteger filesUnchanged = new AtomicInteger();
+    private volatile long bytesToImport;
+    private final AtomicInteger filesDone = new AtomicInteger();
+    private final LongAdder bytesDone = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder insertedRows = new LongAdder();
+    private final LongAdder malformedLines = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    void start(int filesSkipped, int filesToImport, long bytesToImport) {
+        this.filesSkipped = filesSkipped;
+        this.filesToImport = filesToImport;
+        this.bytesToImport = bytesToImport;
+        this.startNanos = System.nanoTime();
+    }
+
+    void finish() {
+        endNanos = System.nanoTime();
+    }
+
+    void fileDone() {
+        filesDone.incrementAndGet();
+    }
+
+    void batchDone(long bytes, int batchRows, int inserted) {
+        bytesDone.add(bytes);
+        rows.add(batchRows);
+        insertedRows.add(inserted);
+    }
+
+    // Index SHA-1 construit d'un bloc (Sha1IndexBuilder) : tous les fichiers lus, empreintes distinctes écrites
+    void indexBuilt(long bytes, long digests) {
+        filesDone.addAndGet(filesToImport);
+        bytesDone.add(bytes);
+        rows.add(digests);
+    }
+
+    // Index mis en service : empreintes nouvelles pour la recherche
+    void indexServed(long newDigests) {
+        insertedRows.add(newDigests);
+    }
+
+    // Nouvelle version d'un fichier sans nouveau haché : rien à écrire
+    void fileUnchanged(long bytes) {
+        filesUnchanged.incrementAndGet();
+        filesDone.incrementAndGet();
+        bytesDone.add(bytes);
+    }
+
+    void malformedLines(long count) {
+        malformedLines.add(count);
+    }
+
+    void error() {
+        errors.increment();
+    }
+
+    public boolean isStarted() {
+        return startNanos != 0;
+    }
+
+    public int getFilesSkipped() {
+        return filesSkipped;
+    }
+
+    public int getFilesToImport() {
+        return filesToImport;
+    }
+
+    public int getFilesUnchanged() {
+        return filesUnchanged.get();
+    }
+
+    public int getFilesDone() {
+        return filesDone.get();
+    }
+
+    public long getBytesToImport() {
+        return bytesToImport;
+    }
+
+    // Octets des fichiers couverts par des lots écrits (hors reprise)
+    public long getBytesDone() {
+        return bytesDone.sum();
+    }
+
+    public long getRows() {
+        return rows.sum();
+    }
+
+    // Empreintes absentes de la base avant cet import
+    public long getInsertedRows() {
+        return insertedRows.sum();
+    }
+
+    public long getMalformedLines() {
+        return malformedLines.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public long getElapsedMillis() {
+        if (!isStarted()) {
+            return 0;
+        }
+        long end = endNanos != 0 ? endNanos : System.nanoTime();
+        return (end - startNanos) / 1_000_000;
+    }
+
+    public long getRowsPerSecond() {
+        return getRows() * 1000 / Math.max(1, getElapsedMillis());
+    }
+
+    // Estimation au débit moyen observé, -1 tant qu'aucun octet n'est écrit
+    public long getEtaSeconds() {
+        long done = getBytesDone();
+        if (done == 0) {
+            return -1;
+        }
+        long remaining = Math.max(0, bytesToImport - done);
+        return remaining * getElapsedMillis() / done / 1000;
+    }
+}
@@ -0,0 +1,61 @@
+package fr.projet.service;
+
+/**
+ * Points de reprise de l'import : pour chaque fichier du corpus, position jusqu'à laquelle
+ * toutes les empreintes ont été écrites. Un fichier est terminé lorsque cette position
+ * atteint sa taille.
+ */
+public interface ImportStateStore {
+
+    // Appelée une fois avant le démarrage des threads d'un import
+    default void prepare() {
+    }
+
+    // Dernier état enregistré pour ce fichier, null s'il n'a jamais été importé
+    FileState find(String fileName);
+
+    void save(String fileName, FileState state);
+
+    /**
+     * Version d'un fichier (taille, date), position atteinte et empreinte de l'ensemble de ses hachés
+     * (null si inconnue), qui permet de reconnaître une nouvelle version sans nouveau haché.
+     */
+    final class FileState {
+
+        private final long fileSize;
+        private final long lastModified;
+        private final long committedOffset;
+        private final Long digestSet;
+
+        public FileState(long fileSize, long lastModified, long committedOffset, Long digestSet) {
+            this.fileSize = fileSize;
+            this.lastModified = lastModified;
+            this.committedOffset = committedOffset;
+            this.digestSet = digestSet;
+        }
+
+        public long getFileSize() {
+            return fileSize;
+        }
+
+        public long getLastModified() {
+            return lastModified;
+        }
+
+        public long getCommittedOffset() {
+            return committedOffset;
+        }
+
+        public Long getDigestSet() {
+            return digestSet;
+        }
+
+        public boolean isSameVersion(long size, long modified) {
+            return fileSize == size && lastModified == modified;
+        }
+
+        public boolean isComplete() {
+            return committedOffset == fileSize;
+        }
+    }
+}
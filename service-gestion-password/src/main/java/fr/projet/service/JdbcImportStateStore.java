@@ -0,0 +1,54 @@
+package fr.projet.service;
+
+import java.util.List;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Points de reprise stockés dans la table import_state, à côté de stolen_password.
+ */
+@Component
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcImportStateStore implements ImportStateStore {
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcImportStateStore(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void prepare() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS import_state ("
+                + "file_name varchar(255) PRIMARY KEY, "
+                + "file_size bigint NOT NULL, "
+                + "last_modified bigint NOT NULL, "
+                + "committed_offset bigint NOT NULL, "
+                + "updated_at timestamp NOT NULL DEFAULT now())");
+        jdbcTemplate.execute("ALTER TABLE import_state ADD COLUMN IF NOT EXISTS digest_set bigint");
+        // Fichiers importés avant le stockage des compteurs : ignorés par find, donc réimportés une fois
+        jdbcTemplate.execute("ALTER TABLE import_state ADD COLUMN IF NOT EXISTS occurrences_loaded boolean NOT NULL DEFAULT false");
+    }
+
+    @Override
+    public FileState find(String fileName) {
+        List<FileState> states = jdbcTemplate.query(
+                "SELECT file_size, last_modified, committed_offset, digest_set FROM import_state WHERE file_name = ? AND occurrences_loaded",
+                (rs, rowNum) -> new FileState(rs.getLong(1), rs.getLong(2), rs.getLong(3),
+                        rs.getObject(4, Long.class)),
+                fileName);
+        return states.isEmpty() ? null : states.get(0);
+    }
+
+    @Override
+    public void save(String fileName, FileState state) {
+        jdbcTemplate.update("INSERT INTO import_state (file_name, file_size, last_modified, committed_offset, digest_set, "
+                + "occurrences_loaded) VALUES (?, ?, ?, ?, ?, true) ON CONFLICT (file_name) DO UPDATE SET "
+                + "file_size = EXCLUDED.file_size, last_modified = EXCLUDED.last_modified, "
+                + "committed_offset = EXCLUDED.committed_offset, digest_set = EXCLUDED.digest_set, "
+                + "occurrences_loaded = true, updated_at = now()",
+                fileName, state.getFileSize(), state.getLastModified(), state.getCommittedOffset(), state.getDigestSet());
+    }
+}
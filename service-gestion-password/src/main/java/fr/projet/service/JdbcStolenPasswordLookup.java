@@ -0,0 +1,74 @@
+package fr.projet.service;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recherche dans la table stolen_password, derrière le filtre de Bloom.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class JdbcStolenPasswordLookup implements StolenPasswordLookup {
+
+    private final StolenPasswordTable stolenPasswordTable;
+    private final StolenPasswordFilter stolenPasswordFilter;
+
+    public JdbcStolenPasswordLookup(StolenPasswordTable stolenPasswordTable, StolenPasswordFilter stolenPasswordFilter) {
+        this.stolenPasswordTable = stolenPasswordTable;
+        this.stolenPasswordFilter = stolenPasswordFilter;
+    }
+
+    @Override
+    public boolean isStolen(byte[] sha1) {
+        // Le filtre de Bloom écarte sans requête les mots de passe qui ne sont certainement pas volés
+        if (!stolenPasswordFilter.mightContain(sha1)) {
+            return false;
+        }
+        boolean stolen = stolenPasswordTable.contains(sha1);
+        stolenPasswordFilter.recordDatabaseVerdict(stolen);
+        return stolen;
+    }
+
+    @Override
+    public int occurrences(byte[] sha1) {
+        if (!stolenPasswordFilter.mightContain(sha1)) {
+            return 0;
+        }
+        int occurrences = stolenPasswordTable.occurrences(sha1);
+        stolenPasswordFilter.recordDatabaseVerdict(occurrences > 0);
+        return occurrences;
+    }
+
+    @Override
+    public boolean[] areStolen(List<byte[]> sha1s) {
+        boolean[] stolen = new boolean[sha1s.size()];
+        List<byte[]> candidates = new ArrayList<>();
+        for (byte[] sha1 : sha1s) {
+            if (stolenPasswordFilter.mightContain(sha1)) {
+                candidates.add(sha1);
+            }
+        }
+        if (candidates.isEmpty()) {
+            return stolen;
+        }
+        // Une seule requête pour tous les candidats retenus par le filtre
+        Set<ByteBuffer> found = stolenPasswordTable.findAll(candidates);
+        for (byte[] candidate : candidates) {
+            stolenPasswordFilter.recordDatabaseVerdict(found.contains(ByteBuffer.wrap(candidate)));
+        }
+        for (int i = 0; i < stolen.length; i++) {
+            stolen[i] = found.contains(ByteBuffer.wrap(sha1s.get(i)));
+        }
+        return stolen;
+    }
+
+    @Override
+    public List<String> suffixes(int prefix) {
+        return stolenPasswordTable.suffixes(prefix);
+    }
+}
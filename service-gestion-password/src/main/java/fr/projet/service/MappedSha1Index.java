@@ -0,0 +1,261 @@
+package fr.projet.service;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Index des mots de passe volés : fichier plat d'empreintes SHA-1 brutes (20 octets),
+ * triées par ordre lexicographique non signé, projeté en mémoire.
+ *
+ * Une recherche touche quelques pages du fichier et n'alloue rien.
+ * Le fichier est découpé en segments de moins de 2 Go (limite de {@link MappedByteBuffer}),
+ * chaque segment contenant un nombre entier d'enregistrements.
+ *
+ * Le fichier étant trié, toutes les empreintes d'un même préfixe de 5 caractères hexadécimaux
+ * (20 bits) sont contiguës. Une table de 2^20 + 1 positions (fichier voisin « .prefix »)
+ * donne le début de chaque préfixe : une recherche ne parcourt que la tranche de son préfixe
+ * et une requête par préfixe (k-anonymat) est une seule lecture contiguë.
+ *
+ * Les nombres d'occurrences, lorsque l'index a été construit avec eux, sont dans le fichier
+ * voisin « .counts » ({@link OccurrenceCounts}), à la même position que l'empreinte.
+ *
+ * Chaque construction écrit une nouvelle génération (chemin.1, chemin.2... et leurs fichiers voisins),
+ * désignée par le manifeste « chemin.current » remplacé atomiquement : un lecteur ouvre toujours
+ * l'index, sa table des préfixes et ses compteurs d'une même génération. Sans manifeste, chemin lui-même
+ * est l'index (construit avant les générations).
+ */
+public final class MappedSha1Index {
+
+    public static final int RECORD_SIZE = Sha1Digests.BYTES;
+
+    public static final int PREFIX_BITS = 20;
+    public static final int PREFIX_COUNT = 1 << PREFIX_BITS;
+    public static final String PREFIX_TABLE_SUFFIX = ".prefix";
+    public static final String CURRENT_SUFFIX = ".current";
+
+    private static final int RECORDS_PER_SEGMENT = (1 << 30) / RECORD_SIZE;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private final MappedByteBuffer[] segments;
+    private final long count;
+    private final long[] prefixStart;
+    // Absent pour un index construit avant le stockage des compteurs
+    private OccurrenceCounts counts;
+
+    private MappedSha1Index(MappedByteBuffer[] segments, long count) {
+        this.segments = segments;
+        this.count = count;
+        this.prefixStart = new long[PREFIX_COUNT + 1];
+    }
+
+    public static Path prefixTablePath(Path file) {
+        return file.resolveSibling(file.getFileName() + PREFIX_TABLE_SUFFIX);
+    }
+
+    // Manifeste désignant la génération courante de l'index
+    public static Path currentPath(Path index) {
+        return index.resolveSibling(index.getFileName() + CURRENT_SUFFIX);
+    }
+
+    // Génération désignée par le manifeste, 0 sans manifeste
+    public static long currentGeneration(Path index) throws IOException {
+        Path current = currentPath(index);
+        if (!Files.exists(current)) {
+            return 0;
+        }
+        String generation = Files.readString(current, StandardCharsets.US_ASCII).trim();
+        try {
+            return Long.parseLong(generation);
+        } catch (NumberFormatException ex) {
+            throw new IOException("Manifeste de l'index illisible : " + current, ex);
+        }
+    }
+
+    // Fichier d'une génération ; la génération 0 est l'index écrit directement à son chemin
+    public static Path generationPath(Path index, long generation) {
+        return generation == 0 ? index : index.resolveSibling(index.getFileName() + "." + generation);
+    }
+
+    // Fichier de la génération courante de l'index
+    public static Path currentFile(Path index) throws IOException {
+        return generationPath(index, currentGeneration(index));
+    }
+
+    // Ouvre la génération courante de l'index configuré (breach.index.path)
+    public static MappedSha1Index open(Path index) throws IOException {
+        return openFile(currentFile(index));
+    }
+
+    private static MappedSha1Index openFile(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size % RECORD_SIZE != 0) {
+                throw new IOException("Index corrompu (taille non multiple de " + RECORD_SIZE + ") : " + file);
+            }
+            long count = size / RECORD_SIZE;
+            int segmentCount = (int) ((count + RECORDS_PER_SEGMENT - 1) / RECORDS_PER_SEGMENT);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long first = (long) i * RECORDS_PER_SEGMENT;
+                long records = Math.min(RECORDS_PER_SEGMENT, count - first);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, first * RECORD_SIZE, records * RECORD_SIZE);
+            }
+            // La projection reste valide après la fermeture du canal
+            MappedSha1Index index = new MappedSha1Index(segments, count);
+            index.loadPrefixTable(prefixTablePath(file));
+            index.loadCounts(OccurrenceCounts.path(file));
+            return index;
+        }
+    }
+
+    // Table des préfixes écrite par Sha1IndexBuilder, ou recalculée si elle est absente
+    private void loadPrefixTable(Path table) throws IOException {
+        if (Files.exists(table)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(table), 1 << 16))) {
+                for (int i = 0; i <= PREFIX_COUNT; i++) {
+                    prefixStart[i] = in.readLong();
+                }
+            }
+            if (prefixStart[PREFIX_COUNT] != count) {
+                throw new IOException("Table des préfixes incohérente avec l'index : " + table);
+            }
+            return;
+        }
+        for (int p = 0; p < PREFIX_COUNT; p++) {
+            prefixStart[p] = lowerBound(0, count, (long) p << (64 - PREFIX_BITS), 0L, 0);
+        }
+        prefixStart[PREFIX_COUNT] = count;
+    }
+
+    private void loadCounts(Path file) throws IOException {
+        if (Files.exists(file)) {
+            counts = OccurrenceCounts.open(file);
+            if (counts.size() != count) {
+                throw new IOException("Compteurs d'occurrences incohérents avec l'index : " + file);
+            }
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    public boolean contains(byte[] digest) {
+        return find(Sha1Digests.bytesLong(digest, 0), Sha1Digests.bytesLong(digest, 8),
+                Sha1Digests.bytesInt(digest, 16)) >= 0;
+    }
+
+    // 0 si l'empreinte est absente ; au moins 1 sinon, 1 si l'index n'a pas de compteurs
+    public int occurrences(byte[] digest) {
+        long i = find(Sha1Digests.bytesLong(digest, 0), Sha1Digests.bytesLong(digest, 8), Sha1Digests.bytesInt(digest, 16));
+        if (i < 0) {
+            return 0;
+        }
+        return counts == null ? 1 : Math.max(1, counts.get(i));
+    }
+
+    // Indice de l'enregistrement égal à la clé, ou -1 ; la recherche est limitée au préfixe de la clé
+    long find(long k0, long k1, int k2) {
+        int prefix = (int) (k0 >>> (64 - PREFIX_BITS));
+        return find(prefixStart[prefix], prefixStart[prefix + 1], k0, k1, k2);
+    }
+
+    // Nombre d'empreintes commençant par le préfixe de 20 bits donné
+    public int rangeSize(int prefix) {
+        return (int) (prefixStart[prefix + 1] - prefixStart[prefix]);
+    }
+
+    /**
+     * Suffixes (35 caractères hexadécimaux majuscules) des empreintes du préfixe, dans l'ordre.
+     * La tranche du préfixe est lue en une seule copie contiguë.
+     */
+    public List<String> suffixes(int prefix) {
+        long start = prefixStart[prefix];
+        int size = rangeSize(prefix);
+        byte[] records = new byte[size * RECORD_SIZE];
+        for (int i = 0; i < size; ) {
+            // Une tranche ne peut chevaucher deux segments qu'exceptionnellement
+            long record = start + i;
+            MappedByteBuffer segment = segments[(int) (record / RECORDS_PER_SEGMENT)];
+            int offset = (int) (record % RECORDS_PER_SEGMENT);
+            int chunk = Math.min(size - i, RECORDS_PER_SEGMENT - offset);
+            segment.get(offset * RECORD_SIZE, records, i * RECORD_SIZE, chunk * RECORD_SIZE);
+            i += chunk;
+        }
+        List<String> suffixes = new ArrayList<>(size);
+        char[] suffix = new char[Sha1Digests.HEX_LENGTH - PREFIX_BITS / 4];
+        for (int i = 0; i < size; i++) {
+            int base = i * RECORD_SIZE;
+            // Le préfixe couvre les octets 0 et 1 et le quartet de poids fort de l'octet 2
+            suffix[0] = HEX[records[base + 2] & 0x0F];
+            for (int b = 3, c = 1; b < RECORD_SIZE; b++, c += 2) {
+                suffix[c] = HEX[(records[base + b] >> 4) & 0x0F];
+                suffix[c + 1] = HEX[records[base + b] & 0x0F];
+            }
+            suffixes.add(new String(suffix));
+        }
+        return suffixes;
+    }
+
+    // Premier indice dont l'enregistrement est supérieur ou égal à la clé
+    private long lowerBound(long from, long to, long k0, long k1, int k2) {
+        long lo = from;
+        long n = to - from;
+        while (n > 0) {
+            long half = n >>> 1;
+            if (compareAt(lo + half, k0, k1, k2) < 0) {
+                lo += half + 1;
+                n -= half + 1;
+            } else {
+                n = half;
+            }
+        }
+        return lo;
+    }
+
+    // Recherche dichotomique sans branche dans le corps de boucle (sélection conditionnelle)
+    long find(long from, long to, long k0, long k1, int k2) {
+        long n = to - from;
+        if (n <= 0) {
+            return -1;
+        }
+        long base = from;
+        while (n > 1) {
+            long half = n >>> 1;
+            base = compareAt(base + half, k0, k1, k2) <= 0 ? base + half : base;
+            n -= half;
+        }
+        return compareAt(base, k0, k1, k2) == 0 ? base : -1;
+    }
+
+    // Compare l'enregistrement i à la clé (enregistrement - clé), en non signé
+    int compareAt(long i, long k0, long k1, int k2) {
+        MappedByteBuffer segment = segments[(int) (i / RECORDS_PER_SEGMENT)];
+        int offset = (int) (i % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        int cmp = Long.compareUnsigned(segment.getLong(offset), k0);
+        if (cmp != 0) {
+            return cmp;
+        }
+        cmp = Long.compareUnsigned(segment.getLong(offset + 8), k1);
+        if (cmp != 0) {
+            return cmp;
+        }
+        return Integer.compareUnsigned(segment.getInt(offset + 16), k2);
+    }
+
+    // Copie l'enregistrement i dans dest à partir de destOffset
+    void read(long i, byte[] dest, int destOffset) {
+        MappedByteBuffer segment = segments[(int) (i / RECORDS_PER_SEGMENT)];
+        segment.get((int) (i % RECORDS_PER_SEGMENT) * RECORD_SIZE, dest, destOffset, RECORD_SIZE);
+    }
+}
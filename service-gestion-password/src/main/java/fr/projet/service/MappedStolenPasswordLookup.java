@@ -0,0 +1,74 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Recherche dans l'index binaire trié (breach.index.path), sans base de données.
+ *
+ * Une nouvelle génération de l'index (job d'index) est ouverte puis substituée à l'ancienne sans
+ * interrompre les recherches ; l'ancienne projection est libérée par le ramasse-miettes une fois
+ * la dernière recherche en cours terminée.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "mapped")
+public class MappedStolenPasswordLookup implements StolenPasswordLookup {
+
+    private static final Logger log = LoggerFactory.getLogger(MappedStolenPasswordLookup.class);
+
+    private final Path indexPath;
+    private volatile MappedSha1Index index;
+    // Génération de index, modifiée sous le verrou de reload
+    private long generation;
+
+    public MappedStolenPasswordLookup(@Value("${breach.index.path}") Path indexPath) throws IOException {
+        this.indexPath = indexPath;
+        this.generation = MappedSha1Index.currentGeneration(indexPath);
+        this.index = MappedSha1Index.open(indexPath);
+        log.info("Index des mots de passe volés projeté en mémoire : {} empreintes ({}, génération {})",
+                index.size(), indexPath, generation);
+    }
+
+    public Path getIndexPath() {
+        return indexPath;
+    }
+
+    /**
+     * Ouvre la génération courante de l'index si elle a changé et la substitue à celle en service.
+     * @return true si une nouvelle génération est en service
+     */
+    public synchronized boolean reload() throws IOException {
+        long current = MappedSha1Index.currentGeneration(indexPath);
+        if (current == generation) {
+            return false;
+        }
+        MappedSha1Index reloaded = MappedSha1Index.open(indexPath);
+        index = reloaded;
+        generation = current;
+        log.info("Nouvel index des mots de passe volés en service : {} empreintes (génération {})",
+                reloaded.size(), current);
+        return true;
+    }
+
+    @Override
+    public boolean isStolen(byte[] sha1) {
+        return index.contains(sha1);
+    }
+
+    @Override
+    public int occurrences(byte[] sha1) {
+        return index.occurrences(sha1);
+    }
+
+    @Override
+    public List<String> suffixes(int prefix) {
+        return index.suffixes(prefix);
+    }
+}
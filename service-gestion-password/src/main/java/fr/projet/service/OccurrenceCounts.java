@@ -0,0 +1,205 @@
+package fr.projet.service;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Nombres d'occurrences des empreintes d'un {@link MappedSha1Index}, dans le fichier voisin « .counts » :
+ * un entier de longueur variable (7 bits par octet) par enregistrement de l'index, dans le même ordre.
+ * La plupart des compteurs tiennent sur un ou deux octets, au lieu de quatre pour un int.
+ *
+ * La position du premier compteur de chaque bloc de 64 enregistrements est notée dans une table :
+ * lire un compteur décode au plus 64 entiers consécutifs, généralement dans la même page.
+ *
+ * Format (gros-boutiste) : en-tête (magique, version du format, taille de bloc, nombre de compteurs,
+ * longueur des données complétée à un multiple de 8), entiers variables, puis table des blocs (long).
+ */
+public final class OccurrenceCounts {
+
+    public static final String SUFFIX = ".counts";
+
+    private static final long MAGIC = 0x4F43_4355_5252_454EL; // "OCCURREN"
+    private static final int FORMAT_VERSION = 1;
+    private static final int BLOCK_BITS = 6;
+    private static final int BLOCK_SIZE = 1 << BLOCK_BITS;
+    private static final int HEADER_BYTES = 8 + 4 + 4 + 8 + 8;
+    // Segments de 1 Go : les positions de la table, alignées sur 8 octets, ne chevauchent jamais deux segments
+    private static final int SEGMENT_BITS = 30;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    private final long count;
+    private final long blockTable;
+    private final MappedByteBuffer[] segments;
+
+    private OccurrenceCounts(long count, long blockTable, MappedByteBuffer[] segments) {
+        this.count = count;
+        this.blockTable = blockTable;
+        this.segments = segments;
+    }
+
+    public static Path path(Path index) {
+        return index.resolveSibling(index.getFileName() + SUFFIX);
+    }
+
+    public static OccurrenceCounts open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            while (header.hasRemaining()) {
+                if (channel.read(header, header.position()) < 0) {
+                    throw new IOException("Fin de fichier inattendue : " + file);
+                }
+            }
+            header.flip();
+            if (header.getLong() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != BLOCK_SIZE) {
+                throw new IOException("Format de fichier de compteurs inconnu : " + file);
+            }
+            long count = header.getLong();
+            long dataBytes = header.getLong();
+            long blocks = (count + BLOCK_SIZE - 1) >>> BLOCK_BITS;
+            long size = HEADER_BYTES + dataBytes + blocks * Long.BYTES;
+            if (channel.size() != size) {
+                throw new IOException("Fichier de compteurs tronqué : " + file);
+            }
+            int segmentCount = (int) ((size + SEGMENT_MASK) >>> SEGMENT_BITS);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(1L << SEGMENT_BITS, size - start));
+            }
+            return new OccurrenceCounts(count, HEADER_BYTES + dataBytes, segments);
+        }
+    }
+
+    public long size() {
+        return count;
+    }
+
+    // Compteur de l'enregistrement record de l'index
+    public int get(long record) {
+        long position = HEADER_BYTES + longAt(blockTable + (record >>> BLOCK_BITS) * Long.BYTES);
+        // Compteurs précédents du bloc : seul l'octet de fin de chaque entier a le bit de poids fort à 0
+        for (int skip = (int) (record & (BLOCK_SIZE - 1)); skip > 0; position++) {
+            if (byteAt(position) >= 0) {
+                skip--;
+            }
+        }
+        int value = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = byteAt(position++);
+            value |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+    }
+
+    // Lecture des compteurs dans l'ordre de l'index, sans passer par la table des blocs
+    Cursor cursor() {
+        return new Cursor();
+    }
+
+    final class Cursor {
+        private long position = HEADER_BYTES;
+
+        int next() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = byteAt(position++);
+                value |= (b & 0x7F) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+    }
+
+    private byte byteAt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].get((int) (position & SEGMENT_MASK));
+    }
+
+    private long longAt(long position) {
+        return segments[(int) (position >>> SEGMENT_BITS)].getLong((int) (position & SEGMENT_MASK));
+    }
+
+    /**
+     * Écriture en un passage, dans l'ordre de l'index. La table des blocs, de taille inconnue
+     * d'avance, passe par un fichier temporaire voisin recopié à la fin des données.
+     */
+    public static final class Writer implements Closeable {
+
+        private final Path blockFile;
+        private final FileChannel channel;
+        private final OutputStream data;
+        private final DataOutputStream blocks;
+        private long count;
+        private long dataBytes;
+
+        public Writer(Path target) throws IOException {
+            this.blockFile = target.resolveSibling(target.getFileName() + ".blocks");
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+                    StandardOpenOption.WRITE);
+            channel.position(HEADER_BYTES);
+            this.data = new BufferedOutputStream(Channels.newOutputStream(channel), 1 << 16);
+            this.blocks = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(blockFile), 1 << 16));
+        }
+
+        public void add(int occurrences) throws IOException {
+            if ((count & (BLOCK_SIZE - 1)) == 0) {
+                blocks.writeLong(dataBytes);
+            }
+            int value = occurrences;
+            while ((value & ~0x7F) != 0) {
+                data.write((value & 0x7F) | 0x80);
+                value >>>= 7;
+                dataBytes++;
+            }
+            data.write(value);
+            dataBytes++;
+            count++;
+        }
+
+        // Complète les données, recopie la table des blocs puis écrit l'en-tête
+        public void finish() throws IOException {
+            while ((dataBytes & (Long.BYTES - 1)) != 0) {
+                data.write(0);
+                dataBytes++;
+            }
+            data.flush();
+            blocks.close();
+            try (FileChannel blockChannel = FileChannel.open(blockFile, StandardOpenOption.READ)) {
+                long position = HEADER_BYTES + dataBytes;
+                long copied = 0;
+                while (copied < blockChannel.size()) {
+                    copied += blockChannel.transferTo(copied, blockChannel.size() - copied, channel.position(position + copied));
+                }
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(FORMAT_VERSION).putInt(BLOCK_SIZE).putLong(count).putLong(dataBytes);
+            header.flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(true);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                blocks.close();
+                channel.close();
+            } finally {
+                Files.deleteIfExists(blockFile);
+            }
+        }
+    }
+}
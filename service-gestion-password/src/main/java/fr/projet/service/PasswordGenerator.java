@@ -0,0 +1,149 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.CharBuffer;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import fr.projet.policy.PasswordPolicy;
+
+/**
+ * Génération de mots de passe acceptés par la politique de force : un caractère de chaque classe exigée,
+ * le reste tiré dans l'alphabet, puis mélange de Fisher-Yates directement dans un char[].
+ *
+ * Chaque thread a son propre SecureRandom DRBG : l'implémentation par défaut sous Linux (NativePRNG)
+ * partage un verrou global entre toutes ses instances, ce qui sérialise les générations en lot.
+ * Un tirage que l'estimateur de la politique refuse (mot ou suite de touches obtenu par hasard) est recommencé.
+ */
+@Component
+public class PasswordGenerator {
+
+    static final String UPPERCASE = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
+    static final String LOWERCASE = "abcdefghijklmnopqrstuvwxyz";
+    static final String DIGITS = "0123456789";
+
+    private static final int MAX_ATTEMPTS = 20;
+
+    private final PasswordPolicy policy;
+    private final int length;
+    private final char[] alphabet;
+    // Caractères de l'alphabet de chaque classe exigée par la politique
+    private final char[][] requiredClasses;
+    private final ThreadLocal<SecureRandom> random = ThreadLocal.withInitial(PasswordGenerator::newRandom);
+
+    /**
+     * @param alphabet caractères autorisés ; vide : majuscules, minuscules, chiffres et caractères
+     *                 spéciaux de la politique
+     */
+    public PasswordGenerator(PasswordPolicy policy, @Value("${password.generator.length:12}") int length,
+            @Value("${password.generator.alphabet:}") String alphabet) {
+        String chars = alphabet.isEmpty() ? UPPERCASE + LOWERCASE + DIGITS + policy.getSpecialCharacters() : alphabet;
+        List<char[]> required = new ArrayList<>();
+        if (policy.isUppercaseRequired()) {
+            required.add(filter(chars, UPPERCASE, "majuscule"));
+        }
+        if (policy.isLowercaseRequired()) {
+            required.add(filter(chars, LOWERCASE, "minuscule"));
+        }
+        if (policy.isDigitRequired()) {
+            required.add(filter(chars, DIGITS, "chiffre"));
+        }
+        if (policy.isSpecialRequired()) {
+            required.add(filter(chars, policy.getSpecialCharacters(), "caractère spécial"));
+        }
+        if (length < policy.getMinLength() || length < required.size()) {
+            throw new IllegalArgumentException("Longueur de génération " + length + " inférieure au minimum de la politique");
+        }
+        this.policy = policy;
+        this.length = length;
+        this.alphabet = distinct(chars, null);
+        this.requiredClasses = required.toArray(new char[0][]);
+    }
+
+    private static char[] filter(String alphabet, String allowed, String name) {
+        char[] chars = distinct(alphabet, allowed);
+        if (chars.length == 0) {
+            throw new IllegalArgumentException("L'alphabet de génération ne contient aucun " + name + " exigé par la politique");
+        }
+        return chars;
+    }
+
+    // Caractères de alphabet, sans doublon, limités à allowed s'il est renseigné : chacun a la même probabilité
+    private static char[] distinct(String alphabet, String allowed) {
+        StringBuilder chars = new StringBuilder();
+        for (int i = 0; i < alphabet.length(); i++) {
+            char c = alphabet.charAt(i);
+            if ((allowed == null || allowed.indexOf(c) >= 0) && chars.indexOf(String.valueOf(c)) < 0) {
+                chars.append(c);
+            }
+        }
+        return chars.toString().toCharArray();
+    }
+
+    private static SecureRandom newRandom() {
+        try {
+            return SecureRandom.getInstance("DRBG");
+        } catch (NoSuchAlgorithmException e) {
+            return new SecureRandom();
+        }
+    }
+
+    public String generate() {
+        char[] password = new char[length];
+        try {
+            draw(password, CharBuffer.wrap(password));
+            return new String(password);
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    // count mots de passe, un par ligne, écrits au fil de l'eau sans chaîne intermédiaire
+    public void generate(int count, Writer out) throws IOException {
+        char[] password = new char[length];
+        CharBuffer view = CharBuffer.wrap(password);
+        try {
+            for (int i = 0; i < count; i++) {
+                draw(password, view);
+                out.write(password);
+                out.write('\n');
+            }
+        } finally {
+            Arrays.fill(password, '\0');
+        }
+    }
+
+    public int getLength() {
+        return length;
+    }
+
+    private void draw(char[] password, CharSequence view) {
+        SecureRandom rnd = random.get();
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            int i = 0;
+            for (char[] chars : requiredClasses) {
+                password[i++] = chars[rnd.nextInt(chars.length)];
+            }
+            for (; i < password.length; i++) {
+                password[i] = alphabet[rnd.nextInt(alphabet.length)];
+            }
+            for (i = password.length - 1; i > 0; i--) {
+                int j = rnd.nextInt(i + 1);
+                char swap = password[i];
+                password[i] = password[j];
+                password[j] = swap;
+            }
+            if (policy.isStrong(view)) {
+                return;
+            }
+        }
+        throw new IllegalStateException("Aucun mot de passe généré n'est accepté par la politique : alphabet ou longueur trop faibles");
+    }
+}
@@ -0,0 +1,136 @@
+package fr.projet.service;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.stereotype.Component;
+
+import fr.projet.model.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Hachage BCrypt hors des threads Tomcat, sur un pool d'autant de threads que de cœurs : le calcul
+ * est purement CPU, plus de threads ne ferait qu'allonger chaque hachage. La file est bornée ;
+ * pleine, la demande est refusée immédiatement ({@link PasswordHashingRejectedException}, 503).
+ *
+ * Sans coût configuré, le facteur de travail est calibré au démarrage : le plus grand coût (10 au moins)
+ * dont un hachage tient dans la latence cible sur cette machine.
+ */
+@Component
+public class PasswordHasher {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordHasher.class);
+
+    // Minimum recommandé, valeur par défaut de BCrypt.gensalt()
+    static final int MIN_COST = 10;
+    static final int MAX_COST = 20;
+
+    private final ThreadPoolExecutor executor;
+    private final int cost;
+    private final long costNanos;
+    private final Timer duration;
+    private final Counter rejected;
+
+    public PasswordHasher(@Value("${password.hashing.threads:0}") int threads,
+            @Value("${password.hashing.queue-capacity:64}") int queueCapacity,
+            @Value("${password.hashing.cost:0}") int cost,
+            @Value("${password.hashing.target-latency:250ms}") Duration targetLatency,
+            MeterRegistry meterRegistry) {
+        int poolSize = threads > 0 ? threads : Runtime.getRuntime().availableProcessors();
+        this.executor = new ThreadPoolExecutor(poolSize, poolSize, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity), new CustomizableThreadFactory("bcrypt-"),
+                new ThreadPoolExecutor.AbortPolicy());
+        executor.allowCoreThreadTimeOut(true);
+        this.cost = cost > 0 ? cost : calibrate(targetLatency);
+        this.costNanos = timeHash(this.cost);
+        log.info("Coût BCrypt {} : {} ms par hachage, {} threads, file de {}", this.cost, costNanos / 1_000_000,
+                poolSize, queueCapacity);
+
+        this.duration = Timer.builder("password.hashing.duration")
+                .description("Durée d'un hachage BCrypt, attente dans la file comprise")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("password.hashing.rejected")
+                .description("Hachages refusés, file pleine")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.queue", executor, e -> e.getQueue().size())
+                .description("Hachages en attente d'un thread")
+                .register(meterRegistry);
+        Gauge.builder("password.hashing.cost", this, PasswordHasher::getCost)
+                .description("Facteur de travail BCrypt")
+                .register(meterRegistry);
+    }
+
+    // Chaque point de coût double le temps : extrapolation depuis une mesure au coût minimal
+    static int calibrate(Duration targetLatency) {
+        // Premier appel hors mesure (chargement des classes, compilation)
+        BCrypt.hashpw("calibration", BCrypt.gensalt(4));
+        long base = timeHash(MIN_COST);
+        long target = targetLatency.toNanos();
+        int cost = MIN_COST;
+        while (cost < MAX_COST && base << (cost + 1 - MIN_COST) <= target) {
+            cost++;
+        }
+        if (base > target) {
+            log.warn("Un hachage au coût minimal {} prend {} ms, au-delà de la cible de {} ms", MIN_COST,
+                    base / 1_000_000, targetLatency.toMillis());
+        }
+        return cost;
+    }
+
+    private static long timeHash(int cost) {
+        long start = System.nanoTime();
+        BCrypt.hashpw("calibration", BCrypt.gensalt(cost));
+        return System.nanoTime() - start;
+    }
+
+    public String hash(String password) {
+        long start = System.nanoTime();
+        Future<String> result;
+        try {
+            result = executor.submit(() -> BCrypt.hashpw(password, BCrypt.gensalt(cost)));
+        } catch (RejectedExecutionException ex) {
+            rejected.increment();
+            throw new PasswordHashingRejectedException(retryAfterSeconds());
+        }
+        try {
+            return result.get();
+        } catch (InterruptedException ex) {
+            result.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Hachage interrompu", ex);
+        } catch (ExecutionException ex) {
+            throw new IllegalStateException("Échec du hachage", ex.getCause());
+        } finally {
+            duration.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    // Temps pour vider la file actuelle, arrondi à la seconde supérieure
+    long retryAfterSeconds() {
+        long drainNanos = costNanos * (executor.getQueue().size() + 1) / executor.getMaximumPoolSize();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(drainNanos + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    public int getCost() {
+        return cost;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,212 @@
+package fr.projet.service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.lang.Nullable;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import fr.projet.model.PasswordResetMail;
+import fr.projet.repository.PasswordResetMailRepository;
+import fr.projet.repository.PasswordResetVersionRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+
+/**
+ * Envoi des courriels de réinitialisation en attente dans l'outbox, hors des requêtes HTTP.
+ *
+ * À chaque passage, un lot de courriels dus est réservé pour la durée du bail (password.reset-mail.lease) dans
+ * une transaction courte, puis envoyé hors transaction sur une même connexion SMTP, gardée ouverte d'un lot
+ * à l'autre et fermée après une période d'inactivité : aucun verrou n'est tenu pendant les échanges SMTP.
+ * Une instance arrêtée en cours d'envoi laisse ses courriels à une autre instance, à la fin du bail.
+ *
+ * Un courriel envoyé est supprimé ; un échec est retenté plus tard, avec un délai qui double à chaque
+ * tentative, puis abandonné (FAILED) après le nombre maximal de tentatives, sans son token.
+ *
+ * En mode signé, l'outbox ne contient pas le token : il est émis au moment de l'envoi.
+ */
+@Component
+public class PasswordResetMailSender {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordResetMailSender.class);
+
+    private static final Duration MAX_RETRY_DELAY = Duration.ofHours(1);
+
+    private final PasswordResetMailRepository repository;
+    private final PasswordResetVersionRepository versionRepository;
+    // Présent lorsque password.reset-token.mode=signed
+    private final SignedResetTokens signedResetTokens;
+    private final JavaMailSenderImpl mailSender;
+    private final int batchSize;
+    private final int maxAttempts;
+    private final Duration retryDelay;
+    private final Duration lease;
+    private final Duration idleTimeout;
+    private final String resetLink;
+    private final String from;
+    private final Counter sent;
+    private final Counter failures;
+
+    // Connexion réutilisée ; seul le thread de planification y touche
+    private Transport transport;
+    private long lastUsedNanos;
+
+    public PasswordResetMailSender(PasswordResetMailRepository repository,
+            PasswordResetVersionRepository versionRepository, @Nullable SignedResetTokens signedResetTokens,
+            JavaMailSenderImpl mailSender,
+            @Value("${password.reset-mail.batch-size:50}") int batchSize,
+            @Value("${password.reset-mail.max-attempts:8}") int maxAttempts,
+            @Value("${password.reset-mail.retry-delay:30s}") Duration retryDelay,
+            @Value("${password.reset-mail.lease:10m}") Duration lease,
+            @Value("${password.reset-mail.idle-timeout:60s}") Duration idleTimeout,
+            @Value("${password.reset-mail.link:http://localhost:4200/reset-password?token=}") String resetLink,
+            @Value("${password.reset-mail.from:${spring.mail.username:}}") String from,
+            MeterRegistry meterRegistry) {
+        this.repository = repository;
+        this.versionRepository = versionRepository;
+        this.signedResetTokens = signedResetTokens;
+        this.mailSender = mailSender;
+        this.batchSize = batchSize;
+        this.maxAttempts = maxAttempts;
+        this.retryDelay = retryDelay;
+        this.lease = lease;
+        this.idleTimeout = idleTimeout;
+        this.resetLink = resetLink;
+        this.from = from;
+        this.sent = Counter.builder("password.reset-mail.sent")
+                .description("Courriels de réinitialisation envoyés")
+                .register(meterRegistry);
+        this.failures = Counter.builder("password.reset-mail.failures")
+                .description("Envois échoués, retentés ou abandonnés")
+                .register(meterRegistry);
+    }
+
+    // Envoie un lot de courriels dus ; renvoie le nombre de courriels envoyés
+    @Scheduled(fixedDelayString = "${password.reset-mail.poll-interval-ms:1000}")
+    public int sendPending() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime leaseUntil = now.plus(lease);
+        List<PasswordResetMail> due = repository.claimDue(now, leaseUntil, batchSize);
+        if (due.isEmpty()) {
+            closeIfIdle();
+            return 0;
+        }
+        int delivered = 0;
+        for (PasswordResetMail mail : due) {
+            // Bail expiré : les courriels restants peuvent déjà avoir été repris par une autre instance
+            if (!LocalDateTime.now().isBefore(leaseUntil)) {
+                log.warn("Bail de l'outbox expiré, envoi interrompu avant le courriel {}", mail.getId());
+                break;
+            }
+            try {
+                send(mail);
+            } catch (MessagingException | RuntimeException ex) {
+                retryLater(mail, ex);
+                repository.save(mail);
+                continue;
+            }
+            // Chaque mise à jour dans sa propre transaction, après l'envoi
+            repository.delete(mail);
+            sent.increment();
+            delivered++;
+        }
+        return delivered;
+    }
+
+    private void send(PasswordResetMail mail) throws MessagingException {
+        MimeMessage message = new MimeMessage(mailSender.getSession());
+        MimeMessageHelper helper = new MimeMessageHelper(message, false, "UTF-8");
+        if (!from.isEmpty()) {
+            helper.setFrom(from);
+        }
+        helper.setTo(mail.getEmail());
+        helper.setSubject("Password Reset Request");
+        helper.setText("To reset your password, click the link below:\n\n" + resetLink + token(mail));
+        message.saveChanges();
+
+        Transport connection = connection();
+        try {
+            connection.sendMessage(message, message.getAllRecipients());
+            lastUsedNanos = System.nanoTime();
+        } catch (MessagingException | RuntimeException ex) {
+            // Destinataire refusé (SendFailedException) : la connexion reste utilisable
+            if (!(ex instanceof SendFailedException)) {
+                close();
+            }
+            throw ex;
+        }
+    }
+
+    private String token(PasswordResetMail mail) {
+        if (mail.getToken() != null) {
+            return mail.getToken();
+        }
+        if (signedResetTokens == null) {
+            // Demandé en mode signé, puis le mode a changé : le lien ne peut plus être émis
+            throw new IllegalStateException("Token signé demandé, password.reset-token.mode n'est plus signed");
+        }
+        return signedResetTokens.issue(mail.getEmail(), versionRepository.currentVersion(mail.getEmail()));
+    }
+
+    private Transport connection() throws MessagingException {
+        if (transport != null && transport.isConnected()) {
+            return transport;
+        }
+        close();
+        String protocol = mailSender.getProtocol() != null ? mailSender.getProtocol() : JavaMailSenderImpl.DEFAULT_PROTOCOL;
+        Transport connection = mailSender.getSession().getTransport(protocol);
+        connection.connect(mailSender.getHost(), mailSender.getPort(), mailSender.getUsername(), mailSender.getPassword());
+        transport = connection;
+        return connection;
+    }
+
+    private void retryLater(PasswordResetMail mail, Exception ex) {
+        failures.increment();
+        int attempts = mail.getAttempts() + 1;
+        mail.setAttempts(attempts);
+        String error = ex.getClass().getSimpleName() + ": " + ex.getMessage();
+        // Longueur de la colonne
+        mail.setLastError(error.length() > 255 ? error.substring(0, 255) : error);
+        if (attempts >= maxAttempts) {
+            mail.setStatus(PasswordResetMail.Status.FAILED);
+            // Le lien ne sera jamais envoyé : le token ne reste pas en clair dans l'outbox
+            mail.setToken(null);
+            log.error("Courriel de réinitialisation {} abandonné après {} tentatives", mail.getId(), attempts, ex);
+            return;
+        }
+        Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 20));
+        mail.setNextAttemptAt(LocalDateTime.now().plus(delay.compareTo(MAX_RETRY_DELAY) > 0 ? MAX_RETRY_DELAY : delay));
+        log.warn("Échec de l'envoi du courriel de réinitialisation {} (tentative {}) : {}", mail.getId(), attempts,
+                ex.getMessage());
+    }
+
+    private void closeIfIdle() {
+        if (transport != null && System.nanoTime() - lastUsedNanos > idleTimeout.toNanos()) {
+            close();
+        }
+    }
+
+    @PreDestroy
+    public void close() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException ex) {
+                log.debug("Fermeture de la connexion SMTP", ex);
+            }
+            transport = null;
+        }
+    }
+}
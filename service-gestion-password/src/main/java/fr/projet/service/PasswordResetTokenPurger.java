@@ -0,0 +1,73 @@
+package fr.projet.service;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import fr.projet.model.PasswordResetToken;
+import fr.projet.repository.PasswordResetTokenRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Purge périodique des tokens de réinitialisation expirés.
+ *
+ * Les suppressions se font par lots bornés, chacun dans sa propre transaction, en parcourant l'index
+ * (expiryDate, id) à partir de la clé du lot précédent : aucun verrou long sur la table, et les lignes
+ * verrouillées par une réinitialisation en cours sont sautées au lieu d'être attendues.
+ */
+@Component
+public class PasswordResetTokenPurger {
+
+    private static final Logger log = LoggerFactory.getLogger(PasswordResetTokenPurger.class);
+
+    // Clé de départ, avant toute date d'expiration réelle
+    private static final LocalDateTime START_EXPIRY = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final PasswordResetTokenRepository repository;
+    private final int batchSize;
+    private final Counter purged;
+
+    public PasswordResetTokenPurger(PasswordResetTokenRepository repository,
+            @Value("${password.reset-token.purge-batch-size:1000}") int batchSize,
+            MeterRegistry meterRegistry) {
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("password.reset-token.purge-batch-size doit être positif");
+        }
+        this.repository = repository;
+        this.batchSize = batchSize;
+        this.purged = Counter.builder("password.reset-token.purged")
+                .description("Tokens de réinitialisation expirés supprimés")
+                .register(meterRegistry);
+    }
+
+    // Supprime les tokens expirés ; renvoie le nombre de tokens supprimés
+    @Scheduled(fixedDelayString = "${password.reset-token.purge-interval-ms:600000}")
+    public long purgeExpired() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime afterExpiry = START_EXPIRY;
+        String afterId = "";
+        long total = 0;
+        List<PasswordResetToken> batch;
+        do {
+            batch = repository.deleteExpiredAfter(now, afterExpiry, afterId, batchSize);
+            // Clé suivante prise dans l'ordre de la base : comparer les id en Java ignorerait sa collation
+            if (!batch.isEmpty()) {
+                PasswordResetToken last = batch.get(batch.size() - 1);
+                afterExpiry = last.getExpiryDate();
+                afterId = last.getId();
+            }
+            total += batch.size();
+            purged.increment(batch.size());
+        } while (batch.size() == batchSize);
+        if (total > 0) {
+            log.info("{} tokens de réinitialisation expirés supprimés", total);
+        }
+        return total;
+    }
+}
@@ -1,43 +1,50 @@
 package fr.projet.service;
 
 
+import java.io.IOException;
+import java.io.Writer;
 import java.security.KeyPair;
 import java.security.KeyPairGenerator;
 import java.security.PrivateKey;
 import java.security.PublicKey;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.Base64;
-import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
-import java.util.Random;
 import java.util.UUID;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 
 
-import org.springframework.mail.javamail.JavaMailSender;
-import org.springframework.mail.javamail.MimeMessageHelper;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
 
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import fr.projet.DTO.UtilisateurDto;
 import fr.projet.OpenFeign.UserServiceClient;
+import fr.projet.Request.PasswordBatchCheckRequest;
 import fr.projet.Request.PasswordCheckRequest;
+import fr.projet.Request.PasswordEvaluationRequest;
+import fr.projet.Response.PasswordBatchCheckResponse;
 import fr.projet.Response.PasswordCheckResponse;
+import fr.projet.Response.PasswordEvaluationResponse;
 import fr.projet.Response.PasswordGeneratedResponse;
 import fr.projet.model.Password;
+import fr.projet.model.PasswordResetMail;
 import fr.projet.model.PasswordResetToken;
 import fr.projet.model.ResetPasswordException;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.PasswordRepository;
+import fr.projet.repository.PasswordResetMailRepository;
 import fr.projet.repository.PasswordResetTokenRepository;
-import jakarta.mail.internet.MimeMessage;
+import fr.projet.repository.PasswordResetVersionRepository;
 
-import org.springframework.security.crypto.bcrypt.BCrypt;
 @Service
 @Transactional
 public class PasswordService {
@@ -47,15 +54,47 @@ private PasswordRepository passwordRepository;
 
  @Autowired
     private UserServiceClient userServiceClient;
+// Outbox des courriels de réinitialisation
 @Autowired
-private JavaMailSender javaMailSender;
+private PasswordResetMailRepository passwordResetMailRepository;
 
 
 @Autowired
 private PasswordResetTokenRepository passwordResetTokenRepository;
 
- @Autowired
-private JdbcTemplate jdbcTemplate;
+// Présent lorsque password.reset-token.mode=signed : tokens sans état, usage unique par version du mot de passe
+@Autowired(required = false)
+private SignedResetTokens signedResetTokens;
+
+@Autowired
+private PasswordResetVersionRepository passwordResetVersionRepository;
+
+@Autowired
+private StolenPasswordLookup stolenPasswordLookup;
+
+// Verdicts récents : un même mot de passe est souvent vérifié plusieurs fois d'affilée
+@Autowired
+private PasswordVerdictCache passwordVerdictCache;
+
+// Règles de force partagées avec service-compte et service-utilisateur (password.policy.*)
+@Autowired
+private PasswordPolicy passwordPolicy;
+
+// SecureRandom par thread, longueur et alphabet configurables (password.generator.*)
+@Autowired
+private PasswordGenerator passwordGenerator;
+
+// Suggestions prêtes, déjà vérifiées (force et fuites)
+@Autowired
+private SuggestedPasswordPool suggestedPasswordPool;
+
+@Autowired
+private PasswordHasher passwordHasher;
+
+// Recherches dans les fuites lancées par evaluatePassword pendant que l'appelant applique les règles de force
+@Autowired
+@Qualifier("breachLookupExecutor")
+private TaskExecutor breachLookupExecutor;
 
 //create password
 
@@ -70,6 +109,7 @@ private JdbcTemplate jdbcTemplate;
 
 //update 
 
+    @Transactional
     public void updatePassword(String idUser, String newPassword) {
         Optional<Password> optionalPassword = passwordRepository.findById(idUser);
         if (optionalPassword.isPresent()) {
@@ -78,6 +118,12 @@ private JdbcTemplate jdbcTemplate;
             password.setDateModif(LocalDateTime.now());
             passwordRepository.save(password);
 
+            // Mot de passe changé : les liens de réinitialisation déjà envoyés ne sont plus valables
+            UtilisateurDto utilisateurDTO = userServiceClient.getUserById(idUser);
+            if (utilisateurDTO != null) {
+                passwordResetVersionRepository.bump(utilisateurDTO.getEmail());
+            }
+
             
         } else {
             throw new RuntimeException("User not found");
@@ -96,49 +142,49 @@ private JdbcTemplate jdbcTemplate;
 
     public void requestPasswordReset(String email) {
         // Génération du lien de réinitialisation
-        String token = UUID.randomUUID().toString();
-        PasswordResetToken resetToken = new PasswordResetToken(token, email);
-        resetToken.setExpiryDate(LocalDateTime.now().plusHours(1)); 
-        passwordResetTokenRepository.save(resetToken);
-
-        // Envoi de l'email réel via JavaMail
-        try {
-            MimeMessage message = javaMailSender.createMimeMessage();
-            MimeMessageHelper helper = new MimeMessageHelper(message, true);
-            helper.setTo(email);
-            helper.setSubject("Password Reset Request");
-            helper.setText("To reset your password, click the link below:\n\n" +
-                           "http://localhost:4200/reset-password?token=" + token);
-            javaMailSender.send(message);
-
-            System.out.println("Email sent to " + email + " with reset link.");
-        } catch (Exception e) {
-            // Gestion des erreurs d'envoi d'email
-            e.printStackTrace();
-            throw new RuntimeException("Failed to send password reset email.");
+        // Token signé : rien n'est enregistré, pas même dans l'outbox ; PasswordResetMailSender l'émet
+        // à l'envoi, avec la version courante du mot de passe
+        String token = null;
+        if (signedResetTokens == null) {
+            token = UUID.randomUUID().toString();
+            PasswordResetToken resetToken = new PasswordResetToken(token, email);
+            resetToken.setExpiryDate(LocalDateTime.now().plusHours(1)); 
+            passwordResetTokenRepository.save(resetToken);
         }
+
+        // Courriel mis en attente dans la même transaction que le token : envoyé par PasswordResetMailSender,
+        // la requête n'attend pas le serveur SMTP
+        passwordResetMailRepository.save(new PasswordResetMail(email, token));
     }
 
 
 
     @Transactional
 public void resetPassword(String token, String newPassword) {
-    // Récupérer le token de réinitialisation
-    Optional<PasswordResetToken> optionalResetToken = passwordResetTokenRepository.findByToken(token);
-    
-    if (!optionalResetToken.isPresent()) {
-        throw new ResetPasswordException("Invalid token");
-    }
-    
-    PasswordResetToken resetToken = optionalResetToken.get();
-    
-    // Vérifier si le token a expiré
-    if (resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
-        throw new ResetPasswordException("Token has expired");
+    // Token signé : signature et expiration vérifiées en mémoire (null pour un token stocké)
+    SignedResetTokens.Claims claims = signedResetTokens != null ? signedResetTokens.verify(token) : null;
+    String email;
+    if (claims != null) {
+        email = claims.getEmail();
+    } else {
+        // Consommer le token (supprimé en lisant) ; une exception annule la suppression avec la transaction
+        Optional<PasswordResetToken> optionalResetToken = passwordResetTokenRepository.consumeByToken(token);
+        
+        if (!optionalResetToken.isPresent()) {
+            throw new ResetPasswordException("Invalid token");
+        }
+        
+        PasswordResetToken resetToken = optionalResetToken.get();
+        
+        // Vérifier si le token a expiré
+        if (resetToken.getExpiryDate().isBefore(LocalDateTime.now())) {
+            throw new ResetPasswordException("Token has expired");
+        }
+        email = resetToken.getEmail();
     }
     
     // Utiliser le Feign Client pour récupérer les informations de l'utilisateur
-    UtilisateurDto utilisateurDTO = userServiceClient.getUserByEmail(resetToken.getEmail());
+    UtilisateurDto utilisateurDTO = userServiceClient.getUserByEmail(email);
     
     if (utilisateurDTO == null) {
         throw new ResetPasswordException("User with email not found");
@@ -147,15 +193,22 @@ public void resetPassword(String token, String newPassword) {
     // Hash le nouveau mot de passe
     String hashedPassword = hashPassword(newPassword);
     
+    // Usage unique du token signé : la version change, ce token et les précédents ne sont plus acceptés
+    if (claims != null && passwordResetVersionRepository.advance(email, claims.getVersion()) == 0) {
+        throw new ResetPasswordException("Invalid token");
+    }
+    // Token stocké : la version change aussi, pour les tokens signés émis avant un changement de mode
+    if (claims == null) {
+        passwordResetVersionRepository.bump(email);
+    }
+    
     // Mettre à jour le mot de passe dans le service utilisateur via Feign Client
     userServiceClient.updateUserPassword(utilisateurDTO.getId(), hashedPassword);
-    
-    // Supprimer le token de réinitialisation après utilisation
-    // passwordResetTokenRepository.delete(resetToken);
 }
 
+// BCrypt sur le pool dédié, au coût calibré ; PasswordHashingRejectedException si la file est pleine
 String hashPassword(String password) {
-    return BCrypt.hashpw(password, BCrypt.gensalt());
+    return passwordHasher.hash(password);
 }
 
 
@@ -168,41 +221,11 @@ public PasswordCheckResponse checkPasswordStrength(PasswordCheckRequest request)
         return new PasswordCheckResponse(false, false, "Password cannot be null");
     }
 
-    boolean isStrong = isStrongPassword(request.getPassword());
+    boolean isStrong = passwordPolicy.isStrong(request.getPassword());
     String message = isStrong ? "Password is strong" : "Password is weak";
     return new PasswordCheckResponse(isStrong, false, message);
 }
 
-    // Méthode pour vérifier si un mot de passe est fort
-    private boolean isStrongPassword(String password) {
-        // Définir les critères de validation
-    int minLength = 12;
-    boolean hasUppercase = false;
-    boolean hasLowercase = false;
-    boolean hasDigit = false;
-    boolean hasSpecialChar = false;
-    String specialChars = "!@#$%^&*()-+";
-    
-    if (password.length() < minLength) {
-        return false;
-    }
-    
-    for (char c : password.toCharArray()) {
-        if (Character.isUpperCase(c)) {
-            hasUppercase = true;
-        } else if (Character.isLowerCase(c)) {
-            hasLowercase = true;
-        } else if (Character.isDigit(c)) {
-            hasDigit = true;
-        } else if (specialChars.indexOf(c) != -1) {
-            hasSpecialChar = true;
-        }
-    }
-    
-    return hasUppercase && hasLowercase && hasDigit && hasSpecialChar;
-}
-
-       
 //vulnérabilité
 
  // Vérifier la vulnérabilité d'un mot de passe
@@ -210,72 +233,108 @@ public PasswordCheckResponse checkPasswordStrength(PasswordCheckRequest request)
 
 // Méthode pour vérifier si un mot de passe est vulnérable
 public PasswordCheckResponse checkPasswordVulnerability(PasswordCheckRequest request) {
-    // Appelle la méthode isPasswordVulnerable pour déterminer si le mot de passe est vulnérable
-    boolean isVulnerable = isPasswordVulnerable(request.getPassword());
+    // Nombre d'apparitions dans les fuites : l'appelant peut appliquer son propre seuil
+    int occurrences = passwordVerdictCache.occurrences(request.getPassword(), this::passwordOccurrences);
+    boolean isVulnerable = occurrences > 0;
     // Crée un message en fonction du résultat de la vérification de la vulnérabilité
     String message = isVulnerable ? "Password is vulnerable" : "Password is not found in the list of stolen passwords";
-    // Retourne une réponse indiquant si le mot de passe est vulnérable ou non
-    return new PasswordCheckResponse(false, isVulnerable, message);
+    // Retourne une réponse indiquant si le mot de passe est vulnérable ou non, avec le nombre d'occurrences
+    return new PasswordCheckResponse(false, isVulnerable, message, occurrences);
 }
 
 // Méthode pour vérifier si un mot de passe est vulnérable
 boolean isPasswordVulnerable(String password) {
-    // Hash du mot de passe fourni par l'utilisateur
-   String passwordHash = DigestUtils.sha1Hex(password);
-    // Requête SQL pour compter le nombre d'occurrences du hash du mot de passe dans la table stolen_passwords
-    String sql = "SELECT COUNT(*) FROM stolen_password WHERE hash = ?";
-    // Exécute la requête et récupère le résultat (nombre d'occurrences)
-    Integer count = jdbcTemplate.queryForObject(sql, Integer.class, passwordHash);
-    // Si le nombre d'occurrences est supérieur à 0, le mot de passe est considéré comme vulnérable
-    return count != null && count > 0;
+    return passwordOccurrences(password) > 0;
 }
 
- // Générer un mot de passe fort
- public PasswordGeneratedResponse generatePassword() {
-    String generatedPassword = generateStrongPassword();
-    return new PasswordGeneratedResponse(generatedPassword);
+// Nombre d'occurrences du mot de passe dans les fuites (0 s'il n'est pas volé), en une seule recherche
+int passwordOccurrences(String password) {
+    // Empreinte SHA-1 brute (20 octets) du mot de passe fourni par l'utilisateur
+    byte[] passwordHash = DigestUtils.sha1(password);
+    // Recherche dans la source configurée (table stolen_password ou index projeté en mémoire)
+    return stolenPasswordLookup.occurrences(passwordHash);
 }
 
-// Méthode pour générer un mot de passe fort
-String generateStrongPassword() {
-    // Définition des caractères possibles pour le mot de passe
-    String uppercaseChars = "ABCDEFGHIJKLMNOPQRSTUVWXYZ";
-    String lowercaseChars = "abcdefghijklmnopqrstuvwxyz";
-    String digitChars = "0123456789";
-    String specialChars = "!@#$%^&*()-+";
-
-    // Définition de la longueur du mot de passe
-    int passwordLength = 12;
-
-    // Initialisation du générateur de mot de passe
-    StringBuilder password = new StringBuilder();
-
-    // Ajout d'au moins une lettre majuscule
-    password.append(uppercaseChars.charAt(new Random().nextInt(uppercaseChars.length())));
-
-    // Ajout d'au moins une lettre minuscule
-    password.append(lowercaseChars.charAt(new Random().nextInt(lowercaseChars.length())));
+// Vérification groupée : une seule recherche pour tous les mots de passe (ou empreintes) de la requête
+public PasswordBatchCheckResponse checkPasswordsVulnerability(PasswordBatchCheckRequest request) {
+    List<byte[]> digests = new ArrayList<>();
+    if (request.getPasswords() != null) {
+        for (String password : request.getPasswords()) {
+            digests.add(DigestUtils.sha1(password));
+        }
+    } else {
+        for (String hash : request.getHashes()) {
+            byte[] digest = new byte[Sha1Digests.BYTES];
+            Sha1Digests.parseHex(hash, 0, digest, 0);
+            digests.add(digest);
+        }
+    }
+    boolean[] stolen = stolenPasswordLookup.areStolen(digests);
+    List<Boolean> vulnerable = new ArrayList<>(stolen.length);
+    int vulnerableCount = 0;
+    for (boolean isVulnerable : stolen) {
+        vulnerable.add(isVulnerable);
+        vulnerableCount += isVulnerable ? 1 : 0;
+    }
+    return new PasswordBatchCheckResponse(vulnerable, vulnerableCount,
+            vulnerableCount + " password(s) found in the list of stolen passwords");
+}
 
-    // Ajout d'au moins un chiffre
-    password.append(digitChars.charAt(new Random().nextInt(digitChars.length())));
+//évaluation complète
+
+// Force et vulnérabilité en un seul appel : la recherche dans les fuites (E/S) tourne pendant les règles de force
+public PasswordEvaluationResponse evaluatePassword(PasswordEvaluationRequest request) {
+    String password = request.getPassword();
+    CompletableFuture<Integer> lookup = CompletableFuture.supplyAsync(
+            () -> passwordVerdictCache.occurrences(password, this::passwordOccurrences), breachLookupExecutor);
+    boolean isStrong = passwordPolicy.isStrong(password);
+    int occurrences;
+    try {
+        occurrences = lookup.join();
+    } catch (CompletionException e) {
+        // Même exception que lors d'une vérification séquentielle
+        if (e.getCause() instanceof RuntimeException cause) {
+            throw cause;
+        }
+        throw e;
+    }
+    boolean isVulnerable = occurrences > 0;
+
+    String message;
+    if (isVulnerable) {
+        message = "Password is vulnerable";
+    } else if (!isStrong) {
+        message = "Password is weak";
+    } else {
+        message = "Password is strong and not found in the list of stolen passwords";
+    }
+    // Suggestion seulement si elle sert : le mot de passe proposé est refusé
+    String suggestedPassword = request.isSuggest() && (isVulnerable || !isStrong) ? generateStrongPassword() : null;
+    return new PasswordEvaluationResponse(isStrong, isVulnerable, occurrences, message, suggestedPassword);
+}
 
-    // Ajout d'au moins un caractère spécial
-    password.append(specialChars.charAt(new Random().nextInt(specialChars.length())));
+//k-anonymat
 
-    // Complétion du reste du mot de passe avec des caractères aléatoires
-    for (int i = 4; i < passwordLength; i++) {
-        String allChars = uppercaseChars + lowercaseChars + digitChars + specialChars;
-        password.append(allChars.charAt(new Random().nextInt(allChars.length())));
-    }
+// Suffixes des empreintes volées commençant par un préfixe SHA-1 de 5 caractères hexadécimaux (format HIBP)
+public String getBreachedRange(String prefix) {
+    List<String> suffixes = stolenPasswordLookup.suffixes(Integer.parseInt(prefix, 16));
+    return String.join("\r\n", suffixes);
+}
 
-    // Mélange aléatoire des caractères du mot de passe
-    List<Character> charsList = password.chars().mapToObj(c -> (char) c).collect(Collectors.toList());
-    Collections.shuffle(charsList);
-    StringBuilder shuffledPassword = new StringBuilder();
-    charsList.forEach(shuffledPassword::append);
+ // Générer un mot de passe fort
+ public PasswordGeneratedResponse generatePassword() {
+    String generatedPassword = generateStrongPassword();
+    return new PasswordGeneratedResponse(generatedPassword);
+}
 
-    return shuffledPassword.toString();
+// Méthode pour générer un mot de passe fort, pris dans la réserve : déjà absent des fuites (null si aucun n'a pu être trouvé)
+String generateStrongPassword() {
+    return suggestedPasswordPool.take();
+}
 
+// Génération en lot : count mots de passe écrits un par ligne au fur et à mesure
+public void generatePasswords(int count, Writer out) throws IOException {
+    passwordGenerator.generate(count, out);
 }
 
 
@@ -0,0 +1,73 @@
+package fr.projet.service;
+
+import java.nio.ByteBuffer;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.function.ToIntFunction;
+
+import org.apache.commons.codec.digest.HmacAlgorithms;
+import org.apache.commons.codec.digest.HmacUtils;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+
+/**
+ * Verdicts récents (nombre d'occurrences dans les fuites) des mots de passe vérifiés, pour les parcours
+ * qui vérifient plusieurs fois le même mot de passe (inscription, création de compte, réinitialisation).
+ * La force n'est pas mise en cache : la politique de force coûte moins cher que le calcul de la clé.
+ *
+ * La clé est un HMAC-SHA256 du mot de passe sous une clé aléatoire propre au processus :
+ * ni le mot de passe ni une empreinte rejouable ne restent en mémoire. Les caches sont bornés
+ * en taille et en durée ; les verdicts sont oubliés à la fin de chaque import du corpus.
+ */
+@Component
+public class PasswordVerdictCache {
+
+    private static final int KEY_BYTES = 32;
+
+    private final Cache<ByteBuffer, Integer> vulnerable;
+    private final ThreadLocal<HmacUtils> hmac;
+
+    public PasswordVerdictCache(@Value("${password.verdict-cache.maximum-size:10000}") long maximumSize,
+            @Value("${password.verdict-cache.ttl:10m}") Duration ttl,
+            MeterRegistry meterRegistry) {
+        this.vulnerable = newCache(maximumSize, ttl);
+        byte[] key = new byte[KEY_BYTES];
+        new SecureRandom().nextBytes(key);
+        this.hmac = ThreadLocal.withInitial(() -> new HmacUtils(HmacAlgorithms.HMAC_SHA_256, key));
+        // Métriques cache.gets (hit/miss), cache.evictions, cache.size
+        CaffeineCacheMetrics.monitor(meterRegistry, vulnerable, "password.verdicts.vulnerable");
+    }
+
+    private static <V> Cache<ByteBuffer, V> newCache(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // Nombre d'occurrences du mot de passe dans les fuites, 0 s'il n'est pas volé
+    public int occurrences(String password, ToIntFunction<String> lookup) {
+        return vulnerable.get(key(password), k -> lookup.applyAsInt(password));
+    }
+
+    @EventListener
+    public void onStolenPasswordsUpdated(StolenPasswordsUpdatedEvent event) {
+        vulnerable.invalidateAll();
+    }
+
+    public long size() {
+        return vulnerable.estimatedSize();
+    }
+
+    private ByteBuffer key(String password) {
+        return ByteBuffer.wrap(hmac.get().hmac(password));
+    }
+}
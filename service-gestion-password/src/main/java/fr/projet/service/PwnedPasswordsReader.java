@@ -0,0 +1,159 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Lecture en flux d'un fichier pwnedpasswords (lignes HASH:COUNT) sur un {@link FileChannel}.
+ *
+ * Les octets sont analysés directement dans le tampon de lecture : ni String par ligne,
+ * ni String.split ; les empreintes et leurs compteurs sont décodés dans des {@link DigestBatch} recyclés.
+ */
+public final class PwnedPasswordsReader {
+
+    private static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+
+    // Valeur des caractères hexadécimaux, -1 pour les autres octets
+    private static final byte[] HEX_VALUES = new byte[256];
+
+    static {
+        Arrays.fill(HEX_VALUES, (byte) -1);
+        for (int c = '0'; c <= '9'; c++) {
+            HEX_VALUES[c] = (byte) (c - '0');
+        }
+        for (int c = 'A'; c <= 'F'; c++) {
+            HEX_VALUES[c] = (byte) (c - 'A' + 10);
+            HEX_VALUES[c + ('a' - 'A')] = (byte) (c - 'A' + 10);
+        }
+    }
+
+    /**
+     * Fournisseur et destinataire des lots : acquire/publish peuvent bloquer,
+     * ce qui propage la contre-pression des écrivains jusqu'à la lecture.
+     */
+    public interface BatchSink {
+
+        DigestBatch acquire() throws InterruptedException;
+
+        void publish(DigestBatch batch) throws InterruptedException;
+
+        void release(DigestBatch batch);
+    }
+
+    private final byte[] data;
+
+    public PwnedPasswordsReader() {
+        this(DEFAULT_BUFFER_SIZE);
+    }
+
+    public PwnedPasswordsReader(int bufferSize) {
+        this.data = new byte[bufferSize];
+    }
+
+    /**
+     * Lit file à partir de startOffset (qui doit être un début de ligne).
+     * Le dernier lot publié se termine à la fin du fichier et peut être vide.
+     * Retourne le nombre de lignes mal formées ignorées.
+     */
+    public long read(Path file, long startOffset, BatchSink sink) throws IOException, InterruptedException {
+        long malformed = 0;
+        DigestBatch batch = sink.acquire();
+        batch.reset(file, startOffset);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(startOffset);
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            long bufferOffset = startOffset;
+            int filled = 0;
+            boolean eof = false;
+            while (!eof) {
+                buffer.limit(data.length).position(filled);
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    eof = true;
+                } else {
+                    filled += read;
+                }
+
+                int lineStart = 0;
+                for (int i = 0; i < filled; i++) {
+                    if (data[i] == '\n') {
+                        int parsed = parseLine(lineStart, i, bufferOffset + i + 1, batch);
+                        malformed += parsed < 0 ? 1 : 0;
+                        if (batch.isFull()) {
+                            long batchEnd = batch.endOffset();
+                            sink.publish(batch);
+                            batch = null;
+                            batch = sink.acquire();
+                            batch.reset(file, batchEnd);
+                        }
+                        lineStart = i + 1;
+                    }
+                }
+                // Dernière ligne sans fin de ligne
+                if (eof && lineStart < filled) {
+                    malformed += parseLine(lineStart, filled, bufferOffset + filled, batch) < 0 ? 1 : 0;
+                    lineStart = filled;
+                }
+
+                // Ligne incomplète ramenée au début du tampon
+                int remaining = filled - lineStart;
+                if (remaining == data.length) {
+                    throw new IOException("Ligne trop longue dans " + file + " à la position " + bufferOffset);
+                }
+                System.arraycopy(data, lineStart, data, 0, remaining);
+                bufferOffset += lineStart;
+                filled = remaining;
+            }
+            // Le dernier lot, même vide, couvre la fin du fichier pour marquer sa complétion
+            batch.endAt(bufferOffset);
+        } catch (IOException | InterruptedException | RuntimeException ex) {
+            if (batch != null) {
+                sink.release(batch);
+            }
+            throw ex;
+        }
+        sink.publish(batch);
+        return malformed;
+    }
+
+    // 1 si une empreinte a été ajoutée au lot, 0 pour une ligne vide, -1 pour une ligne mal formée
+    private int parseLine(int start, int end, long lineEndOffset, DigestBatch batch) {
+        if (end > start && data[end - 1] == '\r') {
+            end--;
+        }
+        int length = end - start;
+        if (length == 0) {
+            return 0;
+        }
+        if (length < Sha1Digests.HEX_LENGTH || (length > Sha1Digests.HEX_LENGTH && data[start + Sha1Digests.HEX_LENGTH] != ':')) {
+            return -1;
+        }
+        byte[] digests = batch.digests();
+        int slot = batch.nextSlot();
+        int invalid = 0;
+        for (int i = 0; i < Sha1Digests.BYTES; i++) {
+            int high = HEX_VALUES[data[start + 2 * i] & 0xFF];
+            int low = HEX_VALUES[data[start + 2 * i + 1] & 0xFF];
+            invalid |= high | low;
+            digests[slot + i] = (byte) ((high << 4) | low);
+        }
+        if (invalid < 0) {
+            return -1;
+        }
+        batch.commit(lineEndOffset, parseCount(start + Sha1Digests.HEX_LENGTH + 1, end));
+        return 1;
+    }
+
+    // Compteur après les deux-points (chiffres décimaux en tête), plafonné à Integer.MAX_VALUE ; 0 s'il est absent
+    private int parseCount(int start, int end) {
+        long count = 0;
+        for (int i = start; i < end && data[i] >= '0' && data[i] <= '9'; i++) {
+            count = Math.min(count * 10 + (data[i] - '0'), Integer.MAX_VALUE);
+        }
+        return (int) count;
+    }
+}
@@ -0,0 +1,70 @@
+package fr.projet.service;
+
+/**
+ * Utilitaires de conversion des empreintes SHA-1 (40 caractères hexadécimaux).
+ */
+public final class Sha1Digests {
+
+    public static final int HEX_LENGTH = 40;
+    public static final int BYTES = 20;
+
+    private static final char[] HEX = "0123456789ABCDEF".toCharArray();
+
+    private Sha1Digests() { }
+
+    // Lit 16 caractères hexadécimaux (majuscules ou minuscules) à partir de offset
+    public static long hexLong(CharSequence hex, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 16; i++) {
+            value = (value << 4) | hexValue(hex.charAt(i));
+        }
+        return value;
+    }
+
+    // Décode 40 caractères hexadécimaux dans dest[destOffset .. destOffset + 20[ sans allocation
+    public static void parseHex(CharSequence hex, int offset, byte[] dest, int destOffset) {
+        for (int i = 0; i < BYTES; i++) {
+            int high = hexValue(hex.charAt(offset + 2 * i));
+            int low = hexValue(hex.charAt(offset + 2 * i + 1));
+            dest[destOffset + i] = (byte) ((high << 4) | low);
+        }
+    }
+
+    // Encode les 20 octets de digest[offset ..] en hexadécimal majuscule (format pwnedpasswords)
+    public static String toHex(byte[] digest, int offset) {
+        char[] hex = new char[HEX_LENGTH];
+        for (int i = 0; i < BYTES; i++) {
+            int b = digest[offset + i];
+            hex[2 * i] = HEX[(b >> 4) & 0x0F];
+            hex[2 * i + 1] = HEX[b & 0x0F];
+        }
+        return new String(hex);
+    }
+
+    // Lit 8 octets big-endian à partir de offset
+    public static long bytesLong(byte[] digest, int offset) {
+        long value = 0;
+        for (int i = offset; i < offset + 8; i++) {
+            value = (value << 8) | (digest[i] & 0xFF);
+        }
+        return value;
+    }
+
+    public static int bytesInt(byte[] digest, int offset) {
+        return ((digest[offset] & 0xFF) << 24) | ((digest[offset + 1] & 0xFF) << 16)
+                | ((digest[offset + 2] & 0xFF) << 8) | (digest[offset + 3] & 0xFF);
+    }
+
+    public static int hexValue(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'A' && c <= 'F') {
+            return c - 'A' + 10;
+        }
+        if (c >= 'a' && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        throw new IllegalArgumentException("Caractère hexadécimal invalide : " + c);
+    }
+}
@@ -0,0 +1,319 @@
+package fr.projet.service;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Construit l'index {@link MappedSha1Index} et ses compteurs d'occurrences ({@link OccurrenceCounts})
+ * à partir des fichiers pwnedpasswords (lignes HASH:COUNT).
+ *
+ * Tri externe : les empreintes et leurs compteurs sont triés par blocs de taille bornée écrits dans
+ * des fichiers temporaires, puis fusionnés (avec suppression des doublons, dont on garde le plus grand
+ * compteur) dans le fichier final.
+ * Le résultat est une nouvelle génération de l'index ({@link MappedSha1Index}) : ses trois fichiers sont
+ * écrits sous des noms qu'aucun lecteur n'ouvre encore, puis le manifeste est remplacé atomiquement.
+ * La génération précédente est gardée pour les lecteurs qui viennent de lire l'ancien manifeste.
+ *
+ * {@link #merge} ajoute de nouveaux fichiers à l'index : la génération en service, déjà triée, est
+ * fusionnée avec les nouveaux blocs sans être triée de nouveau.
+ */
+public class Sha1IndexBuilder {
+
+    private static final Logger log = LoggerFactory.getLogger(Sha1IndexBuilder.class);
+
+    private static final int DEFAULT_CHUNK_RECORDS = 2_000_000;
+    // Enregistrement des fichiers temporaires : empreinte puis compteur (int)
+    private static final int RUN_RECORD_SIZE = Sha1Digests.BYTES + Integer.BYTES;
+
+    private final int chunkRecords;
+
+    public Sha1IndexBuilder() {
+        this(DEFAULT_CHUNK_RECORDS);
+    }
+
+    public Sha1IndexBuilder(int chunkRecords) {
+        this.chunkRecords = chunkRecords;
+    }
+
+    // Retourne le nombre d'empreintes distinctes écrites dans la nouvelle génération de target
+    public long build(List<Path> sources, Path target) throws IOException {
+        return build(sources, target, false);
+    }
+
+    // Comme build, la génération en service de target s'ajoutant aux sources
+    public long merge(List<Path> sources, Path target) throws IOException {
+        return build(sources, target, true);
+    }
+
+    private long build(List<Path> sources, Path target, boolean merge) throws IOException {
+        Path directory = Files.createDirectories(target.toAbsolutePath().getParent());
+        long current = MappedSha1Index.currentGeneration(target);
+        Path base = merge ? MappedSha1Index.generationPath(target, current) : null;
+        if (base != null && !Files.exists(base)) {
+            base = null;
+        }
+        long generation = current + 1;
+        Path file = MappedSha1Index.generationPath(target, generation);
+        Path workDir = Files.createTempDirectory(directory, "sha1-index-");
+        long written;
+        try {
+            List<Path> runs = writeSortedRuns(sources, workDir);
+            Path tmp = workDir.resolve("index.tmp");
+            Path tmpCounts = workDir.resolve("counts.tmp");
+            long[] prefixCounts = new long[MappedSha1Index.PREFIX_COUNT];
+            try (OccurrenceCounts.Writer counts = new OccurrenceCounts.Writer(tmpCounts)) {
+                written = mergeRuns(runs, base, tmp, prefixCounts, counts);
+                counts.finish();
+            }
+            Path tmpTable = workDir.resolve("prefix.tmp");
+            writePrefixTable(prefixCounts, tmpTable);
+            // Fichiers de la nouvelle génération, invisibles tant que le manifeste ne la désigne pas
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmpTable, MappedSha1Index.prefixTablePath(file), StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmpCounts, OccurrenceCounts.path(file), StandardCopyOption.REPLACE_EXISTING);
+            Path manifest = workDir.resolve("current.tmp");
+            Files.writeString(manifest, Long.toString(generation), StandardCharsets.US_ASCII);
+            Files.move(manifest, MappedSha1Index.currentPath(target),
+                    StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            log.info("Index SHA-1 construit : {} empreintes dans {} (génération {})", written, file, generation);
+        } finally {
+            deleteRecursively(workDir);
+        }
+        deleteGenerationsBefore(target, generation - 1);
+        return written;
+    }
+
+    // Les générations antérieures à la précédente ne sont plus ouvertes par personne
+    private static void deleteGenerationsBefore(Path target, long generation) {
+        for (long old = generation - 1; old >= 0; old--) {
+            Path file = MappedSha1Index.generationPath(target, old);
+            try {
+                boolean deleted = Files.deleteIfExists(file);
+                Files.deleteIfExists(MappedSha1Index.prefixTablePath(file));
+                Files.deleteIfExists(OccurrenceCounts.path(file));
+                // Générations supprimées dans l'ordre : la première absente marque la fin des anciennes
+                if (!deleted && old > 0) {
+                    break;
+                }
+            } catch (IOException ex) {
+                log.warn("Impossible de supprimer la génération {} de l'index", old, ex);
+            }
+        }
+    }
+
+    private List<Path> writeSortedRuns(List<Path> sources, Path workDir) throws IOException {
+        List<Path> runs = new ArrayList<>();
+        byte[][] chunk = new byte[chunkRecords][];
+        int size = 0;
+        for (Path source : sources) {
+            try (BufferedReader reader = Files.newBufferedReader(source, StandardCharsets.US_ASCII)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.length() < Sha1Digests.HEX_LENGTH) {
+                        continue;
+                    }
+                    byte[] record = new byte[RUN_RECORD_SIZE];
+                    Sha1Digests.parseHex(line, 0, record, 0);
+                    ByteBuffer.wrap(record).putInt(Sha1Digests.BYTES, parseCount(line));
+                    chunk[size++] = record;
+                    if (size == chunkRecords) {
+                        runs.add(writeRun(chunk, size, workDir, runs.size()));
+                        size = 0;
+                    }
+                }
+            }
+        }
+        if (size > 0) {
+            runs.add(writeRun(chunk, size, workDir, runs.size()));
+        }
+        return runs;
+    }
+
+    // Compteur après les deux-points, 0 s'il est absent ou illisible
+    static int parseCount(String line) {
+        long count = 0;
+        for (int i = Sha1Digests.HEX_LENGTH + 1; i < line.length() && Character.isDigit(line.charAt(i)); i++) {
+            count = Math.min(count * 10 + (line.charAt(i) - '0'), Integer.MAX_VALUE);
+        }
+        return (int) count;
+    }
+
+    private Path writeRun(byte[][] chunk, int size, Path workDir, int index) throws IOException {
+        Arrays.sort(chunk, 0, size, Sha1IndexBuilder::compareDigests);
+        Path run = workDir.resolve("run-" + index);
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(run), 1 << 16)) {
+            byte[] pending = null;
+            for (int i = 0; i < size; i++) {
+                if (pending != null && compareDigests(pending, chunk[i]) == 0) {
+                    keepLargerCount(pending, chunk[i]);
+                    continue;
+                }
+                if (pending != null) {
+                    out.write(pending);
+                }
+                pending = chunk[i];
+            }
+            if (pending != null) {
+                out.write(pending);
+            }
+        }
+        Arrays.fill(chunk, 0, size, null);
+        return run;
+    }
+
+    // Positions cumulées : début de chaque préfixe de 20 bits, puis le nombre total d'empreintes
+    private void writePrefixTable(long[] prefixCounts, Path target) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(target), 1 << 16))) {
+            long start = 0;
+            for (long prefixCount : prefixCounts) {
+                out.writeLong(start);
+                start += prefixCount;
+            }
+            out.writeLong(start);
+        }
+    }
+
+    private static int compareDigests(byte[] a, byte[] b) {
+        return Arrays.compareUnsigned(a, 0, Sha1Digests.BYTES, b, 0, Sha1Digests.BYTES);
+    }
+
+    private static void keepLargerCount(byte[] kept, byte[] duplicate) {
+        ByteBuffer keptRecord = ByteBuffer.wrap(kept);
+        int count = ByteBuffer.wrap(duplicate).getInt(Sha1Digests.BYTES);
+        if (count > keptRecord.getInt(Sha1Digests.BYTES)) {
+            keptRecord.putInt(Sha1Digests.BYTES, count);
+        }
+    }
+
+    private long mergeRuns(List<Path> runs, Path base, Path target, long[] prefixCounts,
+            OccurrenceCounts.Writer counts) throws IOException {
+        PriorityQueue<RunReader> queue = new PriorityQueue<>((a, b) -> compareDigests(a.current, b.current));
+        long written = 0;
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(target), 1 << 16)) {
+            List<RunReader> readers = new ArrayList<>();
+            if (base != null) {
+                readers.add(RunReader.index(base));
+            }
+            for (Path run : runs) {
+                readers.add(new RunReader(run));
+            }
+            for (RunReader reader : readers) {
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            // Enregistrement en attente : ses doublons éventuels sont les suivants de la file
+            byte[] pending = new byte[RUN_RECORD_SIZE];
+            boolean first = true;
+            while (!queue.isEmpty()) {
+                RunReader reader = queue.poll();
+                if (first) {
+                    System.arraycopy(reader.current, 0, pending, 0, RUN_RECORD_SIZE);
+                    first = false;
+                } else if (compareDigests(pending, reader.current) == 0) {
+                    keepLargerCount(pending, reader.current);
+                } else {
+                    writeRecord(pending, out, prefixCounts, counts);
+                    System.arraycopy(reader.current, 0, pending, 0, RUN_RECORD_SIZE);
+                    written++;
+                }
+                if (reader.advance()) {
+                    queue.add(reader);
+                } else {
+                    reader.close();
+                }
+            }
+            if (!first) {
+                writeRecord(pending, out, prefixCounts, counts);
+                written++;
+            }
+        } finally {
+            for (RunReader reader : queue) {
+                reader.close();
+            }
+        }
+        return written;
+    }
+
+    private static void writeRecord(byte[] record, OutputStream out, long[] prefixCounts, OccurrenceCounts.Writer counts)
+            throws IOException {
+        out.write(record, 0, Sha1Digests.BYTES);
+        counts.add(ByteBuffer.wrap(record).getInt(Sha1Digests.BYTES));
+        prefixCounts[Sha1Digests.bytesInt(record, 0) >>> (32 - MappedSha1Index.PREFIX_BITS)]++;
+    }
+
+    private static void deleteRecursively(Path dir) throws IOException {
+        try (var paths = Files.list(dir)) {
+            for (Path path : (Iterable<Path>) paths::iterator) {
+                Files.deleteIfExists(path);
+            }
+        }
+        Files.deleteIfExists(dir);
+    }
+
+    private static final class RunReader {
+        private final InputStream in;
+        private final byte[] current = new byte[RUN_RECORD_SIZE];
+        // Génération de l'index lue comme un bloc trié : empreintes seules, compteurs lus à part
+        private final boolean index;
+        private final OccurrenceCounts.Cursor counts;
+
+        RunReader(Path run) throws IOException {
+            this(run, false, null);
+        }
+
+        private RunReader(Path file, boolean index, OccurrenceCounts.Cursor counts) throws IOException {
+            this.in = new BufferedInputStream(Files.newInputStream(file), 1 << 16);
+            this.index = index;
+            this.counts = counts;
+        }
+
+        // Compteurs à 0 (inconnus) pour un index construit avant leur stockage
+        static RunReader index(Path file) throws IOException {
+            Path countsFile = OccurrenceCounts.path(file);
+            OccurrenceCounts.Cursor counts = null;
+            if (Files.exists(countsFile)) {
+                OccurrenceCounts occurrences = OccurrenceCounts.open(countsFile);
+                if (occurrences.size() * MappedSha1Index.RECORD_SIZE != Files.size(file)) {
+                    throw new IOException("Compteurs d'occurrences incohérents avec l'index : " + countsFile);
+                }
+                counts = occurrences.cursor();
+            }
+            return new RunReader(file, true, counts);
+        }
+
+        boolean advance() throws IOException {
+            if (!index) {
+                return in.readNBytes(current, 0, RUN_RECORD_SIZE) == RUN_RECORD_SIZE;
+            }
+            if (in.readNBytes(current, 0, Sha1Digests.BYTES) != Sha1Digests.BYTES) {
+                return false;
+            }
+            ByteBuffer.wrap(current).putInt(Sha1Digests.BYTES, counts == null ? 0 : counts.next());
+            return true;
+        }
+
+        void close() throws IOException {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,228 @@
+package fr.projet.service;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Arrays;
+import java.util.Base64;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import fr.projet.model.ResetPasswordException;
+
+/**
+ * Tokens de réinitialisation sans état (password.reset-token.mode=signed) : l'email, l'expiration et la
+ * version du mot de passe sont dans le token, signé par HMAC-SHA256 ; sa validation ne lit pas la base.
+ *
+ * La clé de signature change à chaque période de rotation : elle est dérivée du secret partagé et du numéro
+ * de période, porté par le token. Toutes les instances signent donc avec la même clé sans se coordonner.
+ * Une clé retirée reste acceptée pendant la fenêtre de grâce, pour les tokens émis juste avant la rotation.
+ */
+@Component
+@ConditionalOnProperty(name = "password.reset-token.mode", havingValue = "signed")
+public class SignedResetTokens {
+
+    private static final byte FORMAT = 1;
+    // format, période de la clé, expiration (secondes), version du mot de passe, puis l'email
+    private static final int HEADER_BYTES = 1 + Long.BYTES * 3;
+    // HMAC-SHA256 tronqué à 128 bits
+    private static final int MAC_BYTES = 16;
+    private static final int MIN_SECRET_BYTES = 32;
+    private static final String ALGORITHM = "HmacSHA256";
+
+    private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+    private final byte[] secret;
+    private final Duration ttl;
+    private final long rotationSeconds;
+    private final Duration grace;
+    private final Clock clock;
+    private final ThreadLocal<Mac> mac = ThreadLocal.withInitial(SignedResetTokens::newMac);
+
+    // Clé de la période courante, dérivée une fois par période
+    private volatile PeriodKey current;
+
+    @Autowired
+    public SignedResetTokens(@Value("${password.reset-token.secret:}") String secret,
+            @Value("${password.reset-token.ttl:1h}") Duration ttl,
+            @Value("${password.reset-token.key-rotation:24h}") Duration rotation,
+            @Value("${password.reset-token.key-grace:1h}") Duration grace) {
+        this(decodeSecret(secret), ttl, rotation, grace, Clock.systemUTC());
+    }
+
+    SignedResetTokens(byte[] secret, Duration ttl, Duration rotation, Duration grace, Clock clock) {
+        if (secret.length < MIN_SECRET_BYTES) {
+            throw new IllegalArgumentException("password.reset-token.secret doit contenir au moins "
+                    + MIN_SECRET_BYTES + " octets (en Base64)");
+        }
+        if (ttl.isNegative() || ttl.isZero() || rotation.getSeconds() <= 0) {
+            throw new IllegalArgumentException("password.reset-token.ttl et key-rotation doivent être positifs");
+        }
+        // Sinon un token émis juste avant la rotation serait refusé avant son expiration
+        if (grace.compareTo(ttl) < 0) {
+            throw new IllegalArgumentException("password.reset-token.key-grace doit couvrir password.reset-token.ttl");
+        }
+        this.secret = secret.clone();
+        this.ttl = ttl;
+        this.rotationSeconds = rotation.getSeconds();
+        this.grace = grace;
+        this.clock = clock;
+    }
+
+    private static byte[] decodeSecret(String secret) {
+        try {
+            return Base64.getDecoder().decode(secret.trim());
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("password.reset-token.secret n'est pas en Base64", e);
+        }
+    }
+
+    // Token pour l'email, valable jusqu'à ce que la version du mot de passe change ou que le token expire
+    public String issue(String email, long version) {
+        Instant now = clock.instant();
+        long period = period(now);
+        byte[] emailBytes = email.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer token = ByteBuffer.allocate(HEADER_BYTES + emailBytes.length + MAC_BYTES);
+        token.put(FORMAT)
+                .putLong(period)
+                .putLong(now.plus(ttl).getEpochSecond())
+                .putLong(version)
+                .put(emailBytes);
+        token.put(sign(key(period), token.array(), token.position()));
+        return ENCODER.encodeToString(token.array());
+    }
+
+    /**
+     * Contenu du token vérifié, sans lecture en base.
+     * null si ce n'est pas un token signé (token stocké émis avant le passage au mode signé) ;
+     * ResetPasswordException si la signature est invalide, la clé retirée ou le token expiré.
+     */
+    public Claims verify(String token) {
+        byte[] bytes;
+        try {
+            bytes = DECODER.decode(token);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length < HEADER_BYTES + MAC_BYTES || bytes[0] != FORMAT) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.get();
+        long period = buffer.getLong();
+        long expiry = buffer.getLong();
+        long version = buffer.getLong();
+        Instant now = clock.instant();
+        SecretKeySpec key = acceptedKey(period, now);
+        int signed = bytes.length - MAC_BYTES;
+        if (key == null || !MessageDigest.isEqual(sign(key, bytes, signed), Arrays.copyOfRange(bytes, signed, bytes.length))) {
+            throw new ResetPasswordException("Invalid token");
+        }
+        if (now.getEpochSecond() >= expiry) {
+            throw new ResetPasswordException("Token has expired");
+        }
+        String email = new String(bytes, HEADER_BYTES, signed - HEADER_BYTES, StandardCharsets.UTF_8);
+        return new Claims(email, Instant.ofEpochSecond(expiry), version);
+    }
+
+    // Clé de la période si elle est courante ou encore dans la fenêtre de grâce, sinon null
+    private SecretKeySpec acceptedKey(long period, Instant now) {
+        long currentPeriod = period(now);
+        if (period > currentPeriod) {
+            return null;
+        }
+        if (period < currentPeriod
+                && !now.isBefore(Instant.ofEpochSecond((period + 1) * rotationSeconds).plus(grace))) {
+            return null;
+        }
+        return key(period);
+    }
+
+    private long period(Instant instant) {
+        return Math.floorDiv(instant.getEpochSecond(), rotationSeconds);
+    }
+
+    private SecretKeySpec key(long period) {
+        PeriodKey key = current;
+        if (key != null && key.period == period) {
+            return key.spec;
+        }
+        byte[] label = ("password-reset-token:" + period).getBytes(StandardCharsets.UTF_8);
+        SecretKeySpec spec = new SecretKeySpec(sign(new SecretKeySpec(secret, ALGORITHM), label, label.length, 32),
+                ALGORITHM);
+        // Seule la période la plus récente est gardée ; les clés en grâce sont rederivées (rare)
+        if (key == null || period > key.period) {
+            current = new PeriodKey(period, spec);
+        }
+        return spec;
+    }
+
+    private byte[] sign(SecretKeySpec key, byte[] data, int length) {
+        return sign(key, data, length, MAC_BYTES);
+    }
+
+    private byte[] sign(SecretKeySpec key, byte[] data, int length, int macBytes) {
+        Mac hmac = mac.get();
+        try {
+            hmac.init(key);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(e);
+        }
+        hmac.update(data, 0, length);
+        return Arrays.copyOf(hmac.doFinal(), macBytes);
+    }
+
+    private static Mac newMac() {
+        try {
+            return Mac.getInstance(ALGORITHM);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " indisponible", e);
+        }
+    }
+
+    private static final class PeriodKey {
+        final long period;
+        final SecretKeySpec spec;
+
+        PeriodKey(long period, SecretKeySpec spec) {
+            this.period = period;
+            this.spec = spec;
+        }
+    }
+
+    // Contenu vérifié d'un token signé
+    public static final class Claims {
+        private final String email;
+        private final Instant expiry;
+        private final long version;
+
+        Claims(String email, Instant expiry, long version) {
+            this.email = email;
+            this.expiry = expiry;
+            this.version = version;
+        }
+
+        public String getEmail() {
+            return email;
+        }
+
+        public Instant getExpiry() {
+            return expiry;
+        }
+
+        public long getVersion() {
+            return version;
+        }
+    }
+}
@@ -0,0 +1,430 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Filtre placé devant la table stolen_password.
+ *
+ * Il répond « certainement pas volé » sans aucune entrée/sortie ; seules les réponses positives
+ * sont confirmées en base. Tant que le filtre n'est pas prêt, toutes les vérifications passent par la base.
+ *
+ * Sans breach.filter.snapshot-path, un filtre de Bloom est construit en mémoire à chaque démarrage
+ * en parcourant la table. Avec, le filtre est un {@link XorFilterSnapshot} persisté dans des fichiers
+ * versionnés (chemin.1, chemin.2...) : le démarrage projette le plus récent en mémoire sans lire la table,
+ * et chaque import en écrit une nouvelle version qui remplace la précédente sans interruption.
+ *
+ * Les empreintes insérées par un import incrémental sont ajoutées au fur et à mesure à un complément,
+ * petit filtre de Bloom de capacité bornée consulté avec le filtre : elles sont visibles immédiatement,
+ * sans reconstruction. Pendant un import complet, ou une fois le complément saturé, le suivi s'arrête et
+ * le filtre est dépassé : les vérifications passent par la base jusqu'à la reconstruction suivante.
+ *
+ * Les reconstructions ne suivent donc pas chaque import : elles sont demandées lorsque le filtre est
+ * dépassé, ou planifiées (breach.filter.rebuild-cron), et passent par un exécuteur d'un seul thread.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordFilter.class);
+
+    private final StolenPasswordTable stolenPasswordTable;
+    private final boolean enabled;
+    private final double falsePositiveRate;
+    private final Path snapshotPath;
+
+    private final TaskExecutor rebuildExecutor;
+    private final long incrementCapacity;
+
+    // Filtre, compléments et indicateurs remplacés d'un bloc : une vérification lit un état cohérent
+    private volatile State state;
+    // Tenu en lecture par les écrivains jusqu'au commit, en écriture au changement de complément
+    private final ReentrantReadWriteLock writes = new ReentrantReadWriteLock();
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    // Marqueur écrit à côté de l'instantané : des empreintes ont été importées depuis son écriture
+    private volatile boolean snapshotDirty;
+
+    // Compteurs servant à mesurer le taux de faux positifs observé
+    private final LongAdder filteredOut = new LongAdder();
+    private final LongAdder falsePositives = new LongAdder();
+    private final LongAdder confirmedHits = new LongAdder();
+
+    public StolenPasswordFilter(StolenPasswordTable stolenPasswordTable,
+            @Value("${breach.filter.enabled:true}") boolean enabled,
+            @Value("${breach.filter.false-positive-rate:0.001}") double falsePositiveRate,
+            @Value("${breach.filter.snapshot-path:}") String snapshotPath,
+            @Value("${breach.filter.increment-capacity:1000000}") long incrementCapacity,
+            @Qualifier("stolenPasswordFilterExecutor") TaskExecutor rebuildExecutor,
+            MeterRegistry meterRegistry) {
+        this.stolenPasswordTable = stolenPasswordTable;
+        this.incrementCapacity = incrementCapacity;
+        this.rebuildExecutor = rebuildExecutor;
+        this.enabled = enabled;
+        this.falsePositiveRate = falsePositiveRate;
+        this.snapshotPath = snapshotPath.isBlank() ? null : Path.of(snapshotPath);
+        this.state = new State(null, newIncrements(), null, true, false);
+
+        Gauge.builder("breach.filter.memory", this, StolenPasswordFilter::memoryBytes)
+                .baseUnit("bytes")
+                .description("Taille mémoire du filtre des mots de passe volés")
+                .register(meterRegistry);
+        Gauge.builder("breach.filter.false.positive.rate", this, StolenPasswordFilter::observedFalsePositiveRate)
+                .description("Taux de faux positifs observé (positifs du filtre infirmés par la base)")
+                .register(meterRegistry);
+        Gauge.builder("breach.filter.expected.false.positive.rate", this, StolenPasswordFilter::expectedFalsePositiveRate)
+                .description("Taux de faux positifs théorique pour le nombre d'empreintes chargées")
+                .register(meterRegistry);
+        Gauge.builder("breach.filter.recently.added", this, filter -> filter.state.increments.insertions())
+                .description("Empreintes importées depuis la construction du filtre, consultées à part")
+                .register(meterRegistry);
+        Gauge.builder("breach.filter.stale", this, filter -> filter.state.stale ? 1 : 0)
+                .description("1 si le filtre est dépassé et contourné jusqu'à sa reconstruction")
+                .register(meterRegistry);
+    }
+
+    private ConcurrentBloomFilter newIncrements() {
+        return new ConcurrentBloomFilter(incrementCapacity, falsePositiveRate);
+    }
+
+    // Le chargement complet de la table peut être long : il se fait hors du thread de démarrage
+    @EventListener(ApplicationReadyEvent.class)
+    public void buildOnStartup() {
+        if (!enabled) {
+            log.info("Filtre des mots de passe volés désactivé");
+            return;
+        }
+        if (snapshotPath != null && openLatestSnapshot()) {
+            return;
+        }
+        requestRebuild();
+    }
+
+    // Import incrémental : ses empreintes sont déjà dans le complément, seul un filtre dépassé est reconstruit
+    @EventListener
+    public void onStolenPasswordsUpdated(StolenPasswordsUpdatedEvent event) {
+        if (enabled && state.stale) {
+            requestRebuild();
+        }
+    }
+
+    // Reconstruction planifiée (désactivée par défaut), pour resserrer le filtre après beaucoup d'imports
+    @Scheduled(cron = "${breach.filter.rebuild-cron:-}")
+    public void scheduledRebuild() {
+        if (enabled) {
+            requestRebuild();
+        }
+    }
+
+    // Au plus une reconstruction en attente en plus de celle en cours
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    // Début d'une écriture dans la table : une reconstruction ne démarre pas entre l'ajout au filtre et le commit
+    public void beginWrite() {
+        writes.readLock().lock();
+    }
+
+    public void endWrite() {
+        writes.readLock().unlock();
+    }
+
+    // Empreinte insérée dans la table : reconnue par mightContain avant même son commit
+    public void add(byte[] sha1) {
+        State current = state;
+        if (!enabled || !current.tracking) {
+            return;
+        }
+        markSnapshotDirty();
+        // Appelé entre beginWrite et endWrite : le complément ne change pas avant le commit
+        current.increments.put(sha1);
+        if (current.increments.isSaturated()) {
+            stopTracking("complément saturé (" + incrementCapacity + " empreintes)");
+        }
+    }
+
+    // Import complet : le filtre sera reconstruit ensuite, suivre chaque empreinte est inutile
+    public void beginFullImport() {
+        if (enabled && state.tracking) {
+            stopTracking("import complet");
+        }
+    }
+
+    private void stopTracking(String reason) {
+        markSnapshotDirty();
+        synchronized (this) {
+            State current = state;
+            state = new State(current.filter, current.increments, current.previousIncrements, false, true);
+        }
+        log.info("Filtre des mots de passe volés dépassé ({}), vérifications par la base jusqu'à sa reconstruction", reason);
+    }
+
+    // Le complément n'est pas persisté : au redémarrage, un instantané marqué est reconstruit au lieu d'être ouvert
+    private void markSnapshotDirty() {
+        if (snapshotPath == null || snapshotDirty) {
+            return;
+        }
+        synchronized (this) {
+            if (!snapshotDirty) {
+                try {
+                    Path marker = dirtyMarker();
+                    if (marker.getParent() != null) {
+                        Files.createDirectories(marker.getParent());
+                    }
+                    Files.write(marker, new byte[0]);
+                } catch (IOException ex) {
+                    log.warn("Impossible de marquer l'instantané du filtre comme dépassé", ex);
+                }
+                snapshotDirty = true;
+            }
+        }
+    }
+
+    private Path dirtyMarker() {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + ".dirty");
+    }
+
+    void rebuild() {
+        // Les écritures en cours sont commitées avant le parcours : le nouveau filtre les contiendra.
+        // Les suivantes vont dans un nouveau complément ; l'ancien reste consulté jusqu'à l'échange.
+        writes.writeLock().lock();
+        try {
+            synchronized (this) {
+                State current = state;
+                state = new State(current.filter, newIncrements(), current.increments, true, current.stale);
+            }
+        } finally {
+            writes.writeLock().unlock();
+        }
+        try {
+            if (snapshotPath != null) {
+                writeSnapshot();
+            } else {
+                buildBloomFilter();
+            }
+        } catch (Exception ex) {
+            // Le complément du filtre courant sera remplacé à la prochaine tentative : la base prend le relais
+            synchronized (this) {
+                State current = state;
+                state = new State(current.filter, current.increments, current.previousIncrements, current.tracking, true);
+            }
+            log.error("Impossible de construire le filtre, les vérifications passeront par la base", ex);
+        }
+    }
+
+    private void buildBloomFilter() {
+        long start = System.nanoTime();
+        BloomFilter candidate = BloomFilter.create(stolenPasswordTable.count(), falsePositiveRate);
+        long loaded = stolenPasswordTable.forEach(candidate::put);
+
+        swap(candidate);
+        log.info("Filtre de Bloom chargé : {} empreintes, {} Mo, {} fonctions de hachage, en {} ms",
+                loaded, candidate.memoryBytes() >> 20, candidate.hashCount(),
+                (System.nanoTime() - start) / 1_000_000);
+    }
+
+    // Écrit la version suivante à côté, la renomme atomiquement puis la substitue à l'instantané courant
+    private void writeSnapshot() throws Exception {
+        long start = System.nanoTime();
+        long version = latestSnapshotVersion() + 1;
+        Path target = snapshotFile(version);
+        Path tmp = target.resolveSibling(target.getFileName() + ".tmp");
+        if (target.getParent() != null) {
+            Files.createDirectories(target.getParent());
+        }
+        try {
+            XorFilterSnapshot.write(tmp, version, stolenPasswordTable::forEachOrdered);
+            Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+
+        XorFilterSnapshot snapshot = XorFilterSnapshot.open(target);
+        swap(snapshot);
+        clearSnapshotDirty();
+        log.info("Instantané {} du filtre écrit : {} empreintes, {} Mo, en {} ms", version, snapshot.size(),
+                snapshot.memoryBytes() >> 20, (System.nanoTime() - start) / 1_000_000);
+        deleteSnapshotsBefore(version);
+    }
+
+    // Le nouveau filtre couvre l'ancien complément ; il reste dépassé si le suivi s'est arrêté pendant sa construction
+    private synchronized void swap(DigestFilter candidate) {
+        State current = state;
+        state = new State(candidate, current.increments, null, current.tracking, !current.tracking);
+    }
+
+    // Aucune écriture en cours et rien d'importé depuis le début de la construction : l'instantané est à jour
+    private void clearSnapshotDirty() throws IOException {
+        writes.writeLock().lock();
+        try {
+            State current = state;
+            if (current.tracking && current.increments.insertions() == 0) {
+                Files.deleteIfExists(dirtyMarker());
+                snapshotDirty = false;
+            }
+        } finally {
+            writes.writeLock().unlock();
+        }
+    }
+
+    private boolean openLatestSnapshot() {
+        long version = latestSnapshotVersion();
+        if (version == 0) {
+            log.info("Aucun instantané du filtre dans {}, construction depuis la table", snapshotPath);
+            return false;
+        }
+        if (Files.exists(dirtyMarker())) {
+            snapshotDirty = true;
+            log.info("Instantané {} du filtre antérieur à des imports, reconstruction depuis la table", version);
+            return false;
+        }
+        try {
+            XorFilterSnapshot snapshot = XorFilterSnapshot.open(snapshotFile(version));
+            swap(snapshot);
+            log.info("Instantané {} du filtre ouvert : {} empreintes", version, snapshot.size());
+            return true;
+        } catch (IOException ex) {
+            log.warn("Instantané {} du filtre illisible, reconstruction depuis la table", version, ex);
+            return false;
+        }
+    }
+
+    private Path snapshotFile(long version) {
+        return snapshotPath.resolveSibling(snapshotPath.getFileName() + "." + version);
+    }
+
+    // Plus grande version présente à côté de snapshotPath, 0 s'il n'y en a aucune
+    private long latestSnapshotVersion() {
+        long latest = 0;
+        for (long version : snapshotVersions()) {
+            latest = Math.max(latest, version);
+        }
+        return latest;
+    }
+
+    private List<Long> snapshotVersions() {
+        List<Long> versions = new ArrayList<>();
+        Path directory = snapshotPath.toAbsolutePath().getParent();
+        if (!Files.isDirectory(directory)) {
+            return versions;
+        }
+        String prefix = snapshotPath.getFileName() + ".";
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.startsWith(prefix) && name.substring(prefix.length()).matches("\\d{1,18}"))
+                    .forEach(name -> versions.add(Long.parseLong(name.substring(prefix.length()))));
+        } catch (IOException ex) {
+            log.warn("Impossible de lister les instantanés du filtre dans {}", directory, ex);
+        }
+        return versions;
+    }
+
+    // Les lecteurs en cours gardent leur projection ; sous Windows la suppression d'un fichier projeté peut échouer
+    private void deleteSnapshotsBefore(long version) {
+        for (long old : snapshotVersions()) {
+            if (old < version) {
+                try {
+                    Files.deleteIfExists(snapshotFile(old));
+                } catch (IOException ex) {
+                    log.warn("Impossible de supprimer l'ancien instantané {} du filtre", old, ex);
+                }
+            }
+        }
+    }
+
+    // false : l'empreinte n'est certainement pas dans la table ; true : il faut interroger la base
+    public boolean mightContain(byte[] sha1) {
+        State current = state;
+        if (current.filter == null || current.stale) {
+            return true;
+        }
+        ConcurrentBloomFilter previous = current.previousIncrements;
+        if (current.filter.mightContain(sha1) || current.increments.mightContain(sha1)
+                || (previous != null && previous.mightContain(sha1))) {
+            return true;
+        }
+        filteredOut.increment();
+        return false;
+    }
+
+    // Résultat de la base pour une empreinte que le filtre a laissé passer
+    public void recordDatabaseVerdict(boolean stolen) {
+        if (state.filter == null) {
+            return;
+        }
+        if (stolen) {
+            confirmedHits.increment();
+        } else {
+            falsePositives.increment();
+        }
+    }
+
+    public boolean isReady() {
+        return state.filter != null;
+    }
+
+    public long memoryBytes() {
+        DigestFilter current = state.filter;
+        return current == null ? 0 : current.memoryBytes();
+    }
+
+    public double observedFalsePositiveRate() {
+        long fp = falsePositives.sum();
+        long negatives = fp + filteredOut.sum();
+        return negatives == 0 ? 0.0 : (double) fp / negatives;
+    }
+
+    public double expectedFalsePositiveRate() {
+        DigestFilter current = state.filter;
+        return current == null ? 0.0 : current.expectedFalsePositiveRate();
+    }
+
+    // État immuable du filtre ; chaque changement en publie un nouveau
+    private static final class State {
+        final DigestFilter filter;
+        // Empreintes insérées depuis le début de la construction du filtre courant
+        final ConcurrentBloomFilter increments;
+        // Complément du filtre courant, consulté jusqu'à ce que le filtre en construction le remplace
+        final ConcurrentBloomFilter previousIncrements;
+        // false pendant un import complet ou une fois le complément saturé : les empreintes ne sont plus suivies
+        final boolean tracking;
+        // Le filtre ignore des empreintes de la table : toutes les vérifications passent par la base
+        final boolean stale;
+
+        State(DigestFilter filter, ConcurrentBloomFilter increments, ConcurrentBloomFilter previousIncrements,
+                boolean tracking, boolean stale) {
+            this.filter = filter;
+            this.increments = increments;
+            this.previousIncrements = previousIncrements;
+            this.tracking = tracking;
+            this.stale = stale;
+        }
+    }
+}
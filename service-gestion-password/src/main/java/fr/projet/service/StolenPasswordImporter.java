@@ -0,0 +1,357 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.nio.channels.ClosedByInterruptException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Service;
+
+/**
+ * Import parallèle et à mémoire bornée du corpus pwnedpasswords.
+ *
+ * Plusieurs lecteurs analysent des fichiers différents en parallèle et remplissent des lots
+ * pris dans un réservoir de taille fixe ; les lots pleins passent par une file bornée vers
+ * les threads écrivains, qui les rendent au réservoir après écriture. La mémoire utilisée
+ * dépend du nombre de lots, pas de la taille du corpus.
+ *
+ * L'import est reprenable : la position de chaque fichier jusqu'à laquelle tous les lots
+ * ont été écrits est enregistrée dans {@link ImportStateStore}. Un nouvel import saute les
+ * fichiers terminés et reprend les autres à cette position ; les lots rejoués après une
+ * interruption sont sans effet grâce au dédoublonnage de l'écrivain.
+ *
+ * L'import est aussi incrémental : l'empreinte de l'ensemble des hachés d'un fichier est calculée
+ * pendant sa lecture et enregistrée avec son point de reprise. Une nouvelle version d'un fichier déjà
+ * importé (taille ou date différente) est d'abord relue sans écriture pour calculer son empreinte ;
+ * identique à celle de la version importée, le fichier est marqué terminé sans rien écrire ;
+ * sinon il est réimporté et l'écrivain n'insère que les hachés nouveaux (et relève les compteurs
+ * d'occurrences des autres). Les compteurs d'un fichier sans nouveau haché ne sont pas relus.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordImporter.class);
+
+    // Marqueur de fin envoyé à chaque écrivain
+    private static final DigestBatch END = new DigestBatch(0);
+
+    private final StolenPasswordWriter writer;
+    private final ImportStateStore stateStore;
+    private final int readerThreads;
+    private final int writerThreads;
+    private final int batchSize;
+    private final int queueCapacity;
+
+    public StolenPasswordImporter(StolenPasswordWriter writer, ImportStateStore stateStore,
+            @Value("${breach.import.reader-threads:0}") int readerThreads,
+            @Value("${breach.import.writer-threads:0}") int writerThreads,
+            @Value("${breach.import.batch-size:10000}") int batchSize,
+            @Value("${breach.import.queue-capacity:16}") int queueCapacity) {
+        int cores = Runtime.getRuntime().availableProcessors();
+        this.writer = writer;
+        this.stateStore = stateStore;
+        // 0 : dimensionnement automatique selon le nombre de cœurs
+        this.readerThreads = readerThreads > 0 ? readerThreads : Math.max(1, cores / 2);
+        this.writerThreads = writerThreads > 0 ? writerThreads : cores;
+        this.batchSize = batchSize;
+        this.queueCapacity = queueCapacity;
+    }
+
+    // Retourne le nombre d'empreintes nouvelles
+    public long importFiles(List<Path> files) throws InterruptedException {
+        return importFiles(files, new ImportProgress());
+    }
+
+    /**
+     * Importe files en publiant l'avancement dans progress. L'interruption du thread appelant
+     * arrête l'import ; les points de reprise restent cohérents.
+     */
+    public long importFiles(List<Path> files, ImportProgress progress) throws InterruptedException {
+        writer.prepare();
+        stateStore.prepare();
+        Map<Path, FileProgress> remaining = new HashMap<>();
+        long bytesToImport = 0;
+        for (Path path : files) {
+            try {
+                FileProgress file = new FileProgress(path, progress);
+                if (!file.isComplete()) {
+                    remaining.put(path, file);
+                    bytesToImport += file.size - file.resumeOffset;
+                }
+            } catch (IOException ex) {
+                progress.error();
+                log.error("Problème lors de la lecture du fichier " + path.getFileName(), ex);
+            }
+        }
+        if (!remaining.isEmpty() && remaining.values().stream().noneMatch(file -> file.known)) {
+            // Premier import : aucune empreinte à distinguer de celles déjà en place
+            writer.beginFullImport();
+        }
+        progress.start(files.size() - remaining.size(), remaining.size(), bytesToImport);
+        if (remaining.isEmpty()) {
+            progress.finish();
+            log.info("Import : les {} fichiers sont déjà importés", files.size());
+            return 0;
+        }
+        int readers = Math.min(readerThreads, remaining.size());
+        int batches = queueCapacity + readers + writerThreads;
+
+        BlockingQueue<DigestBatch> free = new ArrayBlockingQueue<>(batches);
+        BlockingQueue<DigestBatch> full = new ArrayBlockingQueue<>(batches + writerThreads);
+        for (int i = 0; i < batches; i++) {
+            free.add(new DigestBatch(batchSize));
+        }
+        Queue<FileProgress> pending = new ConcurrentLinkedQueue<>();
+        files.stream().map(remaining::get).filter(Objects::nonNull).forEach(pending::add);
+
+        PwnedPasswordsReader.BatchSink sink = new PwnedPasswordsReader.BatchSink() {
+            @Override
+            public DigestBatch acquire() throws InterruptedException {
+                return free.take();
+            }
+
+            @Override
+            public void publish(DigestBatch batch) throws InterruptedException {
+                remaining.get(batch.source()).accumulate(batch);
+                full.put(batch);
+            }
+
+            @Override
+            public void release(DigestBatch batch) {
+                free.add(batch);
+            }
+        };
+
+        ExecutorService pool = Executors.newFixedThreadPool(readers + writerThreads,
+                new CustomizableThreadFactory("stolen-import-"));
+        try {
+            List<Future<?>> writerTasks = new ArrayList<>();
+            for (int i = 0; i < writerThreads; i++) {
+                writerTasks.add(pool.submit(() -> {
+                    while (true) {
+                        DigestBatch batch = full.take();
+                        if (batch == END) {
+                            return null;
+                        }
+                        try {
+                            int inserted = batch.size() > 0 ? writer.write(batch) : 0;
+                            progress.batchDone(batch.endOffset() - batch.startOffset(), batch.size(), inserted);
+                            remaining.get(batch.source()).completed(batch.startOffset(), batch.endOffset());
+                        } catch (InterruptedException ex) {
+                            // Import annulé pendant l'écriture : le lot sera rejoué à la reprise
+                            return null;
+                        } catch (Exception ex) {
+                            progress.error();
+                            log.error("Problème lors de l'insertion d'un lot de " + batch.source(), ex);
+                        } finally {
+                            free.add(batch);
+                        }
+                    }
+                }));
+            }
+
+            List<Future<?>> readerTasks = new ArrayList<>();
+            for (int i = 0; i < readers; i++) {
+                readerTasks.add(pool.submit(() -> {
+                    PwnedPasswordsReader reader = new PwnedPasswordsReader();
+                    DigestBatch scratch = new DigestBatch(batchSize);
+                    FileProgress file;
+                    while ((file = pending.poll()) != null) {
+                        try {
+                            // Relecture préalable seulement s'il y a une version importée à comparer
+                            if (file.digestSet == null && file.previousDigestSet != null) {
+                                file.digestSet = digestSet(reader, file.path, scratch);
+                                if (file.digestSet.equals(file.previousDigestSet)) {
+                                    file.unchanged();
+                                    continue;
+                                }
+                            }
+                            progress.malformedLines(reader.read(file.path, file.resumeOffset, sink));
+                            file.readDone();
+                        } catch (ClosedByInterruptException | InterruptedException ex) {
+                            // Import annulé pendant la lecture
+                            return null;
+                        } catch (IOException ex) {
+                            progress.error();
+                            log.error("Problème lors de la lecture du fichier " + file.path.getFileName(), ex);
+                        }
+                    }
+                    return null;
+                }));
+            }
+
+            awaitAll(readerTasks);
+            for (int i = 0; i < writerThreads; i++) {
+                full.put(END);
+            }
+            awaitAll(writerTasks);
+        } finally {
+            pool.shutdownNow();
+            progress.finish();
+        }
+
+        log.info("Import terminé : {} fichiers sur {} à traiter ({} sans nouveau haché), {} empreintes dont {} nouvelles "
+                + "en {} s ({} lignes/s), {} lignes ignorées, {} erreurs",
+                remaining.size(), files.size(), progress.getFilesUnchanged(), progress.getRows(), progress.getInsertedRows(),
+                progress.getElapsedMillis() / 1000, progress.getRowsPerSecond(), progress.getMalformedLines(),
+                progress.getErrors());
+        return progress.getInsertedRows();
+    }
+
+    /**
+     * Avancement d'un fichier : les lots se terminent dans le désordre selon les écrivains,
+     * seule la position précédant le premier lot non écrit est enregistrée.
+     */
+    private final class FileProgress {
+
+        private final Path path;
+        private final String name;
+        private final long size;
+        private final long lastModified;
+        private final long resumeOffset;
+        private final ImportProgress progress;
+        // Déjà rencontré par un import précédent (terminé ou non)
+        private final boolean known;
+        // Empreinte des hachés de la dernière version entièrement importée, si le fichier a changé depuis
+        private final Long previousDigestSet;
+        // Empreinte des hachés de cette version : relue avant l'import, ou calculée pendant sa lecture
+        private volatile Long digestSet;
+        // Somme en cours, lorsque la lecture part du début du fichier sans empreinte connue (seul son lecteur y écrit)
+        private final boolean computingDigest;
+        private long digestSum;
+        // Lots écrits au-delà de la position enregistrée : début -> fin
+        private final TreeMap<Long, Long> pendingRanges = new TreeMap<>();
+        private long committedOffset;
+
+        FileProgress(Path path, ImportProgress progress) throws IOException {
+            this.path = path;
+            this.progress = progress;
+            this.name = path.getFileName().toString();
+            this.size = Files.size(path);
+            this.lastModified = Files.getLastModifiedTime(path).toMillis();
+            ImportStateStore.FileState previous = stateStore.find(name);
+            this.known = previous != null;
+            if (previous != null && previous.isSameVersion(size, lastModified)) {
+                this.resumeOffset = Math.min(previous.getCommittedOffset(), size);
+                this.digestSet = previous.getDigestSet();
+                this.previousDigestSet = null;
+            } else {
+                this.resumeOffset = 0;
+                this.previousDigestSet = previous != null && previous.isComplete() ? previous.getDigestSet() : null;
+            }
+            this.committedOffset = resumeOffset;
+            // Une lecture reprise en cours de fichier ne voit pas tous les hachés : empreinte inconnue
+            this.computingDigest = resumeOffset == 0 && previousDigestSet == null && digestSet == null;
+            if (resumeOffset > 0 && resumeOffset < size) {
+                log.info("Reprise de {} à la position {} sur {}", name, resumeOffset, size);
+            }
+        }
+
+        boolean isComplete() {
+            return committedOffset == size;
+        }
+
+        synchronized void completed(long startOffset, long endOffset) {
+            pendingRanges.put(startOffset, endOffset);
+            long offset = committedOffset;
+            Long next;
+            while ((next = pendingRanges.remove(offset)) != null) {
+                offset = next;
+            }
+            if (offset != committedOffset) {
+                committedOffset = offset;
+                stateStore.save(name, new ImportStateStore.FileState(size, lastModified, offset, digestSet));
+                if (isComplete()) {
+                    progress.fileDone();
+                }
+            }
+        }
+
+        void accumulate(DigestBatch batch) {
+            if (computingDigest) {
+                digestSum += sumOfDigests(batch);
+            }
+        }
+
+        // Le dernier lot peut avoir été écrit avant la fin de la lecture : l'état terminé est réenregistré avec l'empreinte
+        synchronized void readDone() {
+            if (computingDigest) {
+                digestSet = digestSum;
+                if (isComplete()) {
+                    stateStore.save(name, new ImportStateStore.FileState(size, lastModified, committedOffset, digestSet));
+                }
+            }
+        }
+
+        // Mêmes hachés que la version déjà importée : seule la version du fichier est enregistrée
+        synchronized void unchanged() {
+            committedOffset = size;
+            stateStore.save(name, new ImportStateStore.FileState(size, lastModified, size, digestSet));
+            progress.fileUnchanged(size);
+            log.debug("{} : nouvelle version sans nouveau haché", name);
+        }
+    }
+
+    /**
+     * Empreinte de l'ensemble des hachés de file : somme (modulo 2^64) de leurs 64 premiers bits,
+     * insensible à l'ordre des lignes et aux compteurs d'occurrences qui changent à chaque publication.
+     */
+    private static long digestSet(PwnedPasswordsReader reader, Path file, DigestBatch scratch)
+            throws IOException, InterruptedException {
+        long[] sum = new long[1];
+        reader.read(file, 0, new PwnedPasswordsReader.BatchSink() {
+            @Override
+            public DigestBatch acquire() {
+                return scratch;
+            }
+
+            @Override
+            public void publish(DigestBatch batch) {
+                sum[0] += sumOfDigests(batch);
+            }
+
+            @Override
+            public void release(DigestBatch batch) {
+            }
+        });
+        return sum[0];
+    }
+
+    private static long sumOfDigests(DigestBatch batch) {
+        long sum = 0;
+        for (int i = 0; i < batch.size(); i++) {
+            sum += Sha1Digests.bytesLong(batch.digests(), i * Sha1Digests.BYTES);
+        }
+        return sum;
+    }
+
+    private static void awaitAll(List<Future<?>> tasks) throws InterruptedException {
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (ExecutionException ex) {
+                log.error("Erreur inattendue pendant l'import", ex.getCause());
+            }
+        }
+    }
+}
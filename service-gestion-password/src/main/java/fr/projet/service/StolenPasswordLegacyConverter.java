@@ -0,0 +1,100 @@
+package fr.projet.service;
+
+import java.util.List;
+import java.util.regex.Pattern;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Copie dans stolen_password des empreintes hexadécimales de l'ancienne table (stolen_password_legacy),
+ * renommée par {@link StolenPasswordTable#ensureSchema()}.
+ *
+ * L'ancienne table est relue par lots dans l'ordre de sa clé, chaque lot écrit par
+ * {@link StolenPasswordWriter} (qui l'envoie au fragment propriétaire), puis la dernière empreinte
+ * du lot est notée dans stolen_password_conversion : une copie interrompue reprend au lot suivant,
+ * et un lot écrit deux fois ne crée pas de doublon.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordLegacyConverter {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordLegacyConverter.class);
+
+    // Majuscules et minuscules : les deux formats importés avant la conversion
+    private static final Pattern HEX_DIGEST = Pattern.compile("[0-9A-Fa-f]{40}");
+
+    private final StolenPasswordTable stolenPasswordTable;
+    private final StolenPasswordWriter writer;
+    private final int batchSize;
+
+    public StolenPasswordLegacyConverter(StolenPasswordTable stolenPasswordTable, StolenPasswordWriter writer,
+            @Value("${breach.import.batch-size:10000}") int batchSize) {
+        this.stolenPasswordTable = stolenPasswordTable;
+        this.writer = writer;
+        this.batchSize = batchSize;
+    }
+
+    // Retourne le nombre d'empreintes nouvelles dans stolen_password
+    public long convert(ImportProgress progress) throws InterruptedException {
+        List<Integer> shards = stolenPasswordTable.pendingLegacyShards();
+        progress.start(0, shards.size(), 0);
+        try {
+            if (!shards.isEmpty()) {
+                writer.prepare();
+                // Copie en masse : le filtre est reconstruit ensuite plutôt que de suivre chaque empreinte
+                writer.beginFullImport();
+            }
+            for (int shard : shards) {
+                convert(shard, progress);
+            }
+        } finally {
+            progress.finish();
+        }
+        log.info("Copie de {} terminée : {} empreintes dont {} nouvelles",
+                StolenPasswordTable.LEGACY_TABLE, progress.getRows(), progress.getInsertedRows());
+        return progress.getInsertedRows();
+    }
+
+    private void convert(int shard, ImportProgress progress) throws InterruptedException {
+        DigestBatch batch = new DigestBatch(batchSize);
+        String cursor = stolenPasswordTable.legacyCursor(shard);
+        List<String> hashes;
+        while (!(hashes = stolenPasswordTable.legacyBatch(shard, cursor, batchSize)).isEmpty()) {
+            if (Thread.currentThread().isInterrupted()) {
+                throw new InterruptedException();
+            }
+            batch.reset(null, 0);
+            for (String hash : hashes) {
+                if (!HEX_DIGEST.matcher(hash).matches()) {
+                    progress.malformedLines(1);
+                    continue;
+                }
+                Sha1Digests.parseHex(hash, 0, batch.digests(), batch.nextSlot());
+                batch.commit(0, 0);
+            }
+            write(batch, progress);
+            cursor = hashes.get(hashes.size() - 1);
+            stolenPasswordTable.saveLegacyCursor(shard, cursor, hashes.size());
+        }
+        stolenPasswordTable.finishLegacy(shard);
+        progress.fileDone();
+        log.info("Ancienne table du fragment {} copiée ; {} peut être supprimée", shard, StolenPasswordTable.LEGACY_TABLE);
+    }
+
+    private void write(DigestBatch batch, ImportProgress progress) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            progress.batchDone(0, batch.size(), writer.write(batch));
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Échec de l'écriture d'un lot de " + StolenPasswordTable.LEGACY_TABLE, ex);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package fr.projet.service;
+
+import java.util.List;
+
+/**
+ * Source de vérité des mots de passe volés, interrogée avec l'empreinte SHA-1 brute (20 octets).
+ *
+ * L'implémentation est choisie par la propriété breach.backend :
+ * jdbc (table stolen_password, par défaut) ou mapped (index binaire trié projeté en mémoire).
+ */
+public interface StolenPasswordLookup {
+
+    boolean isStolen(byte[] sha1);
+
+    /**
+     * Nombre d'occurrences de l'empreinte dans les fuites, obtenu par la même recherche que sa présence :
+     * 0 si elle n'est pas volée, au moins 1 sinon (1 lorsque le corpus importé ne donnait pas de compteur).
+     */
+    int occurrences(byte[] sha1);
+
+    // Verdicts dans l'ordre de sha1s ; les implémentations distantes les résolvent en une seule requête
+    default boolean[] areStolen(List<byte[]> sha1s) {
+        boolean[] stolen = new boolean[sha1s.size()];
+        for (int i = 0; i < stolen.length; i++) {
+            stolen[i] = isStolen(sha1s.get(i));
+        }
+        return stolen;
+    }
+
+    // Suffixes (35 caractères hexadécimaux majuscules) des empreintes volées du préfixe de 20 bits, triés
+    List<String> suffixes(int prefix);
+}
@@ -0,0 +1,100 @@
+package fr.projet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Rééquilibrage des fragments de stolen_password après l'ajout d'une base ou la modification
+ * des intervalles (breach.shards).
+ *
+ * Chaque partition non vide hors de l'intervalle de son fragment est relue en flux, écrite
+ * par {@link StolenPasswordWriter} (qui l'envoie au fragment propriétaire), puis vidée.
+ * Jusqu'à ce moment, les recherches la consultent aussi à son ancien emplacement : le service
+ * reste correct pendant le déplacement, et un rééquilibrage interrompu peut être relancé.
+ */
+@Service
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordRebalancer {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordRebalancer.class);
+
+    private final StolenPasswordTable stolenPasswordTable;
+    private final StolenPasswordShardRouter router;
+    private final StolenPasswordWriter writer;
+    private final int batchSize;
+
+    public StolenPasswordRebalancer(StolenPasswordTable stolenPasswordTable, StolenPasswordShardRouter router,
+            StolenPasswordWriter writer, @Value("${breach.import.batch-size:10000}") int batchSize) {
+        this.stolenPasswordTable = stolenPasswordTable;
+        this.router = router;
+        this.writer = writer;
+        this.batchSize = batchSize;
+    }
+
+    // Retourne le nombre d'empreintes nouvelles pour leur fragment propriétaire
+    public long rebalance(ImportProgress progress) throws InterruptedException {
+        writer.prepare();
+        stolenPasswordTable.findStrayPartitions();
+        List<int[]> moves = new ArrayList<>();
+        for (int b = 0; b < 256; b++) {
+            for (int shard : router.holders(b)) {
+                if (shard != router.ownerOf(b)) {
+                    moves.add(new int[] { shard, b });
+                }
+            }
+        }
+        progress.start(0, moves.size(), 0);
+        try {
+            for (int[] move : moves) {
+                if (Thread.currentThread().isInterrupted()) {
+                    throw new InterruptedException();
+                }
+                movePartition(move[0], move[1], progress);
+            }
+        } finally {
+            progress.finish();
+        }
+        log.info("Rééquilibrage terminé : {} partitions déplacées, {} empreintes dont {} nouvelles",
+                moves.size(), progress.getRows(), progress.getInsertedRows());
+        return progress.getInsertedRows();
+    }
+
+    private void movePartition(int shard, int leadingByte, ImportProgress progress) {
+        DigestBatch batch = new DigestBatch(batchSize);
+        batch.reset(null, 0);
+        stolenPasswordTable.forEachInPartition(shard, leadingByte, (sha1, occurrences) -> {
+            System.arraycopy(sha1, 0, batch.digests(), batch.nextSlot(), Sha1Digests.BYTES);
+            batch.commit(0, occurrences);
+            if (batch.isFull()) {
+                flush(batch, progress);
+            }
+        });
+        flush(batch, progress);
+        // Toutes les lignes sont chez le propriétaire : la partition peut être vidée
+        stolenPasswordTable.truncatePartition(shard, leadingByte);
+        router.removeStray(leadingByte, shard);
+        progress.fileDone();
+        log.info("Partition {} déplacée du fragment {} vers le fragment {}",
+                String.format("%02x", leadingByte), shard, router.ownerOf(leadingByte));
+    }
+
+    private void flush(DigestBatch batch, ImportProgress progress) {
+        if (batch.size() == 0) {
+            return;
+        }
+        try {
+            progress.batchDone(0, batch.size(), writer.write(batch));
+        } catch (RuntimeException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            throw new IllegalStateException("Échec de l'écriture d'un lot déplacé", ex);
+        }
+        batch.reset(null, 0);
+    }
+}
@@ -0,0 +1,31 @@
+package fr.projet.service;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Contrôle périodique des répliques de la base des mots de passe volés : une réplique injoignable
+ * est écartée des vérifications, et réintégrée dès qu'elle répond à nouveau.
+ */
+@Component
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordReplicaMonitor {
+
+    private final StolenPasswordShardRouter router;
+
+    public StolenPasswordReplicaMonitor(StolenPasswordShardRouter router, MeterRegistry meterRegistry) {
+        this.router = router;
+        Gauge.builder("breach.replicas.healthy", router, StolenPasswordShardRouter::healthyReplicaCount)
+                .description("Répliques de la base des mots de passe volés utilisées par les vérifications")
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${breach.replicas.health-check-interval-ms:5000}")
+    public void checkReplicas() {
+        router.checkReplicas();
+    }
+}
@@ -0,0 +1,226 @@
+package fr.projet.service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import javax.sql.DataSource;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Répartition de stolen_password entre plusieurs bases PostgreSQL selon l'octet de tête de l'empreinte.
+ *
+ * Chaque fragment possède un intervalle contigu d'octets de tête, qui coïncide avec les partitions
+ * de la table : [premier octet du fragment, premier octet du suivant[. Toutes les bases ont les
+ * 256 partitions, mais seules celles de leur intervalle sont censées contenir des lignes.
+ *
+ * Après l'ajout d'un fragment, les partitions qui ont changé de propriétaire restent sur
+ * leur ancienne base jusqu'au rééquilibrage : elles y sont notées comme égarées et les
+ * recherches les consultent en plus du propriétaire.
+ *
+ * Chaque fragment peut avoir des répliques en lecture : les vérifications y sont réparties
+ * à tour de rôle parmi celles en bonne santé, et passent par le primaire s'il n'y en a aucune.
+ * Les écritures, l'import et la construction des filtres utilisent toujours le primaire.
+ */
+public final class StolenPasswordShardRouter implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordShardRouter.class);
+
+    private static final int LEADING_BYTES = 256;
+
+    private final List<JdbcTemplate> shards;
+    private final List<List<JdbcTemplate>> replicas;
+    // Par fragment : état de chaque réplique (1 = en bonne santé) et prochaine réplique à utiliser
+    private final List<AtomicIntegerArray> healthyReplicas = new ArrayList<>();
+    private final List<AtomicInteger> nextReplica = new ArrayList<>();
+    private final int[] firstBytes;
+    private final int[] owners = new int[LEADING_BYTES];
+    // Octet de tête -> fragments (autres que le propriétaire) qui ont encore des lignes de cette partition
+    private final Map<Integer, Set<Integer>> strays = new ConcurrentHashMap<>();
+
+    /**
+     * @param firstBytes premier octet de tête de chaque fragment, strictement croissants à partir de 0
+     */
+    public StolenPasswordShardRouter(List<Integer> firstBytes, List<JdbcTemplate> shards) {
+        this(firstBytes, shards, shards.stream().map(shard -> List.<JdbcTemplate>of()).toList());
+    }
+
+    /**
+     * @param replicas répliques en lecture de chaque fragment (listes éventuellement vides)
+     */
+    public StolenPasswordShardRouter(List<Integer> firstBytes, List<JdbcTemplate> shards, List<List<JdbcTemplate>> replicas) {
+        if (shards.isEmpty() || firstBytes.size() != shards.size() || firstBytes.get(0) != 0) {
+            throw new IllegalArgumentException("Le premier fragment doit commencer à l'octet 00");
+        }
+        if (replicas.size() != shards.size()) {
+            throw new IllegalArgumentException("Une liste de répliques est attendue par fragment");
+        }
+        this.shards = List.copyOf(shards);
+        this.replicas = replicas.stream().map(List::copyOf).toList();
+        for (List<JdbcTemplate> shardReplicas : this.replicas) {
+            AtomicIntegerArray healthy = new AtomicIntegerArray(shardReplicas.size());
+            for (int i = 0; i < shardReplicas.size(); i++) {
+                healthy.set(i, 1);
+            }
+            healthyReplicas.add(healthy);
+            nextReplica.add(new AtomicInteger());
+        }
+        this.firstBytes = new int[firstBytes.size()];
+        for (int i = 0; i < this.firstBytes.length; i++) {
+            int first = firstBytes.get(i);
+            if (first >= LEADING_BYTES || (i > 0 && first <= this.firstBytes[i - 1])) {
+                throw new IllegalArgumentException("Intervalles de fragments invalides : " + firstBytes);
+            }
+            this.firstBytes[i] = first;
+        }
+        for (int b = 0, shard = 0; b < LEADING_BYTES; b++) {
+            while (shard + 1 < this.firstBytes.length && this.firstBytes[shard + 1] == b) {
+                shard++;
+            }
+            owners[b] = shard;
+        }
+    }
+
+    // Fragment unique, sans routage
+    public static StolenPasswordShardRouter single(JdbcTemplate jdbcTemplate) {
+        return new StolenPasswordShardRouter(List.of(0), List.of(jdbcTemplate));
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public JdbcTemplate shard(int index) {
+        return shards.get(index);
+    }
+
+    // Réplique en bonne santé du fragment, à tour de rôle ; null s'il faut interroger le primaire
+    public JdbcTemplate replica(int shard) {
+        List<JdbcTemplate> shardReplicas = replicas.get(shard);
+        AtomicIntegerArray healthy = healthyReplicas.get(shard);
+        int count = shardReplicas.size();
+        int start = count == 0 ? 0 : Math.floorMod(nextReplica.get(shard).getAndIncrement(), count);
+        for (int i = 0; i < count; i++) {
+            int candidate = (start + i) % count;
+            if (healthy.get(candidate) == 1) {
+                return shardReplicas.get(candidate);
+            }
+        }
+        return null;
+    }
+
+    // Réplique en échec : écartée jusqu'au prochain contrôle réussi
+    public void replicaFailed(int shard, JdbcTemplate replica) {
+        int index = replicas.get(shard).indexOf(replica);
+        if (index >= 0 && healthyReplicas.get(shard).getAndSet(index, 0) == 1) {
+            log.warn("Réplique {} du fragment {} écartée", index, shard);
+        }
+    }
+
+    /**
+     * Contrôle de toutes les répliques (SELECT 1) ; une réplique rétablie est réintégrée.
+     * Retourne le nombre de répliques en bonne santé.
+     */
+    public int checkReplicas() {
+        int healthyCount = 0;
+        for (int shard = 0; shard < replicas.size(); shard++) {
+            List<JdbcTemplate> shardReplicas = replicas.get(shard);
+            for (int i = 0; i < shardReplicas.size(); i++) {
+                boolean up;
+                try {
+                    shardReplicas.get(i).queryForObject("SELECT 1", Integer.class);
+                    up = true;
+                } catch (RuntimeException ex) {
+                    up = false;
+                }
+                int previous = healthyReplicas.get(shard).getAndSet(i, up ? 1 : 0);
+                if (up && previous == 0) {
+                    log.info("Réplique {} du fragment {} rétablie", i, shard);
+                } else if (!up && previous == 1) {
+                    log.warn("Réplique {} du fragment {} injoignable", i, shard);
+                }
+                healthyCount += up ? 1 : 0;
+            }
+        }
+        return healthyCount;
+    }
+
+    public int healthyReplicaCount() {
+        int count = 0;
+        for (AtomicIntegerArray healthy : healthyReplicas) {
+            for (int i = 0; i < healthy.length(); i++) {
+                count += healthy.get(i);
+            }
+        }
+        return count;
+    }
+
+    public int ownerOf(int leadingByte) {
+        return owners[leadingByte];
+    }
+
+    public int ownerOf(byte[] sha1) {
+        return owners[sha1[0] & 0xFF];
+    }
+
+    public JdbcTemplate forDigest(byte[] sha1) {
+        return shards.get(ownerOf(sha1));
+    }
+
+    // Premier octet de tête du fragment, et premier octet du suivant (256 pour le dernier)
+    public int firstByte(int shard) {
+        return firstBytes[shard];
+    }
+
+    public int endByte(int shard) {
+        return shard + 1 < firstBytes.length ? firstBytes[shard + 1] : LEADING_BYTES;
+    }
+
+    // Fragments à interroger pour cet octet de tête : le propriétaire, puis ceux où la partition est égarée
+    public List<Integer> holders(int leadingByte) {
+        Set<Integer> stray = strays.get(leadingByte);
+        if (stray == null || stray.isEmpty()) {
+            return List.of(owners[leadingByte]);
+        }
+        List<Integer> holders = new ArrayList<>();
+        holders.add(owners[leadingByte]);
+        holders.addAll(stray);
+        return holders;
+    }
+
+    public boolean hasStrays(int leadingByte) {
+        Set<Integer> stray = strays.get(leadingByte);
+        return stray != null && !stray.isEmpty();
+    }
+
+    void addStray(int leadingByte, int shard) {
+        strays.computeIfAbsent(leadingByte, b -> ConcurrentHashMap.newKeySet()).add(shard);
+    }
+
+    void removeStray(int leadingByte, int shard) {
+        Set<Integer> stray = strays.get(leadingByte);
+        if (stray != null) {
+            stray.remove(shard);
+        }
+    }
+
+    // Ferme les pools de connexions des fragments et des répliques
+    @Override
+    public void close() throws Exception {
+        List<JdbcTemplate> all = new ArrayList<>(shards);
+        replicas.forEach(all::addAll);
+        for (JdbcTemplate template : all) {
+            DataSource dataSource = template.getDataSource();
+            if (dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+}
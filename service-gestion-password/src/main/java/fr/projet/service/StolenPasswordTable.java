@@ -0,0 +1,369 @@
+package fr.projet.service;
+
+import java.nio.ByteBuffer;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.ObjIntConsumer;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+
+/**
+ * Accès à la table stolen_password : empreintes SHA-1 brutes (bytea de 20 octets, clé primaire)
+ * et leur nombre d'occurrences dans les fuites (0 s'il est inconnu), partitionnée par intervalles
+ * sur l'octet de tête (256 partitions).
+ *
+ * Les requêtes reçoivent les empreintes en octets : aucune conversion hexadécimale sur le chemin
+ * de vérification, et chaque recherche par égalité ou par préfixe n'interroge qu'une partition.
+ *
+ * La table peut être répartie sur plusieurs bases par {@link StolenPasswordShardRouter} : chaque
+ * recherche est envoyée au fragment propriétaire de l'octet de tête (et, avant rééquilibrage,
+ * aux fragments qui ont encore des lignes de cette partition). Les recherches passent par une
+ * réplique du fragment lorsqu'il en a, et par le primaire en cas d'échec de celle-ci.
+ */
+@Component
+@ConditionalOnProperty(name = "breach.backend", havingValue = "jdbc", matchIfMissing = true)
+public class StolenPasswordTable {
+
+    private static final Logger log = LoggerFactory.getLogger(StolenPasswordTable.class);
+
+    static final String LEGACY_TABLE = "stolen_password_legacy";
+    // Avancement de la copie de l'ancienne table : dernière empreinte copiée, dans l'ordre de la base
+    static final String CONVERSION_TABLE = "stolen_password_conversion";
+
+    private static final int PARTITIONS = 256;
+    private static final int FETCH_SIZE = 10_000;
+
+    private final StolenPasswordShardRouter router;
+
+    public StolenPasswordTable(StolenPasswordShardRouter router) {
+        this.router = router;
+    }
+
+    // Au démarrage, une base inaccessible ne doit pas empêcher le service de démarrer
+    @PostConstruct
+    public void init() {
+        try {
+            ensureSchema();
+            findStrayPartitions();
+            if (!pendingLegacyShards().isEmpty()) {
+                log.warn("Empreintes de {} à copier dans stolen_password : POST /api/passwordstolen/legacy", LEGACY_TABLE);
+            }
+        } catch (Exception ex) {
+            log.error("Impossible de préparer la table stolen_password", ex);
+        }
+    }
+
+    /**
+     * Crée la table partitionnée si besoin. Une ancienne table à empreintes hexadécimales est
+     * renommée en stolen_password_legacy dans la même transaction ; son contenu est copié ensuite par
+     * {@link StolenPasswordLegacyConverter}, après quoi elle peut être supprimée.
+     * Une table créée avant le stockage des compteurs reçoit la colonne occurrences (à 0).
+     */
+    public synchronized void ensureSchema() {
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            ensureSchema(router.shard(shard));
+        }
+    }
+
+    private static void ensureSchema(JdbcTemplate jdbcTemplate) {
+        String hashType = columnType(jdbcTemplate, "hash");
+        if ("bytea".equals(hashType)) {
+            if (columnType(jdbcTemplate, "occurrences") == null) {
+                // Valeur par défaut constante : ajout sans réécriture des partitions
+                jdbcTemplate.execute("ALTER TABLE stolen_password ADD COLUMN IF NOT EXISTS occurrences integer NOT NULL DEFAULT 0");
+            }
+            return;
+        }
+        boolean legacy = hashType != null;
+        List<String> statements = new ArrayList<>();
+        if (legacy) {
+            log.warn("Conversion de stolen_password (hash {}) en bytea partitionné", hashType);
+            statements.add("ALTER TABLE stolen_password RENAME TO " + LEGACY_TABLE);
+            statements.add("CREATE TABLE " + CONVERSION_TABLE
+                    + " (last_hash text, copied bigint NOT NULL DEFAULT 0, finished_at timestamp)");
+            statements.add("INSERT INTO " + CONVERSION_TABLE + " DEFAULT VALUES");
+        }
+        statements.add("CREATE TABLE stolen_password (hash bytea NOT NULL CHECK (length(hash) = 20), "
+                + "occurrences integer NOT NULL DEFAULT 0, CONSTRAINT stolen_password_hash_pkey PRIMARY KEY (hash)) PARTITION BY RANGE (hash)");
+        for (int b = 0; b < PARTITIONS; b++) {
+            String upper = b == PARTITIONS - 1 ? "MAXVALUE" : String.format("'\\x%02x'", b + 1);
+            statements.add(String.format("CREATE TABLE stolen_password_p%02x PARTITION OF stolen_password "
+                    + "FOR VALUES FROM ('\\x%02x') TO (%s)", b, b, upper));
+        }
+        // Une seule transaction : après un échec, l'ancienne table est toujours stolen_password
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            try (Statement statement = connection.createStatement()) {
+                for (String sql : statements) {
+                    statement.addBatch(sql);
+                }
+                statement.executeBatch();
+                connection.commit();
+            } catch (SQLException | RuntimeException ex) {
+                connection.rollback();
+                throw ex;
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return null;
+        });
+    }
+
+    // Fragments dont l'ancienne table n'est pas encore entièrement copiée
+    public List<Integer> pendingLegacyShards() {
+        List<Integer> pending = new ArrayList<>();
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            JdbcTemplate jdbcTemplate = router.shard(shard);
+            Boolean exists = jdbcTemplate.queryForObject(
+                    "SELECT to_regclass('" + CONVERSION_TABLE + "') IS NOT NULL", Boolean.class);
+            if (Boolean.TRUE.equals(exists) && Boolean.TRUE.equals(jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM " + CONVERSION_TABLE + " WHERE finished_at IS NULL)", Boolean.class))) {
+                pending.add(shard);
+            }
+        }
+        return pending;
+    }
+
+    // Dernière empreinte copiée depuis l'ancienne table du fragment, "" avant le premier lot
+    public String legacyCursor(int shard) {
+        String cursor = router.shard(shard).queryForObject("SELECT last_hash FROM " + CONVERSION_TABLE, String.class);
+        return cursor == null ? "" : cursor;
+    }
+
+    /**
+     * Lot suivant de l'ancienne table, après after dans l'ordre de sa clé primaire. L'ordre est celui
+     * de la collation de la base : le point de reprise est la dernière ligne du lot, jamais recalculé.
+     */
+    public List<String> legacyBatch(int shard, String after, int limit) {
+        return router.shard(shard).queryForList(
+                "SELECT hash FROM " + LEGACY_TABLE + " WHERE hash > ? ORDER BY hash LIMIT ?", String.class, after, limit);
+    }
+
+    public void saveLegacyCursor(int shard, String lastHash, int rows) {
+        router.shard(shard).update("UPDATE " + CONVERSION_TABLE + " SET last_hash = ?, copied = copied + ?", lastHash, rows);
+    }
+
+    public void finishLegacy(int shard) {
+        router.shard(shard).update("UPDATE " + CONVERSION_TABLE + " SET finished_at = now()");
+    }
+
+    private static String columnType(JdbcTemplate jdbcTemplate, String column) {
+        return jdbcTemplate.query(
+                "SELECT data_type FROM information_schema.columns WHERE table_schema = current_schema() "
+                        + "AND table_name = 'stolen_password' AND column_name = ?",
+                rs -> rs.next() ? rs.getString(1) : null, column);
+    }
+
+    public long count() {
+        long total = 0;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            Long count = router.shard(shard).queryForObject("SELECT COUNT(*) FROM stolen_password", Long.class);
+            total += count == null ? 0 : count;
+        }
+        return total;
+    }
+
+    public boolean contains(byte[] sha1) {
+        for (int shard : router.holders(sha1[0] & 0xFF)) {
+            Boolean found = read(shard, jdbcTemplate -> jdbcTemplate.queryForObject(
+                    "SELECT EXISTS (SELECT 1 FROM stolen_password WHERE hash = ?)", Boolean.class, (Object) sha1));
+            if (Boolean.TRUE.equals(found)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Nombre d'occurrences de l'empreinte, lu dans la même requête que sa présence :
+     * 0 si elle est absente, au moins 1 si elle est présente (même sans compteur connu).
+     */
+    public int occurrences(byte[] sha1) {
+        for (int shard : router.holders(sha1[0] & 0xFF)) {
+            Integer occurrences = read(shard, jdbcTemplate -> jdbcTemplate.query(
+                    "SELECT occurrences FROM stolen_password WHERE hash = ?",
+                    rs -> rs.next() ? Math.max(1, rs.getInt(1)) : null, (Object) sha1));
+            if (occurrences != null) {
+                return occurrences;
+            }
+        }
+        return 0;
+    }
+
+    // Empreintes de sha1s présentes dans la table, en une seule requête par fragment concerné
+    public Set<ByteBuffer> findAll(List<byte[]> sha1s) {
+        List<List<byte[]>> byShard = new ArrayList<>();
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            byShard.add(new ArrayList<>());
+        }
+        for (byte[] sha1 : sha1s) {
+            for (int shard : router.holders(sha1[0] & 0xFF)) {
+                byShard.get(shard).add(sha1);
+            }
+        }
+        Set<ByteBuffer> found = new HashSet<>();
+        for (int shard = 0; shard < byShard.size(); shard++) {
+            List<byte[]> candidates = byShard.get(shard);
+            if (candidates.isEmpty()) {
+                continue;
+            }
+            found.addAll(read(shard, jdbcTemplate -> jdbcTemplate.query("SELECT hash FROM stolen_password WHERE hash = ANY(?)",
+                    ps -> ps.setArray(1, ps.getConnection().createArrayOf("bytea", candidates.toArray(new byte[0][]))),
+                    (rs, rowNum) -> ByteBuffer.wrap(rs.getBytes(1)))));
+        }
+        return found;
+    }
+
+    // Suffixes (35 caractères hexadécimaux majuscules) du préfixe de 20 bits, triés
+    public List<String> suffixes(int prefix) {
+        List<String> suffixes = new ArrayList<>();
+        List<Integer> holders = router.holders(prefix >>> 12);
+        for (int shard : holders) {
+            if (prefix == (1 << 20) - 1) {
+                suffixes.addAll(read(shard, jdbcTemplate -> jdbcTemplate.query(
+                        "SELECT hash FROM stolen_password WHERE hash >= ? ORDER BY hash",
+                        (rs, rowNum) -> suffix(rs.getBytes(1)), (Object) prefixBound(prefix))));
+            } else {
+                suffixes.addAll(read(shard, jdbcTemplate -> jdbcTemplate.query(
+                        "SELECT hash FROM stolen_password WHERE hash >= ? AND hash < ? ORDER BY hash",
+                        (rs, rowNum) -> suffix(rs.getBytes(1)), prefixBound(prefix), prefixBound(prefix + 1))));
+            }
+        }
+        if (holders.size() > 1) {
+            return suffixes.stream().distinct().sorted().toList();
+        }
+        return suffixes;
+    }
+
+    // Parcours en flux de toute la table, fragment par fragment
+    public long forEach(Consumer<byte[]> action) {
+        long count = 0;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            count += stream(router.shard(shard), "SELECT hash FROM stolen_password", rs -> action.accept(rs.getBytes(1)));
+        }
+        return count;
+    }
+
+    /**
+     * Parcours dans l'ordre de la clé primaire (octets non signés), pour construire l'instantané du filtre :
+     * les fragments couvrant des intervalles croissants, chacun est lu dans son seul intervalle.
+     */
+    public long forEachOrdered(Consumer<byte[]> action) {
+        long count = 0;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            int end = router.endByte(shard);
+            String sql = end < 256
+                    ? String.format("SELECT hash FROM stolen_password WHERE hash >= '\\x%02x' AND hash < '\\x%02x' ORDER BY hash",
+                            router.firstByte(shard), end)
+                    : String.format("SELECT hash FROM stolen_password WHERE hash >= '\\x%02x' ORDER BY hash", router.firstByte(shard));
+            count += stream(router.shard(shard), sql, rs -> action.accept(rs.getBytes(1)));
+        }
+        return count;
+    }
+
+    // Parcours d'une partition d'un fragment avec les compteurs, pour le rééquilibrage
+    public long forEachInPartition(int shard, int leadingByte, ObjIntConsumer<byte[]> action) {
+        return stream(router.shard(shard), "SELECT hash, occurrences FROM " + partition(leadingByte),
+                rs -> action.accept(rs.getBytes(1), rs.getInt(2)));
+    }
+
+    public void truncatePartition(int shard, int leadingByte) {
+        router.shard(shard).execute("TRUNCATE " + partition(leadingByte));
+    }
+
+    /**
+     * Note dans le routeur les partitions non vides hors de l'intervalle de leur fragment
+     * (fragment ajouté ou intervalles modifiés) ; retourne leur nombre.
+     */
+    public int findStrayPartitions() {
+        int found = 0;
+        for (int shard = 0; shard < router.shardCount(); shard++) {
+            for (int b = 0; b < PARTITIONS; b++) {
+                if (router.ownerOf(b) == shard) {
+                    continue;
+                }
+                Boolean rows = router.shard(shard).queryForObject(
+                        "SELECT EXISTS (SELECT 1 FROM " + partition(b) + ")", Boolean.class);
+                if (Boolean.TRUE.equals(rows)) {
+                    router.addStray(b, shard);
+                    found++;
+                }
+            }
+        }
+        if (found > 0) {
+            log.warn("{} partitions de stolen_password sont hors de leur fragment, à rééquilibrer", found);
+        }
+        return found;
+    }
+
+    // Requête de lecture sur une réplique du fragment, rejouée sur le primaire si elle échoue
+    private <T> T read(int shard, Function<JdbcTemplate, T> query) {
+        JdbcTemplate replica = router.replica(shard);
+        if (replica != null) {
+            try {
+                return query.apply(replica);
+            } catch (DataAccessException ex) {
+                router.replicaFailed(shard, replica);
+                log.warn("Échec d'une lecture sur une réplique du fragment {}, repli sur le primaire", shard, ex);
+            }
+        }
+        return query.apply(router.shard(shard));
+    }
+
+    private interface RowAction {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    // PostgreSQL n'utilise le curseur (fetchSize) qu'en dehors de l'auto-commit
+    private static long stream(JdbcTemplate jdbcTemplate, String sql, RowAction action) {
+        Long visited = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            boolean autoCommit = connection.getAutoCommit();
+            connection.setAutoCommit(false);
+            long count = 0;
+            try (PreparedStatement statement = connection.prepareStatement(sql)) {
+                statement.setFetchSize(FETCH_SIZE);
+                try (ResultSet rs = statement.executeQuery()) {
+                    while (rs.next()) {
+                        action.accept(rs);
+                        count++;
+                    }
+                }
+                connection.commit();
+            } finally {
+                connection.setAutoCommit(autoCommit);
+            }
+            return count;
+        });
+        return visited == null ? 0 : visited;
+    }
+
+    private static String partition(int leadingByte) {
+        return String.format("stolen_password_p%02x", leadingByte);
+    }
+
+    // Plus petite empreinte du préfixe : 20 bits significatifs sur 3 octets
+    static byte[] prefixBound(int prefix) {
+        return new byte[] { (byte) (prefix >>> 12), (byte) (prefix >>> 4), (byte) (prefix << 4) };
+    }
+
+    private static String suffix(byte[] hash) {
+        return Sha1Digests.toHex(hash, 0).substring(5);
+    }
+}
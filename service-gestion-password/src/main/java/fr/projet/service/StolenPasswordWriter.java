@@ -0,0 +1,19 @@
+package fr.projet.service;
+
+/**
+ * Destination des empreintes importées par {@link StolenPasswordImporter}.
+ * Appelée en parallèle par plusieurs threads écrivains, chacun avec son propre lot.
+ */
+public interface StolenPasswordWriter {
+
+    // Appelée une fois avant le démarrage des threads d'un import
+    default void prepare() {
+    }
+
+    // Appelée lorsque la destination est vide de tout import précédent : tout ce qui suit sera nouveau
+    default void beginFullImport() {
+    }
+
+    // Retourne le nombre d'empreintes nouvelles, absentes jusqu'ici de la destination
+    int write(DigestBatch batch) throws Exception;
+}
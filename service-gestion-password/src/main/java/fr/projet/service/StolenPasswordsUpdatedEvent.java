@@ -0,0 +1,19 @@
+package fr.projet.service;
+
+/**
+ * Publié lorsque le contenu de la source des mots de passe volés a changé (fin d'un import),
+ * pour que les verdicts mémorisés soient oubliés.
+ */
+public final class StolenPasswordsUpdatedEvent {
+
+    private final long rows;
+
+    public StolenPasswordsUpdatedEvent(long rows) {
+        this.rows = rows;
+    }
+
+    // Empreintes écrites par l'import
+    public long getRows() {
+        return rows;
+    }
+}
@@ -0,0 +1,203 @@
+package fr.projet.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+
+/**
+ * Réserve de mots de passe suggérés, déjà acceptés par la politique de force et absents des fuites :
+ * une suggestion (évaluation refusée, /compte/generate) est servie en O(1), sans génération ni recherche.
+ *
+ * Anneau sans verrou à un producteur et plusieurs consommateurs : un consommateur réserve la case de tête
+ * par compareAndSet sur head puis la vide ; le thread de remplissage n'écrit une case qu'une fois vidée,
+ * et publie la nouvelle queue après l'écriture. Il est réveillé quand la réserve passe sous la moitié.
+ *
+ * Réserve vide (démarrage, rafale) : la suggestion est générée et vérifiée sur place.
+ * Après un import du corpus, les suggestions en réserve sont jetées : elles peuvent faire partie des nouvelles fuites.
+ * Chaque import incrémente une génération ; une suggestion vérifiée pendant une génération antérieure est jetée
+ * à l'ajout ou à la consommation, même si elle a été vérifiée pendant que la réserve était vidée.
+ */
+@Component
+public class SuggestedPasswordPool {
+
+    private static final Logger log = LoggerFactory.getLogger(SuggestedPasswordPool.class);
+
+    private static final long IDLE_PARK_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final long FAILURE_PARK_NANOS = TimeUnit.SECONDS.toNanos(5);
+    private static final int MAX_INLINE_ATTEMPTS = 5;
+
+    private final PasswordGenerator generator;
+    private final StolenPasswordLookup lookup;
+    private final AtomicReferenceArray<Suggestion> slots;
+    private final int mask;
+    // Prochaine case à consommer, prochaine case à remplir
+    private final AtomicLong head = new AtomicLong();
+    private final AtomicLong tail = new AtomicLong();
+    // Incrémentée à chaque mise à jour du corpus
+    private final AtomicLong generation = new AtomicLong();
+    private final Counter misses;
+    private volatile boolean running;
+    private volatile Thread refiller;
+
+    public SuggestedPasswordPool(PasswordGenerator generator, StolenPasswordLookup lookup,
+            @Value("${password.suggestions.pool-size:256}") int poolSize, MeterRegistry meterRegistry) {
+        if (poolSize < 2) {
+            throw new IllegalArgumentException("Réserve de suggestions trop petite : " + poolSize);
+        }
+        this.generator = generator;
+        this.lookup = lookup;
+        // Puissance de deux : l'indice d'une case est un simple masque
+        int capacity = Integer.highestOneBit(poolSize - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(capacity);
+        this.mask = capacity - 1;
+        Gauge.builder("password.suggestions.available", this, SuggestedPasswordPool::available)
+                .description("Suggestions prêtes dans la réserve")
+                .register(meterRegistry);
+        this.misses = Counter.builder("password.suggestions.misses")
+                .description("Suggestions générées sur place, réserve vide")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        running = true;
+        Thread thread = new Thread(this::refillLoop, "suggested-password-refill");
+        thread.setDaemon(true);
+        refiller = thread;
+        thread.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        LockSupport.unpark(refiller);
+    }
+
+    // Suggestion forte et absente des fuites ; null si tous les candidats générés sur place sont dans les fuites
+    public String take() {
+        String password = poll();
+        if (available() <= mask / 2) {
+            LockSupport.unpark(refiller);
+        }
+        if (password != null) {
+            return password;
+        }
+        misses.increment();
+        for (int attempt = 0; attempt < MAX_INLINE_ATTEMPTS; attempt++) {
+            String candidate = generator.generate();
+            if (!lookup.isStolen(DigestUtils.sha1(candidate))) {
+                return candidate;
+            }
+        }
+        log.warn("Aucune suggestion hors des fuites après {} essais", MAX_INLINE_ATTEMPTS);
+        return null;
+    }
+
+    public int available() {
+        return (int) (tail.get() - head.get());
+    }
+
+    @EventListener
+    public void onStolenPasswordsUpdated(StolenPasswordsUpdatedEvent event) {
+        // Avant de vider : les suggestions encore en cours de vérification seront refusées par offer
+        generation.incrementAndGet();
+        int dropped = 0;
+        while (poll() != null) {
+            dropped++;
+        }
+        log.info("Corpus mis à jour : {} suggestions jetées", dropped);
+        LockSupport.unpark(refiller);
+    }
+
+    String poll() {
+        while (true) {
+            long h = head.get();
+            if (h >= tail.get()) {
+                return null;
+            }
+            if (head.compareAndSet(h, h + 1)) {
+                // Case réservée : publiée avant tail, le producteur ne la réécrit pas tant qu'elle n'est pas vide
+                Suggestion suggestion = slots.getAndSet((int) h & mask, null);
+                if (suggestion.generation == generation.get()) {
+                    return suggestion.password;
+                }
+                // Ajoutée pendant que la réserve était vidée : vérifiée avant la mise à jour du corpus
+            }
+        }
+    }
+
+    /**
+     * Appelé par le seul thread de remplissage avec la génération lue avant la vérification du candidat.
+     * false si la réserve est pleine ; true sans ajout si le corpus a changé depuis (candidat jeté).
+     */
+    boolean offer(String password, long checkedGeneration) {
+        if (checkedGeneration != generation.get()) {
+            return true;
+        }
+        long t = tail.get();
+        int index = (int) t & mask;
+        if (t - head.get() > mask || slots.get(index) != null) {
+            return false;
+        }
+        slots.set(index, new Suggestion(password, checkedGeneration));
+        tail.set(t + 1);
+        return true;
+    }
+
+    // Complète la réserve ; renvoie le nombre de suggestions ajoutées
+    int refill() {
+        int added = 0;
+        while (available() <= mask) {
+            long checkedGeneration = generation.get();
+            String candidate = generator.generate();
+            if (lookup.isStolen(DigestUtils.sha1(candidate))) {
+                continue;
+            }
+            if (!offer(candidate, checkedGeneration)) {
+                break;
+            }
+            if (checkedGeneration == generation.get()) {
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private void refillLoop() {
+        while (running) {
+            try {
+                refill();
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            } catch (RuntimeException ex) {
+                // Source des fuites indisponible : les suggestions sont vérifiées sur place en attendant
+                log.warn("Remplissage de la réserve de suggestions interrompu", ex);
+                LockSupport.parkNanos(this, FAILURE_PARK_NANOS);
+            }
+        }
+    }
+
+    private static final class Suggestion {
+        final String password;
+        // Génération du corpus pendant laquelle le mot de passe a été vérifié
+        final long generation;
+
+        Suggestion(String password, long generation) {
+            this.password = password;
+            this.generation = generation;
+        }
+    }
+}
@@ -0,0 +1,321 @@
+package fr.projet.service;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Filtre xor (Graf et Lemire) à empreintes de 8 bits, persisté dans un fichier versionné
+ * et projeté en mémoire : l'ouverture ne lit que la table des compartiments (quelques Mo),
+ * les pages d'empreintes sont chargées par le système à la demande.
+ *
+ * Environ 9,9 bits par empreinte volée pour un taux de faux positifs de 1/256.
+ * Les empreintes sont réparties en 2^16 compartiments selon leurs 16 premiers bits ;
+ * chaque compartiment est un filtre xor indépendant, ce qui permet de construire le fichier
+ * en un seul passage sur les empreintes triées avec une mémoire bornée.
+ *
+ * Format (gros-boutiste) : en-tête (magique, version du format, bits de compartiment,
+ * version de l'instantané, nombre d'empreintes), puis pour chaque compartiment sa graine (long)
+ * et sa longueur de bloc (int), puis les empreintes (3 blocs par compartiment).
+ */
+public final class XorFilterSnapshot implements DigestFilter {
+
+    private static final long MAGIC = 0x584F_5246_494C_5452L; // "XORFILTR"
+    private static final int FORMAT_VERSION = 1;
+    private static final int BUCKET_BITS = 16;
+    private static final int BUCKETS = 1 << BUCKET_BITS;
+    private static final int HEADER_BYTES = 8 + 4 + 4 + 8 + 8;
+    private static final int BUCKET_ENTRY_BYTES = 8 + 4;
+    private static final long FINGERPRINTS_OFFSET = HEADER_BYTES + (long) BUCKETS * BUCKET_ENTRY_BYTES;
+    private static final int SEGMENT_BITS = 30;
+    private static final int SEGMENT_MASK = (1 << SEGMENT_BITS) - 1;
+
+    /**
+     * Source des empreintes, parcourues dans l'ordre croissant (non signé) ; retourne leur nombre.
+     */
+    public interface SortedDigests {
+        long forEach(Consumer<byte[]> action) throws Exception;
+    }
+
+    private final long version;
+    private final long size;
+    private final long[] seeds;
+    private final int[] blockLengths;
+    private final long[] offsets;
+    private final MappedByteBuffer[] segments;
+    private final long fingerprintBytes;
+
+    private XorFilterSnapshot(long version, long size, long[] seeds, int[] blockLengths, long[] offsets,
+            MappedByteBuffer[] segments, long fingerprintBytes) {
+        this.version = version;
+        this.size = size;
+        this.seeds = seeds;
+        this.blockLengths = blockLengths;
+        this.offsets = offsets;
+        this.segments = segments;
+        this.fingerprintBytes = fingerprintBytes;
+    }
+
+    public static XorFilterSnapshot open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getLong() != MAGIC || header.getInt() != FORMAT_VERSION || header.getInt() != BUCKET_BITS) {
+                throw new IOException("Format d'instantané de filtre inconnu : " + file);
+            }
+            long version = header.getLong();
+            long size = header.getLong();
+
+            ByteBuffer table = ByteBuffer.allocate(BUCKETS * BUCKET_ENTRY_BYTES);
+            readFully(channel, table, HEADER_BYTES);
+            table.flip();
+            long[] seeds = new long[BUCKETS];
+            int[] blockLengths = new int[BUCKETS];
+            long[] offsets = new long[BUCKETS];
+            long offset = 0;
+            for (int b = 0; b < BUCKETS; b++) {
+                seeds[b] = table.getLong();
+                blockLengths[b] = table.getInt();
+                offsets[b] = offset;
+                offset += 3L * blockLengths[b];
+            }
+            if (channel.size() != FINGERPRINTS_OFFSET + offset) {
+                throw new IOException("Instantané de filtre tronqué : " + file);
+            }
+
+            int segmentCount = (int) ((offset + SEGMENT_MASK) >>> SEGMENT_BITS);
+            MappedByteBuffer[] segments = new MappedByteBuffer[segmentCount];
+            for (int i = 0; i < segmentCount; i++) {
+                long start = (long) i << SEGMENT_BITS;
+                long length = Math.min(1L << SEGMENT_BITS, offset - start);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, FINGERPRINTS_OFFSET + start, length);
+            }
+            return new XorFilterSnapshot(version, size, seeds, blockLengths, offsets, segments, offset);
+        }
+    }
+
+    /**
+     * Construit l'instantané dans target à partir des empreintes triées ; retourne leur nombre.
+     */
+    public static long write(Path target, long version, SortedDigests digests) throws Exception {
+        try (FileChannel channel = FileChannel.open(target, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            BucketWriter writer = new BucketWriter(channel);
+            long count = digests.forEach(writer::add);
+            writer.finish();
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putLong(MAGIC).putInt(FORMAT_VERSION).putInt(BUCKET_BITS).putLong(version).putLong(writer.keysTotal);
+            header.flip();
+            writeFully(channel, header, 0);
+            writer.table.flip();
+            writeFully(channel, writer.table, HEADER_BYTES);
+            channel.force(true);
+            return count;
+        }
+    }
+
+    @Override
+    public boolean mightContain(byte[] sha1) {
+        int bucket = ((sha1[0] & 0xFF) << 8) | (sha1[1] & 0xFF);
+        long hash = mix(Sha1Digests.bytesLong(sha1, 2) + seeds[bucket]);
+        int blockLength = blockLengths[bucket];
+        long base = offsets[bucket];
+        byte f = (byte) (fingerprint(hash)
+                ^ fingerprintAt(base + reduce((int) hash, blockLength))
+                ^ fingerprintAt(base + blockLength + reduce((int) Long.rotateLeft(hash, 21), blockLength))
+                ^ fingerprintAt(base + 2L * blockLength + reduce((int) Long.rotateLeft(hash, 42), blockLength)));
+        return f == 0;
+    }
+
+    private byte fingerprintAt(long offset) {
+        return segments[(int) (offset >>> SEGMENT_BITS)].get((int) (offset & SEGMENT_MASK));
+    }
+
+    public long version() {
+        return version;
+    }
+
+    public long size() {
+        return size;
+    }
+
+    // Taille des empreintes projetées (hors tas) et de la table des compartiments
+    @Override
+    public long memoryBytes() {
+        return fingerprintBytes + (long) BUCKETS * (Long.BYTES * 2 + Integer.BYTES);
+    }
+
+    @Override
+    public double expectedFalsePositiveRate() {
+        return 1.0 / 256;
+    }
+
+    // Finaliseur de MurmurHash3 : les graines successives donnent des positions indépendantes
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static int reduce(int hash, int n) {
+        return (int) (((hash & 0xFFFFFFFFL) * n) >>> 32);
+    }
+
+    private static byte fingerprint(long hash) {
+        return (byte) (hash ^ (hash >>> 32));
+    }
+
+    /**
+     * Construction compartiment par compartiment : les empreintes arrivent triées,
+     * seules celles du compartiment courant sont gardées en mémoire.
+     */
+    private static final class BucketWriter {
+
+        private final FileChannel channel;
+        private final ByteBuffer table = ByteBuffer.allocate(BUCKETS * BUCKET_ENTRY_BYTES);
+        private final SplittableRandom random = new SplittableRandom(0x5EED);
+        private long position = FINGERPRINTS_OFFSET;
+        private int bucket;
+        private long[] keys = new long[1024];
+        private int keyCount;
+        // Nombre total de clés distinctes écrites
+        private long keysTotal;
+
+        BucketWriter(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        void add(byte[] sha1) {
+            int digestBucket = ((sha1[0] & 0xFF) << 8) | (sha1[1] & 0xFF);
+            if (digestBucket < bucket) {
+                throw new IllegalStateException("Empreintes non triées");
+            }
+            while (bucket < digestBucket) {
+                flush();
+            }
+            long key = Sha1Digests.bytesLong(sha1, 2);
+            // Les empreintes triées donnent des clés triées dans un compartiment : doublons contigus
+            if (keyCount > 0 && keys[keyCount - 1] == key) {
+                return;
+            }
+            if (keyCount == keys.length) {
+                keys = Arrays.copyOf(keys, keyCount * 2);
+            }
+            keys[keyCount++] = key;
+        }
+
+        void finish() {
+            while (bucket < BUCKETS) {
+                flush();
+            }
+        }
+
+        private void flush() {
+            try {
+                long seed = random.nextLong();
+                byte[] fingerprints;
+                while ((fingerprints = build(keys, keyCount, seed)) == null) {
+                    seed = random.nextLong();
+                }
+                table.putLong(seed).putInt(fingerprints.length / 3);
+                writeFully(channel, ByteBuffer.wrap(fingerprints), position);
+                position += fingerprints.length;
+                keysTotal += keyCount;
+                keyCount = 0;
+                bucket++;
+            } catch (IOException ex) {
+                throw new IllegalStateException(ex);
+            }
+        }
+    }
+
+    // Empreintes du filtre xor des keyCount premières clés, null si le graphe ne se réduit pas avec cette graine
+    static byte[] build(long[] keys, int keyCount, long seed) {
+        int blockLength = (32 + (int) Math.ceil(1.23 * keyCount)) / 3;
+        int arrayLength = 3 * blockLength;
+        long[] xorMask = new long[arrayLength];
+        int[] count = new int[arrayLength];
+        for (int i = 0; i < keyCount; i++) {
+            long hash = mix(keys[i] + seed);
+            for (int j = 0; j < 3; j++) {
+                int index = position(hash, j, blockLength);
+                xorMask[index] ^= hash;
+                count[index]++;
+            }
+        }
+
+        int[] queue = new int[arrayLength];
+        int queueSize = 0;
+        for (int i = 0; i < arrayLength; i++) {
+            if (count[i] == 1) {
+                queue[queueSize++] = i;
+            }
+        }
+        long[] stackHash = new long[keyCount];
+        int[] stackIndex = new int[keyCount];
+        int stackSize = 0;
+        while (queueSize > 0) {
+            int index = queue[--queueSize];
+            if (count[index] != 1) {
+                continue;
+            }
+            long hash = xorMask[index];
+            stackHash[stackSize] = hash;
+            stackIndex[stackSize] = index;
+            stackSize++;
+            for (int j = 0; j < 3; j++) {
+                int other = position(hash, j, blockLength);
+                xorMask[other] ^= hash;
+                if (--count[other] == 1) {
+                    queue[queueSize++] = other;
+                }
+            }
+        }
+        if (stackSize != keyCount) {
+            return null;
+        }
+
+        byte[] fingerprints = new byte[arrayLength];
+        for (int i = stackSize - 1; i >= 0; i--) {
+            long hash = stackHash[i];
+            int index = stackIndex[i];
+            fingerprints[index] = 0;
+            fingerprints[index] = (byte) (fingerprint(hash)
+                    ^ fingerprints[position(hash, 0, blockLength)]
+                    ^ fingerprints[position(hash, 1, blockLength)]
+                    ^ fingerprints[position(hash, 2, blockLength)]);
+        }
+        return fingerprints;
+    }
+
+    private static int position(long hash, int block, int blockLength) {
+        int h = (int) Long.rotateLeft(hash, 21 * block);
+        return block * blockLength + reduce(h, blockLength);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Fin de fichier inattendue");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        long offset = position;
+        while (buffer.hasRemaining()) {
+            offset += channel.write(buffer, offset);
+        }
+    }
+}
@@ -5,12 +5,16 @@ import static org.mockito.Mockito.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 
+import java.io.Writer;
+import java.util.List;
+
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -28,10 +32,15 @@ import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import com.fasterxml.jackson.databind.ObjectMapper;
 
 import fr.projet.Request.CreatePasswordRequest;
+import fr.projet.Request.PasswordBatchCheckRequest;
 import fr.projet.Request.PasswordCheckRequest;
+import fr.projet.Request.PasswordEvaluationRequest;
+import fr.projet.Response.PasswordBatchCheckResponse;
 import fr.projet.Response.PasswordCheckResponse;
+import fr.projet.Response.PasswordEvaluationResponse;
 import fr.projet.Response.PasswordGeneratedResponse;
 import fr.projet.model.Password;
+import fr.projet.model.PasswordHashingRejectedException;
 import fr.projet.repository.PasswordRepository;
 import fr.projet.service.PasswordService;
 
@@ -100,6 +109,30 @@ public class PasswordApiControllerTest {
         verify(passwordSrv, times(1)).updatePassword(idUser, newPassword);
     }
 
+    @Test
+    public void testUpdatePassword_HashingQueueFull() throws Exception {
+        doThrow(new PasswordHashingRejectedException(3)).when(passwordSrv).updatePassword("sawsan", "kX9#mQ2$vL7!pR");
+
+        mockMvc.perform(put("/api/password/utilisateur/update")
+                .param("idUser", "sawsan")
+                .param("newPassword", "kX9#mQ2$vL7!pR"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "3"));
+    }
+
+    @Test
+    public void testResetPassword_HashingQueueFull() throws Exception {
+        when(passwordSrv.evaluatePassword(any(PasswordEvaluationRequest.class)))
+                .thenReturn(new PasswordEvaluationResponse(true, false, 0, "Password is strong and not found in the list of stolen passwords", null));
+        doThrow(new PasswordHashingRejectedException(2)).when(passwordSrv).resetPassword("valid-token", "kX9#mQ2$vL7!pR");
+
+        mockMvc.perform(post("/api/password/utilisateur/reset")
+                .param("token", "valid-token")
+                .param("newPassword", "kX9#mQ2$vL7!pR"))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string("Retry-After", "2"));
+    }
+
 
     @Test
     public void testGetPasswordByUserId_Success() throws Exception {
@@ -141,8 +174,7 @@ public class PasswordApiControllerTest {
         String newPassword = "StrongPassword123@";
 
         // Mocking successful password reset
-        when(passwordSrv.checkPasswordStrength(any())).thenReturn(new PasswordCheckResponse(true, false, ""));
-        when(passwordSrv.checkPasswordVulnerability(any())).thenReturn(new PasswordCheckResponse(true, false, ""));
+        when(passwordSrv.evaluatePassword(any())).thenReturn(new PasswordEvaluationResponse(true, false, 0, "", null));
         doNothing().when(passwordSrv).resetPassword(eq(token), eq(newPassword));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/password/utilisateur/reset")
@@ -160,8 +192,7 @@ public class PasswordApiControllerTest {
         String newPassword = "weak";
 
         // Mocking weak password scenario
-        when(passwordSrv.checkPasswordStrength(any())).thenReturn(new PasswordCheckResponse(false, false, ""));
-        when(passwordSrv.checkPasswordVulnerability(any())).thenReturn(new PasswordCheckResponse(false, false, ""));
+        when(passwordSrv.evaluatePassword(any())).thenReturn(new PasswordEvaluationResponse(false, false, 0, "", null));
 
         mockMvc.perform(MockMvcRequestBuilders.post("/api/password/utilisateur/reset")
                 .contentType(MediaType.APPLICATION_FORM_URLENCODED)
@@ -199,9 +230,44 @@ public class PasswordApiControllerTest {
         assertEquals(expectedResponse.getPassword(), actualResponse.getPassword());
     }
 
+    @Test
+    public void testGeneratePassword_NoSuggestion_ServiceUnavailable() throws Exception {
+        // Tous les candidats générés figuraient dans les fuites
+        when(passwordSrv.generatePassword()).thenReturn(new PasswordGeneratedResponse());
+
+        mockMvc.perform(post("/api/password/compte/generate").contentType(MediaType.APPLICATION_JSON))
+                .andExpect(status().isServiceUnavailable());
+    }
+
 
 
 
+    @Test
+    public void testGeneratePasswords_Streamed() throws Exception {
+        doAnswer(invocation -> {
+            Writer writer = invocation.getArgument(1);
+            writer.write("kX9#mQ2$vL7!\nvGM*6$eTswFA\n");
+            return null;
+        }).when(passwordSrv).generatePasswords(eq(2), any(Writer.class));
+
+        MvcResult result = mockMvc.perform(post("/api/password/generate/batch").param("count", "2"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "no-store"))
+                .andExpect(content().string("kX9#mQ2$vL7!\nvGM*6$eTswFA\n"));
+    }
+
+    @Test
+    public void testGeneratePasswords_InvalidCount() throws Exception {
+        mockMvc.perform(post("/api/password/generate/batch").param("count", "0"))
+                .andExpect(status().isBadRequest());
+
+        verifyNoInteractions(passwordSrv);
+    }
+
 @Test
     public void testCheckPasswordVulnerability_PasswordIsVulnerable() throws Exception {
         // Préparation de la requête
@@ -248,18 +314,77 @@ public class PasswordApiControllerTest {
     }
 
 
+    @Test
+    public void testEvaluatePassword_WeakWithSuggestion() throws Exception {
+        PasswordEvaluationRequest request = new PasswordEvaluationRequest("azerty", true);
+        when(passwordSrv.evaluatePassword(any(PasswordEvaluationRequest.class)))
+                .thenReturn(new PasswordEvaluationResponse(false, true, 42, "Password is vulnerable", "Xy7!abcdEFGH"));
+
+        mockMvc.perform(post("/api/password/evaluate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.strong").value(false))
+                .andExpect(jsonPath("$.vulnerable").value(true))
+                .andExpect(jsonPath("$.occurrences").value(42))
+                .andExpect(jsonPath("$.suggestedPassword").value("Xy7!abcdEFGH"));
 
+        verify(passwordSrv).evaluatePassword(argThat(r -> r.getPassword().equals("azerty") && r.isSuggest()));
+    }
 
+    @Test
+    public void testEvaluatePassword_NullPassword() throws Exception {
+        mockMvc.perform(post("/api/password/evaluate")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content("{}"))
+                .andExpect(status().isBadRequest());
 
-    
+        verify(passwordSrv, never()).evaluatePassword(any());
+    }
 
+    @Test
+    public void testCheckPasswordsVulnerability_Batch() throws Exception {
+        PasswordBatchCheckRequest request = new PasswordBatchCheckRequest(List.of("azerty", "securePassword!123"), null);
+        when(passwordSrv.checkPasswordsVulnerability(any(PasswordBatchCheckRequest.class)))
+                .thenReturn(new PasswordBatchCheckResponse(List.of(true, false), 1, "1 password(s) found in the list of stolen passwords"));
 
+        mockMvc.perform(post("/api/password/compte/check-vulnerability/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.vulnerable[0]").value(true))
+                .andExpect(jsonPath("$.vulnerable[1]").value(false))
+                .andExpect(jsonPath("$.vulnerableCount").value(1));
+    }
 
+    @Test
+    public void testCheckPasswordsVulnerability_InvalidHash() throws Exception {
+        PasswordBatchCheckRequest request = new PasswordBatchCheckRequest(null, List.of("E38AD214943DAAD1D64C102FAEC29DE4AFE9DA3"));
 
+        mockMvc.perform(post("/api/password/compte/check-vulnerability/batch")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(new ObjectMapper().writeValueAsString(request)))
+                .andExpect(status().isBadRequest());
 
+        verify(passwordSrv, never()).checkPasswordsVulnerability(any());
+    }
 
+    @Test
+    public void testGetBreachedRange_Success() throws Exception {
+        when(passwordSrv.getBreachedRange("21BD1")).thenReturn("0018A45C4D1DEF81644B54AB7F969B88D65\r\n00D4F6E8FA6EECAD2A3AA415EEC418D38EC");
 
+        mockMvc.perform(get("/api/password/range/21BD1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("Cache-Control", "max-age=86400, public"))
+                .andExpect(content().string("0018A45C4D1DEF81644B54AB7F969B88D65\r\n00D4F6E8FA6EECAD2A3AA415EEC418D38EC"));
+    }
 
-}
+    @Test
+    public void testGetBreachedRange_InvalidPrefix() throws Exception {
+        mockMvc.perform(get("/api/password/range/21BDZ"))
+                .andExpect(status().isBadRequest());
 
+        verify(passwordSrv, never()).getBreachedRange(anyString());
+    }
 
+}
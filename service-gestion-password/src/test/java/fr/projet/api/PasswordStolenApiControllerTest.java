@@ -0,0 +1,96 @@
+package fr.projet.api;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import fr.projet.service.ImportJob;
+import fr.projet.service.ImportJobService;
+import fr.projet.service.ImportProgress;
+
+@ExtendWith(MockitoExtension.class)
+public class PasswordStolenApiControllerTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Mock
+    private ImportJobService importJobService;
+
+    @InjectMocks
+    private PasswordStolenApiController controller;
+
+    private MockMvc mockMvc;
+    private Path importDirectory;
+
+    @BeforeEach
+    public void setUp() throws Exception {
+        // breach.import.directory, avec une nouvelle publication dans un sous-répertoire
+        importDirectory = Files.createDirectories(tempDir.resolve("corpus"));
+        Files.writeString(Files.createDirectories(importDirectory.resolve("2024")).resolve("00000.txt"), "");
+        Files.writeString(Files.createDirectories(tempDir.resolve("private")).resolve("secrets.txt"), "");
+        ReflectionTestUtils.setField(controller, "importDirectory", importDirectory.toString());
+        ReflectionTestUtils.setField(controller, "indexPath", tempDir.resolve("stolen-passwords.sha1"));
+        mockMvc = MockMvcBuilders.standaloneSetup(controller).build();
+    }
+
+    @Test
+    public void testImport_SubdirectoryOfImportDirectory() throws Exception {
+        // Un import déjà en cours : la requête est refusée après résolution du répertoire
+        when(importJobService.submit(any())).thenThrow(new IllegalStateException("Un import est déjà en cours"));
+
+        mockMvc.perform(post("/api/passwordstolen").param("directory", "2024"))
+                .andExpect(status().isConflict());
+
+        verify(importJobService).submit(eq(List.of(importDirectory.resolve("2024").resolve("00000.txt").toAbsolutePath())));
+    }
+
+    @Test
+    public void testImport_DirectoryOutsideImportDirectoryRejected() throws Exception {
+        mockMvc.perform(post("/api/passwordstolen").param("directory", "../private"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(post("/api/passwordstolen").param("directory", tempDir.resolve("private").toString()))
+                .andExpect(status().isBadRequest());
+
+        verify(importJobService, never()).submit(any());
+    }
+
+    @Test
+    public void testBuildIndex_SubmittedAsJob() throws Exception {
+        ImportJob job = mock(ImportJob.class);
+        when(job.getId()).thenReturn("job-1");
+        when(job.getStatus()).thenReturn(ImportJob.Status.PENDING);
+        when(job.getSubmittedAt()).thenReturn(Instant.now());
+        when(job.getProgress()).thenReturn(new ImportProgress());
+        when(importJobService.submitIndex(any(), eq(tempDir.resolve("stolen-passwords.sha1")))).thenReturn(job);
+
+        // Réponse immédiate : la construction se suit sur /jobs/{id}
+        mockMvc.perform(post("/api/passwordstolen/index"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/api/passwordstolen/jobs/job-1"))
+                .andExpect(jsonPath("$.id").value("job-1"));
+    }
+}
@@ -0,0 +1,74 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testMightContain_NoFalseNegatives() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(DigestUtils.sha1Hex("stolen-" + i).toUpperCase());
+        }
+
+        // Toutes les empreintes insérées doivent être reconnues, quelle que soit la casse
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(DigestUtils.sha1Hex("stolen-" + i)));
+        }
+    }
+
+    @Test
+    public void testMightContain_FalsePositiveRateNearTarget() {
+        BloomFilter filter = BloomFilter.create(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(DigestUtils.sha1Hex("stolen-" + i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (filter.mightContain(DigestUtils.sha1Hex("safe-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // Marge confortable autour des 1 % visés
+        assertTrue(falsePositives < 2_000, "Trop de faux positifs : " + falsePositives);
+    }
+
+    @Test
+    public void testCreate_SizedFromFalsePositiveRate() {
+        BloomFilter filter = BloomFilter.create(1_000_000, 0.001);
+
+        // Environ 14,4 bits par élément et 10 fonctions de hachage pour 0,1 %
+        assertTrue(filter.bitCount() >= 14_000_000 && filter.bitCount() <= 14_500_000);
+        assertTrue(filter.hashCount() == 10);
+        assertTrue(filter.expectedFalsePositiveRate(1_000_000) < 0.0011);
+    }
+
+    @Test
+    public void testRawDigestAndHexAreInterchangeable() {
+        BloomFilter filter = BloomFilter.create(1_000, 0.01);
+        filter.put(DigestUtils.sha1("azerty"));
+
+        // Empreinte chargée en octets (bytea), interrogée en hexadécimal et inversement
+        assertTrue(filter.mightContain(DigestUtils.sha1Hex("azerty")));
+        assertTrue(filter.mightContain(DigestUtils.sha1("azerty")));
+    }
+
+    @Test
+    public void testConcurrentFilter_NoFalseNegativesBeyondCapacity() {
+        ConcurrentBloomFilter filter = new ConcurrentBloomFilter(1_000, 0.01);
+        for (int i = 0; i < 5_000; i++) {
+            filter.put(DigestUtils.sha1("stolen-" + i));
+        }
+
+        // Capacité dépassée : signalé, mais toujours aucun faux négatif
+        assertTrue(filter.isSaturated());
+        for (int i = 0; i < 5_000; i++) {
+            assertTrue(filter.mightContain(DigestUtils.sha1("stolen-" + i)));
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.startsWith;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+@ExtendWith(MockitoExtension.class)
+public class CopyStolenPasswordWriterTest {
+
+    @Mock
+    private JdbcTemplate jdbcTemplate;
+    @Mock
+    private StolenPasswordTable stolenPasswordTable;
+    @Mock
+    private StolenPasswordFilter stolenPasswordFilter;
+    @Mock
+    private Connection connection;
+    @Mock
+    private PGConnection pgConnection;
+    @Mock
+    private CopyManager copyManager;
+    @Mock
+    private CopyIn copyIn;
+    @Mock
+    private Statement statement;
+    @Mock
+    private ResultSet inserted;
+
+    private CopyStolenPasswordWriter writer;
+
+    private DigestBatch batch;
+
+    @BeforeEach
+    public void setUp() {
+        writer = new CopyStolenPasswordWriter(StolenPasswordShardRouter.single(jdbcTemplate), stolenPasswordTable,
+                stolenPasswordFilter);
+        batch = new DigestBatch(2);
+        batch.reset(Path.of("00000.txt"), 0);
+        for (String password : new String[] { "azerty", "123456" }) {
+            System.arraycopy(DigestUtils.sha1(password), 0, batch.digests(), batch.nextSlot(), Sha1Digests.BYTES);
+            batch.commit(0, password.length() * 1000);
+        }
+    }
+
+    private void stubCopy() throws SQLException {
+        stubCopy(jdbcTemplate);
+    }
+
+    private void stubCopy(JdbcTemplate template) throws SQLException {
+        // Exécute le callback sur la connexion simulée
+        when(template.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(connection.getAutoCommit()).thenReturn(true);
+        when(connection.unwrap(PGConnection.class)).thenReturn(pgConnection);
+        when(pgConnection.getCopyAPI()).thenReturn(copyManager);
+        when(copyManager.copyIn("COPY stolen_password_staging (hash, occurrences) FROM STDIN WITH (FORMAT binary)"))
+                .thenReturn(copyIn);
+        when(connection.createStatement()).thenReturn(statement);
+    }
+
+    @Test
+    public void testWrite_CopiesBinaryRowsThenMerges() throws SQLException {
+        stubCopy();
+        // La première empreinte du lot est nouvelle, la seconde existait avec un compteur plus petit
+        when(statement.executeQuery(startsWith("INSERT INTO stolen_password"))).thenReturn(inserted);
+        when(inserted.next()).thenReturn(true, true, false);
+        when(inserted.getBoolean(2)).thenReturn(true, false);
+        when(inserted.getBytes(1)).thenReturn(DigestUtils.sha1("azerty"));
+
+        assertEquals(1, writer.write(batch));
+
+        ArgumentCaptor<byte[]> captured = ArgumentCaptor.forClass(byte[].class);
+        verify(copyIn).writeToCopy(captured.capture(), anyInt(), anyInt());
+        // En-tête de 19 octets, puis par ligne : 2 colonnes, 20 octets et l'empreinte, 4 octets et le compteur ; -1 en fin de flux
+        ByteBuffer rows = ByteBuffer.wrap(captured.getValue());
+        byte[] signature = new byte[11];
+        rows.get(signature);
+        assertEquals("PGCOPY\n", new String(signature, 0, 7, StandardCharsets.US_ASCII));
+        assertEquals(0, rows.getInt());
+        assertEquals(0, rows.getInt());
+        for (String password : new String[] { "azerty", "123456" }) {
+            assertEquals(2, rows.getShort());
+            assertEquals(Sha1Digests.BYTES, rows.getInt());
+            byte[] digest = new byte[Sha1Digests.BYTES];
+            rows.get(digest);
+            assertArrayEquals(DigestUtils.sha1(password), digest);
+            assertEquals(4, rows.getInt());
+            assertEquals(password.length() * 1000, rows.getInt());
+        }
+        assertEquals(-1, rows.getShort());
+        assertEquals(0, rows.remaining());
+
+        verify(copyIn).endCopy();
+        // Seule l'empreinte insérée est ajoutée au filtre
+        verify(stolenPasswordFilter, times(1)).add(any());
+        verify(stolenPasswordFilter).add(aryEq(DigestUtils.sha1("azerty")));
+        verify(statement).executeUpdate("DELETE FROM stolen_password_staging");
+        verify(connection).commit();
+        verify(connection).setAutoCommit(true);
+    }
+
+    @Test
+    public void testWrite_RollbackWhenMergeFails() throws SQLException {
+        stubCopy();
+        when(statement.executeQuery(startsWith("INSERT INTO stolen_password"))).thenThrow(new SQLException("deadlock"));
+
+        assertThrows(SQLException.class, () -> writer.write(batch));
+
+        verify(connection).rollback();
+        verify(connection, never()).commit();
+    }
+
+    @Test
+    public void testPrepare_SchemaThenFreshStagingTable() {
+        writer.prepare();
+
+        verify(stolenPasswordTable).ensureSchema();
+        verify(jdbcTemplate).execute("DROP TABLE IF EXISTS stolen_password_staging");
+        verify(jdbcTemplate).execute("CREATE UNLOGGED TABLE stolen_password_staging (hash bytea NOT NULL, occurrences integer NOT NULL)");
+    }
+
+    @Test
+    public void testWrite_SplitsBatchAcrossShards() throws SQLException {
+        // 123456 (7c...) sur le premier fragment, azerty (9c...) sur celui qui commence à 80
+        JdbcTemplate secondShard = mock(JdbcTemplate.class);
+        writer = new CopyStolenPasswordWriter(new StolenPasswordShardRouter(List.of(0, 0x80), List.of(jdbcTemplate, secondShard)),
+                stolenPasswordTable, stolenPasswordFilter);
+        stubCopy();
+        when(secondShard.execute(any(ConnectionCallback.class)))
+                .thenAnswer(invocation -> invocation.<ConnectionCallback<?>>getArgument(0).doInConnection(connection));
+        when(statement.executeQuery(startsWith("INSERT INTO stolen_password"))).thenReturn(inserted);
+
+        writer.write(batch);
+
+        ArgumentCaptor<byte[]> captured = ArgumentCaptor.forClass(byte[].class);
+        verify(copyIn, times(2)).writeToCopy(captured.capture(), anyInt(), anyInt());
+        // Une ligne par fragment, dans l'ordre des fragments
+        for (int shard = 0; shard < 2; shard++) {
+            ByteBuffer rows = ByteBuffer.wrap(captured.getAllValues().get(shard));
+            assertEquals(19 + 34 + 2, rows.remaining());
+            byte[] digest = new byte[Sha1Digests.BYTES];
+            rows.position(19 + 6);
+            rows.get(digest);
+            assertArrayEquals(DigestUtils.sha1(shard == 0 ? "123456" : "azerty"), digest);
+        }
+        verify(connection, times(2)).commit();
+    }
+}
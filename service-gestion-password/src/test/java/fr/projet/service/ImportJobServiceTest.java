@@ -0,0 +1,229 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+
+@ExtendWith(MockitoExtension.class)
+public class ImportJobServiceTest {
+
+    @Mock
+    private StolenPasswordImporter importer;
+    @Mock
+    private StolenPasswordRebalancer rebalancer;
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @InjectMocks
+    private ImportJobService importJobService;
+
+    @AfterEach
+    public void tearDown() {
+        importJobService.shutdown();
+    }
+
+    private static void awaitFinished(ImportJob job) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!job.isFinished() && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testSubmit_RunsInBackground() throws Exception {
+        when(importer.importFiles(anyList(), any(ImportProgress.class))).thenAnswer(invocation -> {
+            invocation.<ImportProgress>getArgument(1).batchDone(0, 50, 42);
+            return 42L;
+        });
+
+        ImportJob job = importJobService.submit(List.of(Path.of("00000.txt")));
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(job, importJobService.get(job.getId()));
+        // Les verdicts mémorisés doivent être oubliés
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof StolenPasswordsUpdatedEvent
+                && ((StolenPasswordsUpdatedEvent) event).getRows() == 42));
+    }
+
+    @Test
+    public void testSubmit_RejectedWhileRunningThenCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(importer.importFiles(anyList(), any(ImportProgress.class))).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return 0L;
+        });
+
+        ImportJob job = importJobService.submit(List.of(Path.of("00000.txt")));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertThrows(IllegalStateException.class, () -> importJobService.submit(List.of(Path.of("00001.txt"))));
+
+        assertTrue(importJobService.cancel(job.getId()));
+        assertEquals(ImportJob.Status.CANCELLED, job.getStatus());
+        // Déjà terminé
+        assertFalse(importJobService.cancel(job.getId()));
+    }
+
+    @Test
+    public void testSubmit_FailureReported() throws Exception {
+        when(importer.importFiles(anyList(), any(ImportProgress.class)))
+                .thenThrow(new IllegalStateException("relation \"stolen_password\" does not exist"));
+
+        ImportJob job = importJobService.submit(List.of(Path.of("00000.txt")));
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.FAILED, job.getStatus());
+        assertEquals("relation \"stolen_password\" does not exist", job.getFailure());
+    }
+
+    @Test
+    public void testSubmit_FailureAfterWrittenBatchesStillPublishes() throws Exception {
+        when(importer.importFiles(anyList(), any(ImportProgress.class))).thenAnswer(invocation -> {
+            invocation.<ImportProgress>getArgument(1).batchDone(0, 10, 7);
+            throw new IllegalStateException("connexion perdue");
+        });
+
+        ImportJob job = importJobService.submit(List.of(Path.of("00000.txt")));
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.FAILED, job.getStatus());
+        // Les lots validés avant l'échec sont dans la table : les verdicts mémorisés sont oubliés
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof StolenPasswordsUpdatedEvent
+                && ((StolenPasswordsUpdatedEvent) event).getRows() == 7));
+    }
+
+    @Test
+    public void testGet_OldestFinishedJobsForgotten() throws Exception {
+        ImportJob first = importJobService.submitRebalance();
+        awaitFinished(first);
+        ImportJob last = first;
+        for (int i = 0; i < ImportJobService.KEPT_JOBS; i++) {
+            last = importJobService.submitRebalance();
+            awaitFinished(last);
+        }
+
+        assertNull(importJobService.get(first.getId()));
+        assertEquals(last, importJobService.get(last.getId()));
+    }
+
+    @Test
+    public void testSubmitRebalance_SharesTheImportExecutor() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        when(rebalancer.rebalance(any(ImportProgress.class))).thenAnswer(invocation -> {
+            started.countDown();
+            Thread.sleep(TimeUnit.MINUTES.toMillis(1));
+            return 0L;
+        });
+
+        ImportJob job = importJobService.submitRebalance();
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        // Pas d'import pendant le déplacement des partitions
+        assertThrows(IllegalStateException.class, () -> importJobService.submit(List.of(Path.of("00000.txt"))));
+
+        assertTrue(importJobService.cancel(job.getId()));
+        assertEquals(ImportJob.Status.CANCELLED, job.getStatus());
+    }
+
+    @Test
+    public void testSubmitIndex_BuiltInBackground(@TempDir Path tempDir) throws Exception {
+        Path source = Files.write(tempDir.resolve("corpus.txt"), List.of(
+                DigestUtils.sha1Hex("stolen-1").toUpperCase() + ":2", DigestUtils.sha1Hex("stolen-2").toUpperCase() + ":1"));
+        Path index = tempDir.resolve("index").resolve("stolen-passwords.sha1");
+
+        ImportJob job = importJobService.submitIndex(List.of(source), index);
+        awaitFinished(job);
+
+        assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+        assertEquals(2, job.getProgress().getRows());
+        assertEquals(1, job.getProgress().getFilesDone());
+        assertTrue(Files.exists(MappedSha1Index.currentFile(index)));
+        // Backend jdbc : aucun index en service, les verdicts mémorisés restent valables
+        verify(eventPublisher, never()).publishEvent(any());
+    }
+
+    @Test
+    public void testSubmitIndex_MappedBackendServesNewGeneration(@TempDir Path tempDir) throws Exception {
+        Path index = tempDir.resolve("stolen-passwords.sha1");
+        new Sha1IndexBuilder().build(List.of(Files.write(tempDir.resolve("old.txt"),
+                List.of(DigestUtils.sha1Hex("stolen-1").toUpperCase() + ":1"))), index);
+        MappedStolenPasswordLookup lookup = new MappedStolenPasswordLookup(index);
+        ImportJobService mapped = new ImportJobService(null, null, null, lookup, eventPublisher);
+        try {
+            Path source = Files.write(tempDir.resolve("new.txt"), List.of(
+                    DigestUtils.sha1Hex("stolen-1").toUpperCase() + ":1", DigestUtils.sha1Hex("stolen-2").toUpperCase() + ":1"));
+            assertFalse(lookup.isStolen(DigestUtils.sha1("stolen-2")));
+
+            ImportJob job = mapped.submitIndex(List.of(source), index);
+            awaitFinished(job);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+            assertTrue(lookup.isStolen(DigestUtils.sha1("stolen-2")));
+            verify(eventPublisher).publishEvent(argThat((Object event) ->
+                    event instanceof StolenPasswordsUpdatedEvent updated && updated.getRows() == 2));
+        } finally {
+            mapped.shutdown();
+        }
+    }
+
+    @Test
+    public void testSubmit_MappedBackendMergesIntoNewGeneration(@TempDir Path tempDir) throws Exception {
+        Path index = tempDir.resolve("stolen-passwords.sha1");
+        new Sha1IndexBuilder().build(List.of(Files.write(tempDir.resolve("old.txt"),
+                List.of(DigestUtils.sha1Hex("stolen-1").toUpperCase() + ":5"))), index);
+        MappedStolenPasswordLookup lookup = new MappedStolenPasswordLookup(index);
+        ImportJobService mapped = new ImportJobService(null, null, null, lookup, eventPublisher);
+        try {
+            Path delta = Files.write(tempDir.resolve("delta.txt"), List.of(
+                    DigestUtils.sha1Hex("stolen-1").toUpperCase() + ":2", DigestUtils.sha1Hex("stolen-2").toUpperCase() + ":1"));
+
+            ImportJob job = mapped.submit(List.of(delta));
+            awaitFinished(job);
+
+            assertEquals(ImportJob.Status.COMPLETED, job.getStatus());
+            assertEquals(2, MappedSha1Index.currentGeneration(index));
+            // L'empreinte déjà présente garde son plus grand compteur, la nouvelle est servie
+            assertEquals(5, lookup.occurrences(DigestUtils.sha1("stolen-1")));
+            assertTrue(lookup.isStolen(DigestUtils.sha1("stolen-2")));
+            verify(eventPublisher).publishEvent(argThat((Object event) ->
+                    event instanceof StolenPasswordsUpdatedEvent updated && updated.getRows() == 1));
+        } finally {
+            mapped.shutdown();
+        }
+    }
+
+    @Test
+    public void testMappedBackend_NoRebalanceNorLegacyConversion() {
+        ImportJobService mapped = new ImportJobService(null, null, null, null, eventPublisher);
+        try {
+            assertThrows(IllegalStateException.class, mapped::submitRebalance);
+            assertThrows(IllegalStateException.class, mapped::submitLegacyConversion);
+        } finally {
+            mapped.shutdown();
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class JdbcStolenPasswordLookupTest {
+
+    @Mock
+    private StolenPasswordTable stolenPasswordTable;
+    @Mock
+    private StolenPasswordFilter stolenPasswordFilter;
+
+    @InjectMocks
+    private JdbcStolenPasswordLookup lookup;
+
+    @Test
+    public void testIsStolen_FoundInDatabase() {
+        byte[] vulnerablePasswordHash = DigestUtils.sha1("E459C969C49BFF2AD4D38C1CF01AC905C2B");
+        when(stolenPasswordFilter.mightContain(aryEq(vulnerablePasswordHash))).thenReturn(true);
+        // Empreinte présente dans la table
+        when(stolenPasswordTable.contains(aryEq(vulnerablePasswordHash))).thenReturn(true);
+
+        assertTrue(lookup.isStolen(DigestUtils.sha1("E459C969C49BFF2AD4D38C1CF01AC905C2B")));
+        verify(stolenPasswordFilter).recordDatabaseVerdict(true);
+    }
+
+    @Test
+    public void testIsStolen_FalsePositiveOfFilter() {
+        byte[] safePasswordHash = DigestUtils.sha1("safePassword123!@");
+        when(stolenPasswordFilter.mightContain(aryEq(safePasswordHash))).thenReturn(true);
+        // Empreinte absente de la table
+        when(stolenPasswordTable.contains(aryEq(safePasswordHash))).thenReturn(false);
+
+        assertFalse(lookup.isStolen(DigestUtils.sha1("safePassword123!@")));
+        verify(stolenPasswordFilter).recordDatabaseVerdict(false);
+    }
+
+    @Test
+    public void testIsStolen_FilteredOutWithoutDatabase() {
+        // Le filtre de Bloom affirme que l'empreinte n'est pas dans la table
+        byte[] safePasswordHash = DigestUtils.sha1("safePassword123!@");
+        when(stolenPasswordFilter.mightContain(aryEq(safePasswordHash))).thenReturn(false);
+
+        assertFalse(lookup.isStolen(DigestUtils.sha1("safePassword123!@")));
+
+        // Aucune requête SQL ne doit être exécutée
+        verifyNoInteractions(stolenPasswordTable);
+        verify(stolenPasswordFilter, never()).recordDatabaseVerdict(anyBoolean());
+    }
+
+    @Test
+    public void testOccurrences_ReadWithPresence() {
+        byte[] vulnerablePasswordHash = DigestUtils.sha1("azerty");
+        when(stolenPasswordFilter.mightContain(aryEq(vulnerablePasswordHash))).thenReturn(true);
+        when(stolenPasswordTable.occurrences(aryEq(vulnerablePasswordHash))).thenReturn(3_053);
+
+        assertEquals(3_053, lookup.occurrences(DigestUtils.sha1("azerty")));
+        verify(stolenPasswordFilter).recordDatabaseVerdict(true);
+        verify(stolenPasswordTable, never()).contains(any());
+    }
+
+    @Test
+    public void testOccurrences_FilteredOutWithoutDatabase() {
+        byte[] safePasswordHash = DigestUtils.sha1("safePassword123!@");
+        when(stolenPasswordFilter.mightContain(aryEq(safePasswordHash))).thenReturn(false);
+
+        assertEquals(0, lookup.occurrences(DigestUtils.sha1("safePassword123!@")));
+        verifyNoInteractions(stolenPasswordTable);
+    }
+
+    @Test
+    public void testAreStolen_SingleQueryForFilterCandidates() {
+        byte[] stolenHash = DigestUtils.sha1("azerty");
+        byte[] falsePositiveHash = DigestUtils.sha1("safePassword123!@");
+        byte[] filteredHash = DigestUtils.sha1("S3cure!Passphrase");
+        when(stolenPasswordFilter.mightContain(aryEq(stolenHash))).thenReturn(true);
+        when(stolenPasswordFilter.mightContain(aryEq(falsePositiveHash))).thenReturn(true);
+        when(stolenPasswordFilter.mightContain(aryEq(filteredHash))).thenReturn(false);
+        // Seuls les deux candidats du filtre sont recherchés ; la base ne renvoie que l'empreinte volée
+        when(stolenPasswordTable.findAll(argThat(candidates -> candidates.size() == 2
+                && Arrays.equals(candidates.get(0), stolenHash)
+                && Arrays.equals(candidates.get(1), falsePositiveHash))))
+                .thenReturn(Set.of(ByteBuffer.wrap(DigestUtils.sha1("azerty"))));
+
+        boolean[] stolen = lookup.areStolen(List.of(filteredHash, stolenHash, falsePositiveHash));
+
+        assertArrayEquals(new boolean[] { false, true, false }, stolen);
+        verify(stolenPasswordFilter).recordDatabaseVerdict(true);
+        verify(stolenPasswordFilter).recordDatabaseVerdict(false);
+    }
+}
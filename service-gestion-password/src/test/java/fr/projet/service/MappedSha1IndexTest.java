@@ -0,0 +1,153 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MappedSha1IndexTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    public void testBuildAndLookup() throws Exception {
+        // Deux fichiers au format pwnedpasswords, avec des doublons entre les fichiers
+        List<String> first = new ArrayList<>();
+        List<String> second = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            first.add(DigestUtils.sha1Hex("stolen-" + i).toUpperCase() + ":" + (i + 1));
+            second.add(DigestUtils.sha1Hex("stolen-" + (i + 2_500)).toUpperCase() + ":3");
+        }
+        Path a = Files.write(tempDir.resolve("a.txt"), first);
+        Path b = Files.write(tempDir.resolve("b.txt"), second);
+        Path index = tempDir.resolve("index/stolen.sha1");
+
+        // Petits blocs pour forcer plusieurs fichiers intermédiaires et la fusion
+        long count = new Sha1IndexBuilder(1_000).build(List.of(a, b), index);
+        assertEquals(7_500, count);
+        assertEquals(7_500L * MappedSha1Index.RECORD_SIZE, Files.size(MappedSha1Index.currentFile(index)));
+
+        MappedSha1Index mapped = MappedSha1Index.open(index);
+        assertEquals(7_500, mapped.size());
+        for (int i = 0; i < 7_500; i++) {
+            assertTrue(mapped.contains(DigestUtils.sha1("stolen-" + i)));
+        }
+        for (int i = 0; i < 1_000; i++) {
+            assertFalse(mapped.contains(DigestUtils.sha1("safe-" + i)));
+        }
+        // Compteurs à la position de l'empreinte ; un doublon garde le plus grand
+        for (int i = 0; i < 7_500; i++) {
+            assertEquals(i < 5_000 ? i + 1 : 3, mapped.occurrences(DigestUtils.sha1("stolen-" + i)));
+        }
+        assertEquals(0, mapped.occurrences(DigestUtils.sha1("safe-0")));
+    }
+
+    @Test
+    public void testOccurrences_LargeAndMissingCounts() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            // Compteurs de 1 à 5 octets une fois encodés, et lignes sans compteur
+            String count = switch (i % 4) {
+                case 0 -> ":" + (i + 1);
+                case 1 -> ":" + (1 << 20) * i;
+                case 2 -> ":" + Integer.MAX_VALUE;
+                default -> "";
+            };
+            lines.add(DigestUtils.sha1Hex("stolen-" + i).toUpperCase() + count);
+        }
+        Path index = tempDir.resolve("stolen.sha1");
+        new Sha1IndexBuilder().build(List.of(Files.write(tempDir.resolve("a.txt"), lines)), index);
+        assertTrue(Files.exists(OccurrenceCounts.path(MappedSha1Index.currentFile(index))));
+
+        MappedSha1Index mapped = MappedSha1Index.open(index);
+        for (int i = 0; i < 300; i++) {
+            int expected = switch (i % 4) {
+                case 0 -> i + 1;
+                case 1 -> Math.max(1, (1 << 20) * i);
+                case 2 -> Integer.MAX_VALUE;
+                // Empreinte volée sans compteur connu
+                default -> 1;
+            };
+            assertEquals(expected, mapped.occurrences(DigestUtils.sha1("stolen-" + i)));
+        }
+
+        // Index construit avant le stockage des compteurs : présence seule
+        Files.delete(OccurrenceCounts.path(MappedSha1Index.currentFile(index)));
+        assertEquals(1, MappedSha1Index.open(index).occurrences(DigestUtils.sha1("stolen-0")));
+    }
+
+    @Test
+    public void testSuffixes_OnePrefixIsOneContiguousRange() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) {
+            lines.add(DigestUtils.sha1Hex("stolen-" + i).toUpperCase() + ":1");
+        }
+        Path index = tempDir.resolve("stolen.sha1");
+        new Sha1IndexBuilder().build(List.of(Files.write(tempDir.resolve("a.txt"), lines)), index);
+        assertTrue(Files.exists(MappedSha1Index.prefixTablePath(MappedSha1Index.currentFile(index))));
+
+        String hash = DigestUtils.sha1Hex("stolen-42").toUpperCase();
+        int prefix = Integer.parseInt(hash.substring(0, 5), 16);
+        List<String> expected = lines.stream()
+                .map(line -> line.substring(0, 40))
+                .filter(h -> h.startsWith(hash.substring(0, 5)))
+                .map(h -> h.substring(5))
+                .sorted()
+                .toList();
+
+        MappedSha1Index mapped = MappedSha1Index.open(index);
+        assertEquals(expected, mapped.suffixes(prefix));
+        assertTrue(mapped.suffixes(prefix).contains(hash.substring(5)));
+
+        // Sans table des préfixes, elle est recalculée à l'ouverture
+        Files.delete(MappedSha1Index.prefixTablePath(MappedSha1Index.currentFile(index)));
+        assertEquals(expected, MappedSha1Index.open(index).suffixes(prefix));
+        assertTrue(MappedSha1Index.open(index).contains(DigestUtils.sha1("stolen-42")));
+    }
+
+    @Test
+    public void testBuild_PublishesNewGenerationAndKeepsPreviousOne() throws Exception {
+        Path index = tempDir.resolve("stolen.sha1");
+        // Index construit avant les générations : lu tant qu'aucun manifeste n'existe
+        new Sha1IndexBuilder().build(List.of(Files.write(tempDir.resolve("a.txt"),
+                List.of(DigestUtils.sha1Hex("stolen-0").toUpperCase() + ":1"))), index);
+        Files.move(MappedSha1Index.currentFile(index), index);
+        Files.delete(MappedSha1Index.currentPath(index));
+        assertEquals(0, MappedSha1Index.currentGeneration(index));
+        MappedSha1Index legacy = MappedSha1Index.open(index);
+
+        List<Path> sources = new ArrayList<>();
+        for (int generation = 1; generation <= 3; generation++) {
+            sources.add(Files.write(tempDir.resolve("g" + generation + ".txt"),
+                    List.of(DigestUtils.sha1Hex("stolen-" + generation).toUpperCase() + ":1")));
+            new Sha1IndexBuilder().build(sources, index);
+            assertEquals(generation, MappedSha1Index.currentGeneration(index));
+            assertEquals(generation, MappedSha1Index.open(index).size());
+        }
+
+        // Seules la génération courante et la précédente restent sur disque
+        assertTrue(Files.exists(MappedSha1Index.generationPath(index, 3)));
+        assertTrue(Files.exists(MappedSha1Index.generationPath(index, 2)));
+        assertFalse(Files.exists(MappedSha1Index.generationPath(index, 1)));
+        assertFalse(Files.exists(OccurrenceCounts.path(MappedSha1Index.generationPath(index, 1))));
+        assertFalse(Files.exists(index));
+        // Une projection déjà ouverte reste lisible après la suppression de ses fichiers
+        assertTrue(legacy.contains(DigestUtils.sha1("stolen-0")));
+    }
+
+    @Test
+    public void testLookup_EmptyIndex() throws Exception {
+        Path index = Files.createFile(tempDir.resolve("empty.sha1"));
+
+        assertFalse(MappedSha1Index.open(index).contains(DigestUtils.sha1("password")));
+    }
+}
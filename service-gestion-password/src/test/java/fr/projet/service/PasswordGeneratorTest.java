@@ -0,0 +1,71 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.StringWriter;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+import fr.projet.policy.PasswordPolicy;
+
+public class PasswordGeneratorTest {
+
+    private final PasswordPolicy policy = PasswordPolicy.defaults();
+
+    @Test
+    public void testGenerate_AcceptedByPolicy() {
+        PasswordGenerator generator = new PasswordGenerator(policy, 12, "");
+
+        for (int i = 0; i < 200; i++) {
+            String password = generator.generate();
+            assertEquals(12, password.length());
+            assertTrue(policy.isStrong(password), password);
+        }
+    }
+
+    @Test
+    public void testGenerate_ConfiguredLengthAndAlphabet() {
+        // Sans caractères ambigus (0/O, 1/l/I) et un seul caractère spécial
+        String alphabet = "ABCDEFGHJKLMNPQRSTUVWXYZabcdefghijkmnopqrstuvwxyz23456789#";
+        PasswordGenerator generator = new PasswordGenerator(policy, 20, alphabet);
+
+        String password = generator.generate();
+
+        assertEquals(20, password.length());
+        for (char c : password.toCharArray()) {
+            assertTrue(alphabet.indexOf(c) >= 0, "caractère hors alphabet : " + c);
+        }
+        assertTrue(password.indexOf('#') >= 0);
+    }
+
+    @Test
+    public void testGenerateBatch_OnePerLine() throws Exception {
+        PasswordGenerator generator = new PasswordGenerator(policy, 14, "");
+        StringWriter out = new StringWriter();
+
+        generator.generate(500, out);
+
+        String[] lines = out.toString().split("\n");
+        assertEquals(500, lines.length);
+        Set<String> distinct = new HashSet<>();
+        for (String line : lines) {
+            assertEquals(14, line.length());
+            assertTrue(policy.isStrong(line), line);
+            distinct.add(line);
+        }
+        assertEquals(500, distinct.size());
+    }
+
+    @Test
+    public void testInvalidConfiguration_Rejected() {
+        // Plus court que la politique
+        assertThrows(IllegalArgumentException.class, () -> new PasswordGenerator(policy, 8, ""));
+        // Aucun caractère spécial de la politique dans l'alphabet
+        assertThrows(IllegalArgumentException.class,
+                () -> new PasswordGenerator(policy, 12, "ABCDEFabcdef012345"));
+    }
+}
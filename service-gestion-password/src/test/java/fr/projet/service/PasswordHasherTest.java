@@ -0,0 +1,77 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import fr.projet.model.PasswordHashingRejectedException;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordHasherTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordHasher hasher;
+
+    @AfterEach
+    public void tearDown() {
+        if (hasher != null) {
+            hasher.shutdown();
+        }
+    }
+
+    @Test
+    public void testHash_ConfiguredCost() {
+        hasher = new PasswordHasher(2, 4, 5, Duration.ofMillis(250), meterRegistry);
+
+        String hash = hasher.hash("kX9#mQ2$vL7!pR");
+
+        assertTrue(hash.startsWith("$2a$05$"));
+        assertTrue(BCrypt.checkpw("kX9#mQ2$vL7!pR", hash));
+        assertEquals(1, meterRegistry.get("password.hashing.duration").timer().count());
+        assertEquals(5.0, meterRegistry.get("password.hashing.cost").gauge().value());
+    }
+
+    @Test
+    public void testCalibrate_AtLeastMinimumCost() {
+        // Cible inatteignable : coût minimal ; cible très large : plafond
+        assertEquals(PasswordHasher.MIN_COST, PasswordHasher.calibrate(Duration.ofNanos(1)));
+        assertEquals(PasswordHasher.MAX_COST, PasswordHasher.calibrate(Duration.ofDays(1)));
+    }
+
+    @Test
+    public void testQueueFull_RejectedWithRetryAfter() throws Exception {
+        hasher = new PasswordHasher(1, 1, 4, Duration.ofMillis(250), meterRegistry);
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) ReflectionTestUtils.getField(hasher, "executor");
+        CountDownLatch release = new CountDownLatch(1);
+        // Le seul thread est occupé et la seule place de la file est prise
+        executor.execute(() -> awaitQuietly(release));
+        executor.execute(() -> awaitQuietly(release));
+
+        try {
+            PasswordHashingRejectedException e = assertThrows(PasswordHashingRejectedException.class,
+                    () -> hasher.hash("kX9#mQ2$vL7!pR"));
+            assertTrue(e.getRetryAfterSeconds() >= 1);
+            assertEquals(1.0, meterRegistry.get("password.hashing.rejected").counter().count());
+            assertEquals(1.0, meterRegistry.get("password.hashing.queue").gauge().value());
+        } finally {
+            release.countDown();
+        }
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
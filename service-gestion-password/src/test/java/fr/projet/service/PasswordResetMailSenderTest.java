@@ -0,0 +1,181 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.icegreen.greenmail.junit5.GreenMailExtension;
+import com.icegreen.greenmail.util.GreenMailUtil;
+import com.icegreen.greenmail.util.ServerSetupTest;
+
+import fr.projet.model.PasswordResetMail;
+import fr.projet.repository.PasswordResetMailRepository;
+import fr.projet.repository.PasswordResetVersionRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.mail.internet.MimeMessage;
+
+public class PasswordResetMailSenderTest {
+
+    // Serveur SMTP local, vidé entre les tests
+    @RegisterExtension
+    static GreenMailExtension greenMail = new GreenMailExtension(ServerSetupTest.SMTP);
+
+    private final PasswordResetMailRepository repository = mock(PasswordResetMailRepository.class);
+    private final PasswordResetVersionRepository versionRepository = mock(PasswordResetVersionRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private PasswordResetMailSender sender;
+
+    @AfterEach
+    public void tearDown() {
+        if (sender != null) {
+            sender.close();
+        }
+    }
+
+    private PasswordResetMailSender newSender(int port, int maxAttempts) {
+        return newSender(port, maxAttempts, null);
+    }
+
+    private PasswordResetMailSender newSender(int port, int maxAttempts, SignedResetTokens signedResetTokens) {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(port);
+        return new PasswordResetMailSender(repository, versionRepository, signedResetTokens, mailSender, 50,
+                maxAttempts, Duration.ofSeconds(30), Duration.ofMinutes(10),
+                Duration.ofMinutes(1), "http://localhost:4200/reset-password?token=", "no-reply@projet.fr", meterRegistry);
+    }
+
+    private void due(PasswordResetMail... mails) {
+        when(repository.claimDue(any(LocalDateTime.class), any(LocalDateTime.class), eq(50))).thenReturn(List.of(mails));
+    }
+
+    @Test
+    public void testSendPending_BatchDeliveredAndDeleted() throws Exception {
+        sender = newSender(ServerSetupTest.SMTP.getPort(), 8);
+        PasswordResetMail first = new PasswordResetMail("alice@example.com", "token-1");
+        PasswordResetMail second = new PasswordResetMail("bob@example.com", "token-2");
+        due(first, second);
+
+        assertEquals(2, sender.sendPending());
+
+        MimeMessage[] received = greenMail.getReceivedMessages();
+        assertEquals(2, received.length);
+        assertEquals("Password Reset Request", received[0].getSubject());
+        assertEquals("alice@example.com", received[0].getAllRecipients()[0].toString());
+        assertTrue(GreenMailUtil.getBody(received[0]).contains("reset-password?token=token-1"));
+        verify(repository).delete(first);
+        verify(repository).delete(second);
+        assertEquals(2.0, meterRegistry.get("password.reset-mail.sent").counter().count());
+    }
+
+    @Test
+    public void testSendPending_SignedMode_TokenIssuedAtSend() throws Exception {
+        SignedResetTokens signedResetTokens = new SignedResetTokens(new byte[32], Duration.ofHours(1),
+                Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC());
+        sender = newSender(ServerSetupTest.SMTP.getPort(), 8, signedResetTokens);
+        when(versionRepository.currentVersion("alice@example.com")).thenReturn(3L);
+        due(new PasswordResetMail("alice@example.com", null));
+
+        assertEquals(1, sender.sendPending());
+
+        String body = GreenMailUtil.getBody(greenMail.getReceivedMessages()[0]);
+        String token = body.substring(body.indexOf("token=") + "token=".length()).trim();
+        SignedResetTokens.Claims claims = signedResetTokens.verify(token);
+        assertEquals("alice@example.com", claims.getEmail());
+        assertEquals(3, claims.getVersion());
+    }
+
+    @Test
+    public void testSendPending_ConnectionReusedAcrossBatches() {
+        sender = newSender(ServerSetupTest.SMTP.getPort(), 8);
+        due(new PasswordResetMail("alice@example.com", "token-1"));
+        sender.sendPending();
+        Object connection = ReflectionTestUtils.getField(sender, "transport");
+
+        due(new PasswordResetMail("bob@example.com", "token-2"));
+        sender.sendPending();
+
+        assertNotNull(connection);
+        assertSame(connection, ReflectionTestUtils.getField(sender, "transport"));
+        assertEquals(2, greenMail.getReceivedMessages().length);
+    }
+
+    @Test
+    public void testSendPending_NothingDue() {
+        sender = newSender(ServerSetupTest.SMTP.getPort(), 8);
+        due();
+
+        assertEquals(0, sender.sendPending());
+        // Aucune connexion ouverte pour rien
+        assertNull(ReflectionTestUtils.getField(sender, "transport"));
+    }
+
+    @Test
+    public void testSendPending_SmtpDown_RetriedLater() {
+        // Aucun serveur sur ce port
+        sender = newSender(ServerSetupTest.SMTP.getPort() + 1, 8);
+        PasswordResetMail mail = new PasswordResetMail("alice@example.com", "token-1");
+        due(mail);
+
+        assertEquals(0, sender.sendPending());
+
+        assertEquals(1, mail.getAttempts());
+        assertEquals(PasswordResetMail.Status.PENDING, mail.getStatus());
+        assertTrue(mail.getNextAttemptAt().isAfter(LocalDateTime.now().plusSeconds(20)));
+        assertNotNull(mail.getLastError());
+        // Token gardé pour la prochaine tentative
+        assertEquals("token-1", mail.getToken());
+        verify(repository).save(mail);
+        verify(repository, never()).delete(any());
+    }
+
+    @Test
+    public void testSendPending_MaxAttempts_Abandoned() {
+        sender = newSender(ServerSetupTest.SMTP.getPort() + 1, 3);
+        PasswordResetMail mail = new PasswordResetMail("alice@example.com", "token-1");
+        mail.setAttempts(2);
+        due(mail);
+
+        sender.sendPending();
+
+        assertEquals(3, mail.getAttempts());
+        assertEquals(PasswordResetMail.Status.FAILED, mail.getStatus());
+        assertNull(mail.getToken());
+        verify(repository).save(mail);
+        assertEquals(1.0, meterRegistry.get("password.reset-mail.failures").counter().count());
+    }
+
+    @Test
+    public void testSendPending_BatchClaimedForLease() {
+        sender = newSender(ServerSetupTest.SMTP.getPort(), 8);
+        due();
+        LocalDateTime before = LocalDateTime.now();
+
+        sender.sendPending();
+
+        // Réservé pour la durée du bail, dans une transaction courte qui précède l'envoi
+        ArgumentCaptor<LocalDateTime> leaseUntil = ArgumentCaptor.forClass(LocalDateTime.class);
+        verify(repository).claimDue(any(LocalDateTime.class), leaseUntil.capture(), eq(50));
+        assertTrue(!leaseUntil.getValue().isBefore(before.plusMinutes(10)));
+    }
+}
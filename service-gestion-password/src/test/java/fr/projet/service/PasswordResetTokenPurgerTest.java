@@ -0,0 +1,64 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+import fr.projet.model.PasswordResetToken;
+import fr.projet.repository.PasswordResetTokenRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordResetTokenPurgerTest {
+
+    private final PasswordResetTokenRepository repository = mock(PasswordResetTokenRepository.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    private static PasswordResetToken expired(String id, LocalDateTime expiryDate) {
+        PasswordResetToken token = new PasswordResetToken("token-" + id, "test@example.com");
+        token.setId(id);
+        token.setExpiryDate(expiryDate);
+        return token;
+    }
+
+    @Test
+    public void testPurgeExpired_KeysetBatches() {
+        PasswordResetTokenPurger purger = new PasswordResetTokenPurger(repository, 2, meterRegistry);
+        LocalDateTime expiry = LocalDateTime.now().minusHours(2);
+        // Lot plein trié par la base : la clé suivante est sa dernière ligne, même si Java classe "B" avant "a"
+        when(repository.deleteExpiredAfter(any(LocalDateTime.class), any(LocalDateTime.class), eq(""), eq(2)))
+                .thenReturn(List.of(expired("a", expiry), expired("B", expiry)));
+        when(repository.deleteExpiredAfter(any(LocalDateTime.class), eq(expiry), eq("B"), eq(2)))
+                .thenReturn(List.of(expired("c", expiry)));
+
+        assertEquals(3, purger.purgeExpired());
+
+        verify(repository, times(2)).deleteExpiredAfter(any(LocalDateTime.class), any(LocalDateTime.class), anyString(), eq(2));
+        assertEquals(3.0, meterRegistry.get("password.reset-token.purged").counter().count());
+    }
+
+    @Test
+    public void testPurgeExpired_NothingExpired() {
+        PasswordResetTokenPurger purger = new PasswordResetTokenPurger(repository, 1000, meterRegistry);
+        when(repository.deleteExpiredAfter(any(LocalDateTime.class), any(LocalDateTime.class), anyString(), eq(1000)))
+                .thenReturn(List.of());
+
+        assertEquals(0, purger.purgeExpired());
+        verify(repository, times(1)).deleteExpiredAfter(any(LocalDateTime.class), any(LocalDateTime.class), anyString(), eq(1000));
+    }
+
+    @Test
+    public void testInvalidBatchSize() {
+        assertThrows(IllegalArgumentException.class, () -> new PasswordResetTokenPurger(repository, 0, meterRegistry));
+    }
+}
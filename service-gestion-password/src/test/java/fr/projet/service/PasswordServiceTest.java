@@ -8,6 +8,7 @@ import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.AdditionalMatchers.aryEq;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.argThat;
@@ -19,33 +20,50 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Optional;
 
 import org.apache.commons.codec.digest.DigestUtils;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
-import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.mail.javamail.JavaMailSender;
 
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import org.springframework.security.crypto.bcrypt.BCrypt;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import fr.projet.DTO.UtilisateurDto;
 import fr.projet.OpenFeign.UserServiceClient;
+import fr.projet.Request.PasswordBatchCheckRequest;
 import fr.projet.Request.PasswordCheckRequest;
+import fr.projet.Request.PasswordEvaluationRequest;
+import fr.projet.Response.PasswordBatchCheckResponse;
 import fr.projet.Response.PasswordCheckResponse;
+import fr.projet.Response.PasswordEvaluationResponse;
 import fr.projet.Response.PasswordGeneratedResponse;
 import fr.projet.model.Password;
+import fr.projet.model.PasswordResetMail;
 import fr.projet.model.PasswordResetToken;
 import fr.projet.model.ResetPasswordException;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.PasswordRepository;
+import fr.projet.repository.PasswordResetMailRepository;
 import fr.projet.repository.PasswordResetTokenRepository;
+import fr.projet.repository.PasswordResetVersionRepository;
 
 
 @ExtendWith(MockitoExtension.class) // Intégration de Mockito avec JUnit 5
@@ -62,10 +80,35 @@ public class PasswordServiceTest {
 
     @Mock
     private UserServiceClient userServiceClient;
-@Mock
-private JavaMailSender javaMailSender;
+    // Cache réel : les verdicts passent par lui sans changer le comportement du service
+    @Spy
+    private PasswordVerdictCache passwordVerdictCache = new PasswordVerdictCache(100, Duration.ofMinutes(1), new SimpleMeterRegistry());
+    @Mock
+    private PasswordResetMailRepository passwordResetMailRepository;
+    @Mock
+    private PasswordResetVersionRepository passwordResetVersionRepository;
     @Mock
-    private JdbcTemplate jdbcTemplate;
+    private StolenPasswordLookup stolenPasswordLookup;
+    // Politique réelle, avec les règles par défaut
+    @Spy
+    private PasswordPolicy passwordPolicy = PasswordPolicy.defaults();
+    // Générateur réel, configuration par défaut
+    @Spy
+    private PasswordGenerator passwordGenerator = new PasswordGenerator(passwordPolicy, 12, "");
+    private SuggestedPasswordPool suggestedPasswordPool;
+    // Hachage réel, coût minimal de BCrypt pour garder des tests rapides
+    @Spy
+    private PasswordHasher passwordHasher = new PasswordHasher(1, 4, 4, Duration.ofMillis(250), new SimpleMeterRegistry());
+
+    @BeforeEach
+    public void setUp() {
+        // Réserve réelle, remplie avant les simulations de chaque test (sources des fuites vides)
+        suggestedPasswordPool = new SuggestedPasswordPool(passwordGenerator, stolenPasswordLookup, 8, new SimpleMeterRegistry());
+        suggestedPasswordPool.refill();
+        ReflectionTestUtils.setField(passwordService, "suggestedPasswordPool", suggestedPasswordPool);
+        // Recherche dans les fuites sur le thread de l'appelant
+        ReflectionTestUtils.setField(passwordService, "breachLookupExecutor", new SyncTaskExecutor());
+    }
     @Test
     public void testCreatePassword_Success() {
         // Données de test
@@ -98,10 +141,10 @@ private JavaMailSender javaMailSender;
         String newPassword = "StrongPassword123@";
         String email = "test@example.com";
 
-        // Mock du comportement de passwordResetTokenRepository.findByToken()
+        // Mock du comportement de passwordResetTokenRepository.consumeByToken()
         PasswordResetToken resetToken = new PasswordResetToken(token, email);
         resetToken.setExpiryDate(LocalDateTime.now().plusHours(1));
-        when(passwordResetTokenRepository.findByToken(token)).thenReturn(Optional.of(resetToken));
+        when(passwordResetTokenRepository.consumeByToken(token)).thenReturn(Optional.of(resetToken));
 
         // Mock du comportement de userServiceClient.getUserByEmail()
         when(userServiceClient.getUserByEmail(email)).thenReturn(new UtilisateurDto( "test@example.com","sdxs1245"));
@@ -110,10 +153,65 @@ private JavaMailSender javaMailSender;
         assertDoesNotThrow(() -> passwordService.resetPassword(token, newPassword));
 
         // Vérifications
-        verify(passwordResetTokenRepository, times(1)).findByToken(token);
+        verify(passwordResetTokenRepository, times(1)).consumeByToken(token);
         verify(userServiceClient, times(1)).getUserByEmail(email);
+        verify(userServiceClient, times(1)).updateUserPassword(eq("sdxs1245"), argThat(hash -> BCrypt.checkpw(newPassword, hash)));
+        // Les tokens signés émis avant un changement de mode ne sont plus acceptés
+        verify(passwordResetVersionRepository).bump(email);
+    }
+    @Test
+    public void testRequestPasswordReset_MailQueuedInOutbox() {
+        passwordService.requestPasswordReset("test@example.com");
+
+        ArgumentCaptor<PasswordResetToken> token = ArgumentCaptor.forClass(PasswordResetToken.class);
+        verify(passwordResetTokenRepository).save(token.capture());
+        // Même token dans le courriel en attente ; aucun envoi pendant la requête
+        ArgumentCaptor<PasswordResetMail> mail = ArgumentCaptor.forClass(PasswordResetMail.class);
+        verify(passwordResetMailRepository).save(mail.capture());
+        assertEquals("test@example.com", mail.getValue().getEmail());
+        assertEquals(token.getValue().getToken(), mail.getValue().getToken());
+        assertEquals(PasswordResetMail.Status.PENDING, mail.getValue().getStatus());
+    }
+
+    // Mode signé (password.reset-token.mode=signed)
+    private void useSignedTokens() {
+        ReflectionTestUtils.setField(passwordService, "signedResetTokens", new SignedResetTokens(new byte[32],
+                Duration.ofHours(1), Duration.ofHours(24), Duration.ofHours(1), Clock.systemUTC()));
+    }
+
+    @Test
+    public void testRequestPasswordReset_SignedToken_NothingStored() {
+        useSignedTokens();
+
+        passwordService.requestPasswordReset("test@example.com");
+
+        ArgumentCaptor<PasswordResetMail> mail = ArgumentCaptor.forClass(PasswordResetMail.class);
+        verify(passwordResetMailRepository).save(mail.capture());
+        verify(passwordResetTokenRepository, never()).save(any());
+        // Pas de token en clair dans l'outbox : il est émis à l'envoi
+        assertEquals("test@example.com", mail.getValue().getEmail());
+        assertNull(mail.getValue().getToken());
+    }
+
+    @Test
+    public void testResetPassword_SignedToken_SingleUse() {
+        useSignedTokens();
+        SignedResetTokens signedResetTokens = (SignedResetTokens) ReflectionTestUtils.getField(passwordService, "signedResetTokens");
+        String token = signedResetTokens.issue("test@example.com", 0);
+        when(userServiceClient.getUserByEmail("test@example.com")).thenReturn(new UtilisateurDto("test@example.com", "sdxs1245"));
+        // La première utilisation fait passer la version à 1, la seconde ne trouve plus la version 0
+        when(passwordResetVersionRepository.advance("test@example.com", 0)).thenReturn(1, 0);
+
+        assertDoesNotThrow(() -> passwordService.resetPassword(token, "kX9#mQ2$vL7!pR"));
+        ResetPasswordException exception = assertThrows(ResetPasswordException.class,
+                () -> passwordService.resetPassword(token, "kX9#mQ2$vL7!pR"));
+
+        assertEquals("Invalid token", exception.getMessage());
+        // Aucune lecture de token en base
+        verify(passwordResetTokenRepository, never()).consumeByToken(anyString());
         verify(userServiceClient, times(1)).updateUserPassword(eq("sdxs1245"), anyString());
     }
+
 @Test
     public void testResetPassword_UserNotFound() {
         // Données de test
@@ -121,10 +219,10 @@ private JavaMailSender javaMailSender;
         String newPassword = "StrongPassword123@";
         String email = "test@example.com";
 
-        // Mock du comportement de passwordResetTokenRepository.findByToken()
+        // Mock du comportement de passwordResetTokenRepository.consumeByToken()
         PasswordResetToken resetToken = new PasswordResetToken(token, email);
         resetToken.setExpiryDate(LocalDateTime.now().plusHours(1));
-        when(passwordResetTokenRepository.findByToken(token)).thenReturn(Optional.of(resetToken));
+        when(passwordResetTokenRepository.consumeByToken(token)).thenReturn(Optional.of(resetToken));
 
         // Mock du comportement de userServiceClient.getUserByEmail()
         when(userServiceClient.getUserByEmail(email)).thenReturn(null); // Utilisateur non trouvé
@@ -135,7 +233,7 @@ private JavaMailSender javaMailSender;
         assertEquals("User with email not found", exception.getMessage());
 
         // Vérifications
-        verify(passwordResetTokenRepository, times(1)).findByToken(token);
+        verify(passwordResetTokenRepository, times(1)).consumeByToken(token);
         verify(userServiceClient, times(1)).getUserByEmail(email);
         verify(userServiceClient, never()).updateUserPassword(anyString(), anyString());
    
@@ -195,6 +293,19 @@ private JavaMailSender javaMailSender;
         assertEquals("User not found", exception.getMessage());
     }
 
+    @Test
+    public void testUpdatePassword_ResetLinksInvalidated() {
+        Password password = new Password();
+        when(passwordRepository.findById("sdxs1245")).thenReturn(Optional.of(password));
+        when(userServiceClient.getUserById("sdxs1245")).thenReturn(new UtilisateurDto("test@example.com", "sdxs1245"));
+
+        passwordService.updatePassword("sdxs1245", "kX9#mQ2$vL7!pR");
+
+        verify(passwordRepository).save(password);
+        // Nouvelle version : les tokens signés déjà envoyés sont refusés
+        verify(passwordResetVersionRepository).bump("test@example.com");
+    }
+
 
  
     @Test
@@ -203,8 +314,8 @@ private JavaMailSender javaMailSender;
         String token = "invalidToken";
         String newPassword = "newPassword12323D@";
 
-        // Mock du comportement de findByToken pour retourner Optional.empty()
-        when(passwordResetTokenRepository.findByToken(eq(token))).thenReturn(Optional.empty());
+        // Mock du comportement de consumeByToken pour retourner Optional.empty()
+        when(passwordResetTokenRepository.consumeByToken(eq(token))).thenReturn(Optional.empty());
 
         // Appel de la méthode à tester et vérification de l'exception
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -227,8 +338,8 @@ private JavaMailSender javaMailSender;
         PasswordResetToken expiredResetToken = new PasswordResetToken(token, "hicham.db@gmail.com");
         ReflectionTestUtils.setField(expiredResetToken, "expiryDate", expiredDate);
 
-        // Mock du comportement de findByToken pour retourner le token expiré
-        when(passwordResetTokenRepository.findByToken(eq(token))).thenReturn(Optional.of(expiredResetToken));
+        // Mock du comportement de consumeByToken pour retourner le token expiré
+        when(passwordResetTokenRepository.consumeByToken(eq(token))).thenReturn(Optional.of(expiredResetToken));
 
         // Appel de la méthode à tester et vérification de l'exception
         RuntimeException exception = assertThrows(RuntimeException.class, () -> {
@@ -257,7 +368,7 @@ private JavaMailSender javaMailSender;
     @Test
     public void testCheckPasswordStrength_PasswordStrong() {
         // Création d'une requête avec un mot de passe fort (respectant tous les critères)
-        PasswordCheckRequest request = new PasswordCheckRequest("StrongPassword123!");
+        PasswordCheckRequest request = new PasswordCheckRequest("kX9#mQ2$vL7!pR");
 
         // Appel de la méthode à tester
         PasswordCheckResponse response = passwordService.checkPasswordStrength(request);
@@ -268,6 +379,15 @@ private JavaMailSender javaMailSender;
     }
 
 
+    @Test
+    public void testCheckPasswordStrength_AllClassesButDictionaryWord() {
+        // Toutes les classes de caractères, mais un mot de passe courant suivi d'une suite : deviné trop vite
+        PasswordCheckResponse response = passwordService.checkPasswordStrength(new PasswordCheckRequest("Password123!!"));
+
+        assertFalse(response.isStrong());
+        assertEquals("Password is weak", response.getMessage());
+    }
+
     @Test
     public void testCheckPasswordStrength_PasswordWeak() {
         // Création d'une requête avec un mot de passe faible (moins de 12 caractères)
@@ -295,38 +415,30 @@ private JavaMailSender javaMailSender;
 
     @Test
     public void testCheckPasswordVulnerability_PasswordIsVulnerable() {
-        // Simuler un hash de mot de passe vulnérable (similaire à celui stocké dans la base de données)
-        String vulnerablePasswordHash = DigestUtils.sha1Hex("E459C969C49BFF2AD4D38C1CF01AC905C2B");
-  // Mock pour retourner un count > 0 (mot de passe vulnérable trouvé)
-  when(jdbcTemplate.queryForObject(
-    eq("SELECT COUNT(*) FROM stolen_password WHERE hash = ?"),
-    eq(Integer.class),
-    eq(vulnerablePasswordHash)))
-    .thenReturn(1);
-
-// Créer une requête avec un mot de passe potentiellement vulnérable
-PasswordCheckRequest request = new PasswordCheckRequest("E459C969C49BFF2AD4D38C1CF01AC905C2B");
-
-// Appeler la méthode à tester
-PasswordCheckResponse response = passwordService.checkPasswordVulnerability(request);
-
-// Vérifier que la réponse indique que le mot de passe est vulnérable
-assertFalse(response.isStrong());
-assertEquals("Password is vulnerable", response.getMessage());
-}
+        // Simuler une empreinte présente dans la source des mots de passe volés
+        byte[] vulnerablePasswordHash = DigestUtils.sha1("E459C969C49BFF2AD4D38C1CF01AC905C2B");
+        when(stolenPasswordLookup.occurrences(aryEq(vulnerablePasswordHash))).thenReturn(3);
 
+        // Créer une requête avec un mot de passe potentiellement vulnérable
+        PasswordCheckRequest request = new PasswordCheckRequest("E459C969C49BFF2AD4D38C1CF01AC905C2B");
 
-@Test
-    public void testCheckPasswordVulnerability_PasswordIsNotVulnerable() {
-        // Simuler un hash de mot de passe non vulnérable
-        String safePasswordHash = DigestUtils.sha1Hex("safePassword123!@");
+        // Appeler la méthode à tester
+        PasswordCheckResponse response = passwordService.checkPasswordVulnerability(request);
 
-        // Mock pour retourner un count == 0 (mot de passe non vulnérable trouvé)
-        when(jdbcTemplate.queryForObject(
-                eq("SELECT COUNT(*) FROM stolen_password WHERE hash = ?"),
-                eq(Integer.class),
-                eq(safePasswordHash)))
-                .thenReturn(0);
+        // Vérifier que la réponse indique que le mot de passe est vulnérable
+        assertFalse(response.isStrong());
+        assertTrue(response.isVulnerable());
+        assertEquals("Password is vulnerable", response.getMessage());
+        // Nombre d'occurrences renvoyé par la même recherche
+        assertEquals(3, response.getOccurrences());
+    }
+
+
+    @Test
+    public void testCheckPasswordVulnerability_PasswordIsNotVulnerable() {
+        // Simuler une empreinte absente de la source des mots de passe volés
+        byte[] safePasswordHash = DigestUtils.sha1("safePassword123!@");
+        when(stolenPasswordLookup.occurrences(aryEq(safePasswordHash))).thenReturn(0);
 
         // Créer une requête avec un mot de passe potentiellement non vulnérable
         PasswordCheckRequest request = new PasswordCheckRequest("safePassword123!@");
@@ -336,7 +448,100 @@ assertEquals("Password is vulnerable", response.getMessage());
 
         // Vérifier que la réponse indique que le mot de passe n'est pas vulnérable
         assertFalse(response.isStrong());
+        assertFalse(response.isVulnerable());
         assertEquals("Password is not found in the list of stolen passwords", response.getMessage());
+        assertEquals(0, response.getOccurrences());
+    }
+
+    @Test
+    public void testCheckPasswordVulnerability_RepeatedCheckServedFromCache() {
+        byte[] vulnerablePasswordHash = DigestUtils.sha1("azerty");
+        when(stolenPasswordLookup.occurrences(aryEq(vulnerablePasswordHash))).thenReturn(120);
+
+        // Inscription puis création du compte : deux vérifications du même mot de passe
+        assertTrue(passwordService.checkPasswordVulnerability(new PasswordCheckRequest("azerty")).isVulnerable());
+        assertTrue(passwordService.checkPasswordVulnerability(new PasswordCheckRequest("azerty")).isVulnerable());
+
+        verify(stolenPasswordLookup, times(1)).occurrences(aryEq(vulnerablePasswordHash));
+    }
+
+    @Test
+    public void testEvaluatePassword_StrongAndSafe() {
+        when(stolenPasswordLookup.occurrences(aryEq(DigestUtils.sha1("kX9#mQ2$vL7!pR")))).thenReturn(0);
+
+        PasswordEvaluationResponse response = passwordService.evaluatePassword(new PasswordEvaluationRequest("kX9#mQ2$vL7!pR", true));
+
+        assertTrue(response.isStrong());
+        assertFalse(response.isVulnerable());
+        assertEquals(0, response.getOccurrences());
+        // Mot de passe accepté : aucune suggestion, même demandée
+        assertNull(response.getSuggestedPassword());
+    }
+
+    @Test
+    public void testEvaluatePassword_VulnerableWithSuggestion() {
+        // Fort selon les règles mais présent dans les fuites
+        when(stolenPasswordLookup.occurrences(aryEq(DigestUtils.sha1("vGM*6$eTswFA")))).thenReturn(57);
+
+        PasswordEvaluationResponse response = passwordService.evaluatePassword(new PasswordEvaluationRequest("vGM*6$eTswFA", true));
+
+        assertTrue(response.isStrong());
+        assertTrue(response.isVulnerable());
+        assertEquals(57, response.getOccurrences());
+        assertEquals("Password is vulnerable", response.getMessage());
+        assertEquals(12, response.getSuggestedPassword().length());
+        assertTrue(passwordPolicy.isStrong(response.getSuggestedPassword()));
+        // Servie par la réserve : pas de recherche supplémentaire pendant la requête
+        assertEquals(7, suggestedPasswordPool.available());
+    }
+
+    @Test
+    public void testEvaluatePassword_WeakWithoutSuggestion() {
+        when(stolenPasswordLookup.occurrences(aryEq(DigestUtils.sha1("weak")))).thenReturn(0);
+
+        PasswordEvaluationResponse response = passwordService.evaluatePassword(new PasswordEvaluationRequest("weak", false));
+
+        assertFalse(response.isStrong());
+        assertFalse(response.isVulnerable());
+        assertEquals("Password is weak", response.getMessage());
+        assertNull(response.getSuggestedPassword());
+    }
+
+    @Test
+    public void testEvaluatePassword_LookupFailurePropagated() {
+        when(stolenPasswordLookup.occurrences(any())).thenThrow(new IllegalStateException("base indisponible"));
+
+        // Même exception qu'une vérification séquentielle, pas une CompletionException
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+                () -> passwordService.evaluatePassword(new PasswordEvaluationRequest("kX9#mQ2$vL7!pR", false)));
+        assertEquals("base indisponible", e.getMessage());
+    }
+
+    @Test
+    public void testCheckPasswordsVulnerability_PasswordsInRequestOrder() {
+        when(stolenPasswordLookup.areStolen(argThat(digests -> digests.size() == 2
+                && Arrays.equals(digests.get(0), DigestUtils.sha1("azerty"))
+                && Arrays.equals(digests.get(1), DigestUtils.sha1("safePassword123!@")))))
+                .thenReturn(new boolean[] { true, false });
+
+        PasswordBatchCheckResponse response = passwordService.checkPasswordsVulnerability(
+                new PasswordBatchCheckRequest(List.of("azerty", "safePassword123!@"), null));
+
+        assertEquals(List.of(true, false), response.getVulnerable());
+        assertEquals(1, response.getVulnerableCount());
+    }
+
+    @Test
+    public void testCheckPasswordsVulnerability_Hashes() {
+        // Empreintes fournies par le client, en minuscules ou majuscules
+        when(stolenPasswordLookup.areStolen(argThat(digests -> digests.size() == 1
+                && Arrays.equals(digests.get(0), DigestUtils.sha1("azerty")))))
+                .thenReturn(new boolean[] { true });
+
+        PasswordBatchCheckResponse response = passwordService.checkPasswordsVulnerability(
+                new PasswordBatchCheckRequest(null, List.of(DigestUtils.sha1Hex("azerty").toUpperCase())));
+
+        assertEquals(List.of(true), response.getVulnerable());
     }
 
 
@@ -369,6 +574,8 @@ assertEquals("Password is vulnerable", response.getMessage());
         assertTrue(hasLowercase);
         assertTrue(hasDigit);
         assertTrue(hasSpecialChar);
+        // Accepté aussi par l'estimateur
+        assertTrue(passwordPolicy.isStrong(generatedPassword));
 
         // Vérifier que le mot de passe est mélangé (différent de l'original)
         assertNotEquals(generatedPassword, passwordService.generateStrongPassword());
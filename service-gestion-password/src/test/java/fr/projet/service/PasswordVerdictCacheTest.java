@@ -0,0 +1,55 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class PasswordVerdictCacheTest {
+
+    private SimpleMeterRegistry meterRegistry;
+    private PasswordVerdictCache cache;
+    private AtomicInteger lookups;
+
+    @BeforeEach
+    public void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        cache = new PasswordVerdictCache(100, Duration.ofMinutes(1), meterRegistry);
+        lookups = new AtomicInteger();
+    }
+
+    private int lookup(String password) {
+        lookups.incrementAndGet();
+        return password.equals("azerty") ? 42 : 0;
+    }
+
+    @Test
+    public void testOccurrences_CachedUntilCorpusUpdate() {
+        assertEquals(42, cache.occurrences("azerty", this::lookup));
+        assertEquals(42, cache.occurrences("azerty", this::lookup));
+        assertEquals(0, cache.occurrences("S3cure!Passphrase", this::lookup));
+        assertEquals(2, lookups.get());
+
+        // Un nouvel import peut changer le verdict
+        cache.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(1_000));
+        assertEquals(42, cache.occurrences("azerty", this::lookup));
+        assertEquals(3, lookups.get());
+    }
+
+    @Test
+    public void testHitAndMissMetrics() {
+        cache.occurrences("azerty", this::lookup);
+        cache.occurrences("azerty", this::lookup);
+        cache.occurrences("azerty", this::lookup);
+
+        assertEquals(2.0, meterRegistry.get("cache.gets").tag("cache", "password.verdicts.vulnerable")
+                .tag("result", "hit").functionCounter().count());
+        assertEquals(1.0, meterRegistry.get("cache.gets").tag("cache", "password.verdicts.vulnerable")
+                .tag("result", "miss").functionCounter().count());
+    }
+}
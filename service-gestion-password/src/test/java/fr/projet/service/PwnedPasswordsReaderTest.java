@@ -0,0 +1,117 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class PwnedPasswordsReaderTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Réservoir de lots en mémoire qui conserve une copie des empreintes publiées
+    private static class CollectingSink implements PwnedPasswordsReader.BatchSink {
+        private final Deque<DigestBatch> free = new ArrayDeque<>();
+        private final List<byte[]> digests = new ArrayList<>();
+        private final List<Integer> occurrences = new ArrayList<>();
+        private final List<Long> endOffsets = new ArrayList<>();
+
+        CollectingSink(int batches, int batchSize) {
+            for (int i = 0; i < batches; i++) {
+                free.add(new DigestBatch(batchSize));
+            }
+        }
+
+        @Override
+        public DigestBatch acquire() {
+            return free.pop();
+        }
+
+        @Override
+        public void publish(DigestBatch batch) {
+            for (int i = 0; i < batch.size(); i++) {
+                byte[] digest = new byte[Sha1Digests.BYTES];
+                System.arraycopy(batch.digests(), i * Sha1Digests.BYTES, digest, 0, Sha1Digests.BYTES);
+                digests.add(digest);
+                occurrences.add(batch.occurrences(i));
+            }
+            endOffsets.add(batch.endOffset());
+            free.push(batch);
+        }
+
+        @Override
+        public void release(DigestBatch batch) {
+            free.push(batch);
+        }
+    }
+
+    @Test
+    public void testRead_LinesSpanningBufferBoundaries() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 1_000; i++) {
+            content.append(DigestUtils.sha1Hex("stolen-" + i).toUpperCase()).append(':').append(i).append("\r\n");
+        }
+        Path file = Files.writeString(tempDir.resolve("a.txt"), content, StandardCharsets.US_ASCII);
+
+        // Tampon volontairement petit pour couper des lignes en deux
+        CollectingSink sink = new CollectingSink(2, 64);
+        long malformed = new PwnedPasswordsReader(100).read(file, 0, sink);
+
+        assertEquals(0, malformed);
+        assertEquals(1_000, sink.digests.size());
+        for (int i = 0; i < 1_000; i++) {
+            assertArrayEquals(DigestUtils.sha1("stolen-" + i), sink.digests.get(i));
+            assertEquals(i, sink.occurrences.get(i));
+        }
+        // Le dernier lot se termine à la fin du fichier
+        assertEquals(Files.size(file), (long) sink.endOffsets.get(sink.endOffsets.size() - 1));
+    }
+
+    @Test
+    public void testRead_SkipsMalformedLinesAndResumesFromOffset() throws Exception {
+        String first = DigestUtils.sha1Hex("first").toUpperCase() + ":12\n";
+        String content = first
+                + "\n"
+                + "not-a-hash\n"
+                + "ZZ" + DigestUtils.sha1Hex("bad").substring(2) + ":3\n"
+                + DigestUtils.sha1Hex("last");
+        Path file = Files.writeString(tempDir.resolve("b.txt"), content, StandardCharsets.US_ASCII);
+
+        CollectingSink sink = new CollectingSink(1, 10);
+        long malformed = new PwnedPasswordsReader().read(file, 0, sink);
+
+        assertEquals(2, malformed);
+        assertEquals(2, sink.digests.size());
+        assertArrayEquals(DigestUtils.sha1("last"), sink.digests.get(1));
+        // Compteur lu après les deux-points, 0 lorsqu'il est absent
+        assertEquals(List.of(12, 0), sink.occurrences);
+
+        // Reprise après la première ligne
+        CollectingSink resumed = new CollectingSink(1, 10);
+        new PwnedPasswordsReader().read(file, first.length(), resumed);
+        assertEquals(1, resumed.digests.size());
+        assertArrayEquals(DigestUtils.sha1("last"), resumed.digests.get(0));
+    }
+
+    @Test
+    public void testRead_CountAboveIntegerRangeIsCapped() throws Exception {
+        Path file = Files.writeString(tempDir.resolve("c.txt"),
+                DigestUtils.sha1Hex("123456").toUpperCase() + ":99999999999\r\n", StandardCharsets.US_ASCII);
+
+        CollectingSink sink = new CollectingSink(1, 10);
+        new PwnedPasswordsReader().read(file, 0, sink);
+
+        assertEquals(List.of(Integer.MAX_VALUE), sink.occurrences);
+    }
+}
@@ -0,0 +1,96 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import org.junit.jupiter.api.Test;
+
+import fr.projet.model.ResetPasswordException;
+
+public class SignedResetTokensTest {
+
+    private static final long DAY = 86_400;
+    private static final byte[] SECRET = new byte[32];
+    // Dix minutes avant une rotation de clé
+    private static final long ISSUED_AT = 100 * DAY + DAY - 600;
+
+    private static SignedResetTokens at(byte[] secret, long epochSecond) {
+        return new SignedResetTokens(secret, Duration.ofHours(1), Duration.ofHours(24), Duration.ofHours(1),
+                Clock.fixed(Instant.ofEpochSecond(epochSecond), ZoneOffset.UTC));
+    }
+
+    private static SignedResetTokens at(long epochSecond) {
+        return at(SECRET, epochSecond);
+    }
+
+    @Test
+    public void testIssueVerify_RoundTrip() {
+        String token = at(ISSUED_AT).issue("alice@example.com", 3);
+
+        SignedResetTokens.Claims claims = at(ISSUED_AT + 60).verify(token);
+
+        assertEquals("alice@example.com", claims.getEmail());
+        assertEquals(3, claims.getVersion());
+        assertEquals(Instant.ofEpochSecond(ISSUED_AT + 3600), claims.getExpiry());
+    }
+
+    @Test
+    public void testVerify_PreviousKeyAcceptedDuringGrace() {
+        String token = at(ISSUED_AT).issue("alice@example.com", 0);
+
+        // Vingt minutes plus tard : nouvelle clé, l'ancienne est encore dans la fenêtre de grâce
+        assertEquals("alice@example.com", at(ISSUED_AT + 1200).verify(token).getEmail());
+    }
+
+    @Test
+    public void testVerify_Expired() {
+        String token = at(ISSUED_AT).issue("alice@example.com", 0);
+
+        ResetPasswordException e = assertThrows(ResetPasswordException.class, () -> at(ISSUED_AT + 3600).verify(token));
+        assertEquals("Token has expired", e.getMessage());
+    }
+
+    @Test
+    public void testVerify_RetiredKeyRejected() {
+        String token = at(ISSUED_AT).issue("alice@example.com", 0);
+
+        ResetPasswordException e = assertThrows(ResetPasswordException.class, () -> at(ISSUED_AT + 2 * DAY).verify(token));
+        assertEquals("Invalid token", e.getMessage());
+    }
+
+    @Test
+    public void testVerify_TamperedOrOtherSecret() {
+        String token = at(ISSUED_AT).issue("alice@example.com", 0);
+        char[] chars = token.toCharArray();
+        chars[30] = chars[30] == 'A' ? 'B' : 'A';
+        byte[] otherSecret = new byte[32];
+        Arrays.fill(otherSecret, (byte) 1);
+
+        assertThrows(ResetPasswordException.class, () -> at(ISSUED_AT).verify(new String(chars)));
+        assertThrows(ResetPasswordException.class, () -> at(otherSecret, ISSUED_AT).verify(token));
+    }
+
+    @Test
+    public void testVerify_StoredTokenIsNotSigned() {
+        // Lien émis avant le passage au mode signé : traité par la table password_reset_token
+        assertNull(at(ISSUED_AT).verify("88e7fa4a-2144-44b0-9777-66ff556af6b4"));
+        assertNull(at(ISSUED_AT).verify("not a token!"));
+    }
+
+    @Test
+    public void testInvalidConfiguration() {
+        Clock clock = Clock.systemUTC();
+        assertThrows(IllegalArgumentException.class, () -> new SignedResetTokens("", Duration.ofHours(1),
+                Duration.ofHours(24), Duration.ofHours(1)));
+        // Fenêtre de grâce plus courte que la validité d'un token
+        assertThrows(IllegalArgumentException.class, () -> new SignedResetTokens(SECRET, Duration.ofHours(1),
+                Duration.ofHours(24), Duration.ofMinutes(10), clock));
+    }
+}
@@ -0,0 +1,155 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.SyncTaskExecutor;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class StolenPasswordFilterTest {
+
+    private final StolenPasswordTable table = mock(StolenPasswordTable.class);
+    private StolenPasswordFilter filter;
+
+    @BeforeEach
+    public void setUp() {
+        // Table contenant seulement « 123456 », reconstruction exécutée sur le thread appelant
+        when(table.count()).thenReturn(1L);
+        when(table.forEach(any())).thenAnswer(invocation -> {
+            invocation.<Consumer<byte[]>>getArgument(0).accept(DigestUtils.sha1("123456"));
+            return 1L;
+        });
+        filter = new StolenPasswordFilter(table, true, 0.001, "", 100, new SyncTaskExecutor(), new SimpleMeterRegistry());
+        filter.requestRebuild();
+    }
+
+    @Test
+    public void testIncrementalImport_VisibleWithoutRebuild() {
+        filter.add(DigestUtils.sha1("azerty"));
+        filter.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(1));
+
+        assertTrue(filter.mightContain(DigestUtils.sha1("azerty")));
+        assertFalse(filter.mightContain(DigestUtils.sha1("kX9#mQ2$vL7!pR")));
+        // Construction initiale seulement
+        verify(table, times(1)).forEach(any());
+    }
+
+    @Test
+    public void testFullImport_BypassedUntilRebuild() {
+        filter.beginFullImport();
+        filter.add(DigestUtils.sha1("azerty"));
+
+        // Filtre contourné : tout passe par la base
+        assertTrue(filter.mightContain(DigestUtils.sha1("kX9#mQ2$vL7!pR")));
+
+        filter.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(1));
+
+        verify(table, times(2)).forEach(any());
+        assertFalse(filter.mightContain(DigestUtils.sha1("kX9#mQ2$vL7!pR")));
+    }
+
+    @Test
+    public void testSaturatedIncrements_BypassedUntilRebuild() {
+        for (int i = 0; i <= 100; i++) {
+            filter.add(DigestUtils.sha1("stolen-" + i));
+        }
+
+        assertTrue(filter.mightContain(DigestUtils.sha1("kX9#mQ2$vL7!pR")));
+        filter.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(101));
+        verify(table, times(2)).forEach(any());
+    }
+
+    @Test
+    public void testRebuildDuringChecks_NoFalseNegatives() throws Exception {
+        // Table simulée : une empreinte commitée est vue par toute reconstruction qui commence après
+        StolenPasswordTable live = mock(StolenPasswordTable.class);
+        Set<String> rows = ConcurrentHashMap.newKeySet();
+        when(live.count()).thenAnswer(invocation -> (long) rows.size());
+        when(live.forEach(any())).thenAnswer(invocation -> {
+            Consumer<byte[]> action = invocation.getArgument(0);
+            long loaded = 0;
+            for (String row : rows) {
+                action.accept(DigestUtils.sha1(row));
+                loaded++;
+            }
+            return loaded;
+        });
+        StolenPasswordFilter concurrent = new StolenPasswordFilter(live, true, 0.001, "", 100_000,
+                new SyncTaskExecutor(), new SimpleMeterRegistry());
+        concurrent.rebuild();
+
+        List<String> committed = new CopyOnWriteArrayList<>();
+        AtomicBoolean running = new AtomicBoolean(true);
+        AtomicInteger misses = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            // Import incrémental : ajout au filtre puis commit, comme CopyStolenPasswordWriter
+            Future<?> writer = executor.submit(() -> {
+                for (int i = 0; running.get() && i < 20_000; i++) {
+                    String password = "stolen-" + i;
+                    concurrent.beginWrite();
+                    try {
+                        concurrent.add(DigestUtils.sha1(password));
+                        rows.add(password);
+                    } finally {
+                        concurrent.endWrite();
+                    }
+                    committed.add(password);
+                }
+            });
+            List<Future<?>> readers = List.of(executor.submit(() -> check(concurrent, committed, running, misses)),
+                    executor.submit(() -> check(concurrent, committed, running, misses)));
+            for (int i = 0; i < 50; i++) {
+                concurrent.rebuild();
+            }
+            running.set(false);
+            writer.get(10, TimeUnit.SECONDS);
+            for (Future<?> reader : readers) {
+                reader.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            running.set(false);
+            executor.shutdownNow();
+        }
+
+        assertEquals(0, misses.get());
+    }
+
+    // Vérifie en boucle des empreintes déjà commitées : aucune ne doit être déclarée absente
+    private static void check(StolenPasswordFilter filter, List<String> committed, AtomicBoolean running,
+            AtomicInteger misses) {
+        while (running.get()) {
+            int size = committed.size();
+            if (size == 0) {
+                continue;
+            }
+            String password = committed.get(ThreadLocalRandom.current().nextInt(size));
+            if (!filter.mightContain(DigestUtils.sha1(password))) {
+                misses.incrementAndGet();
+            }
+        }
+    }
+}
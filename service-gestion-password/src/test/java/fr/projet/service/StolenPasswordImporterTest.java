@@ -0,0 +1,181 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class StolenPasswordImporterTest {
+
+    @TempDir
+    Path tempDir;
+
+    // Points de reprise en mémoire, indexés par nom de fichier
+    private static class InMemoryStateStore implements ImportStateStore {
+        private final Map<String, FileState> states = new ConcurrentHashMap<>();
+
+        @Override
+        public FileState find(String fileName) {
+            return states.get(fileName);
+        }
+
+        @Override
+        public void save(String fileName, FileState state) {
+            states.put(fileName, state);
+        }
+
+        Long offset(String fileName) {
+            FileState state = states.get(fileName);
+            return state == null ? null : state.getCommittedOffset();
+        }
+    }
+
+    private final InMemoryStateStore stateStore = new InMemoryStateStore();
+
+    private Path writeCorpusFile(String name, int lines) throws Exception {
+        List<String> content = new ArrayList<>();
+        for (int i = 0; i < lines; i++) {
+            content.add(DigestUtils.sha1Hex(name + "-" + i).toUpperCase() + ":" + i);
+        }
+        return Files.write(tempDir.resolve(name), content);
+    }
+
+    private static long lastModified(Path file) throws Exception {
+        return Files.getLastModifiedTime(file).toMillis();
+    }
+
+    @Test
+    public void testImportFiles_AllHashesWrittenInParallel() throws Exception {
+        List<Path> files = new ArrayList<>();
+        for (int f = 0; f < 5; f++) {
+            List<String> lines = new ArrayList<>();
+            for (int i = 0; i < 3_000; i++) {
+                lines.add(DigestUtils.sha1Hex("stolen-" + f + "-" + i).toUpperCase() + ":" + i);
+            }
+            files.add(Files.write(tempDir.resolve(f + ".txt"), lines));
+        }
+
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        AtomicInteger batches = new AtomicInteger();
+        StolenPasswordWriter writer = batch -> {
+            batches.incrementAndGet();
+            for (int i = 0; i < batch.size(); i++) {
+                written.add(batch.hex(i));
+            }
+            return batch.size();
+        };
+
+        long rows = new StolenPasswordImporter(writer, stateStore, 3, 4, 500, 2).importFiles(files);
+
+        assertEquals(15_000, rows);
+        assertEquals(15_000, written.size());
+        assertTrue(written.contains(DigestUtils.sha1Hex("stolen-4-2999").toUpperCase()));
+        assertEquals(30, batches.get());
+        // Chaque fichier est enregistré comme terminé
+        for (Path file : files) {
+            assertEquals(Files.size(file), stateStore.offset(file.getFileName().toString()));
+        }
+    }
+
+    @Test
+    public void testImportFiles_WriterErrorDoesNotStopImport() throws Exception {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            lines.add(DigestUtils.sha1Hex("stolen-" + i).toUpperCase() + ":1");
+        }
+        Path file = Files.write(tempDir.resolve("a.txt"), lines);
+
+        AtomicInteger calls = new AtomicInteger();
+        StolenPasswordWriter writer = batch -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new IllegalStateException("connexion perdue");
+            }
+            return batch.size();
+        };
+
+        // Le lot en erreur est compté comme non écrit, les autres passent
+        long rows = new StolenPasswordImporter(writer, stateStore, 1, 1, 100, 1).importFiles(List.of(file));
+        assertEquals(900, rows);
+        // Le premier lot n'étant pas écrit, le fichier sera repris depuis le début
+        assertNull(stateStore.offset("a.txt"));
+    }
+
+    @Test
+    public void testImportFiles_SkipsCompletedFilesAndResumesPartialOnes() throws Exception {
+        Path done = writeCorpusFile("done.txt", 100);
+        Path partial = writeCorpusFile("partial.txt", 100);
+        String firstLine = Files.readAllLines(partial).get(0);
+        stateStore.save("done.txt", new ImportStateStore.FileState(Files.size(done), lastModified(done), Files.size(done), null));
+        stateStore.save("partial.txt", new ImportStateStore.FileState(Files.size(partial), lastModified(partial),
+                firstLine.length() + System.lineSeparator().length(), null));
+
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        StolenPasswordWriter writer = batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                written.add(batch.hex(i));
+            }
+            return batch.size();
+        };
+
+        long rows = new StolenPasswordImporter(writer, stateStore, 2, 2, 10, 2).importFiles(List.of(done, partial));
+
+        assertEquals(99, rows);
+        assertTrue(written.contains(DigestUtils.sha1Hex("partial.txt-99").toUpperCase()));
+        assertFalse(written.contains(DigestUtils.sha1Hex("partial.txt-0").toUpperCase()));
+        assertEquals(Files.size(partial), stateStore.offset("partial.txt"));
+
+        // Un second import n'a plus rien à faire
+        assertEquals(0, new StolenPasswordImporter(writer, stateStore, 2, 2, 10, 2).importFiles(List.of(done, partial)));
+    }
+
+    @Test
+    public void testImportFiles_NewVersionOnlyRewrittenWhenHashesChange() throws Exception {
+        Path same = writeCorpusFile("same.txt", 50);
+        Path grown = writeCorpusFile("grown.txt", 50);
+        Set<String> written = ConcurrentHashMap.newKeySet();
+        StolenPasswordWriter writer = batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                written.add(batch.hex(i));
+            }
+            return batch.size();
+        };
+        new StolenPasswordImporter(writer, stateStore, 2, 2, 10, 2).importFiles(List.of(same, grown));
+        written.clear();
+        // Empreintes calculées pendant la lecture du premier import, sans relecture préalable
+        assertNotNull(stateStore.find("same.txt").getDigestSet());
+        assertNotNull(stateStore.find("grown.txt").getDigestSet());
+
+        // Nouvelle publication : mêmes hachés avec d'autres compteurs, et un fichier enrichi
+        List<String> recounted = new ArrayList<>();
+        for (String line : Files.readAllLines(same)) {
+            recounted.add(line + "0");
+        }
+        Files.write(same, recounted);
+        writeCorpusFile("grown.txt", 60);
+
+        ImportProgress progress = new ImportProgress();
+        new StolenPasswordImporter(writer, stateStore, 2, 2, 10, 2).importFiles(List.of(same, grown), progress);
+
+        assertEquals(1, progress.getFilesUnchanged());
+        assertEquals(2, progress.getFilesDone());
+        assertEquals(60, written.size());
+        assertTrue(written.contains(DigestUtils.sha1Hex("grown.txt-59").toUpperCase()));
+        assertFalse(written.contains(DigestUtils.sha1Hex("same.txt-0").toUpperCase()));
+        assertEquals(Files.size(same), stateStore.offset("same.txt"));
+        assertEquals(Files.size(grown), stateStore.offset("grown.txt"));
+    }
+}
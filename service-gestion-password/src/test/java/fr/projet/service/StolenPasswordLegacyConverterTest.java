@@ -0,0 +1,70 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+@ExtendWith(MockitoExtension.class)
+public class StolenPasswordLegacyConverterTest {
+
+    @Mock
+    private StolenPasswordTable stolenPasswordTable;
+    @Mock
+    private StolenPasswordWriter writer;
+
+    private StolenPasswordLegacyConverter converter;
+
+    @BeforeEach
+    public void setUp() {
+        converter = new StolenPasswordLegacyConverter(stolenPasswordTable, writer, 2);
+    }
+
+    @Test
+    public void testConvert_ResumesAfterRecordedCursor() throws Exception {
+        String lower = DigestUtils.sha1Hex("stolen-1");
+        // Dernière ligne du lot dans l'ordre de la base, quel que soit l'ordre Java des chaînes
+        String last = "not-a-digest";
+        when(stolenPasswordTable.pendingLegacyShards()).thenReturn(List.of(0));
+        when(stolenPasswordTable.legacyCursor(0)).thenReturn("0A");
+        when(stolenPasswordTable.legacyBatch(0, "0A", 2)).thenReturn(List.of(lower, last));
+        when(stolenPasswordTable.legacyBatch(0, last, 2)).thenReturn(List.of());
+        when(writer.write(any(DigestBatch.class))).thenAnswer(invocation -> {
+            DigestBatch batch = invocation.getArgument(0);
+            assertEquals(1, batch.size());
+            assertArrayEquals(DigestUtils.sha1("stolen-1"), Arrays.copyOf(batch.digests(), Sha1Digests.BYTES));
+            return 1;
+        });
+
+        ImportProgress progress = new ImportProgress();
+        assertEquals(1, converter.convert(progress));
+
+        verify(writer).beginFullImport();
+        verify(stolenPasswordTable).saveLegacyCursor(0, last, 2);
+        verify(stolenPasswordTable).finishLegacy(0);
+        assertEquals(1, progress.getMalformedLines());
+        assertEquals(1, progress.getFilesDone());
+    }
+
+    @Test
+    public void testConvert_NothingPending() throws Exception {
+        when(stolenPasswordTable.pendingLegacyShards()).thenReturn(List.of());
+
+        assertEquals(0, converter.convert(new ImportProgress()));
+
+        verify(writer, never()).prepare();
+        verify(writer, never()).beginFullImport();
+    }
+}
@@ -0,0 +1,91 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+public class StolenPasswordShardRouterTest {
+
+    private final JdbcTemplate first = mock(JdbcTemplate.class);
+    private final JdbcTemplate second = mock(JdbcTemplate.class);
+    private final JdbcTemplate third = mock(JdbcTemplate.class);
+
+    @Test
+    public void testOwnerOf_ContiguousRanges() {
+        StolenPasswordShardRouter router = new StolenPasswordShardRouter(List.of(0, 0x40, 0xC0), List.of(first, second, third));
+
+        assertEquals(0, router.ownerOf(0x00));
+        assertEquals(0, router.ownerOf(0x3F));
+        assertEquals(1, router.ownerOf(0x40));
+        assertEquals(1, router.ownerOf(0xBF));
+        assertEquals(2, router.ownerOf(0xFF));
+        assertEquals(0xC0, router.endByte(1));
+        assertEquals(256, router.endByte(2));
+        // azerty : 9c...
+        assertSame(second, router.forDigest(DigestUtils.sha1("azerty")));
+    }
+
+    @Test
+    public void testHolders_StrayPartitionQueriedUntilMoved() {
+        StolenPasswordShardRouter router = new StolenPasswordShardRouter(List.of(0, 0x80), List.of(first, second));
+
+        router.addStray(0x9C, 0);
+        assertTrue(router.hasStrays(0x9C));
+        assertEquals(List.of(1, 0), router.holders(0x9C));
+        assertEquals(List.of(1), router.holders(0x9D));
+
+        router.removeStray(0x9C, 0);
+        assertFalse(router.hasStrays(0x9C));
+        assertEquals(List.of(1), router.holders(0x9C));
+    }
+
+    @Test
+    public void testConstructor_RejectsInvalidRanges() {
+        assertThrows(IllegalArgumentException.class,
+                () -> new StolenPasswordShardRouter(List.of(0x10), List.of(first)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StolenPasswordShardRouter(List.of(0, 0x80, 0x80), List.of(first, second, third)));
+        assertThrows(IllegalArgumentException.class,
+                () -> new StolenPasswordShardRouter(List.of(0, 0x100), List.of(first, second)));
+    }
+
+    @Test
+    public void testReplica_RoundRobinSkipsFailedUntilHealthCheck() {
+        JdbcTemplate replica1 = mock(JdbcTemplate.class);
+        JdbcTemplate replica2 = mock(JdbcTemplate.class);
+        StolenPasswordShardRouter router = new StolenPasswordShardRouter(List.of(0), List.of(first),
+                List.of(List.of(replica1, replica2)));
+
+        assertSame(replica1, router.replica(0));
+        assertSame(replica2, router.replica(0));
+        assertSame(replica1, router.replica(0));
+
+        router.replicaFailed(0, replica1);
+        assertSame(replica2, router.replica(0));
+        assertSame(replica2, router.replica(0));
+        assertEquals(1, router.healthyReplicaCount());
+
+        // replica1 répond de nouveau, replica2 ne répond plus
+        when(replica2.queryForObject("SELECT 1", Integer.class))
+                .thenThrow(new DataAccessResourceFailureException("connexion refusée"));
+        assertEquals(1, router.checkReplicas());
+        assertSame(replica1, router.replica(0));
+        assertSame(replica1, router.replica(0));
+
+        router.replicaFailed(0, replica1);
+        // Plus aucune réplique : lecture sur le primaire
+        assertNull(router.replica(0));
+    }
+}
@@ -0,0 +1,188 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+
+import fr.projet.policy.PasswordPolicy;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+public class SuggestedPasswordPoolTest {
+
+    private final PasswordPolicy policy = PasswordPolicy.defaults();
+    private final PasswordGenerator generator = new PasswordGenerator(policy, 12, "");
+    private final StolenPasswordLookup lookup = mock(StolenPasswordLookup.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    public void testRefill_FillsToCapacity() {
+        // 6 arrondi à 8
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 6, meterRegistry);
+
+        assertEquals(8, pool.refill());
+        assertEquals(8, pool.available());
+        assertEquals(0, pool.refill());
+        assertEquals(8.0, meterRegistry.get("password.suggestions.available").gauge().value());
+    }
+
+    @Test
+    public void testTake_FromPoolWithoutLookup() {
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 4, meterRegistry);
+        pool.refill();
+
+        String password = pool.take();
+
+        assertTrue(policy.isStrong(password));
+        assertEquals(3, pool.available());
+        // Les 4 vérifications du remplissage, aucune pendant take
+        verify(lookup, times(4)).isStolen(any());
+        assertEquals(0.0, meterRegistry.get("password.suggestions.misses").counter().count());
+    }
+
+    @Test
+    public void testRefill_SkipsStolenCandidates() {
+        when(lookup.isStolen(any())).thenReturn(true, false, true, false);
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 2, meterRegistry);
+
+        assertEquals(2, pool.refill());
+        verify(lookup, times(4)).isStolen(any());
+    }
+
+    @Test
+    public void testRefill_CandidateCheckedBeforeCorpusUpdateDropped() {
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 2, meterRegistry);
+        List<byte[]> checked = new ArrayList<>();
+        when(lookup.isStolen(any())).thenAnswer(invocation -> {
+            checked.add(invocation.getArgument(0));
+            if (checked.size() == 1) {
+                // Import terminé pendant la vérification du premier candidat
+                pool.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(1));
+            }
+            return false;
+        });
+
+        assertEquals(2, pool.refill());
+        assertEquals(3, checked.size());
+        for (String password : List.of(pool.poll(), pool.poll())) {
+            assertFalse(Arrays.equals(checked.get(0), DigestUtils.sha1(password)));
+        }
+    }
+
+    @Test
+    public void testTake_EmptyPool_CheckedInline() {
+        when(lookup.isStolen(any())).thenReturn(true, false);
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 4, meterRegistry);
+
+        assertNotNull(pool.take());
+
+        verify(lookup, times(2)).isStolen(any());
+        assertEquals(1.0, meterRegistry.get("password.suggestions.misses").counter().count());
+    }
+
+    @Test
+    public void testTake_EmptyPool_AllCandidatesStolen_NoSuggestion() {
+        when(lookup.isStolen(any())).thenReturn(true);
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 4, meterRegistry);
+
+        // Jamais un mot de passe présent dans les fuites, même le dernier essai
+        assertNull(pool.take());
+
+        verify(lookup, times(5)).isStolen(any());
+    }
+
+    @Test
+    public void testOfferAndPoll_FifoAndBounded() {
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 2, meterRegistry);
+
+        assertTrue(pool.offer("a", 0));
+        assertTrue(pool.offer("b", 0));
+        assertFalse(pool.offer("c", 0));
+        assertEquals("a", pool.poll());
+        assertTrue(pool.offer("c", 0));
+        assertEquals("b", pool.poll());
+        assertEquals("c", pool.poll());
+        assertNull(pool.poll());
+    }
+
+    @Test
+    public void testCorpusUpdated_PoolDrained() {
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 8, meterRegistry);
+        pool.refill();
+
+        pool.onStolenPasswordsUpdated(new StolenPasswordsUpdatedEvent(1_000));
+
+        assertEquals(0, pool.available());
+        assertNull(pool.poll());
+    }
+
+    @Test
+    public void testConcurrentConsumers_EachSuggestionServedOnce() throws Exception {
+        SuggestedPasswordPool pool = new SuggestedPasswordPool(generator, lookup, 1024, meterRegistry);
+        Set<String> offered = ConcurrentHashMap.newKeySet();
+        Set<String> served = ConcurrentHashMap.newKeySet();
+        int consumers = 4;
+        int total = 20_000;
+        ExecutorService executor = Executors.newFixedThreadPool(consumers + 1);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            // Producteur unique, comme le thread de remplissage
+            Future<?> producer = executor.submit(() -> {
+                start.await();
+                for (int i = 0; i < total; i++) {
+                    String password = "suggestion-" + i;
+                    while (!pool.offer(password, 0)) {
+                        Thread.yield();
+                    }
+                    offered.add(password);
+                }
+                return null;
+            });
+            List<Future<Integer>> results = new ArrayList<>();
+            for (int c = 0; c < consumers; c++) {
+                results.add(executor.submit(() -> {
+                    start.await();
+                    int duplicates = 0;
+                    while (served.size() < total) {
+                        String password = pool.poll();
+                        if (password == null) {
+                            Thread.yield();
+                        } else if (!served.add(password)) {
+                            duplicates++;
+                        }
+                    }
+                    return duplicates;
+                }));
+            }
+            start.countDown();
+            producer.get(30, TimeUnit.SECONDS);
+            for (Future<Integer> result : results) {
+                assertEquals(0, result.get(30, TimeUnit.SECONDS));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        assertEquals(offered, served);
+        assertNull(pool.poll());
+    }
+}
@@ -0,0 +1,114 @@
+package fr.projet.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.codec.digest.DigestUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class XorFilterSnapshotTest {
+
+    @TempDir
+    Path directory;
+
+    private static List<byte[]> sortedDigests(String prefix, int count) {
+        List<byte[]> digests = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            digests.add(DigestUtils.sha1(prefix + i));
+        }
+        digests.sort(Arrays::compareUnsigned);
+        return digests;
+    }
+
+    private static XorFilterSnapshot.SortedDigests source(List<byte[]> digests) {
+        return action -> {
+            digests.forEach(action);
+            return digests.size();
+        };
+    }
+
+    @Test
+    public void testMightContain_NoFalseNegatives() throws Exception {
+        List<byte[]> stolen = sortedDigests("stolen-", 50_000);
+        Path file = directory.resolve("stolen.xor.1");
+        XorFilterSnapshot.write(file, 1, source(stolen));
+
+        XorFilterSnapshot snapshot = XorFilterSnapshot.open(file);
+
+        assertEquals(1, snapshot.version());
+        assertEquals(50_000, snapshot.size());
+        for (byte[] digest : stolen) {
+            assertTrue(snapshot.mightContain(digest));
+        }
+    }
+
+    @Test
+    public void testMightContain_FalsePositiveRateNearOneIn256() throws Exception {
+        Path file = directory.resolve("stolen.xor.1");
+        XorFilterSnapshot.write(file, 1, source(sortedDigests("stolen-", 50_000)));
+        XorFilterSnapshot snapshot = XorFilterSnapshot.open(file);
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100_000; i++) {
+            if (snapshot.mightContain(DigestUtils.sha1("safe-" + i))) {
+                falsePositives++;
+            }
+        }
+
+        // 0,39 % attendus
+        assertTrue(falsePositives < 700, "Trop de faux positifs : " + falsePositives);
+    }
+
+    @Test
+    public void testWrite_DuplicatesCountedOnce() throws Exception {
+        List<byte[]> digests = new ArrayList<>(sortedDigests("stolen-", 100));
+        digests.addAll(sortedDigests("stolen-", 100));
+        digests.sort(Arrays::compareUnsigned);
+        Path file = directory.resolve("stolen.xor.2");
+
+        XorFilterSnapshot.write(file, 2, source(digests));
+
+        assertEquals(100, XorFilterSnapshot.open(file).size());
+    }
+
+    @Test
+    public void testWrite_EmptyTable() throws Exception {
+        Path file = directory.resolve("stolen.xor.1");
+        XorFilterSnapshot.write(file, 1, source(List.of()));
+
+        XorFilterSnapshot snapshot = XorFilterSnapshot.open(file);
+
+        assertEquals(0, snapshot.size());
+        assertFalse(snapshot.mightContain(DigestUtils.sha1("azerty")));
+    }
+
+    @Test
+    public void testWrite_RejectsUnsortedDigests() {
+        List<byte[]> digests = sortedDigests("stolen-", 1_000);
+        Collections.reverse(digests);
+
+        assertThrows(IllegalStateException.class,
+                () -> XorFilterSnapshot.write(directory.resolve("stolen.xor.1"), 1, source(digests)));
+    }
+
+    @Test
+    public void testOpen_TruncatedFileRejected() throws Exception {
+        Path file = directory.resolve("stolen.xor.1");
+        XorFilterSnapshot.write(file, 1, source(sortedDigests("stolen-", 1_000)));
+        byte[] content = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(content, content.length - 1));
+
+        assertThrows(IOException.class, () -> XorFilterSnapshot.open(file));
+    }
+}
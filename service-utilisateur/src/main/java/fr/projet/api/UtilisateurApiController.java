@@ -28,12 +28,12 @@ import fr.projet.feignClient.CompteFeignClient;
 import fr.projet.feignClient.NoteFeignClient;
 import fr.projet.feignClient.PasswordFeignClient;
 import fr.projet.model.Utilisateur;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.UtilisateurRepository;
-import fr.projet.request.PasswordCheckRequest;
+import fr.projet.request.PasswordEvaluationRequest;
 import fr.projet.response.CompteResponse;
 import fr.projet.response.NoteResponse;
-import fr.projet.response.PasswordCheckResponse;
-import fr.projet.response.PasswordGeneratedResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.UtilisateurResponse;
 import fr.projet.service.UtilisateurLogService;
 import fr.projet.service.UtilisateurService;
@@ -62,6 +62,9 @@ private CompteFeignClient compteFeignClient;
 private NoteFeignClient noteFeignClient;
 @Autowired
 private PasswordFeignClient passwordFeignClient;
+// Règles de force évaluées localement (password-policy)
+@Autowired
+private PasswordPolicy passwordPolicy;
 
     @Autowired
     private UtilisateurLogService logService;
@@ -207,22 +210,20 @@ return ResponseEntity.notFound().build();
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("La date de naissance ne peut pas être aujourd'hui.");
         }
 
-        // Vérification de la vulnérabilité du mot de passe
-        PasswordCheckRequest passwordCheckRequest = new PasswordCheckRequest(inscriptionDTO.getPassword());
-        PasswordCheckResponse vulnerabilityResponse = passwordFeignClient.checkPasswordVulnerability(passwordCheckRequest);
-        if (vulnerabilityResponse.isVulnerable()) {
+        // Force vérifiée localement ; vulnérabilité en un seul appel, avec un mot de passe suggéré si trop faible
+        boolean strong = passwordPolicy.isStrong(inscriptionDTO.getPassword());
+        PasswordEvaluationResponse evaluation = passwordFeignClient.evaluatePassword(
+                new PasswordEvaluationRequest(inscriptionDTO.getPassword(), !strong));
+        if (evaluation.isVulnerable()) {
             logService.logWarn("Vulnerable password for user: " + inscriptionDTO.getEmail());
 
             return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe est vulnérable");
         }
 
-        // Vérification de la force du mot de passe
-        PasswordCheckResponse strengthResponse = passwordFeignClient.checkPasswordStrength(passwordCheckRequest);
-        if (!strengthResponse.isStrong()) {
+        if (!strong) {
             logService.logWarn("Password not strong enough for user: " + inscriptionDTO.getEmail());
 
-            PasswordGeneratedResponse generatedResponse = passwordFeignClient.generatePassword();
-            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe n'est pas suffisamment fort. Mot de passe suggéré : " + generatedResponse.getPassword());
+            return ResponseEntity.status(HttpStatus.BAD_REQUEST).body("Le mot de passe n'est pas suffisamment fort. Mot de passe suggéré : " + evaluation.getSuggestedPassword());
         }
 
         // Création de l'utilisateur dans le service utilisateur via Feign Client
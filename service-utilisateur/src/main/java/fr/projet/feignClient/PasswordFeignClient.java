@@ -11,7 +11,9 @@ import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
 import fr.projet.request.PasswordCheckRequest;
+import fr.projet.request.PasswordEvaluationRequest;
 import fr.projet.response.PasswordCheckResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.PasswordGeneratedResponse;
 
 
@@ -32,10 +34,6 @@ public String getPasswordByUserId(@PathVariable("id") String id);
 @PutMapping("/utilisateur/update")
     void updatePassword(@RequestParam("id") String id, @RequestParam("newPassword") String newPassword);
 
-  @PostMapping("/compte/check-strength")
-    PasswordCheckResponse checkPasswordStrength(@RequestBody PasswordCheckRequest request);
-
-
     @PostMapping("/compte/check-vulnerability")
     PasswordCheckResponse checkPasswordVulnerability(@RequestBody PasswordCheckRequest request);
 
@@ -43,6 +41,9 @@ public String getPasswordByUserId(@PathVariable("id") String id);
     @PostMapping("/compte/generate")
     PasswordGeneratedResponse generatePassword();
 
+    // Force, vulnérabilité et mot de passe suggéré en un seul appel
+    @PostMapping("/evaluate")
+    PasswordEvaluationResponse evaluatePassword(@RequestBody PasswordEvaluationRequest request);
 
 
 
@@ -73,13 +74,6 @@ public String getPasswordByUserId(@PathVariable("id") String id);
         }
 
 
-        @Override
-        public PasswordCheckResponse checkPasswordStrength(PasswordCheckRequest request) {
-            // TODO Auto-generated method stub
-            throw new UnsupportedOperationException("Unimplemented method 'checkPasswordStrength'");
-        }
-
-
         @Override
         public PasswordCheckResponse checkPasswordVulnerability(PasswordCheckRequest request) {
             // TODO Auto-generated method stub
@@ -92,6 +86,13 @@ public String getPasswordByUserId(@PathVariable("id") String id);
             // TODO Auto-generated method stub
             throw new UnsupportedOperationException("Unimplemented method 'generatePassword'");
         }
+
+
+        @Override
+        public PasswordEvaluationResponse evaluatePassword(PasswordEvaluationRequest request) {
+            // Pas de verdict par défaut : un mot de passe non évalué ne doit pas être accepté
+            throw new UnsupportedOperationException("Password evaluation unavailable");
+        }
     }
 
 }
@@ -0,0 +1,65 @@
+package fr.projet.response;
+
+public class PasswordEvaluationResponse {
+
+    private boolean strong;
+    private boolean vulnerable;
+    // Nombre d'apparitions du mot de passe dans les fuites connues
+    private int occurrences;
+    private String message;
+    // Renseigné seulement si demandé et si le mot de passe est refusé
+    private String suggestedPassword;
+
+    public PasswordEvaluationResponse() {
+        // Constructeur par défaut nécessaire pour la désérialisation JSON
+    }
+
+    public PasswordEvaluationResponse(boolean strong, boolean vulnerable, int occurrences, String message,
+            String suggestedPassword) {
+        this.strong = strong;
+        this.vulnerable = vulnerable;
+        this.occurrences = occurrences;
+        this.message = message;
+        this.suggestedPassword = suggestedPassword;
+    }
+
+    public boolean isStrong() {
+        return strong;
+    }
+
+    public void setStrong(boolean strong) {
+        this.strong = strong;
+    }
+
+    public boolean isVulnerable() {
+        return vulnerable;
+    }
+
+    public void setVulnerable(boolean vulnerable) {
+        this.vulnerable = vulnerable;
+    }
+
+    public int getOccurrences() {
+        return occurrences;
+    }
+
+    public void setOccurrences(int occurrences) {
+        this.occurrences = occurrences;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+
+    public String getSuggestedPassword() {
+        return suggestedPassword;
+    }
+
+    public void setSuggestedPassword(String suggestedPassword) {
+        this.suggestedPassword = suggestedPassword;
+    }
+}
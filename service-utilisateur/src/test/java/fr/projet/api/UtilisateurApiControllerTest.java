@@ -15,6 +15,7 @@ import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyString;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
@@ -47,10 +48,11 @@ import fr.projet.feignClient.CompteFeignClient;
 import fr.projet.feignClient.NoteFeignClient;
 import fr.projet.feignClient.PasswordFeignClient;
 import fr.projet.model.Utilisateur;
+import fr.projet.policy.PasswordPolicy;
 import fr.projet.repository.UtilisateurRepository;
 import fr.projet.response.CompteResponse;
 import fr.projet.response.NoteResponse;
-import fr.projet.response.PasswordCheckResponse;
+import fr.projet.response.PasswordEvaluationResponse;
 import fr.projet.response.UtilisateurResponse;
 import fr.projet.service.UtilisateurLogService;
 import fr.projet.service.UtilisateurService;
@@ -73,6 +75,9 @@ public class UtilisateurApiControllerTest {
 
     @Mock
     private PasswordFeignClient passwordFeignClient;
+    // Politique réelle, avec les règles par défaut
+    @Spy
+    private PasswordPolicy passwordPolicy = PasswordPolicy.defaults();
     @Mock
     private UtilisateurLogService logService;
 
@@ -291,13 +296,9 @@ public void testInscription_Success() throws Exception {
     // Simulez que l'e-mail n'existe pas déjà dans la base de données
     when(utilisateurRepository.existsByEmail("hajar@test.com")).thenReturn(false);
 
-    // Simulez la réponse de Feign Client pour la vérification de vulnérabilité du mot de passe
-    PasswordCheckResponse vulnerabilityResponse = new PasswordCheckResponse(false, false, "Le mot de passe n'est pas vulnérable");
-    when(passwordFeignClient.checkPasswordVulnerability(any())).thenReturn(vulnerabilityResponse);
-
-    // Simulez la réponse de Feign Client pour la vérification de la force du mot de passe
-    PasswordCheckResponse strengthResponse = new PasswordCheckResponse(true, true, "Le mot de passe est suffisamment fort");
-    when(passwordFeignClient.checkPasswordStrength(any())).thenReturn(strengthResponse);
+    // Simulez la réponse de Feign Client pour l'évaluation du mot de passe : fort et non vulnérable
+    PasswordEvaluationResponse evaluation = new PasswordEvaluationResponse(true, false, 0, "Le mot de passe est suffisamment fort", null);
+    when(passwordFeignClient.evaluatePassword(any())).thenReturn(evaluation);
 
     // Simulez l'enregistrement de l'utilisateur dans la base de données
     Utilisateur utilisateur = new Utilisateur();